@@ -3,6 +3,7 @@ package com.salesmanager.core.model.catalog.category;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -20,6 +21,8 @@ import javax.persistence.TableGenerator;
 import javax.persistence.UniqueConstraint;
 import javax.validation.Valid;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import com.salesmanager.core.constants.SchemaConstant;
@@ -32,7 +35,8 @@ import com.salesmanager.core.model.merchant.MerchantStore;
 @EntityListeners(value = com.salesmanager.core.model.common.audit.AuditListener.class)
 @Table(name = "CATEGORY", schema = SchemaConstant.SALESMANAGER_SCHEMA, uniqueConstraints =
 @UniqueConstraint(columnNames = {"MERCHANT_ID", "CODE"}))
-
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Category extends SalesManagerEntity<Long, Category> implements Auditable {
 
   private static final long serialVersionUID = -846291242449186747L;
@@ -58,6 +62,7 @@ public class Category extends SalesManagerEntity<Long, Category> implements Audi
   @JoinColumn(name = "PARENT_ID")
   private Category parent;
 
+  @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
   @OneToMany(mappedBy = "parent", cascade = CascadeType.REMOVE, orphanRemoval = true)
   private List<Category> categories = new ArrayList<Category>();
 
@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -26,6 +27,8 @@ import javax.persistence.TemporalType;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.Pattern;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.validator.constraints.NotEmpty;
 
@@ -51,6 +54,8 @@ import com.salesmanager.core.model.tax.taxclass.TaxClass;
 @EntityListeners(value = AuditListener.class)
 @Table(name = "PRODUCT", schema = SchemaConstant.SALESMANAGER_SCHEMA, uniqueConstraints =
 @UniqueConstraint(columnNames = {"MERCHANT_ID", "SKU"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Product extends SalesManagerEntity<Long, Product> implements Auditable {
 
   private static final long serialVersionUID = -6228066416290007047L;
@@ -70,6 +75,7 @@ public class Product extends SalesManagerEntity<Long, Product> implements Audita
   @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "product")
   private Set<ProductAvailability> availabilities = new HashSet<ProductAvailability>();
 
+  @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
   @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "product")
   private Set<ProductAttribute> attributes = new HashSet<ProductAttribute>();
 
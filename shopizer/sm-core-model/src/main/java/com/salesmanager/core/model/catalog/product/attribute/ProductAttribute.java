@@ -2,6 +2,7 @@ package com.salesmanager.core.model.catalog.product.attribute;
 
 import java.math.BigDecimal;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -15,6 +16,9 @@ import javax.persistence.TableGenerator;
 import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.salesmanager.core.constants.SchemaConstant;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.generic.SalesManagerEntity;
@@ -29,6 +33,8 @@ import com.salesmanager.core.model.generic.SalesManagerEntity;
         })
     }
 )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class ProductAttribute extends SalesManagerEntity<Long, ProductAttribute> {
 
   private static final long serialVersionUID = -6537491946539803265L;
@@ -0,0 +1,97 @@
+package com.salesmanager.core.model.catalog.product.availability;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.salesmanager.core.constants.SchemaConstant;
+import com.salesmanager.core.model.generic.SalesManagerEntity;
+import com.salesmanager.core.utils.CloneUtils;
+
+/**
+ * Quantity of a product taken from the inventory on behalf of a shopping cart
+ * in checkout. The quantity is already deducted from the product availabilities,
+ * the reservation is either confirmed by an order or released when it expires.
+ */
+@Entity
+@Table(name = "INVENTORY_RESERVATION", schema = SchemaConstant.SALESMANAGER_SCHEMA, indexes = {
+    @Index(name = "INV_RES_REFERENCE_IDX", columnList = "REFERENCE"),
+    @Index(name = "INV_RES_EXPIRATION_IDX", columnList = "DATE_EXPIRATION")})
+public class InventoryReservation extends SalesManagerEntity<Long, InventoryReservation> {
+
+  private static final long serialVersionUID = -3426151265874322410L;
+
+  @Id
+  @Column(name = "INVENTORY_RESERVATION_ID", unique = true, nullable = false)
+  @TableGenerator(name = "TABLE_GEN", table = "SM_SEQUENCER", pkColumnName = "SEQ_NAME", valueColumnName = "SEQ_COUNT", pkColumnValue = "INVENTORY_RES_SEQ_NEXT_VAL")
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "TABLE_GEN")
+  private Long id;
+
+  @Column(name = "REFERENCE", nullable = false)
+  private String reference;
+
+  @Column(name = "PRODUCT_ID", nullable = false)
+  private Long productId;
+
+  @Column(name = "QUANTITY", nullable = false)
+  private Integer quantity = 0;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "DATE_EXPIRATION", nullable = false)
+  private Date expirationDate;
+
+  public InventoryReservation() {
+  }
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  @Override
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getReference() {
+    return reference;
+  }
+
+  public void setReference(String reference) {
+    this.reference = reference;
+  }
+
+  public Long getProductId() {
+    return productId;
+  }
+
+  public void setProductId(Long productId) {
+    this.productId = productId;
+  }
+
+  public Integer getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(Integer quantity) {
+    this.quantity = quantity;
+  }
+
+  public Date getExpirationDate() {
+    return CloneUtils.clone(expirationDate);
+  }
+
+  public void setExpirationDate(Date expirationDate) {
+    this.expirationDate = CloneUtils.clone(expirationDate);
+  }
+
+}
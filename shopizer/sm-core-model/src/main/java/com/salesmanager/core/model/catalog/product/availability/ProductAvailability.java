@@ -4,6 +4,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -21,6 +22,9 @@ import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.salesmanager.core.constants.SchemaConstant;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.price.ProductPrice;
@@ -30,6 +34,8 @@ import com.salesmanager.core.utils.CloneUtils;
 
 @Entity
 @Table(name = "PRODUCT_AVAILABILITY", schema = SchemaConstant.SALESMANAGER_SCHEMA)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ProductAvailability extends SalesManagerEntity<Long, ProductAvailability> {
 
   private static final long serialVersionUID = 7449264635180797762L;
@@ -71,6 +77,7 @@ public class ProductAvailability extends SalesManagerEntity<Long, ProductAvailab
   @Column(name = "QUANTITY_ORD_MAX")
   private Integer productQuantityOrderMax = 0;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   @OneToMany(fetch = FetchType.LAZY, mappedBy = "productAvailability", cascade = CascadeType.ALL)
   private Set<ProductPrice> prices = new HashSet<ProductPrice>();
 
@@ -3,6 +3,7 @@ package com.salesmanager.core.model.catalog.product.manufacturer;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
@@ -19,6 +20,8 @@ import javax.persistence.Table;
 import javax.persistence.TableGenerator;
 import javax.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import com.salesmanager.core.constants.SchemaConstant;
@@ -32,6 +35,8 @@ import com.salesmanager.core.model.merchant.MerchantStore;
 @EntityListeners(value = AuditListener.class)
 @Table(name = "MANUFACTURER", schema = SchemaConstant.SALESMANAGER_SCHEMA, uniqueConstraints =
 @UniqueConstraint(columnNames = {"MERCHANT_ID", "CODE"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Manufacturer extends SalesManagerEntity<Long, Manufacturer> implements Auditable {
 
   private static final long serialVersionUID = 80693964563570099L;
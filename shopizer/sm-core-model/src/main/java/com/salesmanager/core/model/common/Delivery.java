@@ -1,5 +1,7 @@
 package com.salesmanager.core.model.common;
 
+import java.io.Serializable;
+
 import javax.persistence.Column;
 import javax.persistence.Embeddable;
 import javax.persistence.FetchType;
@@ -11,7 +13,9 @@ import com.salesmanager.core.model.reference.country.Country;
 import com.salesmanager.core.model.reference.zone.Zone;
 
 @Embeddable
-public class Delivery {
+public class Delivery implements Serializable {
+
+  private static final long serialVersionUID = 4356416127470347802L;
 
   @Column(name = "DELIVERY_LAST_NAME", length = 64)
   private String lastName;
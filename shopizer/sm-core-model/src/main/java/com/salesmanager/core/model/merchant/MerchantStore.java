@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -21,6 +22,8 @@ import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 import javax.validation.constraints.Pattern;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Email;
 import org.hibernate.validator.constraints.NotEmpty;
 
@@ -35,6 +38,8 @@ import com.salesmanager.core.utils.CloneUtils;
 
 @Entity
 @Table(name = "MERCHANT_STORE", schema = SchemaConstant.SALESMANAGER_SCHEMA)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class MerchantStore extends SalesManagerEntity<Integer, MerchantStore> {
 
   private static final long serialVersionUID = 7671103335743647655L;
@@ -102,6 +107,7 @@ public class MerchantStore extends SalesManagerEntity<Integer, MerchantStore> {
   private Language defaultLanguage;
 
   @NotEmpty
+  @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
   @ManyToMany(fetch = FetchType.LAZY)
   @JoinTable(name = "MERCHANT_LANGUAGE")
   private List<Language> languages = new ArrayList<Language>();
@@ -0,0 +1,125 @@
+package com.salesmanager.core.model.search;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.salesmanager.core.constants.SchemaConstant;
+import com.salesmanager.core.model.generic.SalesManagerEntity;
+import com.salesmanager.core.utils.CloneUtils;
+
+/**
+ * A product to index or to remove from the search index. Changes are written along with the
+ * product and shipped to the search engine in batches, the changes of a same product are
+ * coalesced and only the last one is applied.
+ */
+@Entity
+@Table(name = "PRODUCT_INDEX_CHANGE", schema = SchemaConstant.SALESMANAGER_SCHEMA, indexes = {
+    @Index(name = "PRD_IDX_CHANGE_PRODUCT_IDX", columnList = "PRODUCT_ID")})
+public class ProductIndexChange extends SalesManagerEntity<Long, ProductIndexChange> {
+
+  private static final long serialVersionUID = 2735190478611036452L;
+
+  public final static String INDEX = "INDEX";
+  public final static String DELETE = "DELETE";
+
+  @Id
+  @Column(name = "PRODUCT_INDEX_CHANGE_ID", unique = true, nullable = false)
+  @TableGenerator(name = "TABLE_GEN", table = "SM_SEQUENCER", pkColumnName = "SEQ_NAME", valueColumnName = "SEQ_COUNT", pkColumnValue = "PRD_IDX_CHANGE_SEQ_NEXT_VAL")
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "TABLE_GEN")
+  private Long id;
+
+  @Column(name = "PRODUCT_ID", nullable = false)
+  private Long productId;
+
+  @Column(name = "MERCHANT_ID", nullable = false)
+  private Integer merchantId;
+
+  @Column(name = "STORE_CODE", nullable = false)
+  private String storeCode;
+
+  /**
+   * Language codes of the product descriptions, comma separated. Used for removing a product
+   * that does not exist anymore
+   */
+  @Column(name = "LANGUAGES")
+  private String languages;
+
+  @Column(name = "OPERATION", nullable = false, length = 10)
+  private String operation;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "DATE_CREATED", nullable = false)
+  private Date dateCreated;
+
+  public ProductIndexChange() {
+  }
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  @Override
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getProductId() {
+    return productId;
+  }
+
+  public void setProductId(Long productId) {
+    this.productId = productId;
+  }
+
+  public Integer getMerchantId() {
+    return merchantId;
+  }
+
+  public void setMerchantId(Integer merchantId) {
+    this.merchantId = merchantId;
+  }
+
+  public String getStoreCode() {
+    return storeCode;
+  }
+
+  public void setStoreCode(String storeCode) {
+    this.storeCode = storeCode;
+  }
+
+  public String getLanguages() {
+    return languages;
+  }
+
+  public void setLanguages(String languages) {
+    this.languages = languages;
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  public void setOperation(String operation) {
+    this.operation = operation;
+  }
+
+  public Date getDateCreated() {
+    return CloneUtils.clone(dateCreated);
+  }
+
+  public void setDateCreated(Date dateCreated) {
+    this.dateCreated = CloneUtils.clone(dateCreated);
+  }
+
+}
@@ -0,0 +1,114 @@
+package com.salesmanager.core.model.system;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.salesmanager.core.constants.SchemaConstant;
+import com.salesmanager.core.model.generic.SalesManagerEntity;
+import com.salesmanager.core.utils.CloneUtils;
+
+/**
+ * An authentication token logged out before its expiration. The token is identified by its
+ * SHA-256 digest and refused by all instances until it expires, the row can then be removed.
+ *
+ * A row with the digest ALL is a changed user instead, instances drop the tokens they verified
+ * for that user. The username ALL drops the tokens of all users.
+ */
+@Entity
+@Table(name = "REVOKED_TOKEN", schema = SchemaConstant.SALESMANAGER_SCHEMA, indexes = {
+    @Index(name = "REV_TOKEN_REVOKED_IDX", columnList = "DATE_REVOKED"),
+    @Index(name = "REV_TOKEN_EXPIRATION_IDX", columnList = "DATE_EXPIRATION")})
+public class RevokedToken extends SalesManagerEntity<Long, RevokedToken> {
+
+  private static final long serialVersionUID = 4216784523901286251L;
+
+  public static final String ALL = "*";
+
+  @Id
+  @Column(name = "REVOKED_TOKEN_ID", unique = true, nullable = false)
+  @TableGenerator(name = "TABLE_GEN", table = "SM_SEQUENCER", pkColumnName = "SEQ_NAME", valueColumnName = "SEQ_COUNT", pkColumnValue = "REVOKED_TOKEN_SEQ_NEXT_VAL")
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "TABLE_GEN")
+  private Long id;
+
+  //customer or admin
+  @Column(name = "REALM", length = 20, nullable = false)
+  private String realm;
+
+  @Column(name = "TOKEN_DIGEST", length = 64, nullable = false)
+  private String tokenDigest;
+
+  @Column(name = "USERNAME", nullable = true)
+  private String username;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "DATE_REVOKED", nullable = false)
+  private Date revocationDate;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "DATE_EXPIRATION", nullable = false)
+  private Date expirationDate;
+
+  public RevokedToken() {
+  }
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  @Override
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getRealm() {
+    return realm;
+  }
+
+  public void setRealm(String realm) {
+    this.realm = realm;
+  }
+
+  public String getTokenDigest() {
+    return tokenDigest;
+  }
+
+  public void setTokenDigest(String tokenDigest) {
+    this.tokenDigest = tokenDigest;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public Date getRevocationDate() {
+    return CloneUtils.clone(revocationDate);
+  }
+
+  public void setRevocationDate(Date revocationDate) {
+    this.revocationDate = CloneUtils.clone(revocationDate);
+  }
+
+  public Date getExpirationDate() {
+    return CloneUtils.clone(expirationDate);
+  }
+
+  public void setExpirationDate(Date expirationDate) {
+    this.expirationDate = CloneUtils.clone(expirationDate);
+  }
+
+}
@@ -3,6 +3,7 @@ package com.salesmanager.core.model.tax.taxclass;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -16,6 +17,8 @@ import javax.persistence.Table;
 import javax.persistence.TableGenerator;
 import javax.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import com.salesmanager.core.constants.SchemaConstant;
@@ -27,6 +30,8 @@ import com.salesmanager.core.model.tax.taxrate.TaxRate;
 @Entity
 @Table(name = "TAX_CLASS", schema = SchemaConstant.SALESMANAGER_SCHEMA, uniqueConstraints =
 @UniqueConstraint(columnNames = {"MERCHANT_ID", "TAX_CLASS_CODE"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class TaxClass extends SalesManagerEntity<Long, TaxClass> {
 
   private static final long serialVersionUID = -325750148480212355L;
@@ -0,0 +1,10 @@
+package com.salesmanager.core.modules.order.total;
+
+/**
+ * OrderTotalPostProcessorModule not using the Product of the line items. The product passed to
+ * such a module may be null, products are not loaded when every module is product independent
+ */
+public interface ProductIndependentOrderTotalPostProcessorModule
+    extends OrderTotalPostProcessorModule {
+
+}
@@ -1,66 +1,65 @@
 package com.salesmanager.core.business.configuration;
 
-import org.kie.api.KieServices;
-import org.kie.api.builder.KieBuilder;
-import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.KieModule;
-import org.kie.api.runtime.KieContainer;
-import org.kie.internal.io.ResourceFactory;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.salesmanager.core.business.modules.integration.shipping.impl.ShippingInputParameters;
+import com.salesmanager.core.business.modules.order.total.OrderTotalInputParameters;
+import com.salesmanager.core.business.modules.rules.CompiledDecisionTable;
+import com.salesmanager.core.business.modules.rules.DecisionTableEvaluator;
+import com.salesmanager.core.business.modules.rules.DroolsDecisionTableEvaluator;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+
 @Configuration
 public class DroolsConfiguration {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(DroolsConfiguration.class);
+
   private final static String SHIPPING_CUSTOM = "rules/shipping-custom-rules.xls";
   private final static String SHIPPING_DECISION = "rules/shipping-decision-rules.xls";
   private final static String MANUFACTURER_BASED_PRICING =
       "rules/manufacturer-shipping-ordertotal-rules.xls";
 
   /**
-   * Drools containers defined here TODO used a builder utility instead of repetition
+   * compiled (default) or drools
    */
+  private final static String RULES_ENGINE = "rules.engine";
+  private final static String DROOLS = "drools";
+
+  @Inject
+  private CoreConfiguration coreConfiguration;
+
   /**
-   * This container goes along with shipping custom payment module determines pricing based on
+   * This decision table goes along with shipping custom payment module determines pricing based on
    * different criterias
    */
   @Bean
-  public KieContainer kieShippingCustomContainer() {
-    KieServices kieServices = KieServices.Factory.get();
-
-    KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
-    kieFileSystem.write(ResourceFactory.newClassPathResource(SHIPPING_CUSTOM));
-    KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-    kieBuilder.buildAll();
-    KieModule kieModule = kieBuilder.getKieModule();
-
-    return kieServices.newKieContainer(kieModule.getReleaseId());
+  public DecisionTableEvaluator shippingCustomRules() {
+    return evaluator(SHIPPING_CUSTOM, ShippingInputParameters.class);
   }
 
   @Bean
-  public KieContainer kieShippingDecisionContainer() {
-    KieServices kieServices = KieServices.Factory.get();
-
-    KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
-    kieFileSystem.write(ResourceFactory.newClassPathResource(SHIPPING_DECISION));
-    KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-    kieBuilder.buildAll();
-    KieModule kieModule = kieBuilder.getKieModule();
-
-    return kieServices.newKieContainer(kieModule.getReleaseId());
+  public DecisionTableEvaluator shippingDecisionRules() {
+    return evaluator(SHIPPING_DECISION, ShippingInputParameters.class);
   }
 
   @Bean
-  public KieContainer kieManufacturerBasedPricingContainer() {
-    KieServices kieServices = KieServices.Factory.get();
-
-    KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
-    kieFileSystem.write(ResourceFactory.newClassPathResource(MANUFACTURER_BASED_PRICING));
-    KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-    kieBuilder.buildAll();
-    KieModule kieModule = kieBuilder.getKieModule();
+  public DecisionTableEvaluator manufacturerBasedPricingRules() {
+    return evaluator(MANUFACTURER_BASED_PRICING, OrderTotalInputParameters.class);
+  }
 
-    return kieServices.newKieContainer(kieModule.getReleaseId());
+  private DecisionTableEvaluator evaluator(String resource, Class<?> inputType) {
+    if (DROOLS.equalsIgnoreCase(StringUtils.trim(coreConfiguration.getProperty(RULES_ENGINE)))) {
+      return DroolsDecisionTableEvaluator.fromClasspath(resource);
+    }
+    CompiledDecisionTable table = CompiledDecisionTable.fromClasspath(resource, inputType);
+    LOGGER.debug("Compiled " + table.getRuleCount() + " rules of " + resource);
+    return table;
   }
 
 }
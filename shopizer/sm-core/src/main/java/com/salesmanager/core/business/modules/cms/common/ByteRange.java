@@ -0,0 +1,98 @@
+package com.salesmanager.core.business.modules.cms.common;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A single byte range of a Range header. Several ranges are not supported, the whole content is
+ * sent instead
+ */
+public final class ByteRange {
+
+  /**
+   * The range cannot be satisfied, 416
+   */
+  public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+  private static final String BYTES = "bytes=";
+
+  private final long start;
+  private final long end;
+
+  private ByteRange(long start, long end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Range of a content of a given length, null for the whole content
+   */
+  public static ByteRange parse(String header, long length) {
+
+    if (StringUtils.isBlank(header) || !header.startsWith(BYTES)) {
+      return null;
+    }
+    String spec = header.substring(BYTES.length()).trim();
+    if (spec.indexOf(',') >= 0) {
+      return null;
+    }
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+
+    try {
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+      long start;
+      long end;
+      if (first.isEmpty()) {
+        //suffix, the last n bytes
+        if (last.isEmpty()) {
+          return null;
+        }
+        long suffix = Long.parseLong(last);
+        if (suffix <= 0 || length == 0) {
+          return UNSATISFIABLE;
+        }
+        start = Math.max(0, length - suffix);
+        end = length - 1;
+      } else {
+        start = Long.parseLong(first);
+        end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+        if (start >= length) {
+          return UNSATISFIABLE;
+        }
+        if (end < start) {
+          return null;
+        }
+      }
+      if (start == 0 && end == length - 1) {
+        return null;
+      }
+      return new ByteRange(start, end);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * Last byte, inclusive
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  public long getLength() {
+    return end - start + 1;
+  }
+
+  public String toContentRange(long length) {
+    return new StringBuilder().append("bytes ").append(start).append('-').append(end).append('/')
+        .append(length).toString();
+  }
+
+}
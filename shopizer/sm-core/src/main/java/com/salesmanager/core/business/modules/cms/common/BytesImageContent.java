@@ -0,0 +1,23 @@
+package com.salesmanager.core.business.modules.cms.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Image already held in memory by the CMS, written from the stored array without a copy
+ */
+public class BytesImageContent extends ImageContent {
+
+  private final byte[] bytes;
+
+  public BytesImageContent(String fileName, String mimeType, byte[] bytes, String etag) {
+    super(fileName, mimeType, bytes.length, etag == null ? ContentDigest.etag(bytes) : etag);
+    this.bytes = bytes;
+  }
+
+  @Override
+  public void transferTo(long position, long count, OutputStream out) throws IOException {
+    out.write(bytes, (int) position, (int) count);
+  }
+
+}
@@ -0,0 +1,57 @@
+package com.salesmanager.core.business.modules.cms.common;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Entity tags of CMS files, the quoted SHA-256 of the content
+ */
+public final class ContentDigest {
+
+  private static final String ALGORITHM = "SHA-256";
+
+  private ContentDigest() {
+  }
+
+  /**
+   * Digests what is read through the returned stream
+   */
+  public static DigestInputStream digesting(InputStream inputStream) {
+    return new DigestInputStream(inputStream, newDigest());
+  }
+
+  public static String etag(byte[] bytes) {
+    return quotedHex(newDigest().digest(bytes));
+  }
+
+  public static String etag(DigestInputStream inputStream) {
+    return quotedHex(inputStream.getMessageDigest().digest());
+  }
+
+  /**
+   * Weak tag of content that has no recorded digest
+   */
+  public static String weakEtag(long length, long lastModified) {
+    return new StringBuilder().append("W/\"").append(Long.toHexString(length)).append('-')
+        .append(Long.toHexString(lastModified)).append('"').toString();
+  }
+
+  private static String quotedHex(byte[] digest) {
+    StringBuilder hex = new StringBuilder(digest.length * 2 + 2).append('"');
+    for (byte b : digest) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.append('"').toString();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
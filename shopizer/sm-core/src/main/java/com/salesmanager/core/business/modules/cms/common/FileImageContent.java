@@ -0,0 +1,46 @@
+package com.salesmanager.core.business.modules.cms.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Image of the local file system, sent with FileChannel.transferTo
+ */
+public class FileImageContent extends ImageContent {
+
+  private final File file;
+
+  public FileImageContent(File file, String mimeType, String etag) {
+    super(file.getName(), mimeType, file.length(), etag);
+    this.file = file;
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public void transferTo(long position, long count, OutputStream out) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      WritableByteChannel target = Channels.newChannel(out);
+      long end = position + count;
+      while (position < end) {
+        long sent = channel.transferTo(position, end - position, target);
+        if (sent <= 0) {
+          break;
+        }
+        position += sent;
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+}
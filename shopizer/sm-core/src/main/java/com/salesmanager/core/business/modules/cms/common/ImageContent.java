@@ -0,0 +1,57 @@
+package com.salesmanager.core.business.modules.cms.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An image read from the CMS without loading it in memory. The bytes are written straight from
+ * the underlying store, whole or by range
+ */
+public abstract class ImageContent {
+
+  private final String fileName;
+  private final String mimeType;
+  private final long length;
+  private final String etag;
+
+  protected ImageContent(String fileName, String mimeType, long length, String etag) {
+    this.fileName = fileName;
+    this.mimeType = mimeType;
+    this.length = length;
+    this.etag = etag;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public String getMimeType() {
+    return mimeType;
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Quoted entity tag, a strong tag when the content digest was recorded at upload
+   */
+  public String getEtag() {
+    return etag;
+  }
+
+  /**
+   * The file of the image when it is on the local file system, null otherwise
+   */
+  public File getFile() {
+    return null;
+  }
+
+  /**
+   * Writes count bytes starting at position
+   */
+  public abstract void transferTo(long position, long count, OutputStream out)
+      throws IOException;
+
+}
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import com.salesmanager.core.business.modules.cms.common.AssetsManager;
 
 public interface ProductAssetsManager
-    extends AssetsManager, ProductImageGet, ProductImagePut, ProductImageRemove, Serializable {
+    extends AssetsManager, ProductImageGet, ProductImageContentGet, ProductImagePut,
+    ProductImageRemove, Serializable {
 
 }
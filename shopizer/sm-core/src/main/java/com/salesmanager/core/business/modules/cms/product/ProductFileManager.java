@@ -1,8 +1,16 @@
 package com.salesmanager.core.business.modules.cms.product;
 
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 
 public abstract class ProductFileManager
-    implements ProductImagePut, ProductImageGet, ProductImageRemove {
+    implements ProductImagePut, ProductImageGet, ProductImageContentGet, ProductImageRemove {
+
+  /**
+   * Generated variant of an image closest to a width, the original when none is as wide
+   */
+  public abstract ImageContent getProductImageContent(String merchantStoreCode,
+      String productCode, String imageName, int width) throws ServiceException;
 
 
 }
@@ -1,23 +1,20 @@
 package com.salesmanager.core.business.modules.cms.product;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.net.FileNameMap;
-import java.net.URLConnection;
+import java.io.IOException;
 import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.BytesImageContent;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.utils.CoreConfiguration;
-import com.salesmanager.core.business.utils.ProductImageCropUtils;
-import com.salesmanager.core.business.utils.ProductImageSizeUtils;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.file.ProductImageSize;
 import com.salesmanager.core.model.catalog.product.image.ProductImage;
@@ -37,9 +34,10 @@ public class ProductFileManagerImpl extends ProductFileManager {
 
   private CoreConfiguration configuration;
 
+  private ProductImageProcessor processor;
+
   private final static String PRODUCT_IMAGE_HEIGHT_SIZE = "PRODUCT_IMAGE_HEIGHT_SIZE";
   private final static String PRODUCT_IMAGE_WIDTH_SIZE = "PRODUCT_IMAGE_WIDTH_SIZE";
-  private final static String CROP_UPLOADED_IMAGES = "CROP_UPLOADED_IMAGES";
 
 
   public CoreConfiguration getConfiguration() {
@@ -62,6 +60,18 @@ public class ProductFileManagerImpl extends ProductFileManager {
   }
 
 
+  @PostConstruct
+  public void init() {
+    processor = new ProductImageProcessor(uploadImage, this, configuration);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (processor != null) {
+      processor.shutdown();
+    }
+  }
+
   public void addProductImage(ProductImage productImage, ImageContentFile contentImage)
       throws ServiceException {
 
@@ -69,84 +79,30 @@ public class ProductFileManagerImpl extends ProductFileManager {
 
       /** copy to input stream **/
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      // Fake code simulating the copy
-      // You can generally do better with nio if you need...
-      // And please, unlike me, do something about the Exceptions :D
       byte[] buffer = new byte[1024];
       int len;
       while ((len = contentImage.getFile().read(buffer)) > -1) {
         baos.write(buffer, 0, len);
       }
       baos.flush();
+      byte[] bytes = baos.toByteArray();
 
-      // Open new InputStreams using the recorded bytes
-      // Can be repeated as many times as you wish
-      InputStream is1 = new ByteArrayInputStream(baos.toByteArray());
-      InputStream is2 = new ByteArrayInputStream(baos.toByteArray());
-
-      BufferedImage bufferedImage = ImageIO.read(is2);
-
-      if (bufferedImage == null) {
+      //only the header is read here, the image is decoded by the processor
+      if (!isReadable(bytes)) {
         LOGGER.error("Cannot read image format for " + productImage.getProductImage());
         throw new Exception("Cannot read image format " + productImage.getProductImage());
       }
 
-      // contentImage.setBufferedImage(bufferedImage);
-      contentImage.setFile(is1);
-
       // upload original -- L
+      contentImage.setFile(new ByteArrayInputStream(bytes));
       contentImage.setFileContentType(FileContentType.PRODUCTLG);
       uploadImage.addProductImage(productImage, contentImage);
 
-      /*
-       * //default large InputContentImage largeContentImage = new
-       * InputContentImage(ImageContentType.PRODUCT);
-       * largeContentImage.setFile(contentImage.getFile());
-       * largeContentImage.setDefaultImage(productImage.isDefaultImage());
-       * largeContentImage.setImageName(new
-       * StringBuilder().append("L-").append(productImage.getProductImage()).toString());
-       *
-       *
-       * uploadImage.uploadProductImage(configuration, productImage, largeContentImage);
-       */
-
-      /*
-       * //default small InputContentImage smallContentImage = new
-       * InputContentImage(ImageContentType.PRODUCT);
-       * smallContentImage.setFile(contentImage.getFile());
-       * smallContentImage.setDefaultImage(productImage.isDefaultImage());
-       * smallContentImage.setImageName(new
-       * StringBuilder().append("S-").append(productImage.getProductImage()).toString());
-       *
-       * uploadImage.uploadProductImage(configuration, productImage, smallContentImage);
-       */
-
-      // get template properties file
-
       String slargeImageHeight = configuration.getProperty(PRODUCT_IMAGE_HEIGHT_SIZE);
       String slargeImageWidth = configuration.getProperty(PRODUCT_IMAGE_WIDTH_SIZE);
 
-      // String ssmallImageHeight = configuration.getProperty("SMALL_IMAGE_HEIGHT_SIZE");
-      // String ssmallImageWidth = configuration.getProperty("SMALL_IMAGE_WIDTH_SIZE");
-
       //Resizes
-      if (!StringUtils.isBlank(slargeImageHeight) && !StringUtils.isBlank(slargeImageWidth)) { // &&
-        // !StringUtils.isBlank(ssmallImageHeight)
-        // &&
-        // !StringUtils.isBlank(ssmallImageWidth))
-        // {
-
-        FileNameMap fileNameMap = URLConnection.getFileNameMap();
-
-        String contentType = fileNameMap.getContentTypeFor(contentImage.getFileName());
-        String extension = null;
-        if (contentType != null) {
-          extension = contentType.substring(contentType.indexOf("/") + 1, contentType.length());
-        }
-
-        if (extension == null) {
-          extension = "jpeg";
-        }
+      if (!StringUtils.isBlank(slargeImageHeight) && !StringUtils.isBlank(slargeImageWidth)) {
 
         int largeImageHeight = Integer.parseInt(slargeImageHeight);
         int largeImageWidth = Integer.parseInt(slargeImageWidth);
@@ -159,87 +115,24 @@ public class ProductFileManagerImpl extends ProductFileManager {
           throw new ServiceException(sizeMsg);
         }
 
-        if (!StringUtils.isBlank(configuration.getProperty(CROP_UPLOADED_IMAGES))
-            && configuration.getProperty(CROP_UPLOADED_IMAGES).equals(Constants.TRUE)) {
-          // crop image
-          ProductImageCropUtils utils =
-              new ProductImageCropUtils(bufferedImage, largeImageWidth, largeImageHeight);
-          if (utils.isCropeable()) {
-            bufferedImage = utils.getCroppedImage();
-          }
-        }
-
-        // do not keep a large image for now, just take care of the regular image and a small image
-
-        // resize large
-        // ByteArrayOutputStream output = new ByteArrayOutputStream();
-        BufferedImage largeResizedImage =
-            ProductImageSizeUtils.resizeWithRatio(bufferedImage, largeImageWidth, largeImageHeight);
-
-        File tempLarge =
-            File.createTempFile(new StringBuilder().append(productImage.getProduct().getId())
-                .append("tmpLarge").toString(), "." + extension);
-        ImageIO.write(largeResizedImage, extension, tempLarge);
-
-        FileInputStream isLarge = new FileInputStream(tempLarge);
-
-        // IOUtils.copy(isLarge, output);
-
-        ImageContentFile largeContentImage = new ImageContentFile();
-        largeContentImage.setFileContentType(FileContentType.PRODUCT);
-        largeContentImage.setFileName(productImage.getProductImage());
-        largeContentImage.setFile(isLarge);
-
-        // largeContentImage.setBufferedImage(bufferedImage);
-
-        // largeContentImage.setFile(output);
-        // largeContentImage.setDefaultImage(false);
-        // largeContentImage.setImageName(new
-        // StringBuilder().append("L-").append(productImage.getProductImage()).toString());
-
-        uploadImage.addProductImage(productImage, largeContentImage);
-
-        // output.flush();
-        // output.close();
-
-        tempLarge.delete();
-
-        // now upload original
-
-
-
-        /*
-         * //resize small BufferedImage smallResizedImage = ProductImageSizeUtils.resize(cropped,
-         * smallImageWidth, smallImageHeight); File tempSmall = File.createTempFile(new
-         * StringBuilder().append(productImage.getProduct().getId()).append("tmpSmall").toString(),
-         * "." + extension ); ImageIO.write(smallResizedImage, extension, tempSmall);
-         *
-         * //byte[] is = IOUtils.toByteArray(new FileInputStream(tempSmall));
-         *
-         * FileInputStream isSmall = new FileInputStream(tempSmall);
-         *
-         * output = new ByteArrayOutputStream(); IOUtils.copy(isSmall, output);
-         *
-         *
-         * smallContentImage = new InputContentImage(ImageContentType.PRODUCT);
-         * smallContentImage.setFile(output); smallContentImage.setDefaultImage(false);
-         * smallContentImage.setImageName(new
-         * StringBuilder().append("S-").append(productImage.getProductImage()).toString());
-         *
-         * uploadImage.uploadProductImage(configuration, productImage, smallContentImage);
-         *
-         * output.flush(); output.close();
-         *
-         * tempSmall.delete();
-         */
-
       } else {
         // small will be the same as the original
-        contentImage.setFileContentType(FileContentType.PRODUCT);
-        uploadImage.addProductImage(productImage, contentImage);
+        ImageContentFile smallContentImage = new ImageContentFile();
+        smallContentImage.setFileContentType(FileContentType.PRODUCT);
+        smallContentImage.setFileName(contentImage.getFileName());
+        smallContentImage.setMimeType(contentImage.getMimeType());
+        smallContentImage.setFile(new ByteArrayInputStream(bytes));
+        uploadImage.addProductImage(productImage, smallContentImage);
       }
 
+      //small image and variants generated off the upload request
+      if (processor != null) {
+        processor.submit(productImage.getProduct().getMerchantStore().getCode(),
+            productImage.getProduct().getSku(), productImage.getProductImage());
+      }
 
+    } catch (ServiceException e) {
+      throw e;
     } catch (Exception e) {
       throw new ServiceException(e);
     } finally {
@@ -251,6 +144,17 @@ public class ProductFileManagerImpl extends ProductFileManager {
 
   }
 
+  private boolean isReadable(byte[] bytes) throws IOException {
+    ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes));
+    try {
+      return input != null && ImageIO.getImageReaders(input).hasNext();
+    } finally {
+      if (input != null) {
+        input.close();
+      }
+    }
+  }
+
 
   public OutputContentFile getProductImage(ProductImage productImage) throws ServiceException {
     // will return original
@@ -276,6 +180,15 @@ public class ProductFileManagerImpl extends ProductFileManager {
 
     this.removeImage.removeProductImage(productImage);
 
+    if (processor != null) {
+      for (int width : processor.getWidths()) {
+        ProductImage variant = new ProductImage();
+        variant.setProduct(productImage.getProduct());
+        variant.setProductImage(processor.getVariantName(productImage.getProductImage(), width));
+        this.removeImage.removeProductImage(variant);
+      }
+    }
+
     /*
      * ProductImage large = new ProductImage(); large.setProduct(productImage.getProduct());
      * large.setProductImage("L" + productImage.getProductImage());
@@ -340,5 +253,53 @@ public class ProductFileManagerImpl extends ProductFileManager {
     return getImage.getProductImage(merchantStoreCode, productCode, imageName, size);
   }
 
+  @Override
+  public ImageContent getProductImageContent(String merchantStoreCode, String productCode,
+      String imageName, ProductImageSize size) throws ServiceException {
+    ImageContent image = getStoredImageContent(merchantStoreCode, productCode, imageName, size);
+    if (image == null && size == ProductImageSize.SMALL) {
+      //small image not generated yet
+      image = getStoredImageContent(merchantStoreCode, productCode, imageName,
+          ProductImageSize.LARGE);
+    }
+    return image;
+  }
+
+  @Override
+  public ImageContent getProductImageContent(String merchantStoreCode, String productCode,
+      String imageName, int width) throws ServiceException {
+    if (processor != null) {
+      int variantWidth = processor.getNearestWidth(width);
+      if (variantWidth > 0) {
+        ImageContent variant = getStoredImageContent(merchantStoreCode, productCode,
+            processor.getVariantName(imageName, variantWidth), ProductImageSize.SMALL);
+        if (variant != null) {
+          return variant;
+        }
+      }
+    }
+    return getStoredImageContent(merchantStoreCode, productCode, imageName,
+        ProductImageSize.LARGE);
+  }
+
+  public ProductImageProcessor getProcessor() {
+    return processor;
+  }
+
+  private ImageContent getStoredImageContent(String merchantStoreCode, String productCode,
+      String imageName, ProductImageSize size) throws ServiceException {
+    if (getImage instanceof ProductImageContentGet) {
+      return ((ProductImageContentGet) getImage)
+          .getProductImageContent(merchantStoreCode, productCode, imageName, size);
+    }
+    OutputContentFile image =
+        getImage.getProductImage(merchantStoreCode, productCode, imageName, size);
+    if (image == null || image.getFile() == null) {
+      return null;
+    }
+    return new BytesImageContent(imageName, image.getMimeType(), image.getFile().toByteArray(),
+        null);
+  }
+
 
 }
@@ -0,0 +1,16 @@
+package com.salesmanager.core.business.modules.cms.product;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
+import com.salesmanager.core.model.catalog.product.file.ProductImageSize;
+
+public interface ProductImageContentGet {
+
+  /**
+   * Image to be streamed from the CMS, null when it does not exist
+   */
+  public ImageContent getProductImageContent(final String merchantStoreCode,
+      final String productCode, final String imageName, final ProductImageSize size)
+      throws ServiceException;
+
+}
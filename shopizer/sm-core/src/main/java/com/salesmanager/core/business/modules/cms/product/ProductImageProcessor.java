@@ -0,0 +1,404 @@
+package com.salesmanager.core.business.modules.cms.product;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.salesmanager.core.business.constants.Constants;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.business.utils.ProductImageCropUtils;
+import com.salesmanager.core.business.utils.ProductImageSizeUtils;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.file.ProductImageSize;
+import com.salesmanager.core.model.catalog.product.image.ProductImage;
+import com.salesmanager.core.model.content.FileContentType;
+import com.salesmanager.core.model.content.ImageContentFile;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Generates the small image and the responsive variants of an uploaded product image on a
+ * bounded pool, off the upload request. The original is read back from the CMS, decoded once with
+ * the subsampling the largest target allows and only while the memory budget has room for it.
+ * Variants are stored with the small images as [name]-[width]w.[extension]
+ *
+ * When the queue is full the image is processed by the uploading thread.
+ */
+public class ProductImageProcessor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductImageProcessor.class);
+
+  private final static String PRODUCT_IMAGE_HEIGHT_SIZE = "PRODUCT_IMAGE_HEIGHT_SIZE";
+  private final static String PRODUCT_IMAGE_WIDTH_SIZE = "PRODUCT_IMAGE_WIDTH_SIZE";
+  private final static String CROP_UPLOADED_IMAGES = "CROP_UPLOADED_IMAGES";
+
+  private final static String VARIANT_WIDTHS = "images.variants.widths";
+  private final static String VARIANT_FORMAT = "images.variants.format";
+  private final static String PROCESSING_THREADS = "images.processing.threads";
+  private final static String PROCESSING_QUEUE = "images.processing.queue";
+  private final static String PROCESSING_MEMORY = "images.processing.memory";
+
+  private final static int DEFAULT_THREADS = 2;
+  private final static int DEFAULT_QUEUE = 500;
+  private final static int DEFAULT_MEMORY = 256;//MB
+  private final static String DEFAULT_EXTENSION = "jpeg";
+
+  private final ProductImagePut uploadImage;
+  private final ProductImageContentGet getImage;
+
+  private final int smallWidth;
+  private final int smallHeight;
+  private final boolean crop;
+  private final int[] widths;
+  private final String format;
+
+  //decoded pixels, in KB
+  private final int memoryBudget;
+  private final Semaphore memory;
+
+  private final ThreadPoolExecutor executor;
+
+  private final AtomicLong processed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  public ProductImageProcessor(ProductImagePut uploadImage, ProductImageContentGet getImage,
+      CoreConfiguration configuration) {
+    this.uploadImage = uploadImage;
+    this.getImage = getImage;
+
+    this.smallWidth = intProperty(configuration, PRODUCT_IMAGE_WIDTH_SIZE, 0);
+    this.smallHeight = intProperty(configuration, PRODUCT_IMAGE_HEIGHT_SIZE, 0);
+    this.crop = Constants.TRUE.equals(configuration.getProperty(CROP_UPLOADED_IMAGES));
+    this.widths = widths(configuration.getProperty(VARIANT_WIDTHS));
+    this.format = format(configuration.getProperty(VARIANT_FORMAT));
+
+    this.memoryBudget = Math.max(1, intProperty(configuration, PROCESSING_MEMORY,
+        DEFAULT_MEMORY)) * 1024;
+    this.memory = new Semaphore(memoryBudget, true);
+
+    int threads = Math.max(1, intProperty(configuration, PROCESSING_THREADS, DEFAULT_THREADS));
+    int queue = Math.max(1, intProperty(configuration, PROCESSING_QUEUE, DEFAULT_QUEUE));
+    final AtomicInteger count = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(queue), new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "product-image-" + count.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+          }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Small image expected from the processor, when false the original is used as the small image
+   */
+  public boolean isResizing() {
+    return smallWidth > 0 && smallHeight > 0;
+  }
+
+  /**
+   * Queues the sizes of an image whose original is already in the CMS
+   */
+  public void submit(final String merchantStoreCode, final String productCode,
+      final String imageName) {
+    if (!isResizing() && widths.length == 0) {
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        process(merchantStoreCode, productCode, imageName);
+      }
+    });
+  }
+
+  /**
+   * Generates the small image and the variants narrower than the original
+   */
+  public void process(String merchantStoreCode, String productCode, String imageName) {
+
+    try {
+
+      ImageContent original = getImage.getProductImageContent(merchantStoreCode, productCode,
+          imageName, ProductImageSize.LARGE);
+      if (original == null) {
+        LOGGER.warn("Original of image " + imageName + " of product " + productCode
+            + " not found, no size generated");
+        return;
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) original.getLength());
+      original.transferTo(0, original.getLength(), bytes);
+
+      ImageInputStream input =
+          ImageIO.createImageInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        LOGGER.error("Cannot read image format for " + imageName);
+        failed.incrementAndGet();
+        return;
+      }
+      ImageReader reader = readers.next();
+      BufferedImage image;
+      int originalWidth;
+      int permits;
+      try {
+        reader.setInput(input, true, true);
+        originalWidth = reader.getWidth(0);
+        int originalHeight = reader.getHeight(0);
+
+        int subsampling = subsampling(originalWidth, targetWidth(originalWidth));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+        long decoded = (long) (originalWidth / subsampling + 1)
+            * (originalHeight / subsampling + 1) * 4 / 1024;
+        permits = (int) Math.max(1, Math.min(memoryBudget, decoded));
+        memory.acquire(permits);
+        try {
+          image = reader.read(0, param);
+        } catch (Exception e) {
+          memory.release(permits);
+          throw e;
+        }
+      } finally {
+        reader.dispose();
+        input.close();
+      }
+
+      try {
+        String extension = extension(imageName);
+        if (isResizing()) {
+          BufferedImage small = image;
+          if (crop) {
+            ProductImageCropUtils utils =
+                new ProductImageCropUtils(small, smallWidth, smallHeight);
+            if (utils.isCropeable()) {
+              small = utils.getCroppedImage();
+            }
+          }
+          small = ProductImageSizeUtils.resizeWithRatio(small, smallWidth, smallHeight);
+          upload(merchantStoreCode, productCode, imageName, small, extension);
+        }
+
+        String variantFormat = format == null ? extension : format;
+        for (int width : widths) {
+          if (width >= originalWidth) {
+            break;
+          }
+          BufferedImage variant = ProductImageSizeUtils.resizeWithRatio(image, width, 0);
+          upload(merchantStoreCode, productCode, getVariantName(imageName, width), variant,
+              variantFormat);
+        }
+      } finally {
+        memory.release(permits);
+      }
+
+      processed.incrementAndGet();
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      failed.incrementAndGet();
+      LOGGER.error("Cannot generate the sizes of image " + imageName + " of product "
+          + productCode, e);
+    }
+
+  }
+
+  /**
+   * Configured width closest above the requested width, -1 when only the original is as wide
+   */
+  public int getNearestWidth(int requested) {
+    for (int width : widths) {
+      if (width >= requested) {
+        return width;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * product1.jpg -> product1-640w.jpg, with the extension of the variant format when one is set
+   */
+  public String getVariantName(String imageName, int width) {
+    int dot = imageName.lastIndexOf('.');
+    String base = dot < 0 ? imageName : imageName.substring(0, dot);
+    String extension = dot < 0 ? "" : imageName.substring(dot + 1);
+    if (format != null && !format.equals(extension(imageName))) {
+      extension = "jpeg".equals(format) ? "jpg" : format;
+    }
+    StringBuilder name = new StringBuilder().append(base).append('-').append(width).append('w');
+    if (extension.length() > 0) {
+      name.append('.').append(extension);
+    }
+    return name.toString();
+  }
+
+  public int[] getWidths() {
+    return widths.clone();
+  }
+
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * Largest source pixels step keeping the decoded image at least as wide as the target
+   */
+  public static int subsampling(int originalWidth, int targetWidth) {
+    if (targetWidth <= 0 || targetWidth >= originalWidth) {
+      return 1;
+    }
+    return Math.max(1, originalWidth / targetWidth);
+  }
+
+  //widest image generated from an original
+  private int targetWidth(int originalWidth) {
+    int target = 0;
+    if (isResizing()) {
+      if (crop) {
+        //the crop area is worked out on the whole image
+        return originalWidth;
+      }
+      target = smallWidth;
+    }
+    for (int width : widths) {
+      if (width < originalWidth) {
+        target = Math.max(target, width);
+      }
+    }
+    return target;
+  }
+
+  private void upload(String merchantStoreCode, String productCode, String imageName,
+      BufferedImage image, String imageFormat) throws Exception {
+
+    if (("jpeg".equals(imageFormat) || "jpg".equals(imageFormat))
+        && image.getTransparency() != Transparency.OPAQUE) {
+      image = opaque(image);
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    if (!ImageIO.write(image, imageFormat, output)) {
+      throw new Exception("No image writer for " + imageFormat);
+    }
+
+    MerchantStore store = new MerchantStore();
+    store.setCode(merchantStoreCode);
+    Product product = new Product();
+    product.setSku(productCode);
+    product.setMerchantStore(store);
+    ProductImage productImage = new ProductImage();
+    productImage.setProduct(product);
+    productImage.setProductImage(imageName);
+
+    ImageContentFile contentImage = new ImageContentFile();
+    contentImage.setFileContentType(FileContentType.PRODUCT);
+    contentImage.setFileName(imageName);
+    contentImage.setMimeType(URLConnection.getFileNameMap().getContentTypeFor(imageName));
+    contentImage.setFile(new ByteArrayInputStream(output.toByteArray()));
+    uploadImage.addProductImage(productImage, contentImage);
+  }
+
+  private static BufferedImage opaque(BufferedImage image) {
+    BufferedImage rgb =
+        new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = rgb.createGraphics();
+    g.drawImage(image, 0, 0, Color.WHITE, null);
+    g.dispose();
+    return rgb;
+  }
+
+  //format name of an image file, jpeg when unknown
+  private static String extension(String imageName) {
+    String contentType = URLConnection.getFileNameMap().getContentTypeFor(imageName);
+    if (contentType == null) {
+      return DEFAULT_EXTENSION;
+    }
+    return contentType.substring(contentType.indexOf("/") + 1, contentType.length());
+  }
+
+  private static String format(String value) {
+    if (StringUtils.isBlank(value)) {
+      return null;
+    }
+    String format = value.trim().toLowerCase();
+    if (!ImageIO.getImageWritersByFormatName(format).hasNext()) {
+      LOGGER.warn("No image writer for " + VARIANT_FORMAT + " " + value
+          + ", variants keep the format of the original");
+      return null;
+    }
+    return format;
+  }
+
+  private static int[] widths(String value) {
+    TreeSet<Integer> widths = new TreeSet<Integer>();
+    if (!StringUtils.isBlank(value)) {
+      for (String width : value.split(",")) {
+        try {
+          int w = Integer.parseInt(width.trim());
+          if (w > 0) {
+            widths.add(w);
+          }
+        } catch (NumberFormatException e) {
+          LOGGER.warn("Invalid " + VARIANT_WIDTHS + " " + width);
+        }
+      }
+    }
+    int[] result = new int[widths.size()];
+    int i = 0;
+    for (Integer width : widths) {
+      result[i++] = width;
+    }
+    return result;
+  }
+
+  private static int intProperty(CoreConfiguration configuration, String key, int defaultValue) {
+    String value = configuration.getProperty(key);
+    if (!StringUtils.isBlank(value)) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid " + key + " " + value);
+      }
+    }
+    return defaultValue;
+  }
+
+}
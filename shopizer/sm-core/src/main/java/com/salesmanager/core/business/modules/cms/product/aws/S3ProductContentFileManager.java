@@ -1,6 +1,10 @@
 package com.salesmanager.core.business.modules.cms.product.aws;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +17,7 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -21,7 +26,10 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ContentDigest;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.modules.cms.impl.CMSManager;
+import com.salesmanager.core.business.modules.cms.product.ProductImageContentGet;
 import com.salesmanager.core.business.modules.cms.product.ProductImageGet;
 import com.salesmanager.core.business.modules.cms.product.ProductImagePut;
 import com.salesmanager.core.business.modules.cms.product.ProductImageRemove;
@@ -38,7 +46,7 @@ import com.salesmanager.core.model.content.OutputContentFile;
  * @author carlsamson
  */
 public class S3ProductContentFileManager
-    implements ProductImagePut, ProductImageGet, ProductImageRemove {
+    implements ProductImagePut, ProductImageGet, ProductImageContentGet, ProductImageRemove {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(S3ProductContentFileManager.class);
 
@@ -56,6 +64,9 @@ public class S3ProductContentFileManager
   private final static String SMALL = "SMALL";
   private final static String LARGE = "LARGE";
 
+  //user metadata holding the entity tag recorded at upload
+  private final static String ETAG_METADATA = "content-etag";
+
   private CMSManager cmsManager;
 
   public static S3ProductContentFileManager getInstance() {
@@ -199,11 +210,17 @@ public class S3ProductContentFileManager
       String nodePath = this.nodePath(productImage.getProduct().getMerchantStore().getCode(),
           productImage.getProduct().getSku(), contentImage);
 
+      //images are small, read first so the digest and the length go with the object
+      byte[] imageBytes = IOUtils.toByteArray(contentImage.getFile());
+
       ObjectMetadata metadata = new ObjectMetadata();
       metadata.setContentType(contentImage.getMimeType());
+      metadata.setContentLength(imageBytes.length);
+      metadata.addUserMetadata(ETAG_METADATA, ContentDigest.etag(imageBytes));
 
       PutObjectRequest request = new PutObjectRequest(bucketName,
-          nodePath + productImage.getProductImage(), contentImage.getFile(), metadata);
+          nodePath + productImage.getProductImage(), new ByteArrayInputStream(imageBytes),
+          metadata);
       request.setCannedAcl(CannedAccessControlList.PublicRead);
 
       s3.putObject(request);
@@ -220,6 +237,58 @@ public class S3ProductContentFileManager
   }
 
 
+  @Override
+  public ImageContent getProductImageContent(String merchantStoreCode, String productCode,
+      String imageName, ProductImageSize size) throws ServiceException {
+
+    final String bucketName = bucketName();
+    final String key = new StringBuilder().append(nodePath(merchantStoreCode, productCode))
+        .append(size.name()).append(Constants.SLASH).append(imageName).toString();
+    final AmazonS3 s3 = s3Client();
+
+    try {
+
+      ObjectMetadata metadata = s3.getObjectMetadata(bucketName, key);
+      String etag = metadata.getUserMetaDataOf(ETAG_METADATA);
+      if (StringUtils.isBlank(etag)) {
+        //uploaded before digests were recorded, md5 of a single part upload
+        etag = new StringBuilder().append('"').append(metadata.getETag()).append('"')
+            .toString();
+      }
+      String mimeType = metadata.getContentType();
+      if (StringUtils.isBlank(mimeType)) {
+        mimeType = URLConnection.getFileNameMap().getContentTypeFor(imageName);
+      }
+
+      return new ImageContent(imageName, mimeType, metadata.getContentLength(), etag) {
+        @Override
+        public void transferTo(long position, long count, OutputStream out) throws IOException {
+          if (count <= 0) {
+            return;
+          }
+          S3Object object = s3.getObject(
+              new GetObjectRequest(bucketName, key).withRange(position, position + count - 1));
+          InputStream input = object.getObjectContent();
+          try {
+            IOUtils.copyLarge(input, out);
+          } finally {
+            input.close();
+          }
+        }
+      };
+
+    } catch (AmazonS3Exception e) {
+      if (e.getStatusCode() == 404) {
+        return null;
+      }
+      throw new ServiceException(e);
+    } catch (Exception e) {
+      throw new ServiceException(e);
+    }
+
+  }
+
+
   private Bucket getBucket(String bucket_name) {
     final AmazonS3 s3 = s3Client();
     Bucket named_bucket = null;
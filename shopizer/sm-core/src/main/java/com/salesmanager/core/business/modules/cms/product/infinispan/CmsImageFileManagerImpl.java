@@ -17,6 +17,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.BytesImageContent;
+import com.salesmanager.core.business.modules.cms.common.ContentDigest;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.modules.cms.impl.CMSManager;
 import com.salesmanager.core.business.modules.cms.impl.CacheManager;
 import com.salesmanager.core.business.modules.cms.product.ProductAssetsManager;
@@ -52,6 +55,9 @@ public class CmsImageFileManagerImpl implements ProductAssetsManager {
   private final static String SMALL = "SMALL";
   private final static String LARGE = "LARGE";
 
+  //entity tags of the images of a size node are kept in a sibling node
+  private final static String ETAG_NODE_SUFFIX = "-ETAG";
+
   private String rootName = ROOT_NAME;
 
   private CacheManager cacheManager;
@@ -127,9 +133,12 @@ public class CmsImageFileManagerImpl implements ProductAssetsManager {
 
       ByteArrayOutputStream output = new ByteArrayOutputStream();
       IOUtils.copy(isFile, output);
+      byte[] imageBytes = output.toByteArray();
 
       // object for a given product containing all images
-      productNode.put(contentImage.getFileName(), output.toByteArray());
+      productNode.put(contentImage.getFileName(), imageBytes);
+      this.getNode(nodePath.append(ETAG_NODE_SUFFIX).toString())
+          .put(contentImage.getFileName(), ContentDigest.etag(imageBytes));
 
 
     } catch (Exception e) {
@@ -251,6 +260,12 @@ public class CmsImageFileManagerImpl implements ProductAssetsManager {
       Node<String, Object> productNode = this.getNode(nodePath.toString());
       productNode.remove(productImage.getProductImage());
 
+      nodePath.append(Constants.SLASH);
+      this.getNode(new StringBuilder(nodePath).append(SMALL).append(ETAG_NODE_SUFFIX).toString())
+          .remove(productImage.getProductImage());
+      this.getNode(new StringBuilder(nodePath).append(LARGE).append(ETAG_NODE_SUFFIX).toString())
+          .remove(productImage.getProductImage());
+
 
     } catch (Exception e) {
       throw new ServiceException(e);
@@ -412,6 +427,46 @@ public class CmsImageFileManagerImpl implements ProductAssetsManager {
   }
 
 
+  @Override
+  public ImageContent getProductImageContent(String merchantStoreCode, String productCode,
+      String imageName, ProductImageSize size) throws ServiceException {
+
+    if (cacheManager.getTreeCache() == null) {
+      throw new ServiceException(
+          "CmsImageFileManagerInfinispan has a null cacheManager.getTreeCache()");
+    }
+
+    try {
+
+      StringBuilder nodePath = new StringBuilder();
+      nodePath.append(merchantStoreCode).append(Constants.SLASH).append(productCode)
+          .append(Constants.SLASH).append(size.name());
+
+      byte[] imageBytes = (byte[]) this.getNode(nodePath.toString()).get(imageName);
+      if (imageBytes == null) {
+        return null;
+      }
+
+      Node<String, Object> etagNode =
+          this.getNode(nodePath.append(ETAG_NODE_SUFFIX).toString());
+      String etag = (String) etagNode.get(imageName);
+      if (etag == null) {
+        //uploaded before digests were recorded
+        etag = ContentDigest.etag(imageBytes);
+        etagNode.put(imageName, etag);
+      }
+
+      //the stored array is written as is, it is never modified
+      return new BytesImageContent(imageName,
+          URLConnection.getFileNameMap().getContentTypeFor(imageName), imageBytes, etag);
+
+    } catch (Exception e) {
+      throw new ServiceException(e);
+    }
+
+  }
+
+
   @SuppressWarnings("unchecked")
   private Node<String, Object> getNode(final String node) {
     LOGGER.debug("Fetching node for store {} from Infinispan", node);
@@ -1,7 +1,10 @@
 package com.salesmanager.core.business.modules.cms.product.local;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -12,6 +15,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ContentDigest;
+import com.salesmanager.core.business.modules.cms.common.FileImageContent;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.modules.cms.impl.CMSManager;
 import com.salesmanager.core.business.modules.cms.impl.LocalCacheManagerImpl;
 import com.salesmanager.core.business.modules.cms.product.ProductAssetsManager;
@@ -50,6 +56,9 @@ public class CmsImageFileManagerImpl
 
   private static final String ROOT_CONTAINER = "products";
 
+  //entity tag of an image recorded at upload, next to the image
+  private static final String ETAG_SUFFIX = ".etag";
+
   private String rootName = ROOT_NAME;
 
   private LocalCacheManagerImpl cacheManager;
@@ -117,9 +126,11 @@ public class CmsImageFileManagerImpl
       nodePath.append(Constants.SLASH).append(contentImage.getFileName());
 
       Path path = Paths.get(nodePath.toString());
-      InputStream isFile = contentImage.getFile();
+      DigestInputStream isFile = ContentDigest.digesting(contentImage.getFile());
 
       Files.copy(isFile, path, StandardCopyOption.REPLACE_EXISTING);
+      Files.write(Paths.get(nodePath.append(ETAG_SUFFIX).toString()),
+          ContentDigest.etag(isFile).getBytes(StandardCharsets.US_ASCII));
 
 
     } catch (Exception e) {
@@ -196,6 +207,7 @@ public class CmsImageFileManagerImpl
       Path path = Paths.get(smallPath.toString());
 
       Files.deleteIfExists(path);
+      Files.deleteIfExists(Paths.get(smallPath.append(ETAG_SUFFIX).toString()));
 
       // delete large
       StringBuilder largePath = new StringBuilder(nodePath);
@@ -205,6 +217,7 @@ public class CmsImageFileManagerImpl
       path = Paths.get(largePath.toString());
 
       Files.deleteIfExists(path);
+      Files.deleteIfExists(Paths.get(largePath.append(ETAG_SUFFIX).toString()));
 
     } catch (Exception e) {
       throw new ServiceException(e);
@@ -264,6 +277,42 @@ public class CmsImageFileManagerImpl
   }
 
 
+  @Override
+  public ImageContent getProductImageContent(String merchantStoreCode, String productCode,
+      String imageName, ProductImageSize size) throws ServiceException {
+
+    try {
+
+      StringBuilder nodePath = new StringBuilder();
+      nodePath.append(buildRootPath()).append(merchantStoreCode).append(Constants.SLASH)
+          .append(productCode).append(Constants.SLASH).append(size.name())
+          .append(Constants.SLASH).append(imageName);
+
+      File file = new File(nodePath.toString());
+      if (!file.isFile()) {
+        return null;
+      }
+
+      String etag = null;
+      Path etagPath = Paths.get(nodePath.append(ETAG_SUFFIX).toString());
+      if (Files.isRegularFile(etagPath)) {
+        etag = new String(Files.readAllBytes(etagPath), StandardCharsets.US_ASCII).trim();
+      }
+      if (etag == null || etag.isEmpty()) {
+        //uploaded before digests were recorded
+        etag = ContentDigest.weakEtag(file.length(), file.lastModified());
+      }
+
+      return new FileImageContent(file, URLConnection.getFileNameMap().getContentTypeFor(imageName),
+          etag);
+
+    } catch (Exception e) {
+      throw new ServiceException(e);
+    }
+
+  }
+
+
   private String buildRootPath() {
     return new StringBuilder().append(getRootName()).append(Constants.SLASH).append(ROOT_CONTAINER)
         .append(Constants.SLASH).toString();
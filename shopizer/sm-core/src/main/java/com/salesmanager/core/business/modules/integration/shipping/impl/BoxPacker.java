@@ -0,0 +1,149 @@
+package com.salesmanager.core.business.modules.integration.shipping.impl;
+
+import java.util.Arrays;
+
+/**
+ * First fit bin packing working on primitive arrays. Items are described per sku (dimensions,
+ * weight and quantity) and quantities are placed arithmetically, the number of units that fit in
+ * a box is computed instead of placing units one by one.
+ *
+ * Skus are placed in the order they are given and each unit goes to the first box having room for
+ * it, which is the order units were packed in one by one. A box accepts items as long as 75% of its
+ * remaining volume can hold the item and its remaining weight allows it. An empty box always
+ * accepts one item.
+ */
+public final class BoxPacker {
+
+  /**
+   * Portion of the remaining volume of a box considered usable for the next item
+   */
+  public static final double FILL_RATIO = .75;
+
+  private static final double EPSILON = 1e-9;
+
+  private final double boxVolume;
+  private final double boxMaxWeight;
+
+  public BoxPacker(double boxWidth, double boxLength, double boxHeight, double boxMaxWeight) {
+    this.boxVolume = boxWidth * boxLength * boxHeight;
+    this.boxMaxWeight = boxMaxWeight;
+  }
+
+  /**
+   * Packs the items, all arrays are indexed by sku. Every item must fit in the box.
+   */
+  public Packing pack(double[] width, double[] length, double[] height, double[] weight,
+      int[] quantity) {
+
+    int skus = width.length;
+    Packing packing = new Packing(skus);
+
+    for (int s = 0; s < skus; s++) {
+      double v = width[s] * length[s] * height[s];
+      double w = weight[s];
+      int remaining = quantity[s];
+
+      //first fit in the opened boxes
+      for (int b = 0; b < packing.size && remaining > 0; b++) {
+        int units = Math.min(remaining,
+            unitsFitting(packing.volumeLeft[b], packing.weightLeft[b], v, w));
+        if (units > 0) {
+          packing.place(b, s, units, v, w);
+          remaining -= units;
+        }
+      }
+
+      //open new boxes
+      while (remaining > 0) {
+        int b = packing.open(boxVolume, boxMaxWeight);
+        int units = 1 + Math.min(remaining - 1,
+            unitsFitting(boxVolume - v, boxMaxWeight - w, v, w));
+        packing.place(b, s, units, v, w);
+        remaining -= units;
+      }
+    }
+
+    return packing;
+  }
+
+  /**
+   * Number of units of an item placed one after the other in the remaining space
+   */
+  static int unitsFitting(double volumeLeft, double weightLeft, double volume, double weight) {
+    if (volumeLeft * FILL_RATIO + EPSILON < volume || weightLeft + EPSILON < weight) {
+      return 0;
+    }
+    long byVolume = volume <= 0 ? Integer.MAX_VALUE
+        : (long) Math.floor((volumeLeft * FILL_RATIO - volume + EPSILON)
+            / (FILL_RATIO * volume)) + 1;
+    long byWeight = weight <= 0 ? Integer.MAX_VALUE
+        : (long) Math.floor((weightLeft + EPSILON) / weight);
+    return (int) Math.min(Integer.MAX_VALUE, Math.min(byVolume, byWeight));
+  }
+
+  /**
+   * Boxes produced by the packer
+   */
+  public static final class Packing {
+
+    private final int skus;
+    private int size;
+    private int[] units = new int[8];
+    private double[] volumeLeft = new double[8];
+    private double[] weightLeft = new double[8];
+    private double[] contentWeight = new double[8];
+    //units by box and sku, box * skus + sku
+    private int[] skuUnits;
+
+    private Packing(int skus) {
+      this.skus = skus;
+      this.skuUnits = new int[8 * skus];
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public int getUnits(int box) {
+      return units[box];
+    }
+
+    /**
+     * Units of a sku placed in the box
+     */
+    public int getUnits(int box, int sku) {
+      return skuUnits[box * skus + sku];
+    }
+
+    /**
+     * Weight of the items in the box, without the box weight
+     */
+    public double getContentWeight(int box) {
+      return contentWeight[box];
+    }
+
+    private int open(double volume, double maxWeight) {
+      if (size == units.length) {
+        int capacity = size * 2;
+        units = Arrays.copyOf(units, capacity);
+        volumeLeft = Arrays.copyOf(volumeLeft, capacity);
+        weightLeft = Arrays.copyOf(weightLeft, capacity);
+        contentWeight = Arrays.copyOf(contentWeight, capacity);
+        skuUnits = Arrays.copyOf(skuUnits, capacity * skus);
+      }
+      volumeLeft[size] = volume;
+      weightLeft[size] = maxWeight;
+      return size++;
+    }
+
+    private void place(int box, int sku, int count, double volume, double weight) {
+      units[box] += count;
+      skuUnits[box * skus + sku] += count;
+      volumeLeft[box] -= volume * count;
+      weightLeft[box] -= weight * count;
+      contentWeight[box] += weight * count;
+    }
+
+  }
+
+}
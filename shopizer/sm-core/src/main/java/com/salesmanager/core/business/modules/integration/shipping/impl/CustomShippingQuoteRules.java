@@ -13,11 +13,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.drools.KnowledgeBase;
 import org.drools.runtime.StatelessKnowledgeSession;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.salesmanager.core.business.modules.rules.DecisionTableEvaluator;
 import com.salesmanager.core.model.common.Delivery;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.shipping.PackageDetails;
@@ -44,7 +43,7 @@ public class CustomShippingQuoteRules implements ShippingQuoteModule {
   //private KnowledgeBase kbase;
 
   @Inject
-  KieContainer kieShippingCustomContainer;
+  DecisionTableEvaluator shippingCustomRules;
 
   @Override
   public void validateModuleConfiguration(
@@ -145,9 +144,7 @@ public class CustomShippingQuoteRules implements ShippingQuoteModule {
 
     LOGGER.debug("Setting input parameters " + inputParameters.toString());
 
-    KieSession kieSession = kieShippingCustomContainer.newKieSession();
-    kieSession.insert(inputParameters);
-    kieSession.fireAllRules();
+    shippingCustomRules.evaluate(inputParameters);
 
     //shippingPriceRule.execute(Arrays.asList(new Object[] { inputParameters }));
 
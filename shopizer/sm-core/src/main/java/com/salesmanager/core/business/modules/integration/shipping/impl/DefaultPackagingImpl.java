@@ -2,6 +2,7 @@ package com.salesmanager.core.business.modules.integration.shipping.impl;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -64,15 +65,14 @@ public class DefaultPackagingImpl implements Packaging {
     weight = new Double(shippingConfiguration.getBoxWeight()).doubleValue();
     maxweight = new Double(shippingConfiguration.getMaxWeight()).doubleValue();
 
-    List<PackageDetails> boxes = new ArrayList<PackageDetails>();
+    // one entry per sku, quantities are handled by the packer
+    int skus = 0;
+    double[] widths = new double[products.size()];
+    double[] lengths = new double[products.size()];
+    double[] heights = new double[products.size()];
+    double[] weights = new double[products.size()];
+    int[] quantities = new int[products.size()];
 
-    // maximum number of boxes
-    int maxBox = 100;
-    int iterCount = 0;
-
-    List<Product> individualProducts = new ArrayList<Product>();
-
-    // need to put items individually
     for (ShippingProduct shippingProduct : products) {
 
       Product product = shippingProduct.getProduct();
@@ -80,8 +80,6 @@ public class DefaultPackagingImpl implements Packaging {
         continue;
       }
 
-      int qty = shippingProduct.getQuantity();
-
       Set<ProductAttribute> attrs = shippingProduct.getProduct().getAttributes();
 
       // set attributes values
@@ -109,41 +107,18 @@ public class DefaultPackagingImpl implements Packaging {
         }
       }
 
-      if (qty > 1) {
-
-        for (int i = 1; i <= qty; i++) {
-          Product temp = new Product();
-          temp.setProductHeight(h);
-          temp.setProductLength(l);
-          temp.setProductWidth(wd);
-          temp.setProductWeight(w);
-          temp.setAttributes(product.getAttributes());
-          temp.setDescriptions(product.getDescriptions());
-          individualProducts.add(temp);
-        }
-      } else {
-        Product temp = new Product();
-        temp.setProductHeight(h);
-        temp.setProductLength(l);
-        temp.setProductWidth(wd);
-        temp.setProductWeight(w);
-        temp.setAttributes(product.getAttributes());
-        temp.setDescriptions(product.getDescriptions());
-        individualProducts.add(temp);
-      }
-      iterCount++;
+      widths[skus] = wd.doubleValue();
+      lengths[skus] = l.doubleValue();
+      heights[skus] = h.doubleValue();
+      weights[skus] = w.doubleValue();
+      quantities[skus] = Math.max(shippingProduct.getQuantity(), 1);
+      skus++;
     }
 
-    if (iterCount == 0) {
+    if (skus == 0) {
       return null;
     }
 
-    int productCount = individualProducts.size();
-
-    List<PackingBox> boxesList = new ArrayList<PackingBox>();
-
-    //start the creation of boxes
-    PackingBox box = new PackingBox();
     // set box max volume
     double maxVolume = width * length * height;
 
@@ -160,33 +135,18 @@ public class DefaultPackagingImpl implements Packaging {
 
     }
 
-    box.setVolumeLeft(maxVolume);
-    box.setWeightLeft(maxweight);
-
-    boxesList.add(box);//assign first box
-
-    //int boxCount = 1;
-    List<Product> assignedProducts = new ArrayList<Product>();
-
-    // calculate the volume for the next object
-    if (assignedProducts.size() > 0) {
-      individualProducts.removeAll(assignedProducts);
-      assignedProducts = new ArrayList<Product>();
-    }
-
-    boolean productAssigned = false;
-
-    for (Product p : individualProducts) {
-
-      //Set<ProductAttribute> attributes = p.getAttributes();
-      productAssigned = false;
+    int s = 0;
+    for (ShippingProduct shippingProduct : products) {
 
-      double productWeight = p.getProductWeight().doubleValue();
+      Product p = shippingProduct.getProduct();
+      if (p.isProductVirtual()) {
+        continue;
+      }
 
       // validate if product fits in the box
-      if (p.getProductWidth().doubleValue() > width
-          || p.getProductHeight().doubleValue() > height
-          || p.getProductLength().doubleValue() > length) {
+      if (widths[s] > width
+          || heights[s] > height
+          || lengths[s] > length) {
         // log message to customer
         merchantLogService.save(new MerchantLog(store, "shipping", "Product "
             + p.getSku()
@@ -195,7 +155,7 @@ public class DefaultPackagingImpl implements Packaging {
 
       }
 
-      if (productWeight > maxweight) {
+      if (weights[s] > maxweight) {
         merchantLogService.save(new MerchantLog(store, "shipping", "Product "
             + p.getSku()
             + " has a weight larger than the box maximum weight specified. Will use per item calculation."));
@@ -204,9 +164,7 @@ public class DefaultPackagingImpl implements Packaging {
 
       }
 
-      double productVolume = (p.getProductWidth().doubleValue()
-          * p.getProductHeight().doubleValue() * p
-          .getProductLength().doubleValue());
+      double productVolume = widths[s] * heights[s] * lengths[s];
 
       if (productVolume == 0) {
 
@@ -224,77 +182,22 @@ public class DefaultPackagingImpl implements Packaging {
         throw new ServiceException("Product configuration exceeds box configuraton");
 
       }
-
-      //List boxesList = boxesList;
-
-      // try each box
-      //Iterator boxIter = boxesList.iterator();
-      for (PackingBox pbox : boxesList) {
-        double volumeLeft = pbox.getVolumeLeft();
-        double weightLeft = pbox.getWeightLeft();
-
-        if ((volumeLeft * .75) >= productVolume
-            && pbox.getWeightLeft() >= productWeight) {// fit the item
-          // in this
-          // box
-          // fit in the current box
-          volumeLeft = volumeLeft - productVolume;
-          pbox.setVolumeLeft(volumeLeft);
-          weightLeft = weightLeft - productWeight;
-          pbox.setWeightLeft(weightLeft);
-
-          assignedProducts.add(p);
-          productCount--;
-
-          double w = pbox.getWeight();
-          w = w + productWeight;
-          pbox.setWeight(w);
-          productAssigned = true;
-          maxBox--;
-          break;
-
-        }
-
-      }
-
-      if (!productAssigned) {// create a new box
-
-        box = new PackingBox();
-        // set box max volume
-        box.setVolumeLeft(maxVolume);
-        box.setWeightLeft(maxweight);
-
-        boxesList.add(box);
-
-        double volumeLeft = box.getVolumeLeft() - productVolume;
-        box.setVolumeLeft(volumeLeft);
-        double weightLeft = box.getWeightLeft() - productWeight;
-        box.setWeightLeft(weightLeft);
-        assignedProducts.add(p);
-        productCount--;
-        double w = box.getWeight();
-        w = w + productWeight;
-        box.setWeight(w);
-        maxBox--;
-      }
-
+      s++;
     }
 
-    // now prepare the shipping info
-
-    // number of boxes
+    BoxPacker packer = new BoxPacker(width, length, height, maxweight);
 
-    //Iterator ubIt = usedBoxesList.iterator();
+    BoxPacker.Packing packing = packer.pack(
+        Arrays.copyOf(widths, skus), Arrays.copyOf(lengths, skus), Arrays.copyOf(heights, skus),
+        Arrays.copyOf(weights, skus), Arrays.copyOf(quantities, skus));
 
-    System.out.println("###################################");
-    System.out.println("Number of boxes " + boxesList.size());
-    System.out.println("###################################");
-
-    for (PackingBox pb : boxesList) {
+    // now prepare the shipping info
+    List<PackageDetails> boxes = new ArrayList<PackageDetails>(packing.size());
+    for (int b = 0; b < packing.size(); b++) {
       PackageDetails details = new PackageDetails();
       details.setShippingHeight(height);
       details.setShippingLength(length);
-      details.setShippingWeight(weight + box.getWeight());
+      details.setShippingWeight(weight + packing.getContentWeight(b));
       details.setShippingWidth(width);
       details.setItemName(store.getCode());
       boxes.add(details);
@@ -390,37 +293,3 @@ public class DefaultPackagingImpl implements Packaging {
 
 
 }
-
-
-class PackingBox {
-
-  private double volumeLeft;
-  private double weightLeft;
-  private double weight;
-
-  public double getVolumeLeft() {
-    return volumeLeft;
-  }
-
-  public void setVolumeLeft(double volumeLeft) {
-    this.volumeLeft = volumeLeft;
-  }
-
-  public double getWeight() {
-    return weight;
-  }
-
-  public void setWeight(double weight) {
-    this.weight = weight;
-  }
-
-  public double getWeightLeft() {
-    return weightLeft;
-  }
-
-  public void setWeightLeft(double weightLeft) {
-    this.weightLeft = weightLeft;
-  }
-
-}
-
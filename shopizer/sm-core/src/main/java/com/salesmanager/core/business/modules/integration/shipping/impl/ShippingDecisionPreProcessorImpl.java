@@ -13,11 +13,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.drools.KnowledgeBase;
 import org.drools.runtime.StatelessKnowledgeSession;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.salesmanager.core.business.modules.rules.DecisionTableEvaluator;
 import com.salesmanager.core.model.common.Delivery;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.shipping.PackageDetails;
@@ -47,7 +46,7 @@ public class ShippingDecisionPreProcessorImpl implements ShippingQuotePrePostPro
   //private KnowledgeBase kbase;
 
   @Inject
-  KieContainer kieShippingDecisionContainer;
+  DecisionTableEvaluator shippingDecisionRules;
 
   @Override
   public void prePostProcessShippingQuotes(ShippingQuote quote,
@@ -134,9 +133,7 @@ public class ShippingDecisionPreProcessorImpl implements ShippingQuotePrePostPro
     LOGGER.debug("Setting input parameters " + inputParameters.toString());
     System.out.println(inputParameters.toString());
 
-    KieSession kieSession = kieShippingDecisionContainer.newKieSession();
-    kieSession.insert(inputParameters);
-    kieSession.fireAllRules();
+    shippingDecisionRules.evaluate(inputParameters);
 
     //shippingMethodDecision.execute(Arrays.asList(new Object[] { inputParameters }));
 
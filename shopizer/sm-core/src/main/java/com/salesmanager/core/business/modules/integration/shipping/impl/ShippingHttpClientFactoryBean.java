@@ -0,0 +1,80 @@
+package com.salesmanager.core.business.modules.integration.shipping.impl;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+
+/**
+ * Http client shared by the real time shipping quote modules. Connections to the carriers are
+ * pooled and every request is bounded by the connect and socket timeouts.
+ */
+public class ShippingHttpClientFactoryBean implements FactoryBean<CloseableHttpClient>,
+    DisposableBean {
+
+  private int maxTotal = 50;
+  private int maxPerRoute = 20;
+  private int connectTimeout = 2000;//ms
+  private int socketTimeout = 5000;//ms
+
+  private CloseableHttpClient httpClient;
+
+  @Override
+  public synchronized CloseableHttpClient getObject() {
+    if (httpClient == null) {
+      PoolingHttpClientConnectionManager connectionManager =
+          new PoolingHttpClientConnectionManager();
+      connectionManager.setMaxTotal(maxTotal);
+      connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+      RequestConfig requestConfig = RequestConfig.custom()
+          .setConnectTimeout(connectTimeout)
+          .setConnectionRequestTimeout(connectTimeout)
+          .setSocketTimeout(socketTimeout)
+          .build();
+
+      httpClient = HttpClients.custom()
+          .setConnectionManager(connectionManager)
+          .setDefaultRequestConfig(requestConfig)
+          .build();
+    }
+    return httpClient;
+  }
+
+  @Override
+  public Class<?> getObjectType() {
+    return CloseableHttpClient.class;
+  }
+
+  @Override
+  public boolean isSingleton() {
+    return true;
+  }
+
+  @Override
+  public synchronized void destroy() throws Exception {
+    if (httpClient != null) {
+      httpClient.close();
+      httpClient = null;
+    }
+  }
+
+  public void setMaxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+  }
+
+  public void setMaxPerRoute(int maxPerRoute) {
+    this.maxPerRoute = maxPerRoute;
+  }
+
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public void setSocketTimeout(int socketTimeout) {
+    this.socketTimeout = socketTimeout;
+  }
+
+}
@@ -22,7 +22,6 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +52,8 @@ public class UPSShippingQuote implements ShippingQuoteModule {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(UPSShippingQuote.class);
 
+  private CloseableHttpClient httpClient;
+
 
   @Override
   public void validateModuleConfiguration(
@@ -368,7 +369,6 @@ public class UPSShippingQuote implements ShippingQuoteModule {
 
       LOGGER.debug("UPS QUOTE REQUEST " + xmlbuffer.toString());
 
-      CloseableHttpClient httpclient = HttpClients.createDefault();
       //HttpClient client = new HttpClient();
       httppost = new HttpPost(protocol + "://" + host + ":" + port
           + url);
@@ -398,7 +398,7 @@ public class UPSShippingQuote implements ShippingQuoteModule {
 
       };
 
-      String data = httpclient.execute(httppost, responseHandler);
+      String data = httpClient.execute(httppost, responseHandler);
 
       //int result = response.getStatusLine().getStatusCode();
       //int result = client.executeMethod(httppost);
@@ -647,6 +647,10 @@ public class UPSShippingQuote implements ShippingQuoteModule {
   }
 
 
+  public void setHttpClient(CloseableHttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
   @Override
   public CustomIntegrationConfiguration getCustomModuleConfiguration(
       MerchantStore store) throws IntegrationException {
@@ -22,7 +22,6 @@ import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +57,8 @@ public class USPSShippingQuote implements ShippingQuoteModule {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(USPSShippingQuote.class);
 
+  private CloseableHttpClient httpClient;
+
 
   @Inject
   private ProductPriceUtils productPriceUtils;
@@ -404,7 +405,6 @@ public class USPSShippingQuote implements ShippingQuoteModule {
       LOGGER.debug("USPS QUOTE REQUEST " + xmlbuffer.toString());
 
       //HttpClient client = new HttpClient();
-      CloseableHttpClient httpclient = HttpClients.createDefault();
 
       @SuppressWarnings("deprecation")
       String encoded = java.net.URLEncoder.encode(xmlbuffer.toString());
@@ -439,7 +439,7 @@ public class USPSShippingQuote implements ShippingQuoteModule {
 
       };
 
-      String data = httpclient.execute(httpget, responseHandler);
+      String data = httpClient.execute(httpget, responseHandler);
 /*			int result = client.executeMethod(httpget);
 			if (result != 200) {
 				LOGGER.error("Communication Error with usps quote " + result + " "
@@ -665,6 +665,10 @@ public class USPSShippingQuote implements ShippingQuoteModule {
   }
 
 
+  public void setHttpClient(CloseableHttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
   @Override
   public CustomIntegrationConfiguration getCustomModuleConfiguration(
       MerchantStore store) throws IntegrationException {
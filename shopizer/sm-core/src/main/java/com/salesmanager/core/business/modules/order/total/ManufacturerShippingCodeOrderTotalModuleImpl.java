@@ -7,12 +7,11 @@ import javax.inject.Inject;
 import org.apache.commons.lang.Validate;
 import org.drools.KnowledgeBase;
 import org.drools.runtime.StatelessKnowledgeSession;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.salesmanager.core.business.constants.Constants;
+import com.salesmanager.core.business.modules.rules.DecisionTableEvaluator;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.price.FinalPrice;
@@ -43,7 +42,7 @@ public class ManufacturerShippingCodeOrderTotalModuleImpl implements OrderTotalP
   //private KnowledgeBase kbase;//injected from xml file
 
   @Inject
-  KieContainer kieManufacturerBasedPricingContainer;
+  DecisionTableEvaluator manufacturerBasedPricingRules;
 
 
   PricingService pricingService;
@@ -77,9 +76,7 @@ public class ManufacturerShippingCodeOrderTotalModuleImpl implements OrderTotalP
 
     LOGGER.debug("Setting input parameters " + inputParameters.toString());
 
-    KieSession kieSession = kieManufacturerBasedPricingContainer.newKieSession();
-    kieSession.insert(inputParameters);
-    kieSession.fireAllRules();
+    manufacturerBasedPricingRules.evaluate(inputParameters);
 
     //orderTotalMethodDecision.execute(inputParameters);
 
@@ -0,0 +1,640 @@
+package com.salesmanager.core.business.modules.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.drools.decisiontable.InputType;
+import org.drools.decisiontable.SpreadsheetCompiler;
+
+/**
+ * Decision table evaluated without a rule engine. The spreadsheet is converted to DRL by the Drools
+ * decision table compiler, the generated rules are then compiled into immutable lookup
+ * structures:
+ *
+ * - rules are grouped by the values of the text fields tested for equality by every rule (country,
+ * province...) in a hash map
+ * - in each group rules are sorted by the lower bound of a numeric field tested by every rule of
+ * the group (weight, distance, price...), only rules starting below the input value are looked at
+ *
+ * As with Drools every matching rule is applied, in the order of the spreadsheet. Only the
+ * constructs generated for simple decision tables are supported (one fact, ==, !=, <, <=, >, >=
+ * tests against literals and setters with a literal), compile fails with an IllegalStateException
+ * otherwise so the table can be evaluated by Drools instead.
+ */
+public final class CompiledDecisionTable implements DecisionTableEvaluator {
+
+  private static final Pattern RULE = Pattern.compile(
+      "^\\s*rule\\s+\"([^\"]*)\"(.*?)^\\s*when\\s*$(.*?)^\\s*then\\s*$(.*?)^\\s*end\\s*$",
+      Pattern.MULTILINE | Pattern.DOTALL);
+  private static final Pattern FACT = Pattern.compile(
+      "^(?:(\\w+)\\s*:\\s*)?(\\w+)\\s*\\((.*)\\)$", Pattern.DOTALL);
+  private static final Pattern CONSTRAINT = Pattern.compile(
+      "^(\\w+)\\s*(==|!=|>=|<=|>|<)\\s*(.+)$", Pattern.DOTALL);
+  private static final Pattern ACTION = Pattern.compile(
+      "^(\\w+)\\.(set\\w+)\\s*\\((.*)\\)$", Pattern.DOTALL);
+
+  private static final String KEY_DELIMITER = "\u0000";
+
+  private final Class<?> type;
+
+  /**
+   * Fields read from the input, numeric fields are read as double, others as String
+   */
+  private final Method[] getters;
+  private final boolean[] numeric;
+
+  /**
+   * Text fields tested for equality by every rule
+   */
+  private final int[] keyFields;
+
+  private final Map<String, Group> groups;
+  private final int ruleCount;
+
+  private CompiledDecisionTable(Class<?> type, Method[] getters, boolean[] numeric,
+      int[] keyFields, Map<String, Group> groups, int ruleCount) {
+    this.type = type;
+    this.getters = getters;
+    this.numeric = numeric;
+    this.keyFields = keyFields;
+    this.groups = groups;
+    this.ruleCount = ruleCount;
+  }
+
+  /**
+   * Compiles a xls decision table found on the classpath
+   */
+  public static CompiledDecisionTable fromClasspath(String resource, Class<?> type) {
+    InputStream in = CompiledDecisionTable.class.getClassLoader().getResourceAsStream(resource);
+    if (in == null) {
+      throw new IllegalStateException("Decision table " + resource + " not found");
+    }
+    try {
+      String drl = new SpreadsheetCompiler().compile(in, InputType.XLS);
+      return fromDrl(drl, type);
+    } finally {
+      try {
+        in.close();
+      } catch (IOException ignore) {
+        //nothing to do
+      }
+    }
+  }
+
+  /**
+   * Compiles the rules generated from a decision table
+   */
+  public static CompiledDecisionTable fromDrl(String drl, Class<?> type) {
+
+    List<String> fieldNames = new ArrayList<String>();
+    List<Method> getters = new ArrayList<Method>();
+    List<Boolean> numeric = new ArrayList<Boolean>();
+    List<Rule> rules = new ArrayList<Rule>();
+
+    Matcher ruleMatcher = RULE.matcher(drl);
+    while (ruleMatcher.find()) {
+      String name = ruleMatcher.group(1);
+      if (!ruleMatcher.group(2).trim().isEmpty()) {
+        throw unsupported(name, "rule attributes " + ruleMatcher.group(2).trim());
+      }
+
+      Matcher fact = FACT.matcher(ruleMatcher.group(3).trim());
+      if (!fact.matches() || !fact.group(2).equals(type.getSimpleName())) {
+        throw unsupported(name, "condition " + ruleMatcher.group(3).trim());
+      }
+      String binding = fact.group(1);
+
+      Rule rule = new Rule(rules.size(), name);
+      for (String constraint : split(fact.group(3), ',', name)) {
+        Matcher c = CONSTRAINT.matcher(constraint);
+        if (!c.matches()) {
+          throw unsupported(name, "constraint " + constraint);
+        }
+        int field = fieldNames.indexOf(c.group(1));
+        if (field < 0) {
+          Method getter = getter(type, c.group(1), name);
+          field = fieldNames.size();
+          fieldNames.add(c.group(1));
+          getters.add(getter);
+          numeric.add(isNumeric(getter.getReturnType()));
+        }
+        rule.addConstraint(field, numeric.get(field), isIntegral(getters.get(field)
+            .getReturnType()), c.group(2), literal(c.group(3).trim(), name));
+      }
+
+      for (String statement : split(ruleMatcher.group(4), ';', name)) {
+        if (statement.startsWith("System.out.print")) {
+          continue;
+        }
+        Matcher a = ACTION.matcher(statement);
+        if (!a.matches() || binding == null || !a.group(1).equals(binding)) {
+          throw unsupported(name, "action " + statement);
+        }
+        Method setter = setter(type, a.group(2), name);
+        rule.addAction(setter, convert(literal(a.group(3).trim(), name),
+            setter.getParameterTypes()[0], name));
+      }
+
+      rules.add(rule);
+    }
+
+    if (rules.isEmpty()) {
+      throw new IllegalStateException("No rule found in decision table");
+    }
+
+    //text fields tested for equality by all rules are used as key
+    List<Integer> keys = new ArrayList<Integer>();
+    for (int field = 0; field < fieldNames.size(); field++) {
+      boolean key = !numeric.get(field);
+      for (Rule rule : rules) {
+        key = key && rule.equalTo.containsKey(field);
+      }
+      if (key) {
+        keys.add(field);
+      }
+    }
+    int[] keyFields = new int[keys.size()];
+    for (int i = 0; i < keyFields.length; i++) {
+      keyFields[i] = keys.get(i);
+    }
+
+    Map<String, List<Rule>> grouped = new LinkedHashMap<String, List<Rule>>();
+    for (Rule rule : rules) {
+      StringBuilder key = new StringBuilder();
+      for (int field : keyFields) {
+        key.append(rule.equalTo.get(field)).append(KEY_DELIMITER);
+      }
+      List<Rule> group = grouped.get(key.toString());
+      if (group == null) {
+        group = new ArrayList<Rule>();
+        grouped.put(key.toString(), group);
+      }
+      group.add(rule);
+    }
+
+    boolean[] numericFields = new boolean[numeric.size()];
+    for (int i = 0; i < numericFields.length; i++) {
+      numericFields[i] = numeric.get(i);
+    }
+
+    Map<String, Group> groups = new HashMap<String, Group>();
+    for (Map.Entry<String, List<Rule>> entry : grouped.entrySet()) {
+      groups.put(entry.getKey(), new Group(entry.getValue(), keyFields, numericFields));
+    }
+
+    return new CompiledDecisionTable(type, getters.toArray(new Method[getters.size()]),
+        numericFields, keyFields, Collections.unmodifiableMap(groups), rules.size());
+  }
+
+  public int getRuleCount() {
+    return ruleCount;
+  }
+
+  @Override
+  public void evaluate(Object inputParameters) {
+    if (!type.isInstance(inputParameters)) {
+      throw new IllegalArgumentException("Expected " + type.getName() + " as input");
+    }
+
+    double[] numbers = new double[getters.length];
+    String[] texts = new String[getters.length];
+    for (int field = 0; field < getters.length; field++) {
+      Object value = invoke(getters[field], inputParameters);
+      if (numeric[field]) {
+        numbers[field] = value == null ? Double.NaN : ((Number) value).doubleValue();
+      } else {
+        texts[field] = value == null ? null : value.toString();
+      }
+    }
+
+    StringBuilder key = new StringBuilder();
+    for (int field : keyFields) {
+      if (texts[field] == null) {
+        return;
+      }
+      key.append(texts[field]).append(KEY_DELIMITER);
+    }
+    Group group = groups.get(key.toString());
+    if (group != null) {
+      group.evaluate(inputParameters, numbers, texts);
+    }
+  }
+
+  /**
+   * Rules sharing the same key values
+   */
+  private static final class Group {
+
+    private final Rule[] rules;//by lower bound of the indexed field
+    private final double[] lowerBounds;
+    private final int indexedField;
+
+    private Group(List<Rule> groupRules, int[] keyFields, boolean[] numeric) {
+
+      //first numeric field bounded by every rule of the group
+      int indexed = -1;
+      for (int field = 0; field < numeric.length && indexed < 0; field++) {
+        if (!numeric[field]) {
+          continue;
+        }
+        boolean bounded = true;
+        for (Rule rule : groupRules) {
+          bounded = bounded && rule.lower.containsKey(field);
+        }
+        if (bounded) {
+          indexed = field;
+        }
+      }
+      this.indexedField = indexed;
+
+      List<Rule> sorted = new ArrayList<Rule>(groupRules);
+      if (indexed >= 0) {
+        final int f = indexed;
+        Collections.sort(sorted, new Comparator<Rule>() {
+          @Override
+          public int compare(Rule a, Rule b) {
+            return Double.compare(a.lower.get(f), b.lower.get(f));
+          }
+        });
+      }
+      this.rules = sorted.toArray(new Rule[sorted.size()]);
+      this.lowerBounds = new double[rules.length];
+      for (int i = 0; i < rules.length; i++) {
+        lowerBounds[i] = indexed >= 0 ? rules[i].lower.get(indexed) : Double.NEGATIVE_INFINITY;
+      }
+      for (Rule rule : rules) {
+        rule.compile(keyFields);
+      }
+    }
+
+    private void evaluate(Object inputParameters, double[] numbers, String[] texts) {
+
+      int candidates = rules.length;
+      if (indexedField >= 0) {
+        double value = numbers[indexedField];
+        if (Double.isNaN(value)) {
+          return;
+        }
+        candidates = upperBound(lowerBounds, value);
+      }
+
+      int[] matches = null;
+      int matched = 0;
+      for (int i = 0; i < candidates; i++) {
+        if (rules[i].matches(numbers, texts)) {
+          if (matches == null) {
+            matches = new int[candidates];
+          }
+          matches[matched++] = i;
+        }
+      }
+      if (matched == 0) {
+        return;
+      }
+
+      //spreadsheet order
+      Rule[] fired = new Rule[matched];
+      for (int i = 0; i < matched; i++) {
+        fired[i] = rules[matches[i]];
+      }
+      if (matched > 1) {
+        Arrays.sort(fired, new Comparator<Rule>() {
+          @Override
+          public int compare(Rule a, Rule b) {
+            return a.index - b.index;
+          }
+        });
+      }
+      for (Rule rule : fired) {
+        rule.apply(inputParameters);
+      }
+    }
+
+    /**
+     * Number of lower bounds smaller or equal to the value
+     */
+    private static int upperBound(double[] bounds, double value) {
+      int low = 0;
+      int high = bounds.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (bounds[mid] <= value) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+  }
+
+  private static final class Rule {
+
+    private final int index;
+    private final String name;
+
+    //built while parsing
+    private final Map<Integer, Double> lower = new HashMap<Integer, Double>();
+    private final Map<Integer, Double> upper = new HashMap<Integer, Double>();
+    private final Map<Integer, String> equalTo = new HashMap<Integer, String>();
+    private final Map<Integer, List<String>> notEqualTo = new HashMap<Integer, List<String>>();
+    private final List<Method> setters = new ArrayList<Method>();
+    private final List<Object> values = new ArrayList<Object>();
+
+    //compiled
+    private int[] rangeFields;
+    private double[] rangeLower;
+    private double[] rangeUpper;
+    private int[] textFields;
+    private String[] textValues;
+    private boolean[] textEqual;
+    private Method[] actionSetters;
+    private Object[] actionValues;
+
+    private Rule(int index, String name) {
+      this.index = index;
+      this.name = name;
+    }
+
+    private void addConstraint(int field, boolean numeric, boolean integral, String operator,
+        Object value) {
+      if (numeric) {
+        if (!(value instanceof BigDecimal)) {
+          throw unsupported(name, "numeric field compared to " + value);
+        }
+        double v = ((BigDecimal) value).doubleValue();
+        if ("==".equals(operator)) {
+          bound(field, v, v);
+        } else if (">=".equals(operator)) {
+          bound(field, integral ? Math.ceil(v) : v, Double.POSITIVE_INFINITY);
+        } else if (">".equals(operator)) {
+          bound(field, integral ? Math.floor(v) + 1 : Math.nextUp(v), Double.POSITIVE_INFINITY);
+        } else if ("<=".equals(operator)) {
+          bound(field, Double.NEGATIVE_INFINITY, integral ? Math.floor(v) : v);
+        } else if ("<".equals(operator)) {
+          bound(field, Double.NEGATIVE_INFINITY, integral ? Math.ceil(v) - 1 : Math.nextDown(v));
+        } else {
+          throw unsupported(name, "operator " + operator + " on a numeric field");
+        }
+      } else {
+        String text = value.toString();
+        if ("==".equals(operator)) {
+          if (equalTo.containsKey(field) && !equalTo.get(field).equals(text)) {
+            //can never match
+            bound(field, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+          }
+          equalTo.put(field, text);
+        } else if ("!=".equals(operator)) {
+          List<String> excluded = notEqualTo.get(field);
+          if (excluded == null) {
+            excluded = new ArrayList<String>();
+            notEqualTo.put(field, excluded);
+          }
+          excluded.add(text);
+        } else {
+          throw unsupported(name, "operator " + operator + " on a text field");
+        }
+      }
+    }
+
+    private void bound(int field, double low, double high) {
+      Double currentLow = lower.get(field);
+      Double currentHigh = upper.get(field);
+      lower.put(field, currentLow == null ? low : Math.max(currentLow, low));
+      upper.put(field, currentHigh == null ? high : Math.min(currentHigh, high));
+    }
+
+    private void addAction(Method setter, Object value) {
+      setters.add(setter);
+      values.add(value);
+    }
+
+    private void compile(int[] keyFields) {
+      rangeFields = new int[lower.size()];
+      rangeLower = new double[lower.size()];
+      rangeUpper = new double[lower.size()];
+      int i = 0;
+      for (Map.Entry<Integer, Double> entry : lower.entrySet()) {
+        rangeFields[i] = entry.getKey();
+        rangeLower[i] = entry.getValue();
+        rangeUpper[i] = upper.get(entry.getKey());
+        i++;
+      }
+
+      //equality on key fields is resolved by the group
+      List<Integer> fields = new ArrayList<Integer>();
+      List<String> texts = new ArrayList<String>();
+      List<Boolean> equal = new ArrayList<Boolean>();
+      for (Map.Entry<Integer, String> entry : equalTo.entrySet()) {
+        boolean key = false;
+        for (int keyField : keyFields) {
+          key = key || keyField == entry.getKey();
+        }
+        if (!key) {
+          fields.add(entry.getKey());
+          texts.add(entry.getValue());
+          equal.add(Boolean.TRUE);
+        }
+      }
+      for (Map.Entry<Integer, List<String>> entry : notEqualTo.entrySet()) {
+        for (String text : entry.getValue()) {
+          fields.add(entry.getKey());
+          texts.add(text);
+          equal.add(Boolean.FALSE);
+        }
+      }
+      textFields = new int[fields.size()];
+      textValues = texts.toArray(new String[texts.size()]);
+      textEqual = new boolean[fields.size()];
+      for (int t = 0; t < textFields.length; t++) {
+        textFields[t] = fields.get(t);
+        textEqual[t] = equal.get(t);
+      }
+
+      actionSetters = setters.toArray(new Method[setters.size()]);
+      actionValues = values.toArray();
+    }
+
+    private boolean matches(double[] numbers, String[] texts) {
+      for (int i = 0; i < rangeFields.length; i++) {
+        double value = numbers[rangeFields[i]];
+        //false for NaN as a null value never matches
+        if (!(value >= rangeLower[i] && value <= rangeUpper[i])) {
+          return false;
+        }
+      }
+      for (int i = 0; i < textFields.length; i++) {
+        String value = texts[textFields[i]];
+        if (textEqual[i]) {
+          if (value == null || !value.equals(textValues[i])) {
+            return false;
+          }
+        } else if (value != null && value.equals(textValues[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void apply(Object inputParameters) {
+      for (int i = 0; i < actionSetters.length; i++) {
+        try {
+          actionSetters[i].invoke(inputParameters, actionValues[i]);
+        } catch (Exception e) {
+          throw new IllegalStateException("Cannot apply rule " + name, e);
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Splits on a separator outside of string literals and parentheses
+   */
+  private static List<String> split(String text, char separator, String rule) {
+    List<String> parts = new ArrayList<String>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+    int depth = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (quoted) {
+        if (c == '\\' && i + 1 < text.length()) {
+          current.append(c).append(text.charAt(++i));
+          continue;
+        }
+        if (c == '"') {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+        if (depth < 0) {
+          throw unsupported(rule, text.trim());
+        }
+      } else if (c == separator && depth == 0) {
+        if (current.toString().trim().length() > 0) {
+          parts.add(current.toString().trim());
+        }
+        current.setLength(0);
+        continue;
+      }
+      current.append(c);
+    }
+    if (quoted || depth != 0) {
+      throw unsupported(rule, text.trim());
+    }
+    if (current.toString().trim().length() > 0) {
+      parts.add(current.toString().trim());
+    }
+    return parts;
+  }
+
+  /**
+   * String literal or number
+   */
+  private static Object literal(String text, String rule) {
+    if (text.length() >= 2 && text.startsWith("\"") && text.endsWith("\"")) {
+      return text.substring(1, text.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+    try {
+      return new BigDecimal(text);
+    } catch (NumberFormatException e) {
+      throw unsupported(rule, "value " + text);
+    }
+  }
+
+  private static Object convert(Object value, Class<?> target, String rule) {
+    if (target == String.class) {
+      return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value;
+    }
+    BigDecimal number;
+    try {
+      number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal((String) value);
+    } catch (NumberFormatException e) {
+      throw unsupported(rule, "value " + value + " for " + target.getSimpleName());
+    }
+    if (target == double.class || target == Double.class) {
+      return number.doubleValue();
+    }
+    if (target == float.class || target == Float.class) {
+      return number.floatValue();
+    }
+    if (target == long.class || target == Long.class) {
+      return number.longValueExact();
+    }
+    if (target == int.class || target == Integer.class) {
+      return number.intValueExact();
+    }
+    if (target == BigDecimal.class) {
+      return number;
+    }
+    throw unsupported(rule, "setter of " + target.getSimpleName());
+  }
+
+  private static boolean isNumeric(Class<?> type) {
+    return type.isPrimitive() ? type != boolean.class && type != char.class
+        : Number.class.isAssignableFrom(type);
+  }
+
+  private static boolean isIntegral(Class<?> type) {
+    return type == long.class || type == int.class || type == short.class || type == byte.class
+        || type == Long.class || type == Integer.class || type == Short.class
+        || type == Byte.class;
+  }
+
+  private static Method getter(Class<?> type, String field, String rule) {
+    String suffix = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    for (String prefix : new String[] {"get", "is"}) {
+      try {
+        Method getter = type.getMethod(prefix + suffix);
+        if (getter.getReturnType() == boolean.class || getter.getReturnType() == Boolean.class) {
+          throw unsupported(rule, "boolean field " + field);
+        }
+        return getter;
+      } catch (NoSuchMethodException e) {
+        //next prefix
+      }
+    }
+    throw unsupported(rule, "unknown field " + field);
+  }
+
+  private static Method setter(Class<?> type, String name, String rule) {
+    for (Method method : type.getMethods()) {
+      if (method.getName().equals(name) && method.getParameterTypes().length == 1) {
+        return method;
+      }
+    }
+    throw unsupported(rule, "unknown setter " + name);
+  }
+
+  private static Object invoke(Method getter, Object inputParameters) {
+    try {
+      return getter.invoke(inputParameters);
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot read " + getter.getName(), e);
+    }
+  }
+
+  private static IllegalStateException unsupported(String rule, String what) {
+    return new IllegalStateException(
+        "Rule " + rule + " cannot be compiled, unsupported " + what);
+  }
+
+}
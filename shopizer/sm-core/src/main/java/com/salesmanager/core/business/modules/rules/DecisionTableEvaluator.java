@@ -0,0 +1,13 @@
+package com.salesmanager.core.business.modules.rules;
+
+/**
+ * Evaluates the rules of a decision table against an input object. Matching rules set their
+ * output values on the object.
+ *
+ * Implementations are thread safe and shared by all requests.
+ */
+public interface DecisionTableEvaluator {
+
+  void evaluate(Object inputParameters);
+
+}
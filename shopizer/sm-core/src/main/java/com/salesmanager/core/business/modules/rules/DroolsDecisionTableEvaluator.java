@@ -0,0 +1,48 @@
+package com.salesmanager.core.business.modules.rules;
+
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.KieModule;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.io.ResourceFactory;
+
+/**
+ * Evaluates a decision table with Drools, a new KieSession is created for each evaluation
+ */
+public class DroolsDecisionTableEvaluator implements DecisionTableEvaluator {
+
+  private final KieContainer kieContainer;
+
+  public DroolsDecisionTableEvaluator(KieContainer kieContainer) {
+    this.kieContainer = kieContainer;
+  }
+
+  /**
+   * Builds the Drools container of a decision table found on the classpath
+   */
+  public static DroolsDecisionTableEvaluator fromClasspath(String resource) {
+    KieServices kieServices = KieServices.Factory.get();
+
+    KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+    kieFileSystem.write(ResourceFactory.newClassPathResource(resource));
+    KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
+    kieBuilder.buildAll();
+    KieModule kieModule = kieBuilder.getKieModule();
+
+    return new DroolsDecisionTableEvaluator(kieServices.newKieContainer(kieModule.getReleaseId()));
+  }
+
+  @Override
+  public void evaluate(Object inputParameters) {
+    KieSession kieSession = kieContainer.newKieSession();
+    try {
+      kieSession.insert(inputParameters);
+      kieSession.fireAllRules();
+    } finally {
+      kieSession.dispose();
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.salesmanager.core.business.modules.utils;
+
+import java.util.Arrays;
+
+import com.salesmanager.core.model.common.Address;
+
+/**
+ * Least recently used addresses by IPv4 address. Keys are kept as primitive longs in arrays so an
+ * entry costs no boxing and no node object, the least recently used entry is replaced once the
+ * cache is full
+ */
+public class GeoLocationCache {
+
+  private static final int NONE = -1;
+
+  private final int capacity;
+
+  //bucket -> first entry of the chain
+  private final int[] buckets;
+  private final int mask;
+
+  //entries
+  private final long[] keys;
+  private final Address[] values;
+  private final int[] chain;
+  private final int[] before;
+  private final int[] after;
+
+  private int size;
+  //most and least recently used
+  private int head = NONE;
+  private int tail = NONE;
+
+  public GeoLocationCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive " + capacity);
+    }
+    this.capacity = capacity;
+    int bucketCount = Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1;
+    this.buckets = new int[bucketCount];
+    Arrays.fill(buckets, NONE);
+    this.mask = bucketCount - 1;
+    this.keys = new long[capacity];
+    this.values = new Address[capacity];
+    this.chain = new int[capacity];
+    this.before = new int[capacity];
+    this.after = new int[capacity];
+  }
+
+  public synchronized Address get(long key) {
+    int entry = find(key);
+    if (entry == NONE) {
+      return null;
+    }
+    moveToHead(entry);
+    return values[entry];
+  }
+
+  public synchronized void put(long key, Address value) {
+    int entry = find(key);
+    if (entry != NONE) {
+      values[entry] = value;
+      moveToHead(entry);
+      return;
+    }
+    if (size < capacity) {
+      entry = size++;
+    } else {
+      entry = tail;
+      unlink(entry);
+      removeFromBucket(entry);
+    }
+    keys[entry] = key;
+    values[entry] = value;
+    int bucket = bucket(key);
+    chain[entry] = buckets[bucket];
+    buckets[bucket] = entry;
+    linkAtHead(entry);
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public synchronized void clear() {
+    Arrays.fill(buckets, NONE);
+    Arrays.fill(values, null);
+    size = 0;
+    head = NONE;
+    tail = NONE;
+  }
+
+  private int find(long key) {
+    for (int entry = buckets[bucket(key)]; entry != NONE; entry = chain[entry]) {
+      if (keys[entry] == key) {
+        return entry;
+      }
+    }
+    return NONE;
+  }
+
+  private int bucket(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private void removeFromBucket(int entry) {
+    int bucket = bucket(keys[entry]);
+    int previous = NONE;
+    for (int current = buckets[bucket]; current != NONE; current = chain[current]) {
+      if (current == entry) {
+        if (previous == NONE) {
+          buckets[bucket] = chain[current];
+        } else {
+          chain[previous] = chain[current];
+        }
+        return;
+      }
+      previous = current;
+    }
+  }
+
+  private void moveToHead(int entry) {
+    if (entry != head) {
+      unlink(entry);
+      linkAtHead(entry);
+    }
+  }
+
+  private void linkAtHead(int entry) {
+    before[entry] = NONE;
+    after[entry] = head;
+    if (head != NONE) {
+      before[head] = entry;
+    }
+    head = entry;
+    if (tail == NONE) {
+      tail = entry;
+    }
+  }
+
+  private void unlink(int entry) {
+    if (before[entry] != NONE) {
+      after[before[entry]] = after[entry];
+    } else {
+      head = after[entry];
+    }
+    if (after[entry] != NONE) {
+      before[after[entry]] = before[entry];
+    } else {
+      tail = before[entry];
+    }
+  }
+
+}
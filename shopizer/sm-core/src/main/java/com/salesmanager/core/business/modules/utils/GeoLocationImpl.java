@@ -1,42 +1,101 @@
 package com.salesmanager.core.business.modules.utils;
 
+import java.io.File;
+import java.io.InputStream;
 import java.net.InetAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.model.CityResponse;
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.utils.CoreConfiguration;
 import com.salesmanager.core.model.common.Address;
 import com.salesmanager.core.modules.utils.GeoLocation;
 
 /**
  * Using Geolite2 City database http://dev.maxmind.com/geoip/geoip2/geolite2/#Databases
  *
+ * The database is opened once at startup in memory mapped mode, from geolocation.database or
+ * from the classpath, and addresses of IPv4 clients are kept in a least recently used cache
+ *
  * @author c.samson
  */
 public class GeoLocationImpl implements GeoLocation {
 
-  private DatabaseReader reader = null;
   private static final Logger LOGGER = LoggerFactory.getLogger(GeoLocationImpl.class);
 
+  private static final String CLASSPATH_DATABASE = "reference/GeoLite2-City.mmdb";
+  private static final int DEFAULT_CACHE_SIZE = 50000;
 
-  @Override
-  public Address getAddress(String ipAddress) throws Exception {
+  @Inject
+  private CoreConfiguration configuration;
 
-    if (reader == null) {
+  private volatile DatabaseReader reader = null;
+  private GeoLocationCache cache;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong lookupNanos = new AtomicLong();
+
+  @PostConstruct
+  public void init() {
+    cache = new GeoLocationCache(cacheSize());
+    try {
+      File database = databaseFile();
+      if (database == null) {
+        LOGGER.error("Cannot find IP database " + CLASSPATH_DATABASE);
+        return;
+      }
+      reader = new DatabaseReader.Builder(database).fileMode(Reader.FileMode.MEMORY_MAPPED)
+          .build();
+      LOGGER.info("Opened IP database " + database.getAbsolutePath());
+    } catch (Exception e) {
+      LOGGER.error("Cannot instantiate IP database", e);
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    if (reader != null) {
       try {
-        java.io.InputStream inputFile = GeoLocationImpl.class.getClassLoader()
-            .getResourceAsStream("reference/GeoLite2-City.mmdb");
-        reader = new DatabaseReader.Builder(inputFile).build();
+        reader.close();
       } catch (Exception e) {
-        LOGGER.error("Cannot instantiate IP database", e);
+        LOGGER.warn("Cannot close IP database", e);
       }
     }
+  }
+
+  @Override
+  public Address getAddress(String ipAddress) throws Exception {
+
+    long key = toLong(ipAddress);
+    if (key >= 0) {
+      Address cached = cache.get(key);
+      if (cached != null) {
+        hits.incrementAndGet();
+        return copy(cached);
+      }
+    }
+    misses.incrementAndGet();
 
     Address address = new Address();
+    if (reader == null) {
+      return address;
+    }
 
+    long start = System.nanoTime();
     try {
 
       CityResponse response = reader.city(InetAddress.getByName(ipAddress));
@@ -50,12 +109,117 @@ public class GeoLocationImpl implements GeoLocation {
       LOGGER.debug("Address not fount in DB " + ne.getMessage());
     } catch (Exception e) {
       throw new ServiceException(e);
+    } finally {
+      lookupNanos.addAndGet(System.nanoTime() - start);
     }
 
+    if (key >= 0) {
+      cache.put(key, copy(address));
+    }
     return address;
 
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * Average time of a database lookup in microseconds
+   */
+  public long getAverageLookupMicros() {
+    long count = misses.get();
+    return count == 0 ? 0 : lookupNanos.get() / count / 1000;
+  }
+
+  /**
+   * IPv4 address as an unsigned 32 bits number, -1 when not an IPv4 address
+   */
+  public static long toLong(String ipAddress) {
+    if (ipAddress == null) {
+      return -1;
+    }
+    long value = 0;
+    int octets = 0;
+    int octet = -1;
+    for (int i = 0; i < ipAddress.length(); i++) {
+      char c = ipAddress.charAt(i);
+      if (c >= '0' && c <= '9') {
+        octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+        if (octet > 255) {
+          return -1;
+        }
+      } else if (c == '.' && octet >= 0 && octets < 3) {
+        value = (value << 8) | octet;
+        octets++;
+        octet = -1;
+      } else {
+        return -1;
+      }
+    }
+    if (octets != 3 || octet < 0) {
+      return -1;
+    }
+    return (value << 8) | octet;
+  }
+
+  private File databaseFile() throws Exception {
+    String path = configuration.getProperty("geolocation.database");
+    if (!StringUtils.isBlank(path)) {
+      File file = new File(path.trim());
+      if (file.isFile()) {
+        return file;
+      }
+      LOGGER.warn("Cannot find IP database " + path + ", using the classpath database");
+    }
 
+    URL url = GeoLocationImpl.class.getClassLoader().getResource(CLASSPATH_DATABASE);
+    if (url == null) {
+      return null;
+    }
+    if ("file".equals(url.getProtocol())) {
+      return new File(url.toURI());
+    }
+
+    //packaged in a jar, mapped from a copy
+    File copy = File.createTempFile("GeoLite2-City", ".mmdb");
+    copy.deleteOnExit();
+    InputStream inputStream = url.openStream();
+    try {
+      Files.copy(inputStream, copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      inputStream.close();
+    }
+    return copy;
   }
 
+  private int cacheSize() {
+    String value = configuration.getProperty("geolocation.cache.size");
+    if (!StringUtils.isBlank(value)) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid geolocation.cache.size " + value);
+      }
+    }
+    return DEFAULT_CACHE_SIZE;
+  }
+
+  private static Address copy(Address address) {
+    Address copy = new Address();
+    copy.setCountry(address.getCountry());
+    copy.setPostalCode(address.getPostalCode());
+    copy.setZone(address.getZone());
+    copy.setCity(address.getCity());
+    return copy;
+  }
 
 }
@@ -12,4 +12,16 @@ public interface CategoryRepositoryCustom {
 
   List<Category> listByStoreAndParent(MerchantStore store, Category category);
 
+  /**
+   * Rows of product id, available, date available, manufacturer id and category id of the
+   * products of a store, or of a single product when a product id is given
+   */
+  List<Object[]> listProductFacets(Integer storeId, Long productId);
+
+  /**
+   * Rows of product id and default price amount of the products of a store, or of a single
+   * product when a product id is given
+   */
+  List<Object[]> listProductDefaultPrices(Integer storeId, Long productId);
+
 }
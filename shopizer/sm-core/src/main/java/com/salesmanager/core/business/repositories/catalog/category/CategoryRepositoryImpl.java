@@ -7,6 +7,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
+import com.salesmanager.core.constants.SchemaConstant;
 import com.salesmanager.core.model.catalog.category.Category;
 import com.salesmanager.core.model.merchant.MerchantStore;
 
@@ -40,6 +41,53 @@ public class CategoryRepositoryImpl implements CategoryRepositoryCustom {
 
   }
 
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<Object[]> listProductFacets(Integer storeId, Long productId) {
+
+    StringBuilder qs = new StringBuilder();
+    qs.append("select product.id, product.available, product.dateAvailable, manufacturer.id, ");
+    qs.append("categories.id from Product product ");
+    qs.append("inner join product.categories categories ");
+    qs.append("left join product.manufacturer manufacturer ");
+    qs.append("where product.merchantStore.id=:mid ");
+    if (productId != null) {
+      qs.append("and product.id=:pid");
+    }
+
+    Query q = this.em.createQuery(qs.toString());
+    q.setParameter("mid", storeId);
+    if (productId != null) {
+      q.setParameter("pid", productId);
+    }
+
+    return q.getResultList();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<Object[]> listProductDefaultPrices(Integer storeId, Long productId) {
+
+    StringBuilder qs = new StringBuilder();
+    qs.append("select product.id, prices.productPriceAmount from Product product ");
+    qs.append("inner join product.availabilities availabilities ");
+    qs.append("inner join availabilities.prices prices ");
+    qs.append("where product.merchantStore.id=:mid and availabilities.region=:region ");
+    qs.append("and prices.defaultPrice=true ");
+    if (productId != null) {
+      qs.append("and product.id=:pid");
+    }
+
+    Query q = this.em.createQuery(qs.toString());
+    q.setParameter("mid", storeId);
+    q.setParameter("region", SchemaConstant.ALL_REGIONS);
+    if (productId != null) {
+      q.setParameter("pid", productId);
+    }
+
+    return q.getResultList();
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public List<Category> listByStoreAndParent(MerchantStore store, Category category) {
@@ -1,10 +1,34 @@
 package com.salesmanager.core.business.repositories.catalog.product;
 
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.salesmanager.core.model.catalog.product.Product;
 
 
 public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
+  /**
+   * Returns pairs of product id and sku
+   */
+  @Query("select p.id, p.sku from Product p where p.merchantStore.id = ?1 and p.sku in ?2")
+  @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+  List<Object[]> findIdsBySku(Integer storeId, Collection<String> skus);
+
+  /**
+   * Next ids of a store after a given id, for walking a catalog by keyset
+   */
+  @Query("select p.id from Product p where p.merchantStore.id = ?1 and p.id > ?2 order by p.id asc")
+  List<Long> findIdsByStoreAfter(Integer storeId, Long afterId, Pageable pageable);
+
+  @Query("select count(p) from Product p where p.merchantStore.id = ?1")
+  long countByStore(Integer storeId);
+
 }
@@ -1,5 +1,6 @@
 package com.salesmanager.core.business.repositories.catalog.product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -33,6 +34,11 @@ public interface ProductRepositoryCustom {
 
   Product getById(Long productId);
 
+  List<Product> getByIds(Collection<Long> productIds);
+
+  List<Product> getByIdsForLocale(Collection<Long> productIds, Language language,
+      Locale locale);
+
   Product getByCode(String productCode, Language language);
 
   List<Product> getProductsForLocale(MerchantStore store,
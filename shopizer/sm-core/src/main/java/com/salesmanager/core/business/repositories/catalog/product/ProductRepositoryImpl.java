@@ -1,11 +1,16 @@
 package com.salesmanager.core.business.repositories.catalog.product;
 
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.PersistenceContext;
@@ -13,8 +18,14 @@ import javax.persistence.Query;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
 
 import com.salesmanager.core.business.constants.Constants;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.ProductCriteria;
 import com.salesmanager.core.model.catalog.product.ProductList;
@@ -27,44 +38,24 @@ import com.salesmanager.core.model.tax.taxclass.TaxClass;
 public class ProductRepositoryImpl implements ProductRepositoryCustom {
 
 
+  private static final int HYDRATION_BATCH_SIZE = 100;
+
   @PersistenceContext
   private EntityManager em;
 
+  @Inject
+  @Qualifier("productCountCache")
+  private Cache productCountCache;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
   @Override
   public Product getById(Long productId) {
 
     try {
 
-      StringBuilder qs = new StringBuilder();
-      qs.append("select distinct p from Product as p ");
-      qs.append("join fetch p.availabilities pa ");
-      qs.append("join fetch p.merchantStore merch ");
-      qs.append("join fetch p.descriptions pd ");
-
-      qs.append("left join fetch p.categories categs ");
-      qs.append("left join fetch categs.descriptions categsd ");
-
-      qs.append("left join fetch pa.prices pap ");
-      qs.append("left join fetch pap.descriptions papd ");
-
-      //images
-      qs.append("left join fetch p.images images ");
-      //options
-      qs.append("left join fetch p.attributes pattr ");
-      qs.append("left join fetch pattr.productOption po ");
-      qs.append("left join fetch po.descriptions pod ");
-      qs.append("left join fetch pattr.productOptionValue pov ");
-      qs.append("left join fetch pov.descriptions povd ");
-      qs.append("left join fetch p.relationships pr ");
-      //other lefts
-      qs.append("left join fetch p.manufacturer manuf ");
-      qs.append("left join fetch manuf.descriptions manufd ");
-      qs.append("left join fetch p.type type ");
-      qs.append("left join fetch p.taxClass tx ");
-
-      //RENTAL
-      qs.append("left join fetch p.owner owner ");
-
+      StringBuilder qs = productQuery("join fetch", true);
       qs.append("where p.id=:pid");
 
       String hql = qs.toString();
@@ -83,6 +74,36 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
   }
 
 
+  @Override
+  public List<Product> getByIds(Collection<Long> productIds) {
+
+    List<Product> products = new ArrayList<Product>();
+    if (CollectionUtils.isEmpty(productIds)) {
+      return products;
+    }
+
+    //products without availability or description are loaded too
+    StringBuilder qs = productQuery("left join fetch", true);
+    qs.append("where p.id in (:pId)");
+
+    String hql = qs.toString();
+
+    List<Long> ids = new ArrayList<Long>(productIds);
+    for (int i = 0; i < ids.size(); i += HYDRATION_BATCH_SIZE) {
+
+      Query q = this.em.createQuery(hql);
+      q.setParameter("pId", ids.subList(i, Math.min(i + HYDRATION_BATCH_SIZE, ids.size())));
+
+      @SuppressWarnings("unchecked")
+      List<Product> batch = q.getResultList();
+      products.addAll(batch);
+    }
+
+    return products;
+
+  }
+
+
   @Override
   public Product getByCode(String productCode, Language language) {
 
@@ -214,11 +235,92 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
     regionList.add("*");
     regionList.add(locale.getCountry());
 
+    Query q = this.em.createQuery(localeQuery("p.id=:pid"));
+
+    q.setParameter("pid", productId);
+    q.setParameter("lid", regionList);
+    q.setParameter("dt", new Date());
+    q.setParameter("lang", language.getId());
+
+    @SuppressWarnings("unchecked")
+    List<Product> results = q.getResultList();
+    if (results.isEmpty()) {
+      return null;
+    } else if (results.size() == 1) {
+      return (Product) results.get(0);
+    }
+    throw new NonUniqueResultException();
+
+
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  @Override
+  public List<Product> getByIdsForLocale(Collection<Long> productIds, Language language,
+      Locale locale) {
+
+    List<Product> products = new ArrayList<Product>();
+    if (CollectionUtils.isEmpty(productIds)) {
+      return products;
+    }
+
+    List regionList = new ArrayList();
+    regionList.add("*");
+    regionList.add(locale.getCountry());
+
+    String hql = localeQuery("p.id in (:pid)");
+    Date now = new Date();
+
+    List<Long> ids = new ArrayList<Long>(productIds);
+    for (int i = 0; i < ids.size(); i += HYDRATION_BATCH_SIZE) {
+
+      Query q = this.em.createQuery(hql);
+      q.setParameter("pid", ids.subList(i, Math.min(i + HYDRATION_BATCH_SIZE, ids.size())));
+      q.setParameter("lid", regionList);
+      q.setParameter("dt", now);
+      q.setParameter("lang", language.getId());
+
+      products.addAll(q.getResultList());
+    }
+
+    return products;
+
+  }
+
+  /**
+   * Available products with their details in a language and region, restricted by a condition
+   * on the product ids bound to :pid
+   */
+  private String localeQuery(String productCondition) {
+
+    StringBuilder qs = productQuery("join fetch", false);
+    qs.append("where ").append(productCondition).append(" and pa.region in (:lid) ");
+    qs.append("and pd.language.id=:lang and papd.language.id=:lang ");
+    qs.append("and p.available=true and p.dateAvailable<=:dt ");
+    //this cannot be done on child elements from left join
+    //qs.append("and pod.languageId=:lang and povd.languageId=:lang");
+
+    return qs.toString();
+  }
+
+  /**
+   * Product with the details it is displayed with, up to the where clause. Availabilities and
+   * descriptions are joined with availabilityJoin, "join fetch" to only keep products having some
+   * or "left join fetch"
+   */
+  private StringBuilder productQuery(String availabilityJoin, boolean categories) {
+
     StringBuilder qs = new StringBuilder();
     qs.append("select distinct p from Product as p ");
-    qs.append("join fetch p.availabilities pa ");
-    qs.append("join fetch p.descriptions pd ");
-    qs.append("join fetch p.merchantStore pm ");
+    qs.append(availabilityJoin).append(" p.availabilities pa ");
+    qs.append(availabilityJoin).append(" p.descriptions pd ");
+    qs.append("join fetch p.merchantStore merch ");
+
+    if (categories) {
+      qs.append("left join fetch p.categories categs ");
+      qs.append("left join fetch categs.descriptions categsd ");
+    }
+
     qs.append("left join fetch pa.prices pap ");
     qs.append("left join fetch pap.descriptions papd ");
 
@@ -240,30 +342,7 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
     //RENTAL
     qs.append("left join fetch p.owner owner ");
 
-    qs.append("where p.id=:pid and pa.region in (:lid) ");
-    qs.append("and pd.language.id=:lang and papd.language.id=:lang ");
-    qs.append("and p.available=true and p.dateAvailable<=:dt ");
-    //this cannot be done on child elements from left join
-    //qs.append("and pod.languageId=:lang and povd.languageId=:lang");
-
-    String hql = qs.toString();
-    Query q = this.em.createQuery(hql);
-
-    q.setParameter("pid", productId);
-    q.setParameter("lid", regionList);
-    q.setParameter("dt", new Date());
-    q.setParameter("lang", language.getId());
-
-    @SuppressWarnings("unchecked")
-    List<Product> results = q.getResultList();
-    if (results.isEmpty()) {
-      return null;
-    } else if (results.size() == 1) {
-      return (Product) results.get(0);
-    }
-    throw new NonUniqueResultException();
-
-
+    return qs;
   }
 
   @SuppressWarnings("rawtypes")
@@ -488,142 +567,94 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
 
   /**
    * This query is used for filtering products based on criterias
+   *
+   * Paging is done in two phases. The first query selects only the ordered page
+   * of product ids (the database can page since there is no fetch join), the
+   * second query hydrates the products of that page only. Counts are cached per
+   * store and criteria until a product of the store is modified, pages of ids are
+   * in the query cache until a table of the query is modified.
    */
   @Override
   public ProductList listByStore(MerchantStore store, Language language, ProductCriteria criteria) {
 
     ProductList productList = new ProductList();
 
-    StringBuilder countBuilderSelect = new StringBuilder();
-    countBuilderSelect.append("select count(distinct p) from Product as p");
-
-    StringBuilder countBuilderWhere = new StringBuilder();
-    countBuilderWhere.append(" where p.merchantStore.id=:mId");
-
-    if (!CollectionUtils.isEmpty(criteria.getProductIds())) {
-      countBuilderWhere.append(" and p.id in (:pId)");
-    }
-
-    countBuilderSelect.append(" inner join p.descriptions pd");
-    countBuilderWhere.append(" and pd.language.id=:lang");
-
-    if (!StringUtils.isBlank(criteria.getProductName())) {
-      countBuilderWhere.append(" and lower(pd.name) like:nm");
-    }
-
-    if (!CollectionUtils.isEmpty(criteria.getCategoryIds())) {
-      countBuilderSelect.append(" INNER JOIN p.categories categs");
-      countBuilderWhere.append(" and categs.id in (:cid)");
-    }
-
-    if (criteria.getManufacturerId() != null) {
-      countBuilderSelect.append(" INNER JOIN p.manufacturer manuf");
-      countBuilderWhere.append(" and manuf.id = :manufid");
-    }
+    StringBuilder joins = new StringBuilder();
+    StringBuilder where = new StringBuilder();
+    buildListingFilter(criteria, joins, where);
 
-    if (!StringUtils.isBlank(criteria.getCode())) {
-      countBuilderWhere.append(" and lower(p.sku) like :sku");
-    }
+    int count = countByCriteria(store, language, criteria, joins.toString(), where.toString());
 
-    //RENTAL
-    if (!StringUtils.isBlank(criteria.getStatus())) {
-      countBuilderWhere.append(" and p.rentalStatus = :status");
-    }
+    productList.setTotalCount(count);
 
-    if (criteria.getOwnerId() != null) {
-      countBuilderSelect.append(" INNER JOIN p.owner owner");
-      countBuilderWhere.append(" and owner.id = :ownerid");
+    if (count == 0) {
+      return productList;
     }
 
-    if (!CollectionUtils.isEmpty(criteria.getAttributeCriteria())) {
+    StringBuilder qs = new StringBuilder();
+    qs.append("select distinct p.id, p.sortOrder from Product as p");
+    qs.append(joins);
+    qs.append(where);
+    qs.append(" order by p.sortOrder asc, p.id asc");
 
-      countBuilderSelect.append(" INNER JOIN p.attributes pattr");
-      countBuilderSelect.append(" INNER JOIN pattr.productOption po");
-      countBuilderSelect.append(" INNER JOIN pattr.productOptionValue pov ");
-      countBuilderSelect.append(" INNER JOIN pov.descriptions povd ");
-      int count = 0;
-      for (AttributeCriteria attributeCriteria : criteria.getAttributeCriteria()) {
-        if (count == 0) {
-          countBuilderWhere.append(" and po.code =:").append(attributeCriteria.getAttributeCode());
-          countBuilderWhere.append(" and povd.description like :").append("val").append(count)
-              .append(attributeCriteria.getAttributeCode());
-        }
-        count++;
-      }
-      countBuilderWhere.append(" and povd.language.id=:lang");
+    Query q = this.em.createQuery(qs.toString());
+    setListingParameters(q, store, language, criteria);
+    q.setHint(QueryHints.HINT_CACHEABLE, true);
 
-    }
+    if (criteria.getMaxCount() > 0) {
 
-    if (criteria.getAvailable() != null) {
-      if (criteria.getAvailable().booleanValue()) {
-        countBuilderWhere.append(" and p.available=true and p.dateAvailable<=:dt");
+      q.setFirstResult(criteria.getStartIndex());
+      if (criteria.getMaxCount() < count) {
+        q.setMaxResults(criteria.getMaxCount());
       } else {
-        countBuilderWhere.append(" and p.available=false or p.dateAvailable>:dt");
+        q.setMaxResults(count);
       }
     }
 
-    Query countQ = this.em.createQuery(
-        countBuilderSelect.toString() + countBuilderWhere.toString());
-
-    countQ.setParameter("mId", store.getId());
+    @SuppressWarnings("unchecked")
+    List<Object[]> rows = q.getResultList();
 
-    if (!CollectionUtils.isEmpty(criteria.getCategoryIds())) {
-      countQ.setParameter("cid", criteria.getCategoryIds());
+    List<Long> productIds = new ArrayList<Long>(rows.size());
+    for (Object[] row : rows) {
+      productIds.add((Long) row[0]);
     }
 
-    if (criteria.getAvailable() != null) {
-      countQ.setParameter("dt", new Date());
-    }
+    productList.setProducts(hydrate(productIds, language));
 
-    if (!StringUtils.isBlank(criteria.getCode())) {
-      countQ.setParameter("sku",
-          new StringBuilder().append("%").append(criteria.getCode().toLowerCase()).append("%")
-              .toString());
-    }
+    return productList;
 
-    if (criteria.getManufacturerId() != null) {
-      countQ.setParameter("manufid", criteria.getManufacturerId());
-    }
 
-    if (!CollectionUtils.isEmpty(criteria.getAttributeCriteria())) {
-      int count = 0;
-      for (AttributeCriteria attributeCriteria : criteria.getAttributeCriteria()) {
-        countQ.setParameter(attributeCriteria.getAttributeCode(),
-            attributeCriteria.getAttributeCode());
-        countQ.setParameter("val" + count + attributeCriteria.getAttributeCode(),
-            "%" + attributeCriteria.getAttributeValue() + "%");
-        count++;
-      }
-    }
+  }
 
-    countQ.setParameter("lang", language.getId());
+  private int countByCriteria(MerchantStore store, Language language, ProductCriteria criteria,
+      String joins, String where) {
 
-    if (!StringUtils.isBlank(criteria.getProductName())) {
-      countQ.setParameter("nm",
-          new StringBuilder().append("%").append(criteria.getProductName().toLowerCase())
-              .append("%").toString());
-    }
+    String cacheKey = new StringBuilder().append(store.getId()).append("_")
+        .append(storeVersionService.getVersion(StoreVersionService.PRODUCT_COUNTS, store.getId()))
+        .append("_").append(language.getId())
+        .append("_").append(criteriaKey(criteria)).toString();
 
-    if (!CollectionUtils.isEmpty(criteria.getProductIds())) {
-      countQ.setParameter("pId", criteria.getProductIds());
+    ValueWrapper cached = productCountCache.get(cacheKey);
+    if (cached != null) {
+      return (Integer) cached.get();
     }
 
-    //RENTAL
-    if (!StringUtils.isBlank(criteria.getStatus())) {
-      countQ.setParameter("status", criteria.getStatus());
-    }
-
-    if (criteria.getOwnerId() != null) {
-      countQ.setParameter("ownerid", criteria.getOwnerId());
-    }
+    Query countQ = this.em.createQuery(
+        "select count(distinct p) from Product as p" + joins + where);
+    setListingParameters(countQ, store, language, criteria);
 
     Number count = (Number) countQ.getSingleResult();
+    productCountCache.put(cacheKey, count.intValue());
 
-    productList.setTotalCount(count.intValue());
+    return count.intValue();
+  }
 
-    if (count.intValue() == 0) {
-      return productList;
-    }
+  /**
+   * Loads the products of a page, preserving the order of the ids
+   */
+  private List<Product> hydrate(List<Long> productIds, Language language) {
+
+    Map<Long, Product> loaded = new HashMap<Long, Product>();
 
     StringBuilder qs = new StringBuilder();
     qs.append("select distinct p from Product as p ");
@@ -648,77 +679,111 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
     qs.append("left join fetch p.owner owner ");
 
     //attributes
-    if (!CollectionUtils.isEmpty(criteria.getAttributeCriteria())) {
-      qs.append(" inner join p.attributes pattr");
-      qs.append(" inner join pattr.productOption po");
-      qs.append(" inner join po.descriptions pod");
-      qs.append(" inner join pattr.productOptionValue pov ");
-      qs.append(" inner join pov.descriptions povd");
-    } else {
-      qs.append(" left join fetch p.attributes pattr");
-      qs.append(" left join fetch pattr.productOption po");
-      qs.append(" left join fetch po.descriptions pod");
-      qs.append(" left join fetch pattr.productOptionValue pov");
-      qs.append(" left join fetch pov.descriptions povd");
+    qs.append("left join fetch p.attributes pattr ");
+    qs.append("left join fetch pattr.productOption po ");
+    qs.append("left join fetch po.descriptions pod ");
+    qs.append("left join fetch pattr.productOptionValue pov ");
+    qs.append("left join fetch pov.descriptions povd ");
+
+    qs.append("left join fetch p.relationships pr ");
+
+    qs.append("where p.id in (:pId) and pd.language.id=:lang");
+
+    String hql = qs.toString();
+
+    for (int i = 0; i < productIds.size(); i += HYDRATION_BATCH_SIZE) {
+
+      List<Long> batch =
+          productIds.subList(i, Math.min(i + HYDRATION_BATCH_SIZE, productIds.size()));
+
+      Query q = this.em.createQuery(hql);
+      q.setParameter("pId", batch);
+      q.setParameter("lang", language.getId());
+
+      @SuppressWarnings("unchecked")
+      List<Product> products = q.getResultList();
+      for (Product p : products) {
+        loaded.put(p.getId(), p);
+      }
+    }
+
+    List<Product> products = new ArrayList<Product>(productIds.size());
+    for (Long id : productIds) {
+      Product p = loaded.get(id);
+      if (p != null) {
+        products.add(p);
+      }
     }
+    return products;
+  }
+
+  /**
+   * Joins and restrictions shared by the count and the id page queries
+   */
+  private void buildListingFilter(ProductCriteria criteria, StringBuilder joins,
+      StringBuilder where) {
 
-    qs.append(" left join fetch p.relationships pr");
+    joins.append(" inner join p.descriptions pd");
 
-    qs.append(" where merch.id=:mId");
-    qs.append(" and pd.language.id=:lang");
+    where.append(" where p.merchantStore.id=:mId");
+    where.append(" and pd.language.id=:lang");
 
     if (!CollectionUtils.isEmpty(criteria.getProductIds())) {
-      qs.append(" and p.id in (:pId)");
+      where.append(" and p.id in (:pId)");
     }
 
     if (!CollectionUtils.isEmpty(criteria.getCategoryIds())) {
-      qs.append(" and categs.id in (:cid)");
+      joins.append(" inner join p.categories categs");
+      where.append(" and categs.id in (:cid)");
     }
 
     if (criteria.getManufacturerId() != null) {
-      qs.append(" and manuf.id = :manufid");
+      where.append(" and p.manufacturer.id = :manufid");
     }
 
     if (criteria.getAvailable() != null) {
       if (criteria.getAvailable().booleanValue()) {
-        qs.append(" and p.available=true and p.dateAvailable<=:dt");
+        where.append(" and p.available=true and p.dateAvailable<=:dt");
       } else {
-        qs.append(" and p.available=false and p.dateAvailable>:dt");
+        where.append(" and p.available=false and p.dateAvailable>:dt");
       }
     }
 
     if (!StringUtils.isBlank(criteria.getProductName())) {
-      qs.append(" and lower(pd.name) like :nm");
+      where.append(" and lower(pd.name) like :nm");
     }
 
     if (!StringUtils.isBlank(criteria.getCode())) {
-      qs.append(" and lower(p.sku) like :sku");
+      where.append(" and lower(p.sku) like :sku");
     }
 
     //RENTAL
     if (!StringUtils.isBlank(criteria.getStatus())) {
-      qs.append(" and p.rentalStatus = :status");
+      where.append(" and p.rentalStatus = :status");
     }
 
     if (criteria.getOwnerId() != null) {
-      qs.append(" and owner.id = :ownerid");
+      where.append(" and p.owner.id = :ownerid");
     }
 
     if (!CollectionUtils.isEmpty(criteria.getAttributeCriteria())) {
+      joins.append(" inner join p.attributes pattr");
+      joins.append(" inner join pattr.productOption po");
+      joins.append(" inner join pattr.productOptionValue pov");
+      joins.append(" inner join pov.descriptions povd");
       int cnt = 0;
       for (AttributeCriteria attributeCriteria : criteria.getAttributeCriteria()) {
-        qs.append(" and po.code =:").append(attributeCriteria.getAttributeCode());
-        qs.append(" and povd.description like :").append("val").append(cnt)
+        where.append(" and po.code =:").append(attributeCriteria.getAttributeCode());
+        where.append(" and povd.description like :").append("val").append(cnt)
             .append(attributeCriteria.getAttributeCode());
         cnt++;
       }
-      qs.append(" and povd.language.id=:lang");
-
+      where.append(" and povd.language.id=:lang");
     }
-    qs.append(" order by p.sortOrder asc");
+  }
 
-    String hql = qs.toString();
-    Query q = this.em.createQuery(hql);
+  private void setListingParameters(Query q, MerchantStore store, Language language,
+      ProductCriteria criteria) {
 
     q.setParameter("lang", language.getId());
     q.setParameter("mId", store.getId());
@@ -732,7 +797,8 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
     }
 
     if (criteria.getAvailable() != null) {
-      q.setParameter("dt", new Date());
+      //to the minute, same parameters for a minute in the query cache
+      q.setParameter("dt", DateUtils.truncate(new Date(), Calendar.MINUTE));
     }
 
     if (criteria.getManufacturerId() != null) {
@@ -769,24 +835,25 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
           new StringBuilder().append("%").append(criteria.getProductName().toLowerCase())
               .append("%").toString());
     }
+  }
 
-    if (criteria.getMaxCount() > 0) {
-
-      q.setFirstResult(criteria.getStartIndex());
-      if (criteria.getMaxCount() < count.intValue()) {
-        q.setMaxResults(criteria.getMaxCount());
-      } else {
-        q.setMaxResults(count.intValue());
+  private String criteriaKey(ProductCriteria criteria) {
+    StringBuilder key = new StringBuilder();
+    key.append(criteria.getProductIds()).append("|")
+        .append(criteria.getCategoryIds()).append("|")
+        .append(criteria.getManufacturerId()).append("|")
+        .append(criteria.getAvailable()).append("|")
+        .append(StringUtils.lowerCase(criteria.getProductName())).append("|")
+        .append(StringUtils.lowerCase(criteria.getCode())).append("|")
+        .append(criteria.getStatus()).append("|")
+        .append(criteria.getOwnerId());
+    if (!CollectionUtils.isEmpty(criteria.getAttributeCriteria())) {
+      for (AttributeCriteria attributeCriteria : criteria.getAttributeCriteria()) {
+        key.append("|").append(attributeCriteria.getAttributeCode()).append("=")
+            .append(attributeCriteria.getAttributeValue());
       }
     }
-
-    @SuppressWarnings("unchecked")
-    List<Product> products = q.getResultList();
-    productList.setProducts(products);
-
-    return productList;
-
-
+    return key.toString();
   }
 
   @Override
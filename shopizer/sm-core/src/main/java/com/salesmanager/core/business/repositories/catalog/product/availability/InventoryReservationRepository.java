@@ -0,0 +1,35 @@
+package com.salesmanager.core.business.repositories.catalog.product.availability;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.salesmanager.core.model.catalog.product.availability.InventoryReservation;
+
+public interface InventoryReservationRepository extends
+    JpaRepository<InventoryReservation, Long> {
+
+  @Query("select r from InventoryReservation r where r.reference = ?1 order by r.productId")
+  List<InventoryReservation> findByReference(String reference);
+
+  @Query("select r from InventoryReservation r where r.expirationDate < ?1 order by r.productId")
+  List<InventoryReservation> findExpired(Date date);
+
+  /**
+   * Returns 0 when the reservation was already confirmed or released by someone else
+   */
+  @Modifying
+  @Query("delete from InventoryReservation r where r.id = ?1")
+  int deleteReservation(Long id);
+
+  /**
+   * Returns the number of reservations of the reference still held
+   */
+  @Modifying
+  @Query("update InventoryReservation r set r.expirationDate = ?2 where r.reference = ?1")
+  int extendReservations(String reference, Date expirationDate);
+
+}
@@ -1,9 +1,25 @@
 package com.salesmanager.core.business.repositories.catalog.product.availability;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
 
 public interface ProductAvailabilityRepository extends JpaRepository<ProductAvailability, Long> {
 
+  @Query("select count(a) from ProductAvailability a where a.product.id = ?1")
+  long countByProduct(Long productId);
+
+  /**
+   * Conditional decrement, availabilities without enough quantity are left untouched
+   */
+  @Modifying
+  @Query("update ProductAvailability a set a.productQuantity = a.productQuantity - ?2 where a.product.id = ?1 and a.productQuantity >= ?2")
+  int decrementQuantity(Long productId, Integer quantity);
+
+  @Modifying
+  @Query("update ProductAvailability a set a.productQuantity = a.productQuantity + ?2 where a.product.id = ?1")
+  int incrementQuantity(Long productId, Integer quantity);
+
 }
@@ -27,5 +27,10 @@ public interface ProductRelationshipRepositoryCustom {
   List<ProductRelationship> getByType(MerchantStore store, String type,
       Product product);
 
+  /**
+   * Code, product id (null for a group) and related product id of the relationships of a store,
+   * in the order they were created
+   */
+  List<Object[]> listLinks(Integer storeId);
 
 }
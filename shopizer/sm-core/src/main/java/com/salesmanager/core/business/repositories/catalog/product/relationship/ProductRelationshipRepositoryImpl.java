@@ -272,4 +272,21 @@ public class ProductRelationshipRepositoryImpl implements ProductRelationshipRep
 
   }
 
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<Object[]> listLinks(Integer storeId) {
+
+    StringBuilder qs = new StringBuilder();
+    qs.append("select pr.code, p.id, rp.id from ProductRelationship as pr ");
+    qs.append("left join pr.product p ");
+    qs.append("inner join pr.relatedProduct rp ");
+    qs.append("where pr.store.id=:storeId ");
+    qs.append("order by pr.id");
+
+    Query q = this.em.createQuery(qs.toString());
+    q.setParameter("storeId", storeId);
+
+    return q.getResultList();
+  }
+
 }
@@ -0,0 +1,31 @@
+package com.salesmanager.core.business.repositories.search;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.salesmanager.core.model.search.ProductIndexChange;
+
+public interface ProductIndexChangeRepository extends JpaRepository<ProductIndexChange, Long> {
+
+  /**
+   * Oldest changes first
+   */
+  @Query("select c from ProductIndexChange c order by c.id asc")
+  List<ProductIndexChange> findPending(Pageable pageable);
+
+  @Query("select min(c.dateCreated) from ProductIndexChange c")
+  Date findOldestDate();
+
+  @Transactional
+  @Modifying
+  @Query("delete from ProductIndexChange c where c.id in ?1")
+  int deleteByIds(Collection<Long> ids);
+
+}
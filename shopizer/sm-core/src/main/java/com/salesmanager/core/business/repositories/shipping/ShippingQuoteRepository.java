@@ -13,7 +13,7 @@ public interface ShippingQuoteRepository extends JpaRepository<Quote, Long> {
   @Query("select q from Quote as q where q.orderId = ?1")
   List<Quote> findByOrder(Long order);
 
-  @Query("select q from Quote as q where q.shippingQuoteId = ?1")
+  @Query("select q from Quote as q where q.id = ?1")
   Quote findOne(Long id);
 
 }
@@ -0,0 +1,21 @@
+package com.salesmanager.core.business.repositories.system;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.salesmanager.core.model.system.RevokedToken;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+  @Query("select t from RevokedToken t where t.revocationDate >= ?1 and t.expirationDate > ?2 order by t.id")
+  List<RevokedToken> findRevokedSince(Date since, Date now);
+
+  @Modifying
+  @Query("delete from RevokedToken t where t.expirationDate <= ?1")
+  int deleteExpired(Date now);
+
+}
@@ -0,0 +1,57 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Available products of a category and of its sub categories, with their price range and
+ * manufacturers. A facet is never modified once built
+ */
+public final class CategoryFacet {
+
+  private final Long categoryId;
+  private final int productCount;
+  private final BigDecimal minPrice;
+  private final BigDecimal maxPrice;
+  private final Set<Long> manufacturerIds;
+
+  public CategoryFacet(Long categoryId, int productCount, BigDecimal minPrice,
+      BigDecimal maxPrice, Set<Long> manufacturerIds) {
+    this.categoryId = categoryId;
+    this.productCount = productCount;
+    this.minPrice = minPrice;
+    this.maxPrice = maxPrice;
+    this.manufacturerIds = Collections.unmodifiableSet(manufacturerIds);
+  }
+
+  public Long getCategoryId() {
+    return categoryId;
+  }
+
+  /**
+   * Distinct available products, a product in two sub categories is counted once
+   */
+  public int getProductCount() {
+    return productCount;
+  }
+
+  /**
+   * Lowest default price, null when no available product has a price
+   */
+  public BigDecimal getMinPrice() {
+    return minPrice;
+  }
+
+  /**
+   * Highest default price, null when no available product has a price
+   */
+  public BigDecimal getMaxPrice() {
+    return maxPrice;
+  }
+
+  public Set<Long> getManufacturerIds() {
+    return manufacturerIds;
+  }
+
+}
@@ -0,0 +1,238 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Products of a merchant store by category. Facets of a category roll up the products of its sub
+ * categories and are computed when first read. A product change only drops the facets of the
+ * categories of the product and of their ancestors, a change of the category tree drops them all
+ */
+public class CategoryFacetIndex {
+
+  private final long version;
+
+  private CategoryTree tree;
+
+  private final Map<Long, Entry> products = new HashMap<Long, Entry>();
+  private final Map<Long, Set<Long>> productsByCategory = new HashMap<Long, Set<Long>>();
+
+  private final Map<Long, CategoryFacet> facets = new HashMap<Long, CategoryFacet>();
+  //a facet has to be computed again once an available product reaches its date available
+  private final Map<Long, Date> expirations = new HashMap<Long, Date>();
+
+  public CategoryFacetIndex(long version, CategoryTree tree, Collection<Entry> entries) {
+    this.version = version;
+    this.tree = tree;
+    for (Entry entry : entries) {
+      add(entry);
+    }
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public synchronized int size() {
+    return products.size();
+  }
+
+  /**
+   * Adds or replaces a product
+   */
+  public synchronized void put(Entry entry) {
+    Entry previous = products.get(entry.getProductId());
+    if (previous != null) {
+      removeEntry(previous);
+    }
+    add(entry);
+  }
+
+  public synchronized void remove(Long productId) {
+    Entry previous = products.get(productId);
+    if (previous != null) {
+      removeEntry(previous);
+    }
+  }
+
+  /**
+   * Facets of categories, computed against the current category tree of the store
+   */
+  public synchronized Map<Long, CategoryFacet> getFacets(CategoryTree current,
+      Collection<Long> categoryIds, Date now) {
+
+    if (current.getVersion() != tree.getVersion()) {
+      tree = current;
+      facets.clear();
+      expirations.clear();
+    }
+
+    Map<Long, CategoryFacet> result = new LinkedHashMap<Long, CategoryFacet>();
+    for (Long categoryId : categoryIds) {
+      CategoryFacet facet = facets.get(categoryId);
+      Date expiration = expirations.get(categoryId);
+      if (facet == null || (expiration != null && !now.before(expiration))) {
+        facet = compute(categoryId, now);
+      }
+      result.put(categoryId, facet);
+    }
+    return result;
+  }
+
+  private void add(Entry entry) {
+    products.put(entry.getProductId(), entry);
+    for (Long categoryId : entry.getCategoryIds()) {
+      Set<Long> ids = productsByCategory.get(categoryId);
+      if (ids == null) {
+        ids = new HashSet<Long>();
+        productsByCategory.put(categoryId, ids);
+      }
+      ids.add(entry.getProductId());
+    }
+    drop(entry.getCategoryIds());
+  }
+
+  private void removeEntry(Entry entry) {
+    products.remove(entry.getProductId());
+    for (Long categoryId : entry.getCategoryIds()) {
+      Set<Long> ids = productsByCategory.get(categoryId);
+      if (ids != null) {
+        ids.remove(entry.getProductId());
+        if (ids.isEmpty()) {
+          productsByCategory.remove(categoryId);
+        }
+      }
+    }
+    drop(entry.getCategoryIds());
+  }
+
+  //drops the facets of categories and of their ancestors
+  private void drop(Set<Long> categoryIds) {
+    for (Long categoryId : categoryIds) {
+      facets.remove(categoryId);
+      expirations.remove(categoryId);
+      int depth = tree.getDepth(categoryId);
+      Long id = categoryId;
+      for (int i = 0; i < depth; i++) {
+        id = tree.getParent(id).getId();
+        facets.remove(id);
+        expirations.remove(id);
+      }
+    }
+  }
+
+  private CategoryFacet compute(Long categoryId, Date now) {
+
+    Set<Long> productIds = new HashSet<Long>();
+    addProducts(categoryId, productIds);
+    //products of hidden sub categories are not listed on the category page
+    List<Long> descendants = tree.getDescendantIds(categoryId, true);
+    for (Long descendant : descendants) {
+      addProducts(descendant, productIds);
+    }
+
+    int count = 0;
+    BigDecimal min = null;
+    BigDecimal max = null;
+    Date expiration = null;
+    Set<Long> manufacturerIds = new HashSet<Long>();
+    for (Long productId : productIds) {
+      Entry entry = products.get(productId);
+      if (!entry.isAvailable()) {
+        continue;
+      }
+      if (entry.getDateAvailable() != null && entry.getDateAvailable().after(now)) {
+        if (expiration == null || entry.getDateAvailable().before(expiration)) {
+          expiration = entry.getDateAvailable();
+        }
+        continue;
+      }
+      count++;
+      BigDecimal price = entry.getPrice();
+      if (price != null) {
+        if (min == null || price.compareTo(min) < 0) {
+          min = price;
+        }
+        if (max == null || price.compareTo(max) > 0) {
+          max = price;
+        }
+      }
+      if (entry.getManufacturerId() != null) {
+        manufacturerIds.add(entry.getManufacturerId());
+      }
+    }
+
+    CategoryFacet facet = new CategoryFacet(categoryId, count, min, max, manufacturerIds);
+    facets.put(categoryId, facet);
+    if (expiration != null) {
+      expirations.put(categoryId, expiration);
+    } else {
+      expirations.remove(categoryId);
+    }
+    return facet;
+  }
+
+  private void addProducts(Long categoryId, Set<Long> productIds) {
+    Set<Long> ids = productsByCategory.get(categoryId);
+    if (ids != null) {
+      productIds.addAll(ids);
+    }
+  }
+
+  /**
+   * What a facet needs to know of a product
+   */
+  public static final class Entry {
+
+    private final Long productId;
+    private final boolean available;
+    private final Date dateAvailable;
+    private final Long manufacturerId;
+    private final BigDecimal price;
+    private final Set<Long> categoryIds;
+
+    public Entry(Long productId, boolean available, Date dateAvailable, Long manufacturerId,
+        BigDecimal price, Set<Long> categoryIds) {
+      this.productId = productId;
+      this.available = available;
+      this.dateAvailable = dateAvailable;
+      this.manufacturerId = manufacturerId;
+      this.price = price;
+      this.categoryIds = Collections.unmodifiableSet(new HashSet<Long>(categoryIds));
+    }
+
+    public Long getProductId() {
+      return productId;
+    }
+
+    public boolean isAvailable() {
+      return available;
+    }
+
+    public Date getDateAvailable() {
+      return dateAvailable;
+    }
+
+    public Long getManufacturerId() {
+      return manufacturerId;
+    }
+
+    public BigDecimal getPrice() {
+      return price;
+    }
+
+    public Set<Long> getCategoryIds() {
+      return categoryIds;
+    }
+
+  }
+
+}
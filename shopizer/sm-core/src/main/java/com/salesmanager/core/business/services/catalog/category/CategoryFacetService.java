@@ -0,0 +1,27 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Keeps the product counts, price ranges and manufacturers of the categories of each store in
+ * memory. Products are loaded once per store then maintained one product at a time
+ */
+public interface CategoryFacetService {
+
+  /**
+   * Facets by category id in the order of the ids, sub categories included
+   */
+  Map<Long, CategoryFacet> getFacets(MerchantStore store, Collection<Long> categoryIds);
+
+  CategoryFacet getFacet(MerchantStore store, Long categoryId);
+
+  /**
+   * Reads a product again once the current transaction is committed, must be invoked when a
+   * product, its categories, availabilities or prices are created, modified or removed
+   */
+  void refresh(Integer storeId, Long productId);
+
+}
@@ -0,0 +1,169 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.salesmanager.core.business.repositories.catalog.category.CategoryRepository;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+@Service("categoryFacetService")
+public class CategoryFacetServiceImpl implements CategoryFacetService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CategoryFacetServiceImpl.class);
+
+  @Inject
+  private CategoryRepository categoryRepository;
+
+  @Inject
+  private CategoryTreeService categoryTreeService;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  private final ConcurrentMap<Integer, CategoryFacetIndex> indexes =
+      new ConcurrentHashMap<Integer, CategoryFacetIndex>();
+
+  //a store is loaded and refreshed by one thread at a time
+  private final ConcurrentMap<Integer, Object> locks = new ConcurrentHashMap<Integer, Object>();
+
+  @Override
+  public Map<Long, CategoryFacet> getFacets(MerchantStore store, Collection<Long> categoryIds) {
+    CategoryTree tree = categoryTreeService.getTree(store);
+    return getIndex(store, tree).getFacets(tree, categoryIds, new Date());
+  }
+
+  @Override
+  public CategoryFacet getFacet(MerchantStore store, Long categoryId) {
+    return getFacets(store, Collections.singletonList(categoryId)).get(categoryId);
+  }
+
+  @Override
+  public void refresh(final Integer storeId, final Long productId) {
+
+    if (productId == null) {
+      return;
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              reload(storeId, productId);
+            }
+          });
+    } else {
+      reload(storeId, productId);
+    }
+  }
+
+  private void reload(Integer storeId, Long productId) {
+    synchronized (lock(storeId)) {
+      //not loaded yet, will be read with the other products
+      CategoryFacetIndex index = indexes.get(storeId);
+      if (index == null) {
+        return;
+      }
+      List<CategoryFacetIndex.Entry> entries = entries(
+          categoryRepository.listProductFacets(storeId, productId),
+          categoryRepository.listProductDefaultPrices(storeId, productId));
+      if (entries.isEmpty()) {
+        index.remove(productId);
+      } else {
+        index.put(entries.get(0));
+      }
+    }
+  }
+
+  private CategoryFacetIndex getIndex(MerchantStore store, CategoryTree tree) {
+    //products are refreshed one by one on this instance, the version only moves with age
+    long version = storeVersionService.getVersion(StoreVersionService.CATEGORY_FACETS,
+        store.getId());
+    CategoryFacetIndex index = indexes.get(store.getId());
+    if (index != null && index.getVersion() == version) {
+      return index;
+    }
+    synchronized (lock(store.getId())) {
+      index = indexes.get(store.getId());
+      if (index == null || index.getVersion() < version) {
+        index = new CategoryFacetIndex(version, tree, entries(
+            categoryRepository.listProductFacets(store.getId(), null),
+            categoryRepository.listProductDefaultPrices(store.getId(), null)));
+        LOGGER.debug("Loaded " + index.size() + " products in categories for store "
+            + store.getId());
+        indexes.put(store.getId(), index);
+      }
+      return index;
+    }
+  }
+
+  private Object lock(Integer storeId) {
+    Object lock = locks.get(storeId);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = locks.putIfAbsent(storeId, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  private List<CategoryFacetIndex.Entry> entries(List<Object[]> facetRows,
+      List<Object[]> priceRows) {
+
+    //lowest default price when a product has more than one
+    Map<Long, BigDecimal> prices = new HashMap<Long, BigDecimal>();
+    for (Object[] row : priceRows) {
+      Long productId = (Long) row[0];
+      BigDecimal price = (BigDecimal) row[1];
+      BigDecimal current = prices.get(productId);
+      if (price != null && (current == null || price.compareTo(current) < 0)) {
+        prices.put(productId, price);
+      }
+    }
+
+    Map<Long, Object[]> products = new LinkedHashMap<Long, Object[]>();
+    Map<Long, Set<Long>> categories = new HashMap<Long, Set<Long>>();
+    for (Object[] row : facetRows) {
+      Long productId = (Long) row[0];
+      Set<Long> categoryIds = categories.get(productId);
+      if (categoryIds == null) {
+        categoryIds = new HashSet<Long>();
+        categories.put(productId, categoryIds);
+        products.put(productId, row);
+      }
+      categoryIds.add((Long) row[4]);
+    }
+
+    List<CategoryFacetIndex.Entry> entries =
+        new ArrayList<CategoryFacetIndex.Entry>(products.size());
+    for (Object[] row : products.values()) {
+      Long productId = (Long) row[0];
+      entries.add(new CategoryFacetIndex.Entry(productId, Boolean.TRUE.equals(row[1]),
+          (Date) row[2], (Long) row[3], prices.get(productId), categories.get(productId)));
+    }
+    return entries;
+  }
+
+}
@@ -2,7 +2,9 @@ package com.salesmanager.core.business.services.catalog.category;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -12,7 +14,6 @@ import javax.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
-import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.catalog.category.CategoryRepository;
 import com.salesmanager.core.business.services.catalog.product.ProductService;
@@ -35,6 +36,9 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
   @Inject
   private ProductService productService;
 
+  @Inject
+  private CategoryTreeService categoryTreeService;
+
 
   @Inject
   public CategoryServiceImpl(CategoryRepository categoryRepository) {
@@ -57,10 +61,23 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
     }
     category.setLineage(lineage.toString());
     super.update(category);
+    categoryTreeService.invalidate(category.getMerchantStore().getId());
 
 
   }
 
+  @Override
+  public void save(Category category) throws ServiceException {
+    super.save(category);
+    categoryTreeService.invalidate(category.getMerchantStore().getId());
+  }
+
+  @Override
+  public void update(Category category) throws ServiceException {
+    super.update(category);
+    categoryTreeService.invalidate(category.getMerchantStore().getId());
+  }
+
   @Override
   public List<Object[]> countProductsByCategories(MerchantStore store,
       List<Long> categoryIds) throws ServiceException {
@@ -99,13 +116,14 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
       super.save(category);
 
     }
+    categoryTreeService.invalidate(category.getMerchantStore().getId());
 
   }
 
   @Override
   public List<Category> listByLineage(MerchantStore store, String lineage) throws ServiceException {
     try {
-      return categoryRepository.findByLineage(store.getId(), lineage);
+      return categoryTreeService.getTree(store).listByLineage(lineage);
     } catch (Exception e) {
       throw new ServiceException(e);
     }
@@ -223,10 +241,12 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
   //@Override
   public void delete(Category category) throws ServiceException {
 
-    //get category with lineage (subcategories)
-    StringBuilder lineage = new StringBuilder();
-    lineage.append(category.getLineage()).append(category.getId()).append(Constants.SLASH);
-    List<Category> categories = this.listByLineage(category.getMerchantStore(), lineage.toString());
+    //subcategories
+    CategoryTree tree = categoryTreeService.getTree(category.getMerchantStore());
+    List<Category> categories = new ArrayList<Category>();
+    for (Long id : tree.getDescendantIds(category.getId(), false)) {
+      categories.add(tree.get(id));
+    }
 
     Category dbCategory = this.getById(category.getId());
 
@@ -269,6 +289,7 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
 
       Category categ = this.getById(category.getId());
       categoryRepository.delete(categ);
+      categoryTreeService.invalidate(category.getMerchantStore().getId());
 
     }
 
@@ -295,6 +316,10 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
 
     try {
 
+      //subcategories before the move, parents come first
+      CategoryTree tree = categoryTreeService.getTree(child.getMerchantStore());
+      List<Long> subCategoryIds = tree.getDescendantIds(child.getId(), false);
+
       if (parent == null) {
 
         //assign to root
@@ -319,19 +344,18 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
       }
 
       update(child);
-      StringBuilder childLineage = new StringBuilder();
-      childLineage.append(child.getLineage()).append(child.getId()).append("/");
-      List<Category> subCategories = listByLineage(child.getMerchantStore(),
-          childLineage.toString());
 
       //ajust all sub categories lineages
-      if (subCategories != null && subCategories.size() > 0) {
-        for (Category subCategory : subCategories) {
-          if (child.getId() != subCategory.getId()) {
-            addChild(child, subCategory);
-          }
-        }
-
+      Map<Long, Category> moved = new HashMap<Long, Category>();
+      moved.put(child.getId(), child);
+      for (Long id : subCategoryIds) {
+        Category p = moved.get(tree.getParent(id).getId());
+        Category subCategory = this.getById(id);
+        subCategory.setDepth(p.getDepth() + 1);
+        subCategory.setLineage(
+            new StringBuilder().append(p.getLineage()).append(p.getId()).append("/").toString());
+        update(subCategory);
+        moved.put(id, subCategory);
       }
     } catch (Exception e) {
       throw new ServiceException(e);
@@ -342,18 +366,18 @@ public class CategoryServiceImpl extends SalesManagerEntityServiceImpl<Long, Cat
 
   @Override
   public List<Category> listByDepth(MerchantStore store, int depth) {
-    return categoryRepository.findByDepth(store.getId(), depth);
+    return categoryTreeService.getTree(store).listByDepth(depth, null, false);
   }
 
   @Override
   public List<Category> listByDepth(MerchantStore store, int depth, Language language) {
-    return categoryRepository.findByDepth(store.getId(), depth, language.getId());
+    return categoryTreeService.getTree(store).listByDepth(depth, language.getId(), false);
   }
 
   @Override
   public List<Category> listByDepthFilterByFeatured(MerchantStore store, int depth,
       Language language) {
-    return categoryRepository.findByDepthFilterByFeatured(store.getId(), depth, language.getId());
+    return categoryTreeService.getTree(store).listByDepth(depth, language.getId(), true);
   }
 
   @Override
@@ -0,0 +1,385 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.salesmanager.core.business.constants.Constants;
+import com.salesmanager.core.model.catalog.category.Category;
+import com.salesmanager.core.model.catalog.category.CategoryDescription;
+
+/**
+ * Categories of a merchant store numbered in pre-order, children by sort order. The descendants of
+ * the category at position i are the positions i + 1 to last[i], so listing a sub tree does not
+ * scan the other categories.
+ *
+ * Categories returned are detached copies shared by all the readers and must not be modified. A
+ * tree is built once for a given version of the store categories and is never modified afterward
+ */
+public final class CategoryTree {
+
+  private static final Comparator<Category> SORT_ORDER = new Comparator<Category>() {
+    @Override
+    public int compare(Category c1, Category c2) {
+      int s1 = c1.getSortOrder() == null ? 0 : c1.getSortOrder();
+      int s2 = c2.getSortOrder() == null ? 0 : c2.getSortOrder();
+      if (s1 != s2) {
+        return s1 < s2 ? -1 : 1;
+      }
+      return c1.getId().compareTo(c2.getId());
+    }
+  };
+
+  //order of the category queries, lineage then sort order
+  private static final Comparator<Category> LINEAGE = new Comparator<Category>() {
+    @Override
+    public int compare(Category c1, Category c2) {
+      int lineage = StringUtils.defaultString(c1.getLineage())
+          .compareTo(StringUtils.defaultString(c2.getLineage()));
+      if (lineage != 0) {
+        return lineage;
+      }
+      return SORT_ORDER.compare(c1, c2);
+    }
+  };
+
+  private final long version;
+
+  //pre-order
+  private final Category[] nodes;
+  private final int[] parent;
+  private final int[][] children;
+  private final int[] depth;
+  //position of the last descendant
+  private final int[] last;
+  //rank in lineage order
+  private final int[] rank;
+  //positions in lineage order
+  private final int[] byLineage;
+  private final Map<Long, Integer> positions;
+
+  //language id -> copies described in that language only
+  private final ConcurrentMap<Integer, Category[]> languageNodes =
+      new ConcurrentHashMap<Integer, Category[]>();
+
+  public CategoryTree(long version, Collection<Category> categories) {
+
+    this.version = version;
+
+    Map<Long, Category> byId = new LinkedHashMap<Long, Category>();
+    for (Category category : categories) {
+      byId.put(category.getId(), category);
+    }
+
+    Map<Long, List<Category>> childrenById = new HashMap<Long, List<Category>>();
+    List<Category> roots = new ArrayList<Category>();
+    for (Category category : byId.values()) {
+      Category p = category.getParent();
+      if (p == null || !byId.containsKey(p.getId())) {
+        roots.add(category);
+      } else {
+        List<Category> list = childrenById.get(p.getId());
+        if (list == null) {
+          list = new ArrayList<Category>();
+          childrenById.put(p.getId(), list);
+        }
+        list.add(category);
+      }
+    }
+
+    int size = byId.size();
+    Category[] sources = new Category[size];
+    this.parent = new int[size];
+    this.depth = new int[size];
+    this.last = new int[size];
+    this.positions = new HashMap<Long, Integer>(size * 2);
+
+    //pre-order, a category in a parent cycle starts a tree of its own
+    int position = 0;
+    Collections.sort(roots, SORT_ORDER);
+    for (Category root : roots) {
+      position = number(root, -1, childrenById, sources, position);
+    }
+    for (Category category : byId.values()) {
+      if (!positions.containsKey(category.getId())) {
+        position = number(category, -1, childrenById, sources, position);
+      }
+    }
+
+    this.children = new int[size][];
+    int[] childCount = new int[size];
+    for (int i = 0; i < size; i++) {
+      if (parent[i] >= 0) {
+        childCount[parent[i]]++;
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      children[i] = new int[childCount[i]];
+      childCount[i] = 0;
+    }
+    for (int i = 0; i < size; i++) {
+      if (parent[i] >= 0) {
+        children[parent[i]][childCount[parent[i]]++] = i;
+      }
+    }
+
+    Category[] sorted = sources.clone();
+    Arrays.sort(sorted, LINEAGE);
+    this.byLineage = new int[size];
+    this.rank = new int[size];
+    for (int i = 0; i < size; i++) {
+      byLineage[i] = positions.get(sorted[i].getId());
+      rank[byLineage[i]] = i;
+    }
+
+    this.nodes = copies(sources, null);
+  }
+
+  private int number(Category root, int rootParent, Map<Long, List<Category>> childrenById,
+      Category[] sources, int position) {
+
+    //iterative, trees can be deep
+    List<Category> stack = new ArrayList<Category>();
+    List<Integer> parents = new ArrayList<Integer>();
+    stack.add(root);
+    parents.add(rootParent);
+    while (!stack.isEmpty()) {
+      Category category = stack.remove(stack.size() - 1);
+      int p = parents.remove(parents.size() - 1);
+      if (positions.containsKey(category.getId())) {
+        continue;
+      }
+      int i = position++;
+      sources[i] = category;
+      positions.put(category.getId(), i);
+      parent[i] = p;
+      depth[i] = p < 0 ? 0 : depth[p] + 1;
+      List<Category> list = childrenById.get(category.getId());
+      if (list != null) {
+        Collections.sort(list, SORT_ORDER);
+        for (int c = list.size() - 1; c >= 0; c--) {
+          stack.add(list.get(c));
+          parents.add(i);
+        }
+      }
+    }
+
+    //last descendants, children always come after their parent
+    for (int i = position - 1; i >= 0 && i >= positions.get(root.getId()); i--) {
+      last[i] = Math.max(last[i], i);
+      if (parent[i] >= 0) {
+        last[parent[i]] = Math.max(last[parent[i]], last[i]);
+      }
+    }
+    return position;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public int size() {
+    return nodes.length;
+  }
+
+  public Category get(Long categoryId) {
+    Integer position = categoryId == null ? null : positions.get(categoryId);
+    return position == null ? null : nodes[position];
+  }
+
+  /**
+   * Number of levels above the category, 0 for a root category, -1 if not in the tree
+   */
+  public int getDepth(Long categoryId) {
+    Integer position = categoryId == null ? null : positions.get(categoryId);
+    return position == null ? -1 : depth[position];
+  }
+
+  public Category getParent(Long categoryId) {
+    Integer position = categoryId == null ? null : positions.get(categoryId);
+    return position == null || parent[position] < 0 ? null : nodes[parent[position]];
+  }
+
+  public List<Category> getChildren(Long categoryId) {
+    List<Category> list = new ArrayList<Category>();
+    Integer position = categoryId == null ? null : positions.get(categoryId);
+    if (position != null) {
+      for (int child : children[position]) {
+        list.add(nodes[child]);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Ids of the descendants of a category in pre-order, the category excluded
+   */
+  public List<Long> getDescendantIds(Long categoryId, boolean visibleOnly) {
+    List<Long> ids = new ArrayList<Long>();
+    Integer position = categoryId == null ? null : positions.get(categoryId);
+    if (position == null) {
+      return ids;
+    }
+    for (int i = position + 1; i <= last[position]; i++) {
+      if (!visibleOnly || nodes[i].isVisible()) {
+        ids.add(nodes[i].getId());
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Categories whose lineage contains a lineage such as /1/5/, which are the descendants of the
+   * last category of the lineage. Same result and order as a like %lineage% query
+   */
+  public List<Category> listByLineage(String lineage) {
+
+    List<Category> list = new ArrayList<Category>();
+    String value = StringUtils.defaultString(lineage);
+    String[] ids = StringUtils.split(value, Constants.SLASH);
+
+    Long ancestor = null;
+    if (ids.length > 0) {
+      try {
+        ancestor = Long.valueOf(ids[ids.length - 1]);
+      } catch (NumberFormatException e) {
+        ancestor = null;
+      }
+    }
+
+    if (ancestor == null) {
+      for (int i : byLineage) {
+        if (isDescribed(nodes[i]) && matches(nodes[i], value)) {
+          list.add(nodes[i]);
+        }
+      }
+      return list;
+    }
+
+    Integer position = positions.get(ancestor);
+    if (position == null) {
+      return list;
+    }
+    int[] slice = new int[last[position] - position];
+    int count = 0;
+    for (int i = position + 1; i <= last[position]; i++) {
+      if (isDescribed(nodes[i]) && matches(nodes[i], value)) {
+        slice[count++] = rank[i];
+      }
+    }
+    Arrays.sort(slice, 0, count);
+    for (int r = 0; r < count; r++) {
+      list.add(nodes[byLineage[slice[r]]]);
+    }
+    return list;
+  }
+
+  /**
+   * Categories at a depth or below, in lineage order. With a language, only the categories
+   * described in that language are returned, with the description of that language only
+   */
+  public List<Category> listByDepth(int minDepth, Integer languageId, boolean featuredOnly) {
+
+    Category[] source = languageId == null ? nodes : getLanguageNodes(languageId);
+    List<Category> list = new ArrayList<Category>();
+    for (int i : byLineage) {
+      Category category = source[i];
+      if (category == null || !isDescribed(category)) {
+        continue;
+      }
+      if (category.getDepth() == null || category.getDepth() < minDepth) {
+        continue;
+      }
+      if (featuredOnly && !category.isFeatured()) {
+        continue;
+      }
+      list.add(category);
+    }
+    return list;
+  }
+
+  /**
+   * Categories in lineage order
+   */
+  public List<Category> list() {
+    List<Category> list = new ArrayList<Category>();
+    for (int i : byLineage) {
+      list.add(nodes[i]);
+    }
+    return list;
+  }
+
+  private static boolean matches(Category category, String lineage) {
+    return StringUtils.defaultString(category.getLineage()).contains(lineage);
+  }
+
+  //the category queries join the description languages
+  private static boolean isDescribed(Category category) {
+    return category.getDescriptions() != null && !category.getDescriptions().isEmpty();
+  }
+
+  private Category[] getLanguageNodes(Integer languageId) {
+    Category[] copies = languageNodes.get(languageId);
+    if (copies == null) {
+      copies = copies(nodes, languageId);
+      Category[] current = languageNodes.putIfAbsent(languageId, copies);
+      if (current != null) {
+        copies = current;
+      }
+    }
+    return copies;
+  }
+
+  private Category[] copies(Category[] sources, Integer languageId) {
+    Category[] copies = new Category[sources.length];
+    for (int i = 0; i < sources.length; i++) {
+      Category source = sources[i];
+      List<CategoryDescription> descriptions = new ArrayList<CategoryDescription>();
+      if (source.getDescriptions() != null) {
+        for (CategoryDescription description : source.getDescriptions()) {
+          if (languageId == null || (description.getLanguage() != null
+              && languageId.equals(description.getLanguage().getId()))) {
+            descriptions.add(description);
+          }
+        }
+      }
+      Category copy = new Category();
+      copy.setId(source.getId());
+      copy.setCode(source.getCode());
+      copy.setAuditSection(source.getAuditSection());
+      copy.setMerchantStore(source.getMerchantStore());
+      copy.setCategoryImage(source.getCategoryImage());
+      copy.setSortOrder(source.getSortOrder());
+      copy.setCategoryStatus(source.isCategoryStatus());
+      copy.setVisible(source.isVisible());
+      copy.setFeatured(source.isFeatured());
+      copy.setDepth(source.getDepth());
+      copy.setLineage(source.getLineage());
+      copy.setDescriptions(descriptions);
+      //parents come first in pre-order
+      if (parent[i] >= 0) {
+        copy.setParent(copies[parent[i]]);
+      }
+      copies[i] = copy;
+    }
+    for (int i = 0; i < copies.length; i++) {
+      List<Category> list = new ArrayList<Category>();
+      for (int child : children[i]) {
+        list.add(copies[child]);
+      }
+      copies[i].setCategories(list);
+    }
+    return copies;
+  }
+
+}
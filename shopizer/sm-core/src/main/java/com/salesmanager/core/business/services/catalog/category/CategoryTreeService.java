@@ -0,0 +1,15 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Keeps the category tree of each store in memory. Trees are rebuilt when a category of the store
+ * is saved, moved or deleted
+ */
+public interface CategoryTreeService {
+
+  CategoryTree getTree(MerchantStore store);
+
+  void invalidate(Integer storeId);
+
+}
@@ -0,0 +1,62 @@
+package com.salesmanager.core.business.services.catalog.category;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.salesmanager.core.business.repositories.catalog.category.CategoryRepository;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.model.catalog.category.Category;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+@Service("categoryTreeService")
+public class CategoryTreeServiceImpl implements CategoryTreeService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CategoryTreeServiceImpl.class);
+
+  @Inject
+  private CategoryRepository categoryRepository;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  private final ConcurrentMap<Integer, CategoryTree> trees =
+      new ConcurrentHashMap<Integer, CategoryTree>();
+
+  @Override
+  public CategoryTree getTree(MerchantStore store) {
+
+    long version = storeVersionService.getVersion(StoreVersionService.CATEGORIES, store.getId());
+    CategoryTree tree = trees.get(store.getId());
+    if (tree != null && tree.getVersion() == version) {
+      return tree;
+    }
+
+    List<Category> categories = categoryRepository.findByStore(store.getId());
+    tree = new CategoryTree(version, categories);
+    LOGGER.debug("Loaded " + tree.size() + " categories version " + version + " for store "
+        + store.getId());
+
+    //do not replace a tree built for a more recent version
+    CategoryTree current = trees.get(store.getId());
+    if (current == null || current.getVersion() <= version) {
+      trees.put(store.getId(), tree);
+    }
+    return tree;
+  }
+
+  @Override
+  public void invalidate(Integer storeId) {
+    storeVersionService.invalidate(StoreVersionService.CATEGORIES, storeId);
+    storeVersionService.invalidate(storeId);
+    //deleting a category removes its products from the listings
+    storeVersionService.invalidate(StoreVersionService.PRODUCT_COUNTS, storeId);
+  }
+
+}
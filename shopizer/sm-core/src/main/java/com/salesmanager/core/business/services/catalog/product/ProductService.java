@@ -1,5 +1,6 @@
 package com.salesmanager.core.business.services.catalog.product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
@@ -38,6 +39,13 @@ public interface ProductService extends SalesManagerEntityService<Long, Product>
 
   List<Product> listByTaxClass(TaxClass taxClass);
 
+  /**
+   * Ids of the store products greater than afterId in ascending order, at most max
+   */
+  List<Long> listIdsByStore(MerchantStore store, Long afterId, int max);
+
+  long countByStore(MerchantStore store);
+
   List<Product> getProducts(List<Long> categoryIds, Language language)
       throws ServiceException;
 
@@ -48,6 +56,17 @@ public interface ProductService extends SalesManagerEntityService<Long, Product>
    */
   Product getByCode(String productCode, Language language);
 
+  /**
+   * Loads fully populated products in as few queries as possible, order is not preserved
+   */
+  List<Product> getByIds(Collection<Long> productIds);
+
+  /**
+   * Batched getProductForLocale, products not available in the locale are not returned
+   */
+  List<Product> getByIdsForLocale(Collection<Long> productIds, Language language, Locale locale)
+      throws ServiceException;
+
 
 }
 	
@@ -2,6 +2,7 @@ package com.salesmanager.core.business.services.catalog.product;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -12,10 +13,12 @@ import javax.inject.Inject;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.catalog.product.ProductRepository;
+import com.salesmanager.core.business.services.catalog.category.CategoryFacetService;
 import com.salesmanager.core.business.services.catalog.category.CategoryService;
 import com.salesmanager.core.business.services.catalog.product.attribute.ProductAttributeService;
 import com.salesmanager.core.business.services.catalog.product.attribute.ProductOptionService;
@@ -26,7 +29,8 @@ import com.salesmanager.core.business.services.catalog.product.price.ProductPric
 import com.salesmanager.core.business.services.catalog.product.relationship.ProductRelationshipService;
 import com.salesmanager.core.business.services.catalog.product.review.ProductReviewService;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
-import com.salesmanager.core.business.services.search.SearchService;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.business.services.search.SearchIndexQueue;
 import com.salesmanager.core.business.utils.CatalogServiceHelper;
 import com.salesmanager.core.business.utils.CoreConfiguration;
 import com.salesmanager.core.model.catalog.category.Category;
@@ -73,7 +77,10 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
   ProductRelationshipService productRelationshipService;
 
   @Inject
-  SearchService searchService;
+  SearchIndexQueue searchIndexQueue;
+
+  @Inject
+  CategoryFacetService categoryFacetService;
 
   @Inject
   ProductImageService productImageService;
@@ -84,6 +91,9 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
   @Inject
   ProductReviewService productReviewService;
 
+  @Inject
+  private StoreVersionService storeVersionService;
+
   @Inject
   public ProductServiceImpl(ProductRepository productRepository) {
     super(productRepository);
@@ -101,7 +111,6 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
     product.getDescriptions().add(description);
     description.setProduct(product);
     update(product);
-    searchService.index(product.getMerchantStore(), product);
   }
 
   @Override
@@ -117,6 +126,22 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
     return productRepository.getById(productId);
   }
 
+  @Override
+  public List<Product> getByIds(Collection<Long> productIds) {
+    return productRepository.getByIds(productIds);
+  }
+
+  @Override
+  public List<Product> getByIdsForLocale(Collection<Long> productIds, Language language,
+      Locale locale) throws ServiceException {
+    List<Product> products = productRepository.getByIdsForLocale(productIds, language, locale);
+    for (Product product : products) {
+      CatalogServiceHelper.setToAvailability(product, locale);
+      CatalogServiceHelper.setToLanguage(product, language.getId());
+    }
+    return products;
+  }
+
   @Override
   public List<Product> getProducts(List<Long> categoryIds, Language language)
       throws ServiceException {
@@ -200,6 +225,17 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
     return productRepository.listByStore(store);
   }
 
+  @Override
+  public List<Long> listIdsByStore(MerchantStore store, Long afterId, int max) {
+    return productRepository.findIdsByStoreAfter(store.getId(),
+        afterId == null ? Long.valueOf(0) : afterId, PageRequest.of(0, max));
+  }
+
+  @Override
+  public long countByStore(MerchantStore store) {
+    return productRepository.countByStore(store.getId());
+  }
+
   @Override
   public List<Product> listByTaxClass(TaxClass taxClass) {
     return productRepository.listByTaxClass(taxClass);
@@ -240,20 +276,23 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
     }
 
     super.delete(product);
-    searchService.deleteIndex(product.getMerchantStore(), product);
+    storeVersionService.invalidate(StoreVersionService.PRODUCT_COUNTS,
+        product.getMerchantStore().getId());
+    searchIndexQueue.enqueueDelete(product.getMerchantStore(), product);
+    categoryFacetService.refresh(product.getMerchantStore().getId(), product.getId());
 
   }
 
   @Override
   public void create(Product product) throws ServiceException {
     this.saveOrUpdate(product);
-    searchService.index(product.getMerchantStore(), product);
+    searchIndexQueue.enqueue(product.getMerchantStore(), product);
   }
 
   @Override
   public void update(Product product) throws ServiceException {
     this.saveOrUpdate(product);
-    searchService.index(product.getMerchantStore(), product);
+    searchIndexQueue.enqueue(product.getMerchantStore(), product);
   }
 
 
@@ -280,6 +319,10 @@ public class ProductServiceImpl extends SalesManagerEntityServiceImpl<Long, Prod
 
     }
 
+    storeVersionService.invalidate(StoreVersionService.PRODUCT_COUNTS,
+        product.getMerchantStore().getId());
+    categoryFacetService.refresh(product.getMerchantStore().getId(), product.getId());
+
     /**
      * Image creation needs extra service to save the file in the CMS
      */
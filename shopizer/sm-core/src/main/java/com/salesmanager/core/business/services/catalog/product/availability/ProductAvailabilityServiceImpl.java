@@ -6,7 +6,9 @@ import org.springframework.stereotype.Service;
 
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.catalog.product.availability.ProductAvailabilityRepository;
+import com.salesmanager.core.business.services.catalog.category.CategoryFacetService;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
 import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
 
 @Service("productAvailabilityService")
@@ -14,6 +16,11 @@ public class ProductAvailabilityServiceImpl extends
     SalesManagerEntityServiceImpl<Long, ProductAvailability> implements
     ProductAvailabilityService {
 
+  @Inject
+  private CategoryFacetService categoryFacetService;
+
+  @Inject
+  private StoreVersionService storeVersionService;
 
   private ProductAvailabilityRepository productAvailabilityRepository;
 
@@ -36,6 +43,12 @@ public class ProductAvailabilityServiceImpl extends
       this.create(availability);
     }
 
+    if (availability.getProduct() != null) {
+      Integer storeId = availability.getProduct().getMerchantStore().getId();
+      categoryFacetService.refresh(storeId, availability.getProduct().getId());
+      storeVersionService.invalidate(StoreVersionService.PRODUCT_COUNTS, storeId);
+    }
+
   }
 
 
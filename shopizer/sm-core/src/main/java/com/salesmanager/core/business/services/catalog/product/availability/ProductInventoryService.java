@@ -0,0 +1,49 @@
+package com.salesmanager.core.business.services.catalog.product.availability;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.order.orderproduct.OrderProduct;
+
+/**
+ * Inventory adjustments done with conditional updates on the product availabilities.
+ * The Product entity is never loaded nor saved, so no search index is triggered.
+ * Quantities are given as product id -> quantity.
+ */
+public interface ProductInventoryService {
+
+  /**
+   * Resolves the products of order lines by sku and sums their quantities
+   */
+  Map<Long, Integer> getProductQuantities(MerchantStore store,
+      Collection<OrderProduct> orderProducts) throws ServiceException;
+
+  /**
+   * Takes the quantities from the inventory, throws a ServiceException of type
+   * EXCEPTION_INVENTORY_MISMATCH when one of the products does not have enough quantity
+   */
+  void decrement(Map<Long, Integer> quantities) throws ServiceException;
+
+  /**
+   * Takes the quantities from the inventory on behalf of a reference (shopping cart code)
+   * for a limited time. Reservations of the reference holding the same quantities are only
+   * extended, otherwise they are replaced.
+   */
+  void reserve(String reference, Map<Long, Integer> quantities) throws ServiceException;
+
+  /**
+   * Converts the reservations of a reference to a final inventory decrement of the given
+   * quantities. Only the difference with what was reserved is adjusted.
+   */
+  void confirm(String reference, Map<Long, Integer> quantities) throws ServiceException;
+
+  /**
+   * Gives back the reserved quantities of a reference, runs in its own transaction
+   */
+  void release(String reference) throws ServiceException;
+
+  void releaseExpired() throws ServiceException;
+
+}
@@ -0,0 +1,227 @@
+package com.salesmanager.core.business.services.catalog.product.availability;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.repositories.catalog.product.ProductRepository;
+import com.salesmanager.core.business.repositories.catalog.product.availability.InventoryReservationRepository;
+import com.salesmanager.core.business.repositories.catalog.product.availability.ProductAvailabilityRepository;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.catalog.product.availability.InventoryReservation;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.order.orderproduct.OrderProduct;
+
+@Service("productInventoryService")
+public class ProductInventoryServiceImpl implements ProductInventoryService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductInventoryServiceImpl.class);
+
+  private final static String RESERVATION_TTL = "inventory.reservation.ttl";
+  private final static int DEFAULT_RESERVATION_TTL = 15;//minutes
+
+  @Inject
+  private ProductAvailabilityRepository productAvailabilityRepository;
+
+  @Inject
+  private InventoryReservationRepository inventoryReservationRepository;
+
+  @Inject
+  private ProductRepository productRepository;
+
+  @Inject
+  private CoreConfiguration coreConfiguration;
+
+  @Override
+  public Map<Long, Integer> getProductQuantities(MerchantStore store,
+      Collection<OrderProduct> orderProducts) throws ServiceException {
+
+    Map<String, Integer> skus = new HashMap<String, Integer>();
+    for (OrderProduct orderProduct : orderProducts) {
+      Integer qty = skus.get(orderProduct.getSku());
+      skus.put(orderProduct.getSku(),
+          (qty == null ? 0 : qty) + orderProduct.getProductQuantity());
+    }
+
+    Map<Long, Integer> quantities = new TreeMap<Long, Integer>();
+    if (skus.isEmpty()) {
+      return quantities;
+    }
+
+    List<Object[]> ids = productRepository.findIdsBySku(store.getId(), skus.keySet());
+    for (Object[] id : ids) {
+      quantities.put((Long) id[0], skus.remove((String) id[1]));
+    }
+
+    if (!skus.isEmpty()) {
+      throw new ServiceException(ServiceException.EXCEPTION_INVENTORY_MISMATCH,
+          "Products not found " + skus.keySet());
+    }
+
+    return quantities;
+  }
+
+  @Override
+  @Transactional(rollbackFor = ServiceException.class)
+  public void decrement(Map<Long, Integer> quantities) throws ServiceException {
+
+    //always update in product id order so concurrent checkouts lock rows in the same order
+    for (Map.Entry<Long, Integer> entry : new TreeMap<Long, Integer>(quantities).entrySet()) {
+      if (entry.getValue() == null || entry.getValue() <= 0) {
+        continue;
+      }
+      long availabilities = productAvailabilityRepository.countByProduct(entry.getKey());
+      if (availabilities == 0) {
+        continue;
+      }
+      int updated = productAvailabilityRepository
+          .decrementQuantity(entry.getKey(), entry.getValue());
+      if (updated < availabilities) {
+        throw new ServiceException(ServiceException.EXCEPTION_INVENTORY_MISMATCH,
+            "Not enough quantity for product " + entry.getKey());
+      }
+    }
+  }
+
+  @Override
+  @Transactional(rollbackFor = ServiceException.class)
+  public void reserve(String reference, Map<Long, Integer> quantities) throws ServiceException {
+
+    Date now = new Date();
+    Date expiration = new Date(now.getTime() + reservationTtl() * 60000L);
+
+    //same cart seen again, keep holding what is reserved without touching the inventory
+    List<InventoryReservation> reservations = inventoryReservationRepository
+        .findByReference(reference);
+    if (isHeld(reservations, quantities, now) && inventoryReservationRepository
+        .extendReservations(reference, expiration) == reservations.size()) {
+      return;
+    }
+
+    releaseReservations(reference);
+    decrement(quantities);
+
+    for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+      if (entry.getValue() == null || entry.getValue() <= 0) {
+        continue;
+      }
+      InventoryReservation reservation = new InventoryReservation();
+      reservation.setReference(reference);
+      reservation.setProductId(entry.getKey());
+      reservation.setQuantity(entry.getValue());
+      reservation.setExpirationDate(expiration);
+      inventoryReservationRepository.save(reservation);
+    }
+  }
+
+  @Override
+  @Transactional(rollbackFor = ServiceException.class)
+  public void confirm(String reference, Map<Long, Integer> quantities) throws ServiceException {
+
+    Map<Long, Integer> adjustments = new TreeMap<Long, Integer>(quantities);
+
+    List<InventoryReservation> reservations = inventoryReservationRepository
+        .findByReference(reference);
+    for (InventoryReservation reservation : reservations) {
+      if (inventoryReservationRepository.deleteReservation(reservation.getId()) == 0) {
+        continue;//expired and released meanwhile
+      }
+      Integer qty = adjustments.get(reservation.getProductId());
+      adjustments.put(reservation.getProductId(),
+          (qty == null ? 0 : qty) - reservation.getQuantity());
+    }
+
+    for (Map.Entry<Long, Integer> entry : adjustments.entrySet()) {
+      if (entry.getValue() < 0) {
+        productAvailabilityRepository.incrementQuantity(entry.getKey(), -entry.getValue());
+      }
+    }
+    decrement(adjustments);
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public void release(String reference) throws ServiceException {
+    releaseReservations(reference);
+  }
+
+  @Override
+  @Scheduled(fixedDelay = 60000)
+  @Transactional
+  public void releaseExpired() throws ServiceException {
+
+    List<InventoryReservation> reservations = inventoryReservationRepository
+        .findExpired(new Date());
+    for (InventoryReservation reservation : reservations) {
+      releaseReservation(reservation);
+    }
+    if (!reservations.isEmpty()) {
+      LOGGER.debug("Released " + reservations.size() + " expired inventory reservations");
+    }
+  }
+
+  //reservations not expired holding exactly the quantities
+  private boolean isHeld(List<InventoryReservation> reservations, Map<Long, Integer> quantities,
+      Date now) {
+
+    Map<Long, Integer> reserved = new HashMap<Long, Integer>();
+    for (InventoryReservation reservation : reservations) {
+      if (!reservation.getExpirationDate().after(now)) {
+        return false;
+      }
+      Integer qty = reserved.get(reservation.getProductId());
+      reserved.put(reservation.getProductId(),
+          (qty == null ? 0 : qty) + reservation.getQuantity());
+    }
+
+    Map<Long, Integer> requested = new HashMap<Long, Integer>();
+    for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+      if (entry.getValue() != null && entry.getValue() > 0) {
+        requested.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return !reserved.isEmpty() && reserved.equals(requested);
+  }
+
+  private void releaseReservations(String reference) {
+    for (InventoryReservation reservation : inventoryReservationRepository
+        .findByReference(reference)) {
+      releaseReservation(reservation);
+    }
+  }
+
+  private void releaseReservation(InventoryReservation reservation) {
+    //only the one deleting the reservation gives the quantity back
+    if (inventoryReservationRepository.deleteReservation(reservation.getId()) == 1) {
+      productAvailabilityRepository
+          .incrementQuantity(reservation.getProductId(), reservation.getQuantity());
+    }
+  }
+
+  private int reservationTtl() {
+    String ttl = coreConfiguration.getProperty(RESERVATION_TTL);
+    if (!StringUtils.isBlank(ttl)) {
+      try {
+        return Integer.parseInt(ttl.trim());
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid " + RESERVATION_TTL + " " + ttl);
+      }
+    }
+    return DEFAULT_RESERVATION_TTL;
+  }
+
+}
@@ -3,6 +3,7 @@ package com.salesmanager.core.business.services.catalog.product.image;
 import java.util.List;
 
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityService;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.file.ProductImageSize;
@@ -42,6 +43,19 @@ public interface ProductImageService extends SalesManagerEntityService<Long, Pro
   OutputContentFile getProductImage(String storeCode, String productCode,
       String fileName, final ProductImageSize size) throws ServiceException;
 
+  /**
+   * Image to be streamed from the CMS with its length and entity tag, null when it does not exist
+   */
+  ImageContent getProductImageContent(String storeCode, String productCode,
+      String fileName, final ProductImageSize size) throws ServiceException;
+
+  /**
+   * Responsive variant of an image closest above a width in pixels, the original when no variant
+   * is as wide or when it is not generated yet
+   */
+  ImageContent getProductImageContent(String storeCode, String productCode,
+      String fileName, int width) throws ServiceException;
+
   void addProductImages(Product product, List<ProductImage> productImages)
       throws ServiceException;
 
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.modules.cms.product.ProductFileManager;
 import com.salesmanager.core.business.repositories.catalog.product.image.ProductImageRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
@@ -159,6 +160,18 @@ public class ProductImageServiceImpl extends SalesManagerEntityServiceImpl<Long,
 
   }
 
+  @Override
+  public ImageContent getProductImageContent(final String storeCode, final String productCode,
+      final String fileName, final ProductImageSize size) throws ServiceException {
+    return productFileManager.getProductImageContent(storeCode, productCode, fileName, size);
+  }
+
+  @Override
+  public ImageContent getProductImageContent(final String storeCode, final String productCode,
+      final String fileName, final int width) throws ServiceException {
+    return productFileManager.getProductImageContent(storeCode, productCode, fileName, width);
+  }
+
   @Override
   public List<OutputContentFile> getProductImages(Product product) throws ServiceException {
     return productFileManager.getImages(product);
@@ -9,7 +9,9 @@ import org.springframework.stereotype.Service;
 
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.catalog.product.price.ProductPriceRepository;
+import com.salesmanager.core.business.services.catalog.category.CategoryFacetService;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.price.ProductPrice;
 import com.salesmanager.core.model.catalog.product.price.ProductPriceDescription;
 
@@ -17,6 +19,9 @@ import com.salesmanager.core.model.catalog.product.price.ProductPriceDescription
 public class ProductPriceServiceImpl extends SalesManagerEntityServiceImpl<Long, ProductPrice>
     implements ProductPriceService {
 
+  @Inject
+  private CategoryFacetService categoryFacetService;
+
   @Inject
   public ProductPriceServiceImpl(ProductPriceRepository productPriceRepository) {
     super(productPriceRepository);
@@ -48,6 +53,7 @@ public class ProductPriceServiceImpl extends SalesManagerEntityServiceImpl<Long,
 
     }
 
+    refreshFacets(price);
 
   }
 
@@ -57,8 +63,17 @@ public class ProductPriceServiceImpl extends SalesManagerEntityServiceImpl<Long,
     //override method, this allows the error that we try to remove a detached instance
     price = this.getById(price.getId());
     super.delete(price);
+    refreshFacets(price);
 
   }
 
+  private void refreshFacets(ProductPrice price) {
+    if (price.getProductAvailability() != null
+        && price.getProductAvailability().getProduct() != null) {
+      Product product = price.getProductAvailability().getProduct();
+      categoryFacetService.refresh(product.getMerchantStore().getId(), product.getId());
+    }
+  }
+
 
 }
@@ -0,0 +1,135 @@
+package com.salesmanager.core.business.services.catalog.product.relationship;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Product relationships of a merchant store as product ids: the related products of a product
+ * for each relationship type and the products of each group (relationships without a product such
+ * as featured items or custom groups). Never changes once built
+ */
+public class ProductRelationshipGraph {
+
+  private final long version;
+
+  //code - product id - related product ids
+  private final Map<String, Map<Long, List<Long>>> related;
+  //group - product ids
+  private final Map<String, List<Long>> groups;
+
+  private final int size;
+
+  public ProductRelationshipGraph(long version, Collection<Link> links) {
+
+    this.version = version;
+
+    Map<String, Map<Long, Set<Long>>> relatedIds = new HashMap<String, Map<Long, Set<Long>>>();
+    Map<String, Set<Long>> groupIds = new HashMap<String, Set<Long>>();
+    for (Link link : links) {
+      if (link.getProductId() == null) {
+        ids(groupIds, link.getCode()).add(link.getRelatedProductId());
+      } else {
+        Map<Long, Set<Long>> byProduct = relatedIds.get(link.getCode());
+        if (byProduct == null) {
+          byProduct = new HashMap<Long, Set<Long>>();
+          relatedIds.put(link.getCode(), byProduct);
+        }
+        ids(byProduct, link.getProductId()).add(link.getRelatedProductId());
+      }
+    }
+
+    int count = 0;
+    this.related = new HashMap<String, Map<Long, List<Long>>>();
+    for (Map.Entry<String, Map<Long, Set<Long>>> entry : relatedIds.entrySet()) {
+      Map<Long, List<Long>> byProduct = new HashMap<Long, List<Long>>();
+      for (Map.Entry<Long, Set<Long>> productEntry : entry.getValue().entrySet()) {
+        byProduct.put(productEntry.getKey(), list(productEntry.getValue()));
+        count += productEntry.getValue().size();
+      }
+      this.related.put(entry.getKey(), byProduct);
+    }
+    this.groups = new HashMap<String, List<Long>>();
+    for (Map.Entry<String, Set<Long>> entry : groupIds.entrySet()) {
+      this.groups.put(entry.getKey(), list(entry.getValue()));
+      count += entry.getValue().size();
+    }
+    this.size = count;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Number of relationships
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Related product ids of a product for a relationship code such as RELATED_ITEM, in the order
+   * the relationships were created
+   */
+  public List<Long> getRelatedIds(String code, Long productId) {
+    Map<Long, List<Long>> byProduct = related.get(code);
+    List<Long> ids = byProduct == null ? null : byProduct.get(productId);
+    return ids == null ? Collections.<Long>emptyList() : ids;
+  }
+
+  /**
+   * Product ids of a group such as FEATURED_ITEM, in the order they were added
+   */
+  public List<Long> getGroupIds(String group) {
+    List<Long> ids = groups.get(group);
+    return ids == null ? Collections.<Long>emptyList() : ids;
+  }
+
+  private static <K> Set<Long> ids(Map<K, Set<Long>> map, K key) {
+    Set<Long> ids = map.get(key);
+    if (ids == null) {
+      ids = new LinkedHashSet<Long>();
+      map.put(key, ids);
+    }
+    return ids;
+  }
+
+  private static List<Long> list(Set<Long> ids) {
+    return Collections.unmodifiableList(new ArrayList<Long>(ids));
+  }
+
+  /**
+   * A relationship, product id is null for a group
+   */
+  public static class Link {
+
+    private final String code;
+    private final Long productId;
+    private final Long relatedProductId;
+
+    public Link(String code, Long productId, Long relatedProductId) {
+      this.code = code;
+      this.productId = productId;
+      this.relatedProductId = relatedProductId;
+    }
+
+    public String getCode() {
+      return code;
+    }
+
+    public Long getProductId() {
+      return productId;
+    }
+
+    public Long getRelatedProductId() {
+      return relatedProductId;
+    }
+  }
+
+}
@@ -67,4 +67,10 @@ public interface ProductRelationshipService extends
   List<ProductRelationship> getByGroup(MerchantStore store, String groupName,
       Language language) throws ServiceException;
 
+  /**
+   * Relationships of a store as product ids, kept in memory until a relationship of the store
+   * changes
+   */
+  ProductRelationshipGraph getGraph(MerchantStore store);
+
 }
@@ -1,14 +1,20 @@
 package com.salesmanager.core.business.services.catalog.product.relationship;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.catalog.product.relationship.ProductRelationshipRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.relationship.ProductRelationship;
 import com.salesmanager.core.model.catalog.product.relationship.ProductRelationshipType;
@@ -20,9 +26,20 @@ public class ProductRelationshipServiceImpl extends
     SalesManagerEntityServiceImpl<Long, ProductRelationship> implements
     ProductRelationshipService {
 
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(ProductRelationshipServiceImpl.class);
 
   private ProductRelationshipRepository productRelationshipRepository;
 
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  private final ConcurrentMap<Integer, ProductRelationshipGraph> graphs =
+      new ConcurrentHashMap<Integer, ProductRelationshipGraph>();
+
+  //a store is loaded by one thread at a time
+  private final ConcurrentMap<Integer, Object> locks = new ConcurrentHashMap<Integer, Object>();
+
   @Inject
   public ProductRelationshipServiceImpl(
       ProductRelationshipRepository productRelationshipRepository) {
@@ -84,11 +101,19 @@ public class ProductRelationshipServiceImpl extends
     }
   }
 
+  @Override
+  public void save(ProductRelationship relationship) throws ServiceException {
+    //create and update go through save
+    super.save(relationship);
+    invalidate(relationship);
+  }
+
   public void delete(ProductRelationship relationship) throws ServiceException {
 
     //throws detached exception so need to query first
     relationship = this.getById(relationship.getId());
     super.delete(relationship);
+    invalidate(relationship);
 
 
   }
@@ -148,5 +173,57 @@ public class ProductRelationshipServiceImpl extends
 
   }
 
+  @Override
+  public ProductRelationshipGraph getGraph(MerchantStore store) {
+
+    Integer storeId = store.getId();
+    ProductRelationshipGraph graph = graphs.get(storeId);
+    if (graph != null && graph.getVersion() == version(storeId)) {
+      return graph;
+    }
+
+    synchronized (lock(storeId)) {
+      //version read before the relationships, a change while loading loads them again
+      long version = version(storeId);
+      graph = graphs.get(storeId);
+      if (graph == null || graph.getVersion() != version) {
+        List<ProductRelationshipGraph.Link> links = new ArrayList<ProductRelationshipGraph.Link>();
+        for (Object[] row : productRelationshipRepository.listLinks(storeId)) {
+          links.add(new ProductRelationshipGraph.Link((String) row[0], (Long) row[1],
+              (Long) row[2]));
+        }
+        graph = new ProductRelationshipGraph(version, links);
+        LOGGER.debug("Loaded " + graph.size() + " product relationships for store " + storeId);
+        graphs.put(storeId, graph);
+      }
+      return graph;
+    }
+  }
+
+  private void invalidate(ProductRelationship relationship) {
+
+    if (relationship == null || relationship.getStore() == null) {
+      return;
+    }
+
+    storeVersionService.invalidate(StoreVersionService.RELATIONSHIPS,
+        relationship.getStore().getId());
+  }
+
+  private long version(Integer storeId) {
+    return storeVersionService.getVersion(StoreVersionService.RELATIONSHIPS, storeId);
+  }
+
+  private Object lock(Integer storeId) {
+    Object lock = locks.get(storeId);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = locks.putIfAbsent(storeId, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
 
 }
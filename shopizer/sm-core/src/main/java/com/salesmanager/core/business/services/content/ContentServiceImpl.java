@@ -14,6 +14,7 @@ import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.modules.cms.content.StaticContentFileManager;
 import com.salesmanager.core.business.repositories.content.ContentRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
 import com.salesmanager.core.model.content.Content;
 import com.salesmanager.core.model.content.ContentDescription;
 import com.salesmanager.core.model.content.ContentType;
@@ -39,6 +40,9 @@ public class ContentServiceImpl
   @Inject
   StaticContentFileManager contentFileManager;
 
+  @Inject
+  private StoreVersionService storeVersionService;
+
   @Inject
   public ContentServiceImpl(ContentRepository contentRepository) {
     super(contentRepository);
@@ -58,6 +62,7 @@ public class ContentServiceImpl
 
     Content c = this.getById(content.getId());
     super.delete(c);
+    storeVersionService.invalidate(c.getMerchantStore().getId());
 
 
   }
@@ -123,6 +128,7 @@ public class ContentServiceImpl
     } else {
       super.save(content);
     }
+    storeVersionService.invalidate(content.getMerchantStore().getId());
 
   }
 
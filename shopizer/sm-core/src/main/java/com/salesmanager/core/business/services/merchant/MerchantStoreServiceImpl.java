@@ -21,6 +21,9 @@ public class MerchantStoreServiceImpl extends SalesManagerEntityServiceImpl<Inte
   @Inject
   protected ProductTypeService productTypeService;
 
+  @Inject
+  private StoreVersionService storeVersionService;
+
   private MerchantRepository merchantRepository;
 
   @Inject
@@ -38,9 +41,16 @@ public class MerchantStoreServiceImpl extends SalesManagerEntityServiceImpl<Inte
   public void saveOrUpdate(MerchantStore store) throws ServiceException {
 
     super.save(store);
+    storeVersionService.invalidate(store.getId());
 
   }
 
+  @Override
+  public void update(MerchantStore store) throws ServiceException {
+    super.update(store);
+    storeVersionService.invalidate(store.getId());
+  }
+
 
   @Override
   public MerchantStore getByCode(String code) throws ServiceException {
@@ -0,0 +1,41 @@
+package com.salesmanager.core.business.services.merchant;
+
+/**
+ * Versions of the read models built for a merchant store. Each namespace has its own version by
+ * store, bumped when what the read model is built from is saved or deleted. Read models keep the
+ * version they were built from and are built again once it changes.
+ *
+ * Versions are kept by instance, they also move on every store.version.max.age seconds so that
+ * read models built on an instance pick up changes saved on another one.
+ *
+ * The STORE namespace is what a store displays on each page: the store itself, its
+ * configurations, its content and its categories
+ */
+public interface StoreVersionService {
+
+  String STORE = "STORE";
+  String CATEGORIES = "CATEGORIES";
+  String CONFIGURATIONS = "CONFIGURATIONS";
+  String TAX_RATES = "TAX_RATES";
+  String RELATIONSHIPS = "RELATIONSHIPS";
+  String CATEGORY_FACETS = "CATEGORY_FACETS";
+  String PRODUCT_COUNTS = "PRODUCT_COUNTS";
+
+  /**
+   * Version of the STORE namespace
+   */
+  long getVersion(Integer storeId);
+
+  /**
+   * Bumps the STORE namespace
+   */
+  void invalidate(Integer storeId);
+
+  long getVersion(String namespace, Integer storeId);
+
+  /**
+   * Bumps the version of a namespace, and again once the current transaction completes
+   */
+  void invalidate(String namespace, Integer storeId);
+
+}
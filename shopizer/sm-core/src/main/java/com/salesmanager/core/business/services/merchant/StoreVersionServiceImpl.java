@@ -0,0 +1,116 @@
+package com.salesmanager.core.business.services.merchant;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.salesmanager.core.business.utils.CoreConfiguration;
+
+@Service("storeVersionService")
+public class StoreVersionServiceImpl implements StoreVersionService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StoreVersionServiceImpl.class);
+
+  private final static String MAX_AGE = "store.version.max.age";
+  private final static long DEFAULT_MAX_AGE = 120;//seconds
+
+  @Inject
+  private CoreConfiguration coreConfiguration;
+
+  //ms, 0 when versions only move on invalidation
+  private long maxAge = DEFAULT_MAX_AGE * 1000;
+
+  //namespace:store id -> version
+  private final ConcurrentMap<String, AtomicLong> versions =
+      new ConcurrentHashMap<String, AtomicLong>();
+
+  @PostConstruct
+  public void init() {
+    String value = coreConfiguration.getProperty(MAX_AGE);
+    if (!StringUtils.isBlank(value)) {
+      try {
+        setMaxAge(Long.parseLong(value.trim()));
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid " + MAX_AGE + " " + value);
+      }
+    }
+  }
+
+  /**
+   * Seconds after which versions move on by themselves, 0 or less to only move on invalidation
+   */
+  public void setMaxAge(long seconds) {
+    this.maxAge = Math.max(seconds, 0) * 1000;
+  }
+
+  @Override
+  public long getVersion(Integer storeId) {
+    return getVersion(STORE, storeId);
+  }
+
+  @Override
+  public void invalidate(Integer storeId) {
+    invalidate(STORE, storeId);
+  }
+
+  @Override
+  public long getVersion(String namespace, Integer storeId) {
+    long version = version(namespace, storeId).get();
+    if (maxAge > 0) {
+      //both only grow, the sum changes when either does
+      version += age(namespace + ":" + storeId, System.currentTimeMillis());
+    }
+    return version;
+  }
+
+  @Override
+  public void invalidate(final String namespace, final Integer storeId) {
+
+    if (storeId == null) {
+      return;
+    }
+
+    version(namespace, storeId).incrementAndGet();
+
+    //a reader may rebuild from uncommitted data, bump again once committed
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              version(namespace, storeId).incrementAndGet();
+            }
+          });
+    }
+  }
+
+  //periods of max age elapsed, shifted by key so that stores do not all rebuild at once
+  private long age(String key, long now) {
+    long shift = (key.hashCode() & Integer.MAX_VALUE) % maxAge;
+    return (now + shift) / maxAge;
+  }
+
+  private AtomicLong version(String namespace, Integer storeId) {
+    String key = namespace + ":" + storeId;
+    AtomicLong version = versions.get(key);
+    if (version == null) {
+      AtomicLong newVersion = new AtomicLong();
+      version = versions.putIfAbsent(key, newVersion);
+      if (version == null) {
+        version = newVersion;
+      }
+    }
+    return version;
+  }
+
+}
@@ -79,6 +79,15 @@ public interface OrderService extends SalesManagerEntityService<Long, Order> {
       Payment payment, Transaction transaction, MerchantStore store)
       throws ServiceException;
 
+  /**
+   * Processes the order of a cart, the inventory reserved for the cart in checkout is taken with
+   * the order. The quantities are taken from the inventory when the cart code is null.
+   */
+  Order processOrder(Order order, Customer customer, String cartCode,
+      List<ShoppingCartItem> items, OrderTotalSummary summary,
+      Payment payment, Transaction transaction, MerchantStore store)
+      throws ServiceException;
+
 
   /**
    * Determines if an Order has download files
@@ -4,7 +4,7 @@ import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.modules.order.InvoiceModule;
 import com.salesmanager.core.business.repositories.order.OrderRepository;
-import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.catalog.product.availability.ProductInventoryService;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
 import com.salesmanager.core.business.services.customer.CustomerService;
 import com.salesmanager.core.business.services.order.ordertotal.OrderTotalService;
@@ -12,8 +12,6 @@ import com.salesmanager.core.business.services.payments.PaymentService;
 import com.salesmanager.core.business.services.payments.TransactionService;
 import com.salesmanager.core.business.services.shipping.ShippingService;
 import com.salesmanager.core.business.services.tax.TaxService;
-import com.salesmanager.core.model.catalog.product.Product;
-import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
 import com.salesmanager.core.model.catalog.product.price.FinalPrice;
 import com.salesmanager.core.model.customer.Customer;
 import com.salesmanager.core.model.merchant.MerchantStore;
@@ -30,10 +28,13 @@ import com.salesmanager.core.model.shoppingcart.ShoppingCart;
 import com.salesmanager.core.model.shoppingcart.ShoppingCartItem;
 import com.salesmanager.core.model.tax.TaxItem;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.inject.Inject;
 import java.io.ByteArrayOutputStream;
@@ -58,7 +59,7 @@ public class OrderServiceImpl extends SalesManagerEntityServiceImpl<Long, Order>
   private PaymentService paymentService;
 
   @Inject
-  private ProductService productService;
+  private ProductInventoryService productInventoryService;
 
   @Inject
   private TaxService taxService;
@@ -92,7 +93,7 @@ public class OrderServiceImpl extends SalesManagerEntityServiceImpl<Long, Order>
   public Order processOrder(Order order, Customer customer, List<ShoppingCartItem> items,
       OrderTotalSummary summary, Payment payment, MerchantStore store) throws ServiceException {
 
-    return this.process(order, customer, items, summary, payment, null, store);
+    return this.process(order, customer, null, items, summary, payment, null, store);
   }
 
   @Override
@@ -100,12 +101,20 @@ public class OrderServiceImpl extends SalesManagerEntityServiceImpl<Long, Order>
       OrderTotalSummary summary, Payment payment, Transaction transaction, MerchantStore store)
       throws ServiceException {
 
-    return this.process(order, customer, items, summary, payment, transaction, store);
+    return this.process(order, customer, null, items, summary, payment, transaction, store);
   }
 
-  private Order process(Order order, Customer customer, List<ShoppingCartItem> items,
-      OrderTotalSummary summary, Payment payment, Transaction transaction, MerchantStore store)
-      throws ServiceException {
+  @Override
+  public Order processOrder(Order order, Customer customer, String cartCode,
+      List<ShoppingCartItem> items, OrderTotalSummary summary, Payment payment,
+      Transaction transaction, MerchantStore store) throws ServiceException {
+
+    return this.process(order, customer, cartCode, items, summary, payment, transaction, store);
+  }
+
+  private Order process(Order order, Customer customer, final String cartCode,
+      List<ShoppingCartItem> items, OrderTotalSummary summary, Payment payment,
+      Transaction transaction, MerchantStore store) throws ServiceException {
 
     Validate.notNull(order, "Order cannot be null");
     Validate.notNull(customer, "Customer cannot be null (even if anonymous order)");
@@ -117,22 +126,29 @@ public class OrderServiceImpl extends SalesManagerEntityServiceImpl<Long, Order>
     /**
      * decrement inventory
      */
-    Set<OrderProduct> products = order.getOrderProducts();
-    for (OrderProduct orderProduct : products) {
-      orderProduct.getProductQuantity();
-      Product p = productService.getByCode(orderProduct.getSku(), store.getDefaultLanguage());
-      if (p == null) {
-        throw new ServiceException(ServiceException.EXCEPTION_INVENTORY_MISMATCH);
-      }
-      for (ProductAvailability availability : p.getAvailabilities()) {
-        int qty = availability.getProductQuantity();
-        if (qty < orderProduct.getProductQuantity()) {
-          throw new ServiceException(ServiceException.EXCEPTION_INVENTORY_MISMATCH);
-        }
-        qty = qty - orderProduct.getProductQuantity();
-        availability.setProductQuantity(qty);
+    Map<Long, Integer> quantities = productInventoryService
+        .getProductQuantities(store, order.getOrderProducts());
+
+    if (StringUtils.isBlank(cartCode)) {
+      productInventoryService.decrement(quantities);
+    } else {
+      productInventoryService.confirm(cartCode, quantities);
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        //reservations come back with the rollback, give them back to the inventory
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronizationAdapter() {
+              @Override
+              public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                  try {
+                    productInventoryService.release(cartCode);
+                  } catch (ServiceException e) {
+                    LOGGER.error("Cannot release inventory reservation " + cartCode, e);
+                  }
+                }
+              }
+            });
       }
-      productService.update(p);
     }
 
     //first process payment
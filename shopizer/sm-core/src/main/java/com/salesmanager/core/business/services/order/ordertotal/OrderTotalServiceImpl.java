@@ -1,7 +1,12 @@
 package com.salesmanager.core.business.services.order.ordertotal;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -9,6 +14,7 @@ import javax.inject.Inject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.services.catalog.product.ProductService;
 import com.salesmanager.core.business.services.reference.language.LanguageService;
 import com.salesmanager.core.model.catalog.product.Product;
@@ -21,6 +27,7 @@ import com.salesmanager.core.model.order.RebatesOrderTotalVariation;
 import com.salesmanager.core.model.reference.language.Language;
 import com.salesmanager.core.model.shoppingcart.ShoppingCartItem;
 import com.salesmanager.core.modules.order.total.OrderTotalPostProcessorModule;
+import com.salesmanager.core.modules.order.total.ProductIndependentOrderTotalPostProcessorModule;
 
 @Service("OrderTotalService")
 public class OrderTotalServiceImpl implements OrderTotalService {
@@ -44,35 +51,75 @@ public class OrderTotalServiceImpl implements OrderTotalService {
 
     List<OrderTotal> totals = null;
 
-    if (orderTotalPostProcessors != null) {
-      for (OrderTotalPostProcessorModule module : orderTotalPostProcessors) {
-        //TODO check if the module is enabled from the Admin
+    List<ShoppingCartItem> items = summary.getProducts();
+    if (orderTotalPostProcessors == null || orderTotalPostProcessors.isEmpty() || items == null
+        || items.isEmpty()) {
+      return variation;
+    }
+
+    //products of all items, loaded once for all modules
+    Map<Long, Product> products = Collections.emptyMap();
+    if (requiresProducts()) {
+      products = loadProducts(items, store, language);
+    }
 
-        List<ShoppingCartItem> items = summary.getProducts();
-        for (ShoppingCartItem item : items) {
+    for (OrderTotalPostProcessorModule module : orderTotalPostProcessors) {
+      //TODO check if the module is enabled from the Admin
 
-          Long productId = item.getProductId();
-          Product product = productService
-              .getProductForLocale(productId, language, languageService.toLocale(language, store));
+      for (ShoppingCartItem item : items) {
 
-          OrderTotal orderTotal = module
-              .caculateProductPiceVariation(summary, item, product, customer, store);
-          if (orderTotal == null) {
-            continue;
-          }
-          if (totals == null) {
-            totals = new ArrayList<OrderTotal>();
-            variation.setVariations(totals);
-          }
+        Product product = products.get(item.getProductId());
 
-          //if product is null it will be catched when invoking the module
+        OrderTotal orderTotal = module
+            .caculateProductPiceVariation(summary, item, product, customer, store);
+        if (orderTotal == null) {
+          continue;
+        }
+        if (totals == null) {
+          totals = new ArrayList<OrderTotal>();
+          variation.setVariations(totals);
+        }
+
+        //if product is null it will be catched when invoking the module
+        if (product != null && product.getProductDescription() != null) {
           orderTotal.setText(product.getProductDescription().getName());
-          variation.getVariations().add(orderTotal);
         }
+        variation.getVariations().add(orderTotal);
       }
     }
 
     return variation;
   }
 
+  private boolean requiresProducts() {
+    for (OrderTotalPostProcessorModule module : orderTotalPostProcessors) {
+      if (!(module instanceof ProductIndependentOrderTotalPostProcessorModule)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Products of the items available in the store locale, shared by the modules and not to be
+   * modified
+   */
+  private Map<Long, Product> loadProducts(List<ShoppingCartItem> items, MerchantStore store,
+      Language language) throws ServiceException {
+
+    Set<Long> productIds = new LinkedHashSet<Long>();
+    for (ShoppingCartItem item : items) {
+      productIds.add(item.getProductId());
+    }
+
+    List<Product> products = productService
+        .getByIdsForLocale(productIds, language, languageService.toLocale(language, store));
+
+    Map<Long, Product> productMap = new HashMap<Long, Product>();
+    for (Product product : products) {
+      productMap.put(product.getId(), product);
+    }
+    return Collections.unmodifiableMap(productMap);
+  }
+
 }
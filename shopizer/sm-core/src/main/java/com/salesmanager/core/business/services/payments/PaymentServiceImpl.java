@@ -22,6 +22,7 @@ import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.services.order.OrderService;
 import com.salesmanager.core.business.services.reference.loader.ConfigurationModulesLoader;
 import com.salesmanager.core.business.services.system.MerchantConfigurationService;
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshotService;
 import com.salesmanager.core.business.services.system.ModuleConfigurationService;
 import com.salesmanager.core.business.utils.CoreConfiguration;
 import com.salesmanager.core.model.customer.Customer;
@@ -56,6 +57,9 @@ public class PaymentServiceImpl implements PaymentService {
   @Inject
   private MerchantConfigurationService merchantConfigurationService;
 
+  @Inject
+  private MerchantConfigurationSnapshotService merchantConfigurationSnapshotService;
+
   @Inject
   private ModuleConfigurationService moduleConfigurationService;
 
@@ -197,26 +201,8 @@ public class PaymentServiceImpl implements PaymentService {
   public Map<String, IntegrationConfiguration> getPaymentModulesConfigured(MerchantStore store)
       throws ServiceException {
 
-    try {
-
-      Map<String, IntegrationConfiguration> modules = new HashMap<String, IntegrationConfiguration>();
-      MerchantConfiguration merchantConfiguration = merchantConfigurationService
-          .getMerchantConfiguration(PAYMENT_MODULES, store);
-      if (merchantConfiguration != null) {
-
-        if (!StringUtils.isBlank(merchantConfiguration.getValue())) {
-
-          String decrypted = encryption.decrypt(merchantConfiguration.getValue());
-          modules = ConfigurationModulesLoader.loadIntegrationConfigurations(decrypted);
-
-
-        }
-      }
-      return modules;
-
-    } catch (Exception e) {
-      throw new ServiceException(e);
-    }
+    //copies, callers change them before saving
+    return merchantConfigurationSnapshotService.getSnapshot(store).getPaymentModules();
   }
 
   @Override
@@ -1,7 +1,6 @@
 package com.salesmanager.core.business.services.reference.country;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,7 +14,7 @@ import org.springframework.util.CollectionUtils;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.reference.country.CountryRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
-import com.salesmanager.core.business.utils.CacheUtils;
+import com.salesmanager.core.business.services.reference.registry.ReferenceDataRegistry;
 import com.salesmanager.core.model.reference.country.Country;
 import com.salesmanager.core.model.reference.country.CountryDescription;
 import com.salesmanager.core.model.reference.language.Language;
@@ -29,7 +28,7 @@ public class CountryServiceImpl extends SalesManagerEntityServiceImpl<Integer, C
   private CountryRepository countryRepository;
 
   @Inject
-  private CacheUtils cache;
+  private ReferenceDataRegistry referenceDataRegistry;
 
 
   @Inject
@@ -52,16 +51,7 @@ public class CountryServiceImpl extends SalesManagerEntityServiceImpl<Integer, C
 
   @Override
   public Map<String, Country> getCountriesMap(Language language) throws ServiceException {
-
-    List<Country> countries = this.getCountries(language);
-
-    Map<String, Country> returnMap = new LinkedHashMap<String, Country>();
-
-    for (Country country : countries) {
-      returnMap.put(country.getIsoCode(), country);
-    }
-
-    return returnMap;
+    return referenceDataRegistry.getReferenceData().getCountriesMap(language);
   }
 
 
@@ -81,37 +71,9 @@ public class CountryServiceImpl extends SalesManagerEntityServiceImpl<Integer, C
   }
 
 
-  @SuppressWarnings("unchecked")
   @Override
   public List<Country> getCountries(Language language) throws ServiceException {
-
-    List<Country> countries = null;
-    try {
-
-      countries = (List<Country>) cache.getFromCache("COUNTRIES_" + language.getCode());
-
-      if (countries == null) {
-
-        countries = countryRepository.listByLanguage(language.getId());
-
-        //set names
-        for (Country country : countries) {
-
-          CountryDescription description = country.getDescriptions().iterator().next();
-          country.setName(description.getName());
-
-        }
-
-        cache.putInCache(countries, "COUNTRIES_" + language.getCode());
-      }
-
-    } catch (Exception e) {
-      LOGGER.error("getCountries()", e);
-    }
-
-    return countries;
-
-
+    return referenceDataRegistry.getReferenceData().getCountries(language);
   }
 
   @Override
@@ -1,5 +1,8 @@
 package com.salesmanager.core.business.services.reference.currency;
 
+import java.util.List;
+
+import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityService;
 import com.salesmanager.core.model.reference.currency.Currency;
 
@@ -7,4 +10,9 @@ public interface CurrencyService extends SalesManagerEntityService<Long, Currenc
 
   Currency getByCode(String code);
 
+  /**
+   * Currencies of the reference data
+   */
+  List<Currency> getCurrencies() throws ServiceException;
+
 }
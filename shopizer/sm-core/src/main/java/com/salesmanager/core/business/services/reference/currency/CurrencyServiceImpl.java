@@ -1,11 +1,15 @@
 package com.salesmanager.core.business.services.reference.currency;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.springframework.stereotype.Service;
 
+import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.reference.currency.CurrencyRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.business.services.reference.registry.ReferenceDataRegistry;
 import com.salesmanager.core.model.reference.currency.Currency;
 
 @Service("currencyService")
@@ -14,6 +18,9 @@ public class CurrencyServiceImpl extends SalesManagerEntityServiceImpl<Long, Cur
 
   private CurrencyRepository currencyRepository;
 
+  @Inject
+  private ReferenceDataRegistry referenceDataRegistry;
+
   @Inject
   public CurrencyServiceImpl(CurrencyRepository currencyRepository) {
     super(currencyRepository);
@@ -25,4 +32,9 @@ public class CurrencyServiceImpl extends SalesManagerEntityServiceImpl<Long, Cur
     return currencyRepository.getByCode(code);
   }
 
+  @Override
+  public List<Currency> getCurrencies() throws ServiceException {
+    return referenceDataRegistry.getReferenceData().getCurrencies();
+  }
+
 }
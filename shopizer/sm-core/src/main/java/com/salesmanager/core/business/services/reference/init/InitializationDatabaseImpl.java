@@ -25,6 +25,7 @@ import com.salesmanager.core.business.services.reference.currency.CurrencyServic
 import com.salesmanager.core.business.services.reference.language.LanguageService;
 import com.salesmanager.core.business.services.reference.loader.IntegrationModulesLoader;
 import com.salesmanager.core.business.services.reference.loader.ZonesLoader;
+import com.salesmanager.core.business.services.reference.registry.ReferenceDataRegistry;
 import com.salesmanager.core.business.services.reference.zone.ZoneService;
 import com.salesmanager.core.business.services.system.ModuleConfigurationService;
 import com.salesmanager.core.business.services.tax.TaxClassService;
@@ -81,6 +82,9 @@ public class InitializationDatabaseImpl implements InitializationDatabase {
   @Inject
   private ModuleConfigurationService moduleConfigurationService;
 
+  @Inject
+  private ReferenceDataRegistry referenceDataRegistry;
+
 
   private String name;
 
@@ -100,6 +104,8 @@ public class InitializationDatabaseImpl implements InitializationDatabase {
     createModules();
     createMerchant();
 
+    //loaded again with the new references once committed
+    referenceDataRegistry.invalidate();
 
   }
 
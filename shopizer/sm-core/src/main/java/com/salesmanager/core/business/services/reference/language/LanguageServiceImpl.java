@@ -1,6 +1,5 @@
 package com.salesmanager.core.business.services.reference.language;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -15,7 +14,7 @@ import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.reference.language.LanguageRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
-import com.salesmanager.core.business.utils.CacheUtils;
+import com.salesmanager.core.business.services.reference.registry.ReferenceDataRegistry;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.reference.language.Language;
 
@@ -32,7 +31,7 @@ public class LanguageServiceImpl extends SalesManagerEntityServiceImpl<Integer,
   private static final Logger LOGGER = LoggerFactory.getLogger(LanguageServiceImpl.class);
 
   @Inject
-  private CacheUtils cache;
+  private ReferenceDataRegistry referenceDataRegistry;
 
   private LanguageRepository languageRepository;
 
@@ -84,38 +83,13 @@ public class LanguageServiceImpl extends SalesManagerEntityServiceImpl<Integer,
 
   @Override
   public Map<String, Language> getLanguagesMap() throws ServiceException {
-
-    List<Language> langs = this.getLanguages();
-    Map<String, Language> returnMap = new LinkedHashMap<String, Language>();
-
-    for (Language lang : langs) {
-      returnMap.put(lang.getCode(), lang);
-    }
-    return returnMap;
-
+    return referenceDataRegistry.getReferenceData().getLanguagesMap();
   }
 
 
   @Override
-  @SuppressWarnings("unchecked")
   public List<Language> getLanguages() throws ServiceException {
-
-    List<Language> langs = null;
-    try {
-
-      langs = (List<Language>) cache.getFromCache("LANGUAGES");
-      if (langs == null) {
-        langs = this.list();
-        cache.putInCache(langs, "LANGUAGES");
-      }
-
-    } catch (Exception e) {
-      LOGGER.error("getCountries()", e);
-      throw new ServiceException(e);
-    }
-
-    return langs;
-
+    return referenceDataRegistry.getReferenceData().getLanguages();
   }
 
   @Override
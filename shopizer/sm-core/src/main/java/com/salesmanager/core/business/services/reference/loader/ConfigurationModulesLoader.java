@@ -21,6 +21,8 @@ public class ConfigurationModulesLoader {
   @SuppressWarnings("unused")
   private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationModulesLoader.class);
 
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
 
   public static String toJSONString(Map<String, IntegrationConfiguration> configurations)
       throws Exception {
@@ -53,11 +55,9 @@ public class ConfigurationModulesLoader {
 
     Map<String, IntegrationConfiguration> modules = new HashMap<String, IntegrationConfiguration>();
 
-    ObjectMapper mapper = new ObjectMapper();
-
     try {
 
-      Map[] objects = mapper.readValue(value, Map[].class);
+      Map[] objects = MAPPER.readValue(value, Map[].class);
 
       for (int i = 0; i < objects.length; i++) {
 
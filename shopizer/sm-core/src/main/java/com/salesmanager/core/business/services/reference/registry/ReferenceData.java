@@ -0,0 +1,179 @@
+package com.salesmanager.core.business.services.reference.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.currency.Currency;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.reference.zone.Zone;
+
+/**
+ * Languages, currencies and the countries and zones of each language, indexed by code and id.
+ * Never changes once built, a reload builds a new one. Countries and zones carry the name of
+ * their language
+ */
+public class ReferenceData {
+
+  private final List<Language> languages;
+  private final Map<String, Language> languagesByCode;
+  private final Map<Integer, Language> languagesById;
+  private final List<Currency> currencies;
+  private final Map<String, Currency> currenciesByCode;
+
+  //language code - countries and zones
+  private final Map<String, LanguageData> byLanguage;
+
+  /**
+   * @param countries countries of each language code
+   * @param zones zones of each language code
+   */
+  public ReferenceData(List<Language> languages, List<Currency> currencies,
+      Map<String, List<Country>> countries, Map<String, List<Zone>> zones) {
+
+    Map<String, Language> byCode = new LinkedHashMap<String, Language>();
+    Map<Integer, Language> byId = new HashMap<Integer, Language>();
+    for (Language language : languages) {
+      byCode.put(language.getCode(), language);
+      byId.put(language.getId(), language);
+    }
+    this.languages = Collections.unmodifiableList(new ArrayList<Language>(languages));
+    this.languagesByCode = Collections.unmodifiableMap(byCode);
+    this.languagesById = Collections.unmodifiableMap(byId);
+
+    Map<String, Currency> currencyByCode = new LinkedHashMap<String, Currency>();
+    for (Currency currency : currencies) {
+      currencyByCode.put(currency.getCode(), currency);
+    }
+    this.currencies = Collections.unmodifiableList(new ArrayList<Currency>(currencies));
+    this.currenciesByCode = Collections.unmodifiableMap(currencyByCode);
+
+    Map<String, LanguageData> data = new HashMap<String, LanguageData>();
+    for (Language language : languages) {
+      List<Country> languageCountries = countries.get(language.getCode());
+      List<Zone> languageZones = zones.get(language.getCode());
+      data.put(language.getCode(), new LanguageData(
+          languageCountries == null ? Collections.<Country>emptyList() : languageCountries,
+          languageZones == null ? Collections.<Zone>emptyList() : languageZones));
+    }
+    this.byLanguage = data;
+  }
+
+  public List<Language> getLanguages() {
+    return languages;
+  }
+
+  /**
+   * Languages by code
+   */
+  public Map<String, Language> getLanguagesMap() {
+    return languagesByCode;
+  }
+
+  public Language getLanguage(Integer id) {
+    return languagesById.get(id);
+  }
+
+  public List<Currency> getCurrencies() {
+    return currencies;
+  }
+
+  /**
+   * Currencies by code
+   */
+  public Map<String, Currency> getCurrenciesMap() {
+    return currenciesByCode;
+  }
+
+  public List<Country> getCountries(Language language) {
+    return data(language).countries;
+  }
+
+  /**
+   * Countries by iso code
+   */
+  public Map<String, Country> getCountriesMap(Language language) {
+    return data(language).countriesByCode;
+  }
+
+  public Country getCountry(Integer id, Language language) {
+    return data(language).countriesById.get(id);
+  }
+
+  /**
+   * Zones by code
+   */
+  public Map<String, Zone> getZones(Language language) {
+    return data(language).zonesByCode;
+  }
+
+  /**
+   * Zones of a country
+   */
+  public List<Zone> getZones(String countryIsoCode, Language language) {
+    List<Zone> zones = data(language).zonesByCountry.get(countryIsoCode);
+    return zones == null ? Collections.<Zone>emptyList() : zones;
+  }
+
+  public Zone getZone(Long id, Language language) {
+    return data(language).zonesById.get(id);
+  }
+
+  private LanguageData data(Language language) {
+    LanguageData data = byLanguage.get(language.getCode());
+    return data == null ? LanguageData.EMPTY : data;
+  }
+
+  private static class LanguageData {
+
+    private static final LanguageData EMPTY =
+        new LanguageData(Collections.<Country>emptyList(), Collections.<Zone>emptyList());
+
+    private final List<Country> countries;
+    private final Map<String, Country> countriesByCode;
+    private final Map<Integer, Country> countriesById;
+    private final Map<String, Zone> zonesByCode;
+    private final Map<Long, Zone> zonesById;
+    private final Map<String, List<Zone>> zonesByCountry;
+
+    LanguageData(List<Country> countries, List<Zone> zones) {
+
+      Map<String, Country> countryByCode = new LinkedHashMap<String, Country>();
+      Map<Integer, Country> countryById = new HashMap<Integer, Country>();
+      for (Country country : countries) {
+        countryByCode.put(country.getIsoCode(), country);
+        countryById.put(country.getId(), country);
+      }
+      this.countries = Collections.unmodifiableList(new ArrayList<Country>(countries));
+      this.countriesByCode = Collections.unmodifiableMap(countryByCode);
+      this.countriesById = Collections.unmodifiableMap(countryById);
+
+      Map<String, Zone> zoneByCode = new LinkedHashMap<String, Zone>();
+      Map<Long, Zone> zoneById = new HashMap<Long, Zone>();
+      Map<String, List<Zone>> zoneByCountry = new HashMap<String, List<Zone>>();
+      for (Zone zone : zones) {
+        zoneByCode.put(zone.getCode(), zone);
+        zoneById.put(zone.getId(), zone);
+        if (zone.getCountry() != null) {
+          List<Zone> countryZones = zoneByCountry.get(zone.getCountry().getIsoCode());
+          if (countryZones == null) {
+            countryZones = new ArrayList<Zone>();
+            zoneByCountry.put(zone.getCountry().getIsoCode(), countryZones);
+          }
+          countryZones.add(zone);
+        }
+      }
+      for (Map.Entry<String, List<Zone>> entry : zoneByCountry.entrySet()) {
+        entry.setValue(Collections.unmodifiableList(entry.getValue()));
+      }
+      this.zonesByCode = Collections.unmodifiableMap(zoneByCode);
+      this.zonesById = Collections.unmodifiableMap(zoneById);
+      this.zonesByCountry = zoneByCountry;
+    }
+  }
+
+}
@@ -0,0 +1,26 @@
+package com.salesmanager.core.business.services.reference.registry;
+
+import com.salesmanager.core.business.exception.ServiceException;
+
+/**
+ * Countries, zones, languages and currencies loaded once in an immutable {@link ReferenceData},
+ * apart from the object cache so that page data never evicts them
+ */
+public interface ReferenceDataRegistry {
+
+  /**
+   * Current reference data, loaded on first use
+   */
+  ReferenceData getReferenceData() throws ServiceException;
+
+  /**
+   * Loads the reference data again from the database
+   */
+  void reload() throws ServiceException;
+
+  /**
+   * Reference data is loaded again on next use, once the current transaction is completed
+   */
+  void invalidate();
+
+}
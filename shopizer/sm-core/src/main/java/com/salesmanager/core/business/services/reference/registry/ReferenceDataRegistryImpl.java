@@ -0,0 +1,144 @@
+package com.salesmanager.core.business.services.reference.registry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.country.CountryDescription;
+import com.salesmanager.core.model.reference.currency.Currency;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.reference.zone.Zone;
+import com.salesmanager.core.model.reference.zone.ZoneDescription;
+
+/**
+ * Loads the reference data when the context is started. Reference data is read from an entity
+ * manager of its own: the entities of a language are not those of another language or of a caller
+ * transaction
+ */
+@Service("referenceDataRegistry")
+public class ReferenceDataRegistryImpl
+    implements ReferenceDataRegistry, ApplicationListener<ContextRefreshedEvent> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataRegistryImpl.class);
+
+  @PersistenceUnit
+  private EntityManagerFactory entityManagerFactory;
+
+  private volatile ReferenceData referenceData;
+
+  @Override
+  public void onApplicationEvent(ContextRefreshedEvent event) {
+    try {
+      getReferenceData();
+    } catch (ServiceException e) {
+      LOGGER.error("Cannot load reference data, will be loaded on first use", e);
+    }
+  }
+
+  @Override
+  public ReferenceData getReferenceData() throws ServiceException {
+    ReferenceData data = referenceData;
+    if (data == null) {
+      synchronized (this) {
+        data = referenceData;
+        if (data == null) {
+          data = load();
+          referenceData = data;
+        }
+      }
+    }
+    return data;
+  }
+
+  @Override
+  public void reload() throws ServiceException {
+    ReferenceData data = load();
+    synchronized (this) {
+      referenceData = data;
+    }
+  }
+
+  @Override
+  public void invalidate() {
+
+    referenceData = null;
+
+    //a reader may load uncommitted data, drop it again once committed
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              referenceData = null;
+            }
+          });
+    }
+  }
+
+  private ReferenceData load() throws ServiceException {
+
+    long start = System.currentTimeMillis();
+
+    EntityManager em = entityManagerFactory.createEntityManager();
+    try {
+
+      List<Language> languages =
+          em.createQuery("select l from Language l", Language.class).getResultList();
+      List<Currency> currencies =
+          em.createQuery("select c from Currency c", Currency.class).getResultList();
+
+      Map<String, List<Country>> countries = new HashMap<String, List<Country>>();
+      Map<String, List<Zone>> zones = new HashMap<String, List<Zone>>();
+
+      for (Language language : languages) {
+
+        //new instances for each language
+        em.clear();
+
+        List<Country> languageCountries = em.createQuery(
+            "select c from Country c left join fetch c.descriptions cd where cd.language.id=:id",
+            Country.class).setParameter("id", language.getId()).getResultList();
+        for (Country country : languageCountries) {
+          CountryDescription description = country.getDescriptions().iterator().next();
+          country.setName(description.getName());
+        }
+
+        List<Zone> languageZones = em.createQuery(
+            "select z from Zone z left join fetch z.descriptions zd where zd.language.id=:id",
+            Zone.class).setParameter("id", language.getId()).getResultList();
+        for (Zone zone : languageZones) {
+          ZoneDescription description = zone.getDescriptions().get(0);
+          zone.setName(description.getName());
+        }
+
+        countries.put(language.getCode(), languageCountries);
+        zones.put(language.getCode(), languageZones);
+      }
+
+      ReferenceData data = new ReferenceData(languages, currencies, countries, zones);
+      LOGGER.info("Reference data loaded in " + (System.currentTimeMillis() - start) + " ms, "
+          + languages.size() + " languages, " + currencies.size() + " currencies");
+      return data;
+
+    } catch (Exception e) {
+      throw new ServiceException("Cannot load reference data", e);
+    } finally {
+      em.close();
+    }
+  }
+
+}
@@ -0,0 +1,555 @@
+package com.salesmanager.core.business.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonElement;
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.catalog.product.PricingService;
+import com.salesmanager.core.model.catalog.category.Category;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.description.ProductDescription;
+import com.salesmanager.core.model.catalog.product.price.FinalPrice;
+import com.salesmanager.core.model.search.IndexProduct;
+import com.salesmanager.core.model.search.ProductIndexChange;
+import com.shopizer.search.services.IndexKeywordRequest;
+import com.shopizer.search.services.field.BooleanField;
+import com.shopizer.search.services.field.DoubleField;
+import com.shopizer.search.services.field.Field;
+import com.shopizer.search.services.field.IntegerField;
+import com.shopizer.search.services.field.ListField;
+import com.shopizer.search.services.field.LongField;
+import com.shopizer.search.services.field.StringField;
+import com.shopizer.search.services.impl.SearchDelegate;
+import com.shopizer.search.services.worker.KeywordIndexerImpl;
+import com.shopizer.search.services.worker.ObjectIndexerImpl;
+import com.shopizer.search.utils.CustomIndexConfiguration;
+import com.shopizer.search.utils.CustomIndexFieldConfiguration;
+import com.shopizer.search.utils.FileUtil;
+import com.shopizer.search.utils.IndexConfiguration;
+import com.shopizer.search.utils.SearchClient;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.DeleteByQuery;
+import io.searchbox.core.Index;
+import io.searchbox.indices.DeleteIndex;
+import io.searchbox.indices.aliases.AddAliasMapping;
+import io.searchbox.indices.aliases.AliasMapping;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.aliases.RemoveAliasMapping;
+
+/**
+ * Writes products to the search engine with one bulk request for the product documents of all
+ * the products, and one request per keyword index for the auto-complete keywords. This is what
+ * the index and delete workflows of the search module do, one document at a time.
+ *
+ * A collection can be rebuilt in a new versioned index, the collection name then becomes an alias
+ * of the rebuilt index once it is published.
+ */
+@Component("productIndexWriter")
+public class ProductIndexWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductIndexWriter.class);
+
+  private final static String PRODUCT_INDEX_NAME = "product";
+  private final static String UNDERSCORE = "_";
+  //product id in keyword documents
+  private final static String KEYWORD_ID_FIELD = "_id_";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  //collection -> index being rebuilt
+  private final ConcurrentMap<String, String> rebuilding = new ConcurrentHashMap<String, String>();
+
+  @Inject
+  private SearchClient searchClient;
+
+  @Inject
+  private SearchDelegate searchDelegate;
+
+  @Inject
+  @Named("keyword")
+  private KeywordIndexerImpl keywordIndexer;
+
+  @Inject
+  @Named("index")
+  private ObjectIndexerImpl objectIndexer;
+
+  @Inject
+  private PricingService pricingService;
+
+  /**
+   * One document per product description
+   */
+  @SuppressWarnings("rawtypes")
+  public List<IndexProduct> getDocuments(Product product) throws ServiceException {
+
+    FinalPrice price = pricingService.calculateProductPrice(product);
+    String store = product.getMerchantStore().getCode().toLowerCase();
+
+    List<String> categoryList = null;
+    Set<Category> categories = product.getCategories();
+    if (!CollectionUtils.isEmpty(categories)) {
+      categoryList = new ArrayList<String>();
+      for (Category category : categories) {
+        categoryList.add(category.getCode());
+      }
+    }
+
+    List<IndexProduct> documents = new ArrayList<IndexProduct>();
+    for (ProductDescription description : product.getDescriptions()) {
+
+      IndexProduct index = new IndexProduct();
+
+      index.setId(String.valueOf(product.getId()));
+      index.setStore(store);
+      index.setLang(description.getLanguage().getCode());
+      index.setAvailable(product.isAvailable());
+      index.setDescription(description.getDescription());
+      index.setName(description.getName());
+      if (product.getManufacturer() != null) {
+        index.setManufacturer(String.valueOf(product.getManufacturer().getId()));
+      }
+      if (price != null) {
+        index.setPrice(price.getFinalPrice().doubleValue());
+      }
+      index.setHighlight(description.getProductHighlight());
+      if (!StringUtils.isBlank(description.getMetatagKeywords())) {
+        String[] tags = description.getMetatagKeywords().split(",");
+        @SuppressWarnings("unchecked")
+        List<String> tagsList = new ArrayList(Arrays.asList(tags));
+        index.setTags(tagsList);
+      }
+      index.setCategories(categoryList);
+
+      documents.add(index);
+    }
+    return documents;
+  }
+
+  /**
+   * product_[language]_[store]
+   */
+  public static String getCollectionName(String languageCode, String storeCode) {
+    return new StringBuilder().append(PRODUCT_INDEX_NAME).append(UNDERSCORE)
+        .append(languageCode).append(UNDERSCORE).append(storeCode.toLowerCase()).toString();
+  }
+
+  /**
+   * product_[language]
+   */
+  public static String getTypeName(String languageCode) {
+    return new StringBuilder().append(PRODUCT_INDEX_NAME).append(UNDERSCORE)
+        .append(languageCode).toString();
+  }
+
+  /**
+   * Indexes the products and removes the deleted ones. Throws a ServiceException when the search
+   * engine cannot be reached. Products whose documents cannot be built and documents the search
+   * engine rejects are logged and skipped
+   *
+   * @return the number of products and documents rejected
+   */
+  public int write(Collection<Product> products, Collection<ProductIndexChange> deletions)
+      throws ServiceException {
+
+    int rejected = 0;
+    List<IndexProduct> documents = new ArrayList<IndexProduct>();
+    for (Product product : products) {
+      try {
+        documents.addAll(getDocuments(product));
+      } catch (Exception e) {
+        //a product without price or store would fail the batch on every drain
+        rejected++;
+        LOGGER.error("Cannot build the documents of product id [" + product.getId() + "]", e);
+      }
+    }
+    return rejected + ship(documents, deletions, false);
+  }
+
+  /**
+   * Indexes documents in the index being rebuilt of their collection, or in the collection when
+   * none is being rebuilt
+   *
+   * @return the number of documents rejected
+   */
+  public int rebuild(List<IndexProduct> documents) throws ServiceException {
+    return ship(documents, Collections.<ProductIndexChange>emptyList(), true);
+  }
+
+  /**
+   * Sends the documents and deletions in one bulk request
+   *
+   * @return the number of documents rejected
+   */
+  protected int ship(List<IndexProduct> documents, Collection<ProductIndexChange> deletions,
+      boolean rebuild) throws ServiceException {
+
+    if (documents.isEmpty() && deletions.isEmpty()) {
+      return 0;
+    }
+
+    Bulk.Builder bulk = new Bulk.Builder();
+    //keywords are replaced, by keyword collection
+    Map<String, List<IndexKeywordRequest>> keywords =
+        new HashMap<String, List<IndexKeywordRequest>>();
+    Map<String, Set<String>> staleKeywords = new HashMap<String, Set<String>>();
+
+    for (IndexProduct document : documents) {
+      String json = document.toJSONString();
+      String type = getTypeName(document.getLang());
+      for (String index : getTargets(getCollectionName(document.getLang(), document.getStore()),
+          rebuild)) {
+        bulk.addAction(new Index.Builder(json).index(index).type(type).id(document.getId())
+            .build());
+      }
+      addKeywords(type, document.getId(), json, keywords, staleKeywords);
+    }
+
+    for (ProductIndexChange deletion : deletions) {
+      String id = String.valueOf(deletion.getProductId());
+      for (String language : StringUtils.split(StringUtils.defaultString(deletion.getLanguages()),
+          ',')) {
+        String type = getTypeName(language);
+        for (String index : getTargets(getCollectionName(language, deletion.getStoreCode()),
+            rebuild)) {
+          bulk.addAction(new Delete.Builder(id).index(index).type(type).build());
+        }
+        CustomIndexConfiguration configuration = getKeywordConfiguration(type);
+        if (configuration != null) {
+          stale(staleKeywords, configuration.getCollectionName(), id);
+        }
+      }
+    }
+
+    int rejected = 0;
+    try {
+      BulkResult result = searchClient.getClient().execute(bulk.build());
+      if (!result.isSucceeded() && result.getItems().isEmpty()) {
+        throw new ServiceException("Bulk indexing failed " + result.getErrorMessage());
+      }
+      for (BulkResult.BulkResultItem item : result.getFailedItems()) {
+        //deleting a document never indexed
+        if ("delete".equals(item.operation) && item.status == 404) {
+          continue;
+        }
+        rejected++;
+        LOGGER.error("Cannot " + item.operation + " product id [" + item.id + "] in "
+            + item.index + ", " + item.error);
+      }
+    } catch (ServiceException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServiceException("Cannot reach the search engine, " + e.getMessage(), e);
+    }
+
+    writeKeywords(keywords, staleKeywords);
+    return rejected;
+  }
+
+  /**
+   * Creates [collection]_[version] with the mapping and settings of the collection if it does not
+   * exist yet. Until it is published or abandoned, changes of the collection are also written to
+   * it
+   *
+   * @return false when the index already existed
+   */
+  public boolean startRebuild(String languageCode, String storeCode, String version)
+      throws ServiceException {
+
+    String collection = getCollectionName(languageCode, storeCode);
+    String index = collection + UNDERSCORE + version;
+    IndexConfiguration configuration = getIndexConfiguration(getTypeName(languageCode));
+    if (configuration == null) {
+      throw new ServiceException(
+          "No index configuration for " + getTypeName(languageCode) + " in shopizer-search.xml");
+    }
+    boolean created = false;
+    try {
+      if (!searchDelegate.indexExist(index)) {
+        String mapping = null;
+        String settings = null;
+        if (!StringUtils.isBlank(configuration.getMappingFileName())) {
+          mapping = FileUtil.readFileAsString(configuration.getMappingFileName());
+        }
+        if (!StringUtils.isBlank(configuration.getSettingsFileName())) {
+          settings = FileUtil.readFileAsString(configuration.getSettingsFileName());
+        }
+        searchDelegate.createIndice(mapping, settings, index, configuration.getIndexName());
+        created = true;
+      }
+    } catch (Exception e) {
+      throw new ServiceException("Cannot create index " + index + ", " + e.getMessage(), e);
+    }
+    rebuilding.put(collection, index);
+    return created;
+  }
+
+  /**
+   * Points the collection alias to the rebuilt index and drops the previous index. The first time
+   * the collection is a plain index created at startup, it is dropped before the alias is created
+   */
+  public void publish(String languageCode, String storeCode) throws ServiceException {
+
+    String collection = getCollectionName(languageCode, storeCode);
+    String index = rebuilding.get(collection);
+    if (index == null) {
+      throw new ServiceException("No index being rebuilt for " + collection);
+    }
+
+    try {
+      JestClient client = searchClient.getClient();
+      List<String> previous = getAliasedIndices(collection);
+      if (previous == null) {
+        JestResult deleted = client.execute(new DeleteIndex.Builder(collection).build());
+        if (!deleted.isSucceeded()) {
+          throw new ServiceException(
+              "Cannot delete index " + collection + ", " + deleted.getErrorMessage());
+        }
+        previous = new ArrayList<String>();
+      }
+      previous.remove(index);
+
+      //one request, searches never see the collection without an index
+      List<AliasMapping> mappings = new ArrayList<AliasMapping>();
+      if (!previous.isEmpty()) {
+        mappings.add(new RemoveAliasMapping.Builder(previous, collection).build());
+      }
+      mappings.add(new AddAliasMapping.Builder(index, collection).build());
+      JestResult swapped = client.execute(new ModifyAliases.Builder(mappings).build());
+      if (!swapped.isSucceeded()) {
+        throw new ServiceException(
+            "Cannot point " + collection + " to " + index + ", " + swapped.getErrorMessage());
+      }
+
+      for (String old : previous) {
+        JestResult deleted = client.execute(new DeleteIndex.Builder(old).build());
+        if (!deleted.isSucceeded()) {
+          LOGGER.warn("Cannot delete previous index " + old + ", " + deleted.getErrorMessage());
+        }
+      }
+    } catch (ServiceException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServiceException("Cannot publish " + index + ", " + e.getMessage(), e);
+    } finally {
+      rebuilding.remove(collection);
+    }
+  }
+
+  /**
+   * Stops writing the changes of a collection to its rebuilt index, the index is kept
+   */
+  public void abandon(String languageCode, String storeCode) {
+    rebuilding.remove(getCollectionName(languageCode, storeCode));
+  }
+
+  /**
+   * Indices behind the collection alias, null when the collection is a plain index
+   */
+  private List<String> getAliasedIndices(String collection) throws Exception {
+    List<String> indices = new ArrayList<String>();
+    JestResult result =
+        searchClient.getClient().execute(new GetAliases.Builder().addIndex(collection).build());
+    if (!result.isSucceeded() || result.getJsonObject() == null) {
+      return indices;
+    }
+    for (Map.Entry<String, JsonElement> entry : result.getJsonObject().entrySet()) {
+      if (collection.equals(entry.getKey())) {
+        return null;
+      }
+      indices.add(entry.getKey());
+    }
+    return indices;
+  }
+
+  private List<String> getTargets(String collection, boolean rebuild) {
+    String index = rebuilding.get(collection);
+    if (index == null) {
+      return Collections.singletonList(collection);
+    }
+    if (rebuild) {
+      return Collections.singletonList(index);
+    }
+    return Arrays.asList(collection, index);
+  }
+
+  private IndexConfiguration getIndexConfiguration(String type) {
+    if (objectIndexer.getIndexConfigurations() == null) {
+      return null;
+    }
+    for (IndexConfiguration configuration : objectIndexer.getIndexConfigurations()) {
+      if (type.equals(configuration.getIndexName())) {
+        return configuration;
+      }
+    }
+    return null;
+  }
+
+  private void writeKeywords(Map<String, List<IndexKeywordRequest>> keywords,
+      Map<String, Set<String>> staleKeywords) {
+
+    for (CustomIndexConfiguration configuration : getKeywordConfigurations()) {
+      String collection = configuration.getCollectionName();
+      try {
+        Set<String> ids = staleKeywords.get(collection);
+        if (ids != null) {
+          Map<String, Object> terms = new HashMap<String, Object>();
+          terms.put(KEYWORD_ID_FIELD, ids);
+          Map<String, Object> query = new HashMap<String, Object>();
+          query.put("terms", terms);
+          Map<String, Object> body = new HashMap<String, Object>();
+          body.put("query", query);
+          JestResult result = searchClient.getClient().execute(
+              new DeleteByQuery.Builder(MAPPER.writeValueAsString(body)).addIndex(collection)
+                  .addType(configuration.getIndexName()).build());
+          if (!result.isSucceeded()) {
+            LOGGER.error("Cannot delete keywords of " + collection + ", "
+                + result.getErrorMessage());
+          }
+        }
+        List<IndexKeywordRequest> requests = keywords.get(collection);
+        if (requests != null) {
+          searchDelegate.bulkIndexKeywords(requests, collection, configuration.getIndexName());
+        }
+      } catch (Exception e) {
+        //keywords only serve auto-complete, products remain searchable
+        LOGGER.error("Cannot index keywords of " + collection, e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void addKeywords(String type, String id, String json,
+      Map<String, List<IndexKeywordRequest>> keywords, Map<String, Set<String>> staleKeywords)
+      throws ServiceException {
+
+    CustomIndexConfiguration configuration = getKeywordConfiguration(type);
+    if (configuration == null || configuration.getFields() == null) {
+      return;
+    }
+    stale(staleKeywords, configuration.getCollectionName(), id);
+
+    Map<String, Object> document;
+    try {
+      document = MAPPER.readValue(json, Map.class);
+    } catch (Exception e) {
+      throw new ServiceException("Cannot parse json string " + json, e);
+    }
+
+    List<String> keys = new ArrayList<String>();
+    for (CustomIndexFieldConfiguration field : configuration.getFields()) {
+      Object value = document.get(field.getFieldName());
+      if (value instanceof Collection) {
+        for (Object v : (Collection<Object>) value) {
+          keys.add(String.valueOf(v));
+        }
+      } else if (value != null) {
+        keys.add(String.valueOf(value));
+      }
+    }
+
+    List<IndexKeywordRequest> requests = keywords.get(configuration.getCollectionName());
+    if (requests == null) {
+      requests = new ArrayList<IndexKeywordRequest>();
+      keywords.put(configuration.getCollectionName(), requests);
+    }
+    for (String key : keys) {
+      if (StringUtils.isBlank(key)) {
+        continue;
+      }
+      IndexKeywordRequest request = new IndexKeywordRequest();
+      request.setId(id);
+      request.setKey(key);
+      if (configuration.getFilters() != null) {
+        List<Field> filters = new ArrayList<Field>();
+        for (CustomIndexFieldConfiguration filter : configuration.getFilters()) {
+          Object value = document.get(filter.getFieldName());
+          if (value != null) {
+            filters.add(filter(filter, value));
+          }
+        }
+        request.setFilters(filters);
+      }
+      requests.add(request);
+    }
+  }
+
+  private static Field filter(CustomIndexFieldConfiguration configuration, Object value) {
+    String type = configuration.getFieldType();
+    Field field;
+    if ("List".equals(type)) {
+      field = new ListField();
+    } else if ("Boolean".equals(type)) {
+      field = new BooleanField();
+      value = Boolean.valueOf(String.valueOf(value));
+    } else if ("Integer".equals(type)) {
+      field = new IntegerField();
+      value = Integer.valueOf(String.valueOf(value));
+    } else if ("Long".equals(type)) {
+      field = new LongField();
+      value = Long.valueOf(String.valueOf(value));
+    } else if ("Double".equals(type)) {
+      field = new DoubleField();
+      value = Double.valueOf(String.valueOf(value));
+    } else {
+      field = new StringField();
+      value = String.valueOf(value);
+    }
+    field.setName(configuration.getFieldName());
+    field.setValue(value);
+    return field;
+  }
+
+  private static void stale(Map<String, Set<String>> staleKeywords, String collection,
+      String id) {
+    Set<String> ids = staleKeywords.get(collection);
+    if (ids == null) {
+      ids = new LinkedHashSet<String>();
+      staleKeywords.put(collection, ids);
+    }
+    ids.add(id);
+  }
+
+  private List<CustomIndexConfiguration> getKeywordConfigurations() {
+    List<CustomIndexConfiguration> configurations = keywordIndexer.getIndexConfigurations();
+    return configurations == null ? new ArrayList<CustomIndexConfiguration>() : configurations;
+  }
+
+  /**
+   * Keyword index created on a product index, as configured in shopizer-search.xml
+   */
+  private CustomIndexConfiguration getKeywordConfiguration(String type) {
+    for (CustomIndexConfiguration configuration : getKeywordConfigurations()) {
+      if (type.equals(configuration.getCreateOnIndexName())) {
+        return configuration;
+      }
+    }
+    return null;
+  }
+
+}
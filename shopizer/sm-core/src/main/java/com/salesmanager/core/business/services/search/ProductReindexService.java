@@ -0,0 +1,22 @@
+package com.salesmanager.core.business.services.search;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Rebuilds the search collections of a store from the catalog in the background
+ */
+public interface ProductReindexService {
+
+  /**
+   * Starts a full reindex of the store, or resumes the one that did not complete. Returns
+   * immediately, progress is given by getStatus
+   */
+  ProductReindexStatus start(MerchantStore store) throws ServiceException;
+
+  /**
+   * Progress of the last reindex of the store since startup, null if none
+   */
+  ProductReindexStatus getStatus(MerchantStore store);
+
+}
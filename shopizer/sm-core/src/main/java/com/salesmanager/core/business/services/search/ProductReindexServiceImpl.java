@@ -0,0 +1,297 @@
+package com.salesmanager.core.business.services.search;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.system.MerchantConfigurationService;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.search.IndexProduct;
+import com.salesmanager.core.model.system.MerchantConfiguration;
+import com.salesmanager.core.model.system.MerchantConfigurationType;
+
+/**
+ * Walks the catalog of a store by ranges of product ids (id > last id of the previous chunk)
+ * instead of loading every product at once. Each chunk is loaded outside of any transaction, so
+ * it gets its own persistence context that is closed once loaded and nothing piles up across
+ * chunks. Documents of a chunk are built on search.reindex.threads threads and sent in one bulk
+ * request to new [collection]_[version] indices, the collections are switched to them when the
+ * whole catalog is indexed.
+ *
+ * Progress is saved every few chunks in the SEARCH_REINDEX merchant configuration, starting a
+ * reindex again after a failure or a restart continues where it stopped. A product whose documents
+ * cannot be built is logged and skipped, its id is kept in the status.
+ */
+@Service("productReindexService")
+public class ProductReindexServiceImpl implements ProductReindexService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductReindexServiceImpl.class);
+
+  private final static String REINDEX_CHUNK = "search.reindex.chunk";
+  private final static String REINDEX_THREADS = "search.reindex.threads";
+  private final static int DEFAULT_REINDEX_CHUNK = 100;
+  private final static int DEFAULT_REINDEX_THREADS = 4;
+  private final static String CHECKPOINT = "SEARCH_REINDEX";
+  private final static int CHECKPOINT_CHUNKS = 10;
+
+  @Inject
+  private ProductService productService;
+
+  @Inject
+  private ProductIndexWriter productIndexWriter;
+
+  @Inject
+  private MerchantConfigurationService merchantConfigurationService;
+
+  @Inject
+  private CoreConfiguration configuration;
+
+  //one reindex at a time
+  private ExecutorService jobs;
+  private ExecutorService builders;
+
+  private int chunkSize = DEFAULT_REINDEX_CHUNK;
+
+  private final ConcurrentMap<Integer, ProductReindexStatus> statuses =
+      new ConcurrentHashMap<Integer, ProductReindexStatus>();
+
+  @PostConstruct
+  public void init() {
+    chunkSize = intProperty(REINDEX_CHUNK, DEFAULT_REINDEX_CHUNK);
+    int threads = intProperty(REINDEX_THREADS, DEFAULT_REINDEX_THREADS);
+    jobs = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "search-reindex");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    final AtomicInteger count = new AtomicInteger();
+    builders = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "search-reindex-" + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (jobs != null) {
+      jobs.shutdownNow();
+    }
+    if (builders != null) {
+      builders.shutdownNow();
+    }
+  }
+
+  @Override
+  public synchronized ProductReindexStatus start(final MerchantStore store)
+      throws ServiceException {
+
+    ProductReindexStatus current = statuses.get(store.getId());
+    if (current != null && current.isRunning()) {
+      return current;
+    }
+
+    final List<String> languages = new ArrayList<String>();
+    for (Language language : store.getLanguages()) {
+      languages.add(language.getCode());
+    }
+    if (languages.isEmpty()) {
+      throw new ServiceException("Merchant store " + store.getCode() + " has no language");
+    }
+
+    final ProductReindexStatus status = new ProductReindexStatus();
+    status.setStoreCode(store.getCode());
+    status.setState(ProductReindexStatus.RUNNING);
+    status.setStartDate(new Date());
+    status.setTotal(productService.countByStore(store));
+
+    //version:last id:indexed
+    String[] checkpoint = getCheckpoint(store);
+    if (checkpoint != null) {
+      status.setVersion(checkpoint[0]);
+      status.setLastId(Long.parseLong(checkpoint[1]));
+      status.setIndexed(Long.parseLong(checkpoint[2]));
+      status.setResumed(true);
+    } else {
+      status.setVersion(new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()));
+    }
+
+    statuses.put(store.getId(), status);
+    jobs.execute(new Runnable() {
+      @Override
+      public void run() {
+        reindex(store, languages, status);
+      }
+    });
+    return status;
+  }
+
+  @Override
+  public ProductReindexStatus getStatus(MerchantStore store) {
+    return statuses.get(store.getId());
+  }
+
+  private void reindex(MerchantStore store, List<String> languages,
+      ProductReindexStatus status) {
+
+    LOGGER.info("Reindexing " + status.getTotal() + " products of " + store.getCode()
+        + (status.isResumed() ? " from product id " + status.getLastId() : ""));
+    try {
+
+      boolean created = false;
+      for (String language : languages) {
+        created = productIndexWriter.startRebuild(language, store.getCode(), status.getVersion())
+            || created;
+      }
+      //indices of the checkpoint are gone
+      if (status.isResumed() && created) {
+        status.setResumed(false);
+        status.setLastId(0);
+        status.setIndexed(0);
+      }
+      saveCheckpoint(store, status);
+
+      int chunks = 0;
+      List<Long> ids = productService.listIdsByStore(store, status.getLastId(), chunkSize);
+      while (!ids.isEmpty()) {
+        List<Product> products = productService.getByIds(ids);
+        int rejected = productIndexWriter.rebuild(getDocuments(products, status));
+        status.setRejected(status.getRejected() + rejected);
+        status.setIndexed(status.getIndexed() + products.size());
+        status.setLastId(ids.get(ids.size() - 1));
+        if (++chunks % CHECKPOINT_CHUNKS == 0) {
+          saveCheckpoint(store, status);
+        }
+        ids = productService.listIdsByStore(store, status.getLastId(), chunkSize);
+      }
+
+      for (String language : languages) {
+        productIndexWriter.publish(language, store.getCode());
+      }
+      deleteCheckpoint(store);
+      status.setState(ProductReindexStatus.COMPLETED);
+      LOGGER.info("Reindexed " + status.getIndexed() + " products of " + store.getCode() + " at "
+          + (long) status.getThroughput() + " products/s");
+
+    } catch (Exception e) {
+      LOGGER.error("Cannot reindex " + store.getCode() + " after product id "
+          + status.getLastId(), e);
+      for (String language : languages) {
+        productIndexWriter.abandon(language, store.getCode());
+      }
+      status.setMessage(e.getMessage());
+      status.setState(ProductReindexStatus.FAILED);
+    } finally {
+      status.setEndDate(new Date());
+    }
+  }
+
+  private List<IndexProduct> getDocuments(List<Product> products, ProductReindexStatus status)
+      throws ServiceException {
+
+    List<Future<List<IndexProduct>>> futures = new ArrayList<Future<List<IndexProduct>>>();
+    for (final Product product : products) {
+      futures.add(builders.submit(new Callable<List<IndexProduct>>() {
+        @Override
+        public List<IndexProduct> call() throws Exception {
+          return productIndexWriter.getDocuments(product);
+        }
+      }));
+    }
+
+    List<IndexProduct> documents = new ArrayList<IndexProduct>();
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          documents.addAll(futures.get(i).get());
+        } catch (ExecutionException e) {
+          Long id = products.get(i).getId();
+          LOGGER.error("Cannot build the documents of product id [" + id + "], skipped",
+              e.getCause());
+          status.addSkipped(id);
+          status.setRejected(status.getRejected() + 1);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceException("Reindex interrupted", e);
+    }
+    return documents;
+  }
+
+  private String[] getCheckpoint(MerchantStore store) throws ServiceException {
+    MerchantConfiguration checkpoint =
+        merchantConfigurationService.getMerchantConfiguration(CHECKPOINT, store);
+    if (checkpoint == null || StringUtils.isBlank(checkpoint.getValue())) {
+      return null;
+    }
+    String[] values = checkpoint.getValue().split(":");
+    return values.length == 3 ? values : null;
+  }
+
+  private void saveCheckpoint(MerchantStore store, ProductReindexStatus status)
+      throws ServiceException {
+    MerchantConfiguration checkpoint =
+        merchantConfigurationService.getMerchantConfiguration(CHECKPOINT, store);
+    if (checkpoint == null) {
+      checkpoint = new MerchantConfiguration();
+      checkpoint.setMerchantStore(store);
+      checkpoint.setKey(CHECKPOINT);
+      checkpoint.setMerchantConfigurationType(MerchantConfigurationType.CONFIG);
+    }
+    checkpoint.setValue(
+        status.getVersion() + ":" + status.getLastId() + ":" + status.getIndexed());
+    merchantConfigurationService.saveOrUpdate(checkpoint);
+  }
+
+  private void deleteCheckpoint(MerchantStore store) throws ServiceException {
+    MerchantConfiguration checkpoint =
+        merchantConfigurationService.getMerchantConfiguration(CHECKPOINT, store);
+    if (checkpoint != null) {
+      merchantConfigurationService.delete(checkpoint);
+    }
+  }
+
+  private int intProperty(String key, int defaultValue) {
+    String value = configuration.getProperty(key);
+    if (!StringUtils.isBlank(value)) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid " + key + " " + value);
+      }
+    }
+    return defaultValue;
+  }
+
+}
@@ -0,0 +1,158 @@
+package com.salesmanager.core.business.services.search;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.salesmanager.core.utils.CloneUtils;
+
+/**
+ * Progress of a store reindex
+ */
+public class ProductReindexStatus implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public final static String RUNNING = "RUNNING";
+  public final static String COMPLETED = "COMPLETED";
+  public final static String FAILED = "FAILED";
+
+  private String storeCode;
+  private String version;
+  private volatile String state;
+  private volatile long total;
+  private volatile long indexed;
+  private volatile long rejected;
+  private volatile long lastId;
+  private final List<Long> skipped = Collections.synchronizedList(new ArrayList<Long>());
+  private boolean resumed;
+  private Date startDate;
+  private volatile Date endDate;
+  private volatile String message;
+
+  public String getStoreCode() {
+    return storeCode;
+  }
+
+  public void setStoreCode(String storeCode) {
+    this.storeCode = storeCode;
+  }
+
+  /**
+   * Suffix of the indices being built
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  public void setVersion(String version) {
+    this.version = version;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState(String state) {
+    this.state = state;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public long getIndexed() {
+    return indexed;
+  }
+
+  public void setIndexed(long indexed) {
+    this.indexed = indexed;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public void setRejected(long rejected) {
+    this.rejected = rejected;
+  }
+
+  /**
+   * Highest product id indexed, a resumed reindex starts after it
+   */
+  public long getLastId() {
+    return lastId;
+  }
+
+  public void setLastId(long lastId) {
+    this.lastId = lastId;
+  }
+
+  /**
+   * Ids of the products whose documents could not be built, counted as rejected
+   */
+  public List<Long> getSkipped() {
+    synchronized (skipped) {
+      return new ArrayList<Long>(skipped);
+    }
+  }
+
+  public void addSkipped(Long productId) {
+    skipped.add(productId);
+  }
+
+  public boolean isResumed() {
+    return resumed;
+  }
+
+  public void setResumed(boolean resumed) {
+    this.resumed = resumed;
+  }
+
+  public Date getStartDate() {
+    return CloneUtils.clone(startDate);
+  }
+
+  public void setStartDate(Date startDate) {
+    this.startDate = CloneUtils.clone(startDate);
+  }
+
+  public Date getEndDate() {
+    return CloneUtils.clone(endDate);
+  }
+
+  public void setEndDate(Date endDate) {
+    this.endDate = CloneUtils.clone(endDate);
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public boolean isRunning() {
+    return RUNNING.equals(state);
+  }
+
+  /**
+   * Products per second since the start
+   */
+  public double getThroughput() {
+    if (startDate == null) {
+      return 0;
+    }
+    long end = endDate == null ? System.currentTimeMillis() : endDate.getTime();
+    long elapsed = end - startDate.getTime();
+    return elapsed <= 0 ? 0 : indexed * 1000d / elapsed;
+  }
+
+}
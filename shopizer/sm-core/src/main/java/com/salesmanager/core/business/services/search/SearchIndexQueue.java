@@ -0,0 +1,33 @@
+package com.salesmanager.core.business.services.search;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Product changes waiting to be sent to the search engine. Changes are recorded with the product
+ * write and shipped in the background in bulk, several changes of a product between two drains
+ * are sent once.
+ */
+public interface SearchIndexQueue {
+
+  /**
+   * Product created or modified
+   */
+  void enqueue(MerchantStore store, Product product) throws ServiceException;
+
+  /**
+   * Product removed, the product descriptions give the collections to remove it from
+   */
+  void enqueueDelete(MerchantStore store, Product product) throws ServiceException;
+
+  /**
+   * Ships the oldest pending changes
+   *
+   * @return the number of changes shipped
+   */
+  int drain() throws ServiceException;
+
+  SearchIndexQueueStatus getStatus();
+
+}
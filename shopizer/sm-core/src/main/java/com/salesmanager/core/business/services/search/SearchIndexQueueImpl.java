@@ -0,0 +1,256 @@
+package com.salesmanager.core.business.services.search;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.salesmanager.core.business.constants.Constants;
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.repositories.search.ProductIndexChangeRepository;
+import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.description.ProductDescription;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.search.ProductIndexChange;
+
+/**
+ * Changes are rows of PRODUCT_INDEX_CHANGE written in the transaction of the product, so a change
+ * is not lost when the search engine is down or the server stops. A single worker reads the
+ * oldest rows every search.index.queue.interval ms, or as soon as search.index.queue.batch
+ * changes are waiting, keeps the last change of each product and sends the batch with
+ * ProductIndexWriter. Rows are removed once shipped, a failed batch is sent again on the next
+ * drain. A product that cannot be indexed is counted as rejected and its rows are removed with
+ * the batch, it does not hold back the changes queued after it.
+ */
+@Service("searchIndexQueue")
+public class SearchIndexQueueImpl implements SearchIndexQueue {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexQueueImpl.class);
+
+  private final static String INDEX_PRODUCTS = "INDEX_PRODUCTS";
+  private final static String QUEUE_BATCH = "search.index.queue.batch";
+  private final static String QUEUE_INTERVAL = "search.index.queue.interval";
+  private final static int DEFAULT_QUEUE_BATCH = 200;
+  private final static long DEFAULT_QUEUE_INTERVAL = 2000;//ms
+
+  @Inject
+  private ProductIndexChangeRepository productIndexChangeRepository;
+
+  @Inject
+  private ProductService productService;
+
+  @Inject
+  private ProductIndexWriter productIndexWriter;
+
+  @Inject
+  private CoreConfiguration configuration;
+
+  private ScheduledExecutorService executor;
+
+  private int batchSize = DEFAULT_QUEUE_BATCH;
+
+  //changes recorded since the last drain
+  private final AtomicLong recorded = new AtomicLong();
+  private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+  private final AtomicLong shipped = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  @PostConstruct
+  public void init() {
+    batchSize = (int) longProperty(QUEUE_BATCH, DEFAULT_QUEUE_BATCH);
+    long interval = longProperty(QUEUE_INTERVAL, DEFAULT_QUEUE_INTERVAL);
+    executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "search-index-queue");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        drainAll();
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void enqueue(MerchantStore store, Product product) throws ServiceException {
+    Validate.notNull(product, "Product cannot be null");
+    if (!isIndexing()) {
+      return;
+    }
+    record(store, product, ProductIndexChange.INDEX);
+  }
+
+  @Override
+  public void enqueueDelete(MerchantStore store, Product product) throws ServiceException {
+    Validate.notNull(product, "Product cannot be null");
+    if (!isIndexing()) {
+      return;
+    }
+    record(store, product, ProductIndexChange.DELETE);
+  }
+
+  private void record(MerchantStore store, Product product, String operation)
+      throws ServiceException {
+
+    ProductIndexChange change = new ProductIndexChange();
+    change.setProductId(product.getId());
+    change.setMerchantId(store.getId());
+    change.setStoreCode(store.getCode());
+    change.setOperation(operation);
+    change.setDateCreated(new Date());
+    if (ProductIndexChange.DELETE.equals(operation)) {
+      //the product will not be there to tell its languages
+      List<String> languages = new ArrayList<String>();
+      for (ProductDescription description : product.getDescriptions()) {
+        if (!languages.contains(description.getLanguage().getCode())) {
+          languages.add(description.getLanguage().getCode());
+        }
+      }
+      change.setLanguages(StringUtils.join(languages, ','));
+    }
+
+    try {
+      productIndexChangeRepository.save(change);
+    } catch (Exception e) {
+      throw new ServiceException("Cannot queue index change of product id [" + product.getId()
+          + "]", e);
+    }
+
+    if (recorded.incrementAndGet() >= batchSize && executor != null
+        && drainRequested.compareAndSet(false, true)) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          drainRequested.set(false);
+          drainAll();
+        }
+      });
+    }
+  }
+
+  private void drainAll() {
+    try {
+      //full batches mean more is waiting
+      int drained;
+      do {
+        drained = drain();
+      } while (drained == batchSize);
+    } catch (Exception e) {
+      LOGGER.error("Cannot drain search index queue", e);
+    }
+  }
+
+  @Override
+  public synchronized int drain() throws ServiceException {
+
+    recorded.set(0);
+    List<ProductIndexChange> changes =
+        productIndexChangeRepository.findPending(PageRequest.of(0, batchSize));
+    if (changes.isEmpty()) {
+      return 0;
+    }
+
+    //last change of each product wins
+    Map<Long, ProductIndexChange> latest = new LinkedHashMap<Long, ProductIndexChange>();
+    List<Long> ids = new ArrayList<Long>();
+    for (ProductIndexChange change : changes) {
+      ids.add(change.getId());
+      latest.remove(change.getProductId());
+      latest.put(change.getProductId(), change);
+    }
+
+    List<Long> productIds = new ArrayList<Long>();
+    List<ProductIndexChange> deletions = new ArrayList<ProductIndexChange>();
+    for (ProductIndexChange change : latest.values()) {
+      if (ProductIndexChange.DELETE.equals(change.getOperation())) {
+        deletions.add(change);
+      } else {
+        productIds.add(change.getProductId());
+      }
+    }
+
+    //products removed since are not found
+    List<Product> products = productIds.isEmpty() ? new ArrayList<Product>()
+        : productService.getByIds(productIds);
+
+    try {
+      int rejectedDocuments = productIndexWriter.write(products, deletions);
+      rejected.addAndGet(rejectedDocuments);
+    } catch (ServiceException e) {
+      failures.incrementAndGet();
+      LOGGER.error("Cannot ship " + latest.size() + " product changes to the search engine", e);
+      return 0;
+    }
+
+    productIndexChangeRepository.deleteByIds(ids);
+    shipped.addAndGet(latest.size());
+    LOGGER.debug("Shipped " + latest.size() + " product changes out of " + changes.size());
+    return changes.size();
+  }
+
+  @Override
+  public SearchIndexQueueStatus getStatus() {
+    SearchIndexQueueStatus status = new SearchIndexQueueStatus();
+    status.setPending(productIndexChangeRepository.count());
+    Date oldest = productIndexChangeRepository.findOldestDate();
+    if (oldest != null) {
+      status.setLagMillis(Math.max(0, System.currentTimeMillis() - oldest.getTime()));
+    }
+    status.setShipped(shipped.get());
+    status.setRejected(rejected.get());
+    status.setFailures(failures.get());
+    return status;
+  }
+
+  private boolean isIndexing() {
+    String index = configuration.getProperty(INDEX_PRODUCTS);
+    return index != null && !index.equals(Constants.FALSE);
+  }
+
+  private long longProperty(String key, long defaultValue) {
+    String value = configuration.getProperty(key);
+    if (StringUtils.isBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Invalid value " + value + " for " + key);
+      return defaultValue;
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.salesmanager.core.business.services.search;
+
+import java.io.Serializable;
+
+/**
+ * Backlog and throughput of the search index queue since startup
+ */
+public class SearchIndexQueueStatus implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private long pending;
+  //age of the oldest pending change
+  private long lagMillis;
+  private long shipped;
+  private long rejected;
+  private long failures;
+
+  public long getPending() {
+    return pending;
+  }
+
+  public void setPending(long pending) {
+    this.pending = pending;
+  }
+
+  public long getLagMillis() {
+    return lagMillis;
+  }
+
+  public void setLagMillis(long lagMillis) {
+    this.lagMillis = lagMillis;
+  }
+
+  public long getShipped() {
+    return shipped;
+  }
+
+  public void setShipped(long shipped) {
+    this.shipped = shipped;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public void setRejected(long rejected) {
+    this.rejected = rejected;
+  }
+
+  public long getFailures() {
+    return failures;
+  }
+
+  public void setFailures(long failures) {
+    this.failures = failures;
+  }
+
+}
@@ -3,27 +3,25 @@ package com.salesmanager.core.business.services.search;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.inject.Inject;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ServiceException;
-import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.business.utils.CoreConfiguration;
-import com.salesmanager.core.model.catalog.category.Category;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.description.ProductDescription;
-import com.salesmanager.core.model.catalog.product.price.FinalPrice;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.search.IndexProduct;
+import com.salesmanager.core.model.search.ProductIndexChange;
 import com.salesmanager.core.model.search.SearchEntry;
 import com.salesmanager.core.model.search.SearchFacet;
 import com.salesmanager.core.model.search.SearchKeywords;
@@ -48,7 +46,7 @@ public class SearchServiceImpl implements
   private com.shopizer.search.services.SearchService searchService;
 
   @Inject
-  private PricingService pricingService;
+  private ProductIndexWriter productIndexWriter;
 
   @Inject
   private CoreConfiguration configuration;
@@ -59,7 +57,6 @@ public class SearchServiceImpl implements
   }
 
   @Async
-  @SuppressWarnings("rawtypes")
   public void index(MerchantStore store, Product product)
       throws ServiceException {
 
@@ -101,57 +98,9 @@ public class SearchServiceImpl implements
       return;
     }
 
-    FinalPrice price = pricingService.calculateProductPrice(product);
-
-    Set<ProductDescription> descriptions = product.getDescriptions();
-    for (ProductDescription description : descriptions) {
-
-      StringBuilder collectionName = new StringBuilder();
-      collectionName.append(PRODUCT_INDEX_NAME).append(UNDERSCORE)
-          .append(description.getLanguage().getCode()).append(UNDERSCORE)
-          .append(store.getCode().toLowerCase());
-
-      IndexProduct index = new IndexProduct();
-
-      index.setId(String.valueOf(product.getId()));
-      index.setStore(store.getCode().toLowerCase());
-      index.setLang(description.getLanguage().getCode());
-      index.setAvailable(product.isAvailable());
-      index.setDescription(description.getDescription());
-      index.setName(description.getName());
-      if (product.getManufacturer() != null) {
-        index.setManufacturer(String.valueOf(product.getManufacturer().getId()));
-      }
-      if (price != null) {
-        index.setPrice(price.getFinalPrice().doubleValue());
-      }
-      index.setHighlight(description.getProductHighlight());
-      if (!StringUtils.isBlank(description.getMetatagKeywords())) {
-        String[] tags = description.getMetatagKeywords().split(",");
-        @SuppressWarnings("unchecked")
-        List<String> tagsList = new ArrayList(Arrays.asList(tags));
-        index.setTags(tagsList);
-      }
-
-      Set<Category> categories = product.getCategories();
-      if (!CollectionUtils.isEmpty(categories)) {
-        List<String> categoryList = new ArrayList<String>();
-        for (Category category : categories) {
-          categoryList.add(category.getCode());
-        }
-        index.setCategories(categoryList);
-      }
-
-      String jsonString = index.toJSONString();
-      try {
-        searchService.index(jsonString, collectionName.toString(),
-            new StringBuilder().append(PRODUCT_INDEX_NAME).append(UNDERSCORE)
-                .append(description.getLanguage().getCode()).toString());
-      } catch (Exception e) {
-        throw new ServiceException(
-            "Cannot index product id [" + product.getId() + "], " + e.getMessage(), e);
-      }
-    }
+    //same documents as the search index queue
+    productIndexWriter.write(Collections.singletonList(product),
+        Collections.<ProductIndexChange>emptyList());
   }
 
 
@@ -6,8 +6,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.repositories.shipping.ShippingOriginRepository;
 import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshotService;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.shipping.ShippingOrigin;
 
@@ -20,6 +22,9 @@ public class ShippingOriginServiceImpl extends
 
   private ShippingOriginRepository shippingOriginRepository;
 
+  @Inject
+  private MerchantConfigurationSnapshotService merchantConfigurationSnapshotService;
+
 
   @Inject
   public ShippingOriginServiceImpl(ShippingOriginRepository shippingOriginRepository) {
@@ -35,5 +40,19 @@ public class ShippingOriginServiceImpl extends
     return origin;
   }
 
+  @Override
+  public void save(ShippingOrigin entity) throws ServiceException {
+    super.save(entity);
+    //cached shipping quotes depend on the origin
+    merchantConfigurationSnapshotService.invalidate(entity.getMerchantStore().getId());
+  }
+
+  @Override
+  public void delete(ShippingOrigin entity) throws ServiceException {
+    Integer storeId = entity.getMerchantStore().getId();
+    super.delete(entity);
+    merchantConfigurationSnapshotService.invalidate(storeId);
+  }
+
 
 }
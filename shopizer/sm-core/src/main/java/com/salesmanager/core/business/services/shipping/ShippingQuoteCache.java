@@ -0,0 +1,194 @@
+package com.salesmanager.core.business.services.shipping;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.stereotype.Component;
+
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.common.Delivery;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.shipping.ShippingOption;
+import com.salesmanager.core.model.shipping.ShippingProduct;
+import com.salesmanager.core.model.shipping.ShippingQuote;
+
+/**
+ * Short lived cache of computed shipping quotes. A quote is keyed by the store, the configuration
+ * version of the store, the language, the destination and a hash of the items (sku, quantity,
+ * weight, dimensions) and of the order total. Expiry and size are defined by the
+ * com.shopizer.SHIPPING_QUOTE_CACHE region of ehcache.xml.
+ *
+ * Quotes are copied on the way in and on the way out, callers are free to modify the quote they
+ * get.
+ */
+@Component("shippingQuoteCache")
+public class ShippingQuoteCache {
+
+  private final static String KEY_DELIMITER = "_";
+
+  @Inject
+  @Qualifier("shippingQuoteRegion")
+  private Cache cache;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public String getKey(MerchantStore store, long configurationVersion, Language language,
+      Delivery delivery, List<ShippingProduct> products, BigDecimal orderTotal) {
+
+    //items are sorted so the order of the cart lines does not matter
+    List<String> items = new ArrayList<String>();
+    for (ShippingProduct shippingProduct : products) {
+      Product product = shippingProduct.getProduct();
+      items.add(new StringBuilder()
+          .append(product.getSku()).append('|')
+          .append(shippingProduct.getQuantity()).append('|')
+          .append(plain(product.getProductWeight())).append('|')
+          .append(plain(product.getProductWidth())).append('|')
+          .append(plain(product.getProductLength())).append('|')
+          .append(plain(product.getProductHeight()))
+          .toString());
+    }
+    Collections.sort(items);
+
+    StringBuilder content = new StringBuilder();
+    for (String item : items) {
+      content.append(item).append(';');
+    }
+    content.append(plain(orderTotal)).append(';')
+        .append(delivery.getCountry() != null ? delivery.getCountry().getIsoCode() : "")
+        .append('|').append(delivery.getZone() != null ? delivery.getZone().getCode() : "")
+        .append('|').append(nullToEmpty(delivery.getState()))
+        .append('|').append(nullToEmpty(delivery.getCity()))
+        .append('|').append(nullToEmpty(delivery.getPostalCode()))
+        .append('|').append(nullToEmpty(delivery.getAddress()))
+        .append('|').append(nullToEmpty(delivery.getLatitude()))
+        .append('|').append(nullToEmpty(delivery.getLongitude()));
+
+    return new StringBuilder()
+        .append(store.getId()).append(KEY_DELIMITER)
+        .append(configurationVersion).append(KEY_DELIMITER)
+        .append(language.getCode()).append(KEY_DELIMITER)
+        .append(sha256(content.toString()))
+        .toString();
+  }
+
+  /**
+   * Returns a copy of the cached quote or null
+   */
+  public ShippingQuote get(String key) {
+    ValueWrapper cached = cache.get(key);
+    if (cached == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return copy((ShippingQuote) cached.get());
+  }
+
+  public void put(String key, ShippingQuote shippingQuote) {
+    cache.put(key, copy(shippingQuote));
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int getSize() {
+    return ((net.sf.ehcache.Cache) cache.getNativeCache()).getSize();
+  }
+
+  public void clear() {
+    cache.clear();
+  }
+
+  /**
+   * Copy of a quote without the persisted quote ids of the options
+   */
+  static ShippingQuote copy(ShippingQuote shippingQuote) {
+    ShippingQuote copy = new ShippingQuote();
+    copy.setShippingModuleCode(shippingQuote.getShippingModuleCode());
+    copy.setShippingReturnCode(shippingQuote.getShippingReturnCode());
+    copy.setFreeShipping(shippingQuote.isFreeShipping());
+    copy.setFreeShippingAmount(shippingQuote.getFreeShippingAmount());
+    copy.setHandlingFees(shippingQuote.getHandlingFees());
+    copy.setApplyTaxOnShipping(shippingQuote.isApplyTaxOnShipping());
+    copy.setDeliveryAddress(shippingQuote.getDeliveryAddress());
+    copy.setCurrentShippingModule(shippingQuote.getCurrentShippingModule());
+    copy.setQuoteError(shippingQuote.getQuoteError());
+    copy.getWarnings().addAll(shippingQuote.getWarnings());
+    copy.getQuoteInformations().putAll(shippingQuote.getQuoteInformations());
+
+    if (shippingQuote.getShippingOptions() != null) {
+      List<ShippingOption> options = new ArrayList<ShippingOption>();
+      for (ShippingOption option : shippingQuote.getShippingOptions()) {
+        ShippingOption optionCopy = copy(option);
+        options.add(optionCopy);
+        if (option == shippingQuote.getSelectedShippingOption()) {
+          copy.setSelectedShippingOption(optionCopy);
+        }
+      }
+      copy.setShippingOptions(options);
+    }
+    if (shippingQuote.getSelectedShippingOption() != null
+        && copy.getSelectedShippingOption() == null) {
+      copy.setSelectedShippingOption(copy(shippingQuote.getSelectedShippingOption()));
+    }
+    return copy;
+  }
+
+  private static ShippingOption copy(ShippingOption option) {
+    ShippingOption copy = new ShippingOption();
+    copy.setOptionPrice(option.getOptionPrice());
+    copy.setOptionName(option.getOptionName());
+    copy.setOptionCode(option.getOptionCode());
+    copy.setOptionDeliveryDate(option.getOptionDeliveryDate());
+    copy.setOptionShippingDate(option.getOptionShippingDate());
+    copy.setOptionPriceText(option.getOptionPriceText());
+    copy.setOptionId(option.getOptionId());
+    copy.setDescription(option.getDescription());
+    copy.setShippingModuleCode(option.getShippingModuleCode());
+    copy.setNote(option.getNote());
+    copy.setEstimatedNumberOfDays(option.getEstimatedNumberOfDays());
+    return copy;
+  }
+
+  private static String plain(BigDecimal value) {
+    return value == null ? "" : value.stripTrailingZeros().toPlainString();
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+
+  private static String sha256(String value) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
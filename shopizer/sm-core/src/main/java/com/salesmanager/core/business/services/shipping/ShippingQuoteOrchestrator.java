@@ -0,0 +1,333 @@
+package com.salesmanager.core.business.services.shipping;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.common.Delivery;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.shipping.PackageDetails;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.shipping.ShippingOption;
+import com.salesmanager.core.model.shipping.ShippingOrigin;
+import com.salesmanager.core.model.shipping.ShippingQuote;
+import com.salesmanager.core.model.system.IntegrationConfiguration;
+import com.salesmanager.core.model.system.IntegrationModule;
+import com.salesmanager.core.modules.integration.shipping.model.ShippingQuoteModule;
+
+/**
+ * Invokes the shipping quote modules of the active carriers concurrently on a bounded pool. Each
+ * carrier has its own deadline, a carrier that does not answer in time is reported as timed out
+ * and the quotes of the other carriers are still returned.
+ *
+ * Deadlines are read from shopizer-core.properties, shipping.quote.timeout for all carriers and
+ * shipping.quote.timeout.[module code] for a given carrier (milliseconds). They should be shorter
+ * than the socket timeout of the carrier http client, otherwise the socket fails first.
+ *
+ * Each carrier works on its own copy of the quote, warnings and quote informations added by a
+ * carrier are merged back into the quote on the calling thread.
+ */
+@Component("shippingQuoteOrchestrator")
+public class ShippingQuoteOrchestrator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShippingQuoteOrchestrator.class);
+
+  private final static String QUOTE_TIMEOUT = "shipping.quote.timeout";
+  private final static String QUOTE_THREADS = "shipping.quote.threads";
+  //below the 5000 ms socket timeout of ShippingHttpClientFactoryBean
+  private final static long DEFAULT_QUOTE_TIMEOUT = 4000;//ms
+  private final static int DEFAULT_QUOTE_THREADS = 16;
+  private final static int QUEUE_SIZE = 200;
+
+  @Inject
+  private CoreConfiguration coreConfiguration;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void init() {
+    int threads = (int) longProperty(QUOTE_THREADS, DEFAULT_QUOTE_THREADS);
+    final AtomicInteger count = new AtomicInteger();
+    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "shipping-quote-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+          }
+        }, new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Requests the quotes of all carriers and waits at most for the deadline of each of them. Options
+   * returned are tagged with the code of the carrier module. The results are in the order of the
+   * carriers.
+   */
+  public List<CarrierQuote> getShippingQuotes(List<Carrier> carriers,
+      final ShippingQuote shippingQuote, final List<PackageDetails> packages,
+      final BigDecimal orderTotal, final Delivery delivery, final ShippingOrigin origin,
+      final MerchantStore store, final ShippingConfiguration shippingConfiguration,
+      final Locale locale) {
+
+    //lazy associations must not be loaded from the pool threads
+    initialize(store, delivery, origin);
+
+    long start = System.currentTimeMillis();
+    List<Future<List<ShippingOption>>> futures = new ArrayList<Future<List<ShippingOption>>>();
+    List<CarrierQuote> quotes = new ArrayList<CarrierQuote>();
+    List<ShippingQuote> carrierShippingQuotes = new ArrayList<ShippingQuote>();
+
+    for (final Carrier carrier : carriers) {
+      CarrierQuote quote = new CarrierQuote(carrier.getCode());
+      quotes.add(quote);
+      //modules write into the quote they are given
+      final ShippingQuote carrierShippingQuote = copy(shippingQuote);
+      carrierShippingQuotes.add(carrierShippingQuote);
+      try {
+        futures.add(executor.submit(new Callable<List<ShippingOption>>() {
+          @Override
+          public List<ShippingOption> call() throws Exception {
+            return carrier.getModule().getShippingQuotes(carrierShippingQuote, packages,
+                orderTotal, delivery, origin, store, carrier.getConfiguration(),
+                carrier.getIntegrationModule(), shippingConfiguration, locale);
+          }
+        }));
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("Shipping quote pool is full, skipping " + carrier.getCode());
+        quote.setError("Too many concurrent shipping quotes");
+        futures.add(null);
+      }
+    }
+
+    for (int i = 0; i < carriers.size(); i++) {
+      Future<List<ShippingOption>> future = futures.get(i);
+      if (future == null) {
+        continue;
+      }
+      CarrierQuote quote = quotes.get(i);
+      long wait = start + getTimeout(quote.getCode()) - System.currentTimeMillis();
+      try {
+        List<ShippingOption> options = future.get(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+        if (options != null) {
+          for (ShippingOption option : options) {
+            option.setShippingModuleCode(quote.getCode());
+          }
+        }
+        quote.setOptions(options);
+        merge(carrierShippingQuotes.get(i), shippingQuote);
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        LOGGER.warn("Shipping quote of " + quote.getCode() + " timed out");
+        quote.setTimedOut(true);
+        quote.setError("No answer from " + quote.getCode() + " in time");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        LOGGER.error("Error while calculating shipping : " + cause.getMessage(), cause);
+        quote.setError(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+      } catch (InterruptedException e) {
+        future.cancel(true);
+        Thread.currentThread().interrupt();
+        quote.setError("Interrupted");
+      }
+    }
+
+    return quotes;
+  }
+
+  /**
+   * Copy of a quote given to a carrier, without options
+   */
+  static ShippingQuote copy(ShippingQuote shippingQuote) {
+    ShippingQuote copy = new ShippingQuote();
+    copy.setShippingReturnCode(shippingQuote.getShippingReturnCode());
+    copy.setFreeShipping(shippingQuote.isFreeShipping());
+    copy.setFreeShippingAmount(shippingQuote.getFreeShippingAmount());
+    copy.setHandlingFees(shippingQuote.getHandlingFees());
+    copy.setApplyTaxOnShipping(shippingQuote.isApplyTaxOnShipping());
+    copy.setDeliveryAddress(shippingQuote.getDeliveryAddress());
+    copy.setCurrentShippingModule(shippingQuote.getCurrentShippingModule());
+    copy.getWarnings().addAll(shippingQuote.getWarnings());
+    copy.getQuoteInformations().putAll(shippingQuote.getQuoteInformations());
+    return copy;
+  }
+
+  /**
+   * Warnings and quote informations added by a carrier, options are returned by the carrier
+   */
+  static void merge(ShippingQuote carrierShippingQuote, ShippingQuote shippingQuote) {
+    for (String warning : carrierShippingQuote.getWarnings()) {
+      if (!shippingQuote.getWarnings().contains(warning)) {
+        shippingQuote.getWarnings().add(warning);
+      }
+    }
+    for (Map.Entry<String, Object> entry : carrierShippingQuote.getQuoteInformations()
+        .entrySet()) {
+      if (!shippingQuote.getQuoteInformations().containsKey(entry.getKey())) {
+        shippingQuote.getQuoteInformations().put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  long getTimeout(String moduleCode) {
+    return longProperty(QUOTE_TIMEOUT + "." + moduleCode,
+        longProperty(QUOTE_TIMEOUT, DEFAULT_QUOTE_TIMEOUT));
+  }
+
+  private long longProperty(String key, long defaultValue) {
+    String value = coreConfiguration.getProperty(key);
+    if (!StringUtils.isBlank(value)) {
+      try {
+        return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid " + key + " " + value);
+      }
+    }
+    return defaultValue;
+  }
+
+  private void initialize(MerchantStore store, Delivery delivery, ShippingOrigin origin) {
+    if (store.getCountry() != null) {
+      store.getCountry().getIsoCode();
+    }
+    if (store.getZone() != null) {
+      store.getZone().getCode();
+    }
+    if (store.getDefaultLanguage() != null) {
+      store.getDefaultLanguage().getCode();
+    }
+    if (store.getCurrency() != null) {
+      store.getCurrency().getCode();
+    }
+    if (delivery.getCountry() != null) {
+      delivery.getCountry().getIsoCode();
+    }
+    if (delivery.getZone() != null) {
+      delivery.getZone().getCode();
+    }
+    if (origin != null && origin.getCountry() != null) {
+      origin.getCountry().getIsoCode();
+    }
+    if (origin != null && origin.getZone() != null) {
+      origin.getZone().getCode();
+    }
+  }
+
+  /**
+   * An active carrier module and its configuration
+   */
+  public static class Carrier {
+
+    private final String code;
+    private final ShippingQuoteModule module;
+    private final IntegrationConfiguration configuration;
+    private final IntegrationModule integrationModule;
+
+    public Carrier(String code, ShippingQuoteModule module,
+        IntegrationConfiguration configuration, IntegrationModule integrationModule) {
+      this.code = code;
+      this.module = module;
+      this.configuration = configuration;
+      this.integrationModule = integrationModule;
+    }
+
+    public String getCode() {
+      return code;
+    }
+
+    public ShippingQuoteModule getModule() {
+      return module;
+    }
+
+    public IntegrationConfiguration getConfiguration() {
+      return configuration;
+    }
+
+    public IntegrationModule getIntegrationModule() {
+      return integrationModule;
+    }
+
+  }
+
+  /**
+   * Outcome of the quote of a carrier
+   */
+  public static class CarrierQuote {
+
+    private final String code;
+    private List<ShippingOption> options;
+    private String error;
+    private boolean timedOut;
+
+    CarrierQuote(String code) {
+      this.code = code;
+    }
+
+    public String getCode() {
+      return code;
+    }
+
+    public List<ShippingOption> getOptions() {
+      return options;
+    }
+
+    void setOptions(List<ShippingOption> options) {
+      this.options = options;
+    }
+
+    /**
+     * true when the carrier failed or timed out
+     */
+    public boolean isFailed() {
+      return error != null;
+    }
+
+    public String getError() {
+      return error;
+    }
+
+    void setError(String error) {
+      this.error = error;
+    }
+
+    public boolean isTimedOut() {
+      return timedOut;
+    }
+
+    void setTimedOut(boolean timedOut) {
+      this.timedOut = timedOut;
+    }
+
+  }
+
+}
@@ -8,6 +8,7 @@ import com.salesmanager.core.business.services.reference.country.CountryService;
 import com.salesmanager.core.business.services.reference.language.LanguageService;
 import com.salesmanager.core.business.services.reference.loader.ConfigurationModulesLoader;
 import com.salesmanager.core.business.services.system.MerchantConfigurationService;
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshotService;
 import com.salesmanager.core.business.services.system.MerchantLogService;
 import com.salesmanager.core.business.services.system.ModuleConfigurationService;
 import com.salesmanager.core.model.catalog.product.Product;
@@ -28,8 +29,6 @@ import com.shopizer.search.utils.DateUtil;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -53,6 +52,9 @@ public class ShippingServiceImpl implements ShippingService {
   @Inject
   private MerchantConfigurationService merchantConfigurationService;
 
+  @Inject
+  private MerchantConfigurationSnapshotService merchantConfigurationSnapshotService;
+
 
   @Inject
   private PricingService pricingService;
@@ -81,6 +83,12 @@ public class ShippingServiceImpl implements ShippingService {
   @Inject
   private ShippingQuoteService shippingQuoteService;
 
+  @Inject
+  private ShippingQuoteOrchestrator shippingQuoteOrchestrator;
+
+  @Inject
+  private ShippingQuoteCache shippingQuoteCache;
+
   @Inject
   @Resource(name = "shippingModules")
   private Map<String, ShippingQuoteModule> shippingModules;
@@ -99,22 +107,7 @@ public class ShippingServiceImpl implements ShippingService {
   public ShippingConfiguration getShippingConfiguration(MerchantStore store)
       throws ServiceException {
 
-    MerchantConfiguration configuration = merchantConfigurationService
-        .getMerchantConfiguration(ShippingConstants.SHIPPING_CONFIGURATION, store);
-
-    ShippingConfiguration shippingConfiguration = null;
-
-    if (configuration != null) {
-      String value = configuration.getValue();
-
-      ObjectMapper mapper = new ObjectMapper();
-      try {
-        shippingConfiguration = mapper.readValue(value, ShippingConfiguration.class);
-      } catch (Exception e) {
-        throw new ServiceException("Cannot parse json string " + value);
-      }
-    }
-    return shippingConfiguration;
+    return merchantConfigurationSnapshotService.getSnapshot(store).getShippingConfiguration();
 
   }
 
@@ -326,24 +319,9 @@ public class ShippingServiceImpl implements ShippingService {
   @Override
   public Map<String, IntegrationConfiguration> getShippingModulesConfigured(MerchantStore store)
       throws ServiceException {
-    try {
-
-      Map<String, IntegrationConfiguration> modules = new HashMap<String, IntegrationConfiguration>();
-      MerchantConfiguration merchantConfiguration = merchantConfigurationService
-          .getMerchantConfiguration(SHIPPING_MODULES, store);
-      if (merchantConfiguration != null) {
-        if (!StringUtils.isBlank(merchantConfiguration.getValue())) {
-          String decrypted = encryption.decrypt(merchantConfiguration.getValue());
-          modules = ConfigurationModulesLoader.loadIntegrationConfigurations(decrypted);
-
-        }
-      }
-      return modules;
 
-
-    } catch (Exception e) {
-      throw new ServiceException(e);
-    }
+    //copies, callers change them before saving
+    return merchantConfigurationSnapshotService.getSnapshot(store).getShippingModules();
 
   }
 
@@ -355,7 +333,9 @@ public class ShippingServiceImpl implements ShippingService {
     shippingSummary.setFreeShipping(shippingQuote.isFreeShipping());
     shippingSummary.setHandling(shippingQuote.getHandlingFees());
     shippingSummary.setShipping(selectedShippingOption.getOptionPrice());
-    shippingSummary.setShippingModule(shippingQuote.getShippingModuleCode());
+    shippingSummary.setShippingModule(
+        selectedShippingOption.getShippingModuleCode() != null ? selectedShippingOption
+            .getShippingModuleCode() : shippingQuote.getShippingModuleCode());
     shippingSummary.setShippingOption(selectedShippingOption.getDescription());
 
     return shippingSummary;
@@ -375,392 +355,417 @@ public class ShippingServiceImpl implements ShippingService {
     Validate.notEmpty(products, "products must not be empty");
     Validate.notNull(language, "Language must not be null");
 
-    ShippingQuote shippingQuote = new ShippingQuote();
-    ShippingQuoteModule shippingQuoteModule = null;
-
     try {
 
-      if (StringUtils.isBlank(delivery.getPostalCode())) {
-        shippingQuote.getWarnings().add("No postal code in delivery address");
-        shippingQuote.setShippingReturnCode(ShippingQuote.NO_POSTAL_CODE);
-      }
+      BigDecimal orderTotal = calculateOrderTotal(products, store);
 
-      //get configuration
-      ShippingConfiguration shippingConfiguration = getShippingConfiguration(store);
-      ShippingType shippingType = ShippingType.INTERNATIONAL;
-
-      /** get shipping origin **/
-      ShippingOrigin shippingOrigin = shippingOriginService.getByStore(store);
-      if (shippingOrigin == null || !shippingOrigin.isActive()) {
-        shippingOrigin = new ShippingOrigin();
-        shippingOrigin.setAddress(store.getStoreaddress());
-        shippingOrigin.setCity(store.getStorecity());
-        shippingOrigin.setCountry(store.getCountry());
-        shippingOrigin.setPostalCode(store.getStorepostalcode());
-        shippingOrigin.setState(store.getStorestateprovince());
-        shippingOrigin.setZone(store.getZone());
-      }
+      //identical carts shipped to the same destination get the same quote
+      String cacheKey = shippingQuoteCache.getKey(store,
+          merchantConfigurationSnapshotService.getVersion(store), language, delivery, products,
+          orderTotal);
+      ShippingQuote shippingQuote = shippingQuoteCache.get(cacheKey);
 
-      if (shippingConfiguration == null) {
-        shippingConfiguration = new ShippingConfiguration();
+      if (shippingQuote != null) {
+        if (shippingQuote.getDeliveryAddress() != null) {
+          shippingQuote.setDeliveryAddress(delivery);
+        }
+      } else {
+        List<String> failedCarriers = new ArrayList<String>();
+        shippingQuote = calculateShippingQuote(store, delivery, products, language, orderTotal,
+            failedCarriers);
+        //do not keep a quote missing carriers
+        if (failedCarriers.isEmpty()) {
+          shippingQuoteCache.put(cacheKey, shippingQuote);
+        }
       }
 
-      if (shippingConfiguration.getShippingType() != null) {
-        shippingType = shippingConfiguration.getShippingType();
-      }
+      saveShippingQuoteOptions(shoppingCartId, delivery, shippingQuote);
+
+      return shippingQuote;
+
+    } catch (Exception e) {
+      LOGGER.error(e.getMessage(), e);
+      throw new ServiceException(e);
+    }
 
-      //look if customer country code excluded
-      Country shipCountry = delivery.getCountry();
+  }
 
-      //a ship to country is required
-      Validate.notNull(shipCountry);
-      Validate.notNull(store.getCountry());
+  private ShippingQuote calculateShippingQuote(MerchantStore store, Delivery delivery,
+      List<ShippingProduct> products, Language language, BigDecimal orderTotal,
+      List<String> failedCarriers) throws Exception {
 
-      if (shippingType.name().equals(ShippingType.NATIONAL.name())) {
-        //customer country must match store country
-        if (!shipCountry.getIsoCode().equals(store.getCountry().getIsoCode())) {
-          shippingQuote.setShippingReturnCode(
-              ShippingQuote.NO_SHIPPING_TO_SELECTED_COUNTRY + " " + shipCountry.getIsoCode());
-          return shippingQuote;
-        }
-      } else if (shippingType.name().equals(ShippingType.INTERNATIONAL.name())) {
-
-        //customer shipping country code must be in accepted list
-        List<String> supportedCountries = this.getSupportedCountries(store);
-        if (!supportedCountries.contains(shipCountry.getIsoCode())) {
-          shippingQuote.setShippingReturnCode(
-              ShippingQuote.NO_SHIPPING_TO_SELECTED_COUNTRY + " " + shipCountry.getIsoCode());
-          return shippingQuote;
-        }
-      }
+    ShippingQuote shippingQuote = new ShippingQuote();
 
-      //must have a shipping module configured
-      Map<String, IntegrationConfiguration> modules = this.getShippingModulesConfigured(store);
-      if (modules == null) {
-        shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_MODULE_CONFIGURED);
-        return shippingQuote;
-      }
+    if (StringUtils.isBlank(delivery.getPostalCode())) {
+      shippingQuote.getWarnings().add("No postal code in delivery address");
+      shippingQuote.setShippingReturnCode(ShippingQuote.NO_POSTAL_CODE);
+    }
 
-      /** uses this module name **/
-      String moduleName = null;
-      IntegrationConfiguration configuration = null;
-      for (String module : modules.keySet()) {
-        moduleName = module;
-        configuration = modules.get(module);
-        //use the first active module
-        if (configuration.isActive()) {
-          shippingQuoteModule = shippingModules.get(module);
-          if (shippingQuoteModule instanceof ShippingQuotePrePostProcessModule) {
-            shippingQuoteModule = null;
-            continue;
-          } else {
-            break;
-          }
-        }
+    //get configuration
+    ShippingConfiguration shippingConfiguration = getShippingConfiguration(store);
+    ShippingType shippingType = ShippingType.INTERNATIONAL;
+
+    /** get shipping origin **/
+    ShippingOrigin shippingOrigin = shippingOriginService.getByStore(store);
+    if (shippingOrigin == null || !shippingOrigin.isActive()) {
+      shippingOrigin = new ShippingOrigin();
+      shippingOrigin.setAddress(store.getStoreaddress());
+      shippingOrigin.setCity(store.getStorecity());
+      shippingOrigin.setCountry(store.getCountry());
+      shippingOrigin.setPostalCode(store.getStorepostalcode());
+      shippingOrigin.setState(store.getStorestateprovince());
+      shippingOrigin.setZone(store.getZone());
+    }
+
+    if (shippingConfiguration == null) {
+      shippingConfiguration = new ShippingConfiguration();
+    }
+
+    if (shippingConfiguration.getShippingType() != null) {
+      shippingType = shippingConfiguration.getShippingType();
+    }
+
+    //look if customer country code excluded
+    Country shipCountry = delivery.getCountry();
+
+    //a ship to country is required
+    Validate.notNull(shipCountry);
+    Validate.notNull(store.getCountry());
+
+    if (shippingType.name().equals(ShippingType.NATIONAL.name())) {
+      //customer country must match store country
+      if (!shipCountry.getIsoCode().equals(store.getCountry().getIsoCode())) {
+        shippingQuote.setShippingReturnCode(
+            ShippingQuote.NO_SHIPPING_TO_SELECTED_COUNTRY + " " + shipCountry.getIsoCode());
+        return shippingQuote;
       }
+    } else if (shippingType.name().equals(ShippingType.INTERNATIONAL.name())) {
 
-      if (shippingQuoteModule == null) {
-        shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_MODULE_CONFIGURED);
+      //customer shipping country code must be in accepted list
+      List<String> supportedCountries = this.getSupportedCountries(store);
+      if (!supportedCountries.contains(shipCountry.getIsoCode())) {
+        shippingQuote.setShippingReturnCode(
+            ShippingQuote.NO_SHIPPING_TO_SELECTED_COUNTRY + " " + shipCountry.getIsoCode());
         return shippingQuote;
       }
+    }
 
-      /** merchant module configs **/
-      List<IntegrationModule> shippingMethods = this.getShippingMethods(store);
-      IntegrationModule shippingModule = null;
+    //must have a shipping module configured
+    Map<String, IntegrationConfiguration> modules = this.getShippingModulesConfigured(store);
+    if (modules == null) {
+      shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_MODULE_CONFIGURED);
+      return shippingQuote;
+    }
+
+    /** merchant module configs **/
+    List<IntegrationModule> shippingMethods = this.getShippingMethods(store);
+
+    /** all active carriers are quoted unless a pre processor selects one **/
+    List<ShippingQuoteOrchestrator.Carrier> carriers =
+        new ArrayList<ShippingQuoteOrchestrator.Carrier>();
+    for (String module : modules.keySet()) {
+      IntegrationConfiguration moduleConfiguration = modules.get(module);
+      ShippingQuoteModule carrierModule = shippingModules.get(module);
+      if (!moduleConfiguration.isActive() || carrierModule == null
+          || carrierModule instanceof ShippingQuotePrePostProcessModule) {
+        continue;
+      }
       for (IntegrationModule mod : shippingMethods) {
-        if (mod.getCode().equals(moduleName)) {
-          shippingModule = mod;
+        if (mod.getCode().equals(module)) {
+          carriers.add(new ShippingQuoteOrchestrator.Carrier(module, carrierModule,
+              moduleConfiguration, mod));
           break;
         }
       }
+    }
 
-      /** general module configs **/
-      if (shippingModule == null) {
-        shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_MODULE_CONFIGURED);
-        return shippingQuote;
-      }
+    if (carriers.isEmpty()) {
+      shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_MODULE_CONFIGURED);
+      return shippingQuote;
+    }
 
-      //calculate order total
-      BigDecimal orderTotal = calculateOrderTotal(products, store);
-      List<PackageDetails> packages = this.getPackagesDetails(products, store);
-
-      //free shipping ?
-      boolean freeShipping = false;
-      if (shippingConfiguration.isFreeShippingEnabled()) {
-        BigDecimal freeShippingAmount = shippingConfiguration.getOrderTotalFreeShipping();
-        if (freeShippingAmount != null) {
-          if (orderTotal.doubleValue() > freeShippingAmount.doubleValue()) {
-            if (shippingConfiguration.getFreeShippingType() == ShippingType.NATIONAL) {
-              if (store.getCountry().getIsoCode().equals(shipCountry.getIsoCode())) {
-                freeShipping = true;
-                shippingQuote.setFreeShipping(true);
-                shippingQuote.setFreeShippingAmount(freeShippingAmount);
-                return shippingQuote;
-              }
-            } else {//international all
-              freeShipping = true;
+    List<PackageDetails> packages = this.getPackagesDetails(products, store);
+
+    //free shipping ?
+    if (shippingConfiguration.isFreeShippingEnabled()) {
+      BigDecimal freeShippingAmount = shippingConfiguration.getOrderTotalFreeShipping();
+      if (freeShippingAmount != null) {
+        if (orderTotal.doubleValue() > freeShippingAmount.doubleValue()) {
+          if (shippingConfiguration.getFreeShippingType() == ShippingType.NATIONAL) {
+            if (store.getCountry().getIsoCode().equals(shipCountry.getIsoCode())) {
               shippingQuote.setFreeShipping(true);
               shippingQuote.setFreeShippingAmount(freeShippingAmount);
               return shippingQuote;
             }
-
+          } else {//international all
+            shippingQuote.setFreeShipping(true);
+            shippingQuote.setFreeShippingAmount(freeShippingAmount);
+            return shippingQuote;
           }
+
         }
       }
+    }
 
-      //handling fees
-      BigDecimal handlingFees = shippingConfiguration.getHandlingFees();
-      if (handlingFees != null) {
-        shippingQuote.setHandlingFees(handlingFees);
-      }
+    //handling fees
+    BigDecimal handlingFees = shippingConfiguration.getHandlingFees();
+    if (handlingFees != null) {
+      shippingQuote.setHandlingFees(handlingFees);
+    }
 
-      //tax basis
-      shippingQuote.setApplyTaxOnShipping(shippingConfiguration.isTaxOnShipping());
-
-      Locale locale = languageService.toLocale(language, store);
-
-      //invoke pre processors
-      //the main pre-processor determines at runtime the shipping module
-      //also available distance calculation
-      if (!CollectionUtils.isEmpty(shippingModulePreProcessors)) {
-        for (ShippingQuotePrePostProcessModule preProcessor : shippingModulePreProcessors) {
-          //System.out.println("Using pre-processor " + preProcessor.getModuleCode());
-          preProcessor.prePostProcessShippingQuotes(shippingQuote, packages, orderTotal, delivery,
-              shippingOrigin, store, configuration, shippingModule, shippingConfiguration,
-              shippingMethods, locale);
-          //TODO switch module if required
-          if (shippingQuote.getCurrentShippingModule() != null && !shippingQuote
-              .getCurrentShippingModule().getCode().equals(shippingModule.getCode())) {
-            shippingModule = shippingQuote
-                .getCurrentShippingModule();//determines the shipping module
-            configuration = modules.get(shippingModule.getCode());
-            if (configuration != null) {
-              if (configuration.isActive()) {
-                moduleName = shippingModule.getCode();
-                shippingQuoteModule = this.shippingModules.get(shippingModule.getCode());
-                configuration = modules.get(shippingModule.getCode());
-              } //TODO use default
+    //tax basis
+    shippingQuote.setApplyTaxOnShipping(shippingConfiguration.isTaxOnShipping());
+
+    Locale locale = languageService.toLocale(language, store);
+
+    //invoke pre processors
+    //the main pre-processor determines at runtime the shipping module
+    //also available distance calculation
+    if (!CollectionUtils.isEmpty(shippingModulePreProcessors)) {
+      //pre processors expect a current module, the first carrier until one is selected
+      ShippingQuoteOrchestrator.Carrier currentCarrier = carriers.get(0);
+      for (ShippingQuotePrePostProcessModule preProcessor : shippingModulePreProcessors) {
+        preProcessor.prePostProcessShippingQuotes(shippingQuote, packages, orderTotal, delivery,
+            shippingOrigin, store, currentCarrier.getConfiguration(),
+            currentCarrier.getIntegrationModule(), shippingConfiguration, shippingMethods,
+            locale);
+        //a selected module restricts the quote to that carrier when it is active
+        IntegrationModule selectedModule = shippingQuote.getCurrentShippingModule();
+        if (selectedModule != null) {
+          for (ShippingQuoteOrchestrator.Carrier carrier : carriers) {
+            if (carrier.getCode().equals(selectedModule.getCode())) {
+              currentCarrier = carrier;
+              carriers = new ArrayList<ShippingQuoteOrchestrator.Carrier>();
+              carriers.add(carrier);
+              break;
             }
-
           }
         }
       }
+    }
+
+    //invoke modules
+    List<ShippingOption> shippingOptions = null;
+    String quoteError = null;
 
-      //invoke module
-      List<ShippingOption> shippingOptions = null;
+    List<ShippingQuoteOrchestrator.CarrierQuote> carrierQuotes = shippingQuoteOrchestrator
+        .getShippingQuotes(carriers, shippingQuote, packages, orderTotal, delivery,
+            shippingOrigin, store, shippingConfiguration, locale);
 
-      try {
-        shippingOptions = shippingQuoteModule
-            .getShippingQuotes(shippingQuote, packages, orderTotal, delivery, shippingOrigin, store,
-                configuration, shippingModule, shippingConfiguration, locale);
-      } catch (Exception e) {
-        LOGGER.error("Error while calculating shipping : " + e.getMessage(), e);
+    for (ShippingQuoteOrchestrator.CarrierQuote carrierQuote : carrierQuotes) {
+      if (carrierQuote.isFailed()) {
+        failedCarriers.add(carrierQuote.getCode());
         merchantLogService.save(
             new MerchantLog(store,
-                "Can't process " + shippingModule.getModule()
+                "Can't process " + carrierQuote.getCode()
                     + " -> "
-                    + e.getMessage()));
-        shippingQuote.setQuoteError(e.getMessage());
+                    + carrierQuote.getError()));
+        if (quoteError == null) {
+          quoteError = carrierQuote.getError();
+        }
+        continue;
+      }
+      if (carrierQuote.getOptions() != null) {
+        if (shippingOptions == null) {
+          shippingOptions = new ArrayList<ShippingOption>();
+        }
+        shippingOptions.addAll(carrierQuote.getOptions());
+      }
+    }
+
+    if (quoteError != null) {
+      if (shippingOptions == null) {
+        shippingQuote.setQuoteError(quoteError);
         shippingQuote.setShippingReturnCode(ShippingQuote.ERROR);
         return shippingQuote;
       }
+      //partial quote
+      shippingQuote.getWarnings().add(quoteError);
+    }
 
-      if (shippingOptions == null && !StringUtils.isBlank(delivery.getPostalCode())) {
-
-        //absolutely need to use in this case store pickup or other default shipping quote
-        shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_TO_SELECTED_COUNTRY);
-      }
+    if (shippingOptions == null && !StringUtils.isBlank(delivery.getPostalCode())) {
 
-      shippingQuote.setShippingModuleCode(moduleName);
+      //absolutely need to use in this case store pickup or other default shipping quote
+      shippingQuote.setShippingReturnCode(ShippingQuote.NO_SHIPPING_TO_SELECTED_COUNTRY);
+    }
 
-      //filter shipping options
-      ShippingOptionPriceType shippingOptionPriceType = shippingConfiguration
-          .getShippingOptionPriceType();
-      ShippingOption selectedOption = null;
+    //filter shipping options
+    ShippingOptionPriceType shippingOptionPriceType = shippingConfiguration
+        .getShippingOptionPriceType();
+    ShippingOption selectedOption = null;
 
-      if (shippingOptions != null) {
+    if (shippingOptions != null) {
 
-        for (ShippingOption option : shippingOptions) {
-          if (selectedOption == null) {
-            selectedOption = option;
-          }
-          //set price text
-          String priceText = pricingService.getDisplayAmount(option.getOptionPrice(), store);
-          option.setOptionPriceText(priceText);
-          option.setShippingModuleCode(moduleName);
-
-          if (StringUtils.isBlank(option.getOptionName())) {
-
-            String countryName = delivery.getCountry().getName();
-            if (countryName == null) {
-              Map<String, Country> deliveryCountries = countryService.getCountriesMap(language);
-              Country dCountry = (Country) deliveryCountries
-                  .get(delivery.getCountry().getIsoCode());
-              if (dCountry != null) {
-                countryName = dCountry.getName();
-              } else {
-                countryName = delivery.getCountry().getIsoCode();
-              }
+      for (ShippingOption option : shippingOptions) {
+        if (selectedOption == null) {
+          selectedOption = option;
+        }
+        //set price text
+        String priceText = pricingService.getDisplayAmount(option.getOptionPrice(), store);
+        option.setOptionPriceText(priceText);
+
+        if (StringUtils.isBlank(option.getOptionName())) {
+
+          String countryName = delivery.getCountry().getName();
+          if (countryName == null) {
+            Map<String, Country> deliveryCountries = countryService.getCountriesMap(language);
+            Country dCountry = (Country) deliveryCountries
+                .get(delivery.getCountry().getIsoCode());
+            if (dCountry != null) {
+              countryName = dCountry.getName();
+            } else {
+              countryName = delivery.getCountry().getIsoCode();
             }
-            option.setOptionName(countryName);
           }
+          option.setOptionName(countryName);
+        }
 
-          if (shippingOptionPriceType.name().equals(ShippingOptionPriceType.HIGHEST.name())) {
+        if (shippingOptionPriceType.name().equals(ShippingOptionPriceType.HIGHEST.name())) {
 
-            if (option.getOptionPrice()
-                .longValue() > selectedOption
-                .getOptionPrice()
-                .longValue()) {
-              selectedOption = option;
-            }
+          if (option.getOptionPrice()
+              .longValue() > selectedOption
+              .getOptionPrice()
+              .longValue()) {
+            selectedOption = option;
           }
+        }
 
-          if (shippingOptionPriceType.name().equals(ShippingOptionPriceType.LEAST.name())) {
+        if (shippingOptionPriceType.name().equals(ShippingOptionPriceType.LEAST.name())) {
 
-            if (option.getOptionPrice()
-                .longValue() < selectedOption
-                .getOptionPrice()
-                .longValue()) {
-              selectedOption = option;
-            }
+          if (option.getOptionPrice()
+              .longValue() < selectedOption
+              .getOptionPrice()
+              .longValue()) {
+            selectedOption = option;
           }
+        }
 
-          if (shippingOptionPriceType.name().equals(ShippingOptionPriceType.ALL.name())) {
+        if (shippingOptionPriceType.name().equals(ShippingOptionPriceType.ALL.name())) {
 
-            if (option.getOptionPrice()
-                .longValue() < selectedOption
-                .getOptionPrice()
-                .longValue()) {
-              selectedOption = option;
-            }
+          if (option.getOptionPrice()
+              .longValue() < selectedOption
+              .getOptionPrice()
+              .longValue()) {
+            selectedOption = option;
           }
-
         }
 
-        shippingQuote.setSelectedShippingOption(selectedOption);
+      }
 
-        if (selectedOption != null && !shippingOptionPriceType.name()
-            .equals(ShippingOptionPriceType.ALL.name())) {
-          shippingOptions = new ArrayList<ShippingOption>();
-          shippingOptions.add(selectedOption);
-        }
+      shippingQuote.setSelectedShippingOption(selectedOption);
+      //options of all carriers are quoted, the quote reports the carrier of the selected one
+      if (selectedOption != null) {
+        shippingQuote.setShippingModuleCode(selectedOption.getShippingModuleCode());
+      }
 
+      if (selectedOption != null && !shippingOptionPriceType.name()
+          .equals(ShippingOptionPriceType.ALL.name())) {
+        shippingOptions = new ArrayList<ShippingOption>();
+        shippingOptions.add(selectedOption);
       }
 
-      /** set final delivery address **/
-      shippingQuote.setDeliveryAddress(delivery);
+    }
+
+    /** set final delivery address **/
+    shippingQuote.setDeliveryAddress(delivery);
 
-      shippingQuote.setShippingOptions(shippingOptions);
+    shippingQuote.setShippingOptions(shippingOptions);
 
-      /** post processors **/
-      //invoke pre processors
-      if (!CollectionUtils.isEmpty(shippingModulePostProcessors)) {
-        for (ShippingQuotePrePostProcessModule postProcessor : shippingModulePostProcessors) {
-          //get module info
+    /** post processors **/
+    //invoke pre processors
+    if (!CollectionUtils.isEmpty(shippingModulePostProcessors)) {
+      for (ShippingQuotePrePostProcessModule postProcessor : shippingModulePostProcessors) {
+        //get module info
 
-          //get module configuration
-          IntegrationConfiguration integrationConfiguration = modules
-              .get(postProcessor.getModuleCode());
+        //get module configuration
+        IntegrationConfiguration integrationConfiguration = modules
+            .get(postProcessor.getModuleCode());
 
-          IntegrationModule postProcessModule = null;
-          for (IntegrationModule mod : shippingMethods) {
-            if (mod.getCode().equals(postProcessor.getModuleCode())) {
-              postProcessModule = mod;
-              break;
-            }
+        IntegrationModule postProcessModule = null;
+        for (IntegrationModule mod : shippingMethods) {
+          if (mod.getCode().equals(postProcessor.getModuleCode())) {
+            postProcessModule = mod;
+            break;
           }
-
-          IntegrationModule module = postProcessModule;
-          postProcessor.prePostProcessShippingQuotes(shippingQuote, packages, orderTotal, delivery,
-              shippingOrigin, store, integrationConfiguration, module, shippingConfiguration,
-              shippingMethods, locale);
         }
-      }
 
-      if (shippingQuote != null && CollectionUtils.isNotEmpty(shippingQuote.getShippingOptions())) {
-        //save SHIPPING OPTIONS
-        List<ShippingOption> finalShippingOptions = shippingQuote.getShippingOptions();
-        for (ShippingOption option : finalShippingOptions) {
+        IntegrationModule module = postProcessModule;
+        postProcessor.prePostProcessShippingQuotes(shippingQuote, packages, orderTotal, delivery,
+            shippingOrigin, store, integrationConfiguration, module, shippingConfiguration,
+            shippingMethods, locale);
+      }
+    }
 
-          //transform to Quote
-          Quote q = new Quote();
-          q.setCartId(shoppingCartId);
-          q.setDelivery(delivery);
-          if (!StringUtils.isBlank(option.getEstimatedNumberOfDays())) {
-            try {
-              q.setEstimatedNumberOfDays(new Integer(option.getEstimatedNumberOfDays()));
-            } catch (Exception e) {
-              LOGGER.error("Cannot cast to integer " + option.getEstimatedNumberOfDays());
-            }
-          }
+    return shippingQuote;
 
-          if (freeShipping) {
-            q.setFreeShipping(true);
-            q.setPrice(new BigDecimal(0));
-            q.setModule("FREE");
-            q.setOptionCode("FREE");
-            q.setOptionName("FREE");
-          } else {
-            q.setModule(option.getShippingModuleCode());
-            q.setOptionCode(option.getOptionCode());
-            if (!StringUtils.isBlank(option.getOptionDeliveryDate())) {
-              try {
-                q.setOptionDeliveryDate(DateUtil.formatDate(option.getOptionDeliveryDate()));
-              } catch (Exception e) {
-                LOGGER.error("Cannot transform to date " + option.getOptionDeliveryDate());
-              }
-            }
-            q.setOptionName(option.getOptionName());
-            q.setOptionShippingDate(new Date());
-            q.setPrice(option.getOptionPrice());
+  }
 
+  /**
+   * Saves the options of a quote for a given cart, the id of the saved quote is set on each option
+   */
+  private void saveShippingQuoteOptions(Long shoppingCartId, Delivery delivery,
+      ShippingQuote shippingQuote) throws ServiceException {
+
+    BigDecimal handlingFees = shippingQuote.getHandlingFees();
+    boolean freeShipping = shippingQuote.isFreeShipping();
+
+    if (CollectionUtils.isNotEmpty(shippingQuote.getShippingOptions())) {
+      //save SHIPPING OPTIONS
+      List<ShippingOption> finalShippingOptions = shippingQuote.getShippingOptions();
+      for (ShippingOption option : finalShippingOptions) {
+
+        //transform to Quote
+        Quote q = new Quote();
+        q.setCartId(shoppingCartId);
+        q.setDelivery(delivery);
+        if (!StringUtils.isBlank(option.getEstimatedNumberOfDays())) {
+          try {
+            q.setEstimatedNumberOfDays(new Integer(option.getEstimatedNumberOfDays()));
+          } catch (Exception e) {
+            LOGGER.error("Cannot cast to integer " + option.getEstimatedNumberOfDays());
           }
+        }
 
-          if (handlingFees != null) {
-            q.setHandling(handlingFees);
+        if (freeShipping) {
+          q.setFreeShipping(true);
+          q.setPrice(new BigDecimal(0));
+          q.setModule("FREE");
+          q.setOptionCode("FREE");
+          q.setOptionName("FREE");
+        } else {
+          q.setModule(option.getShippingModuleCode());
+          q.setOptionCode(option.getOptionCode());
+          if (!StringUtils.isBlank(option.getOptionDeliveryDate())) {
+            try {
+              q.setOptionDeliveryDate(DateUtil.formatDate(option.getOptionDeliveryDate()));
+            } catch (Exception e) {
+              LOGGER.error("Cannot transform to date " + option.getOptionDeliveryDate());
+            }
           }
+          q.setOptionName(option.getOptionName());
+          q.setOptionShippingDate(new Date());
+          q.setPrice(option.getOptionPrice());
 
-          q.setQuoteDate(new Date());
-          shippingQuoteService.save(q);
-          option.setShippingQuoteOptionId(q.getId());
+        }
 
+        if (handlingFees != null) {
+          q.setHandling(handlingFees);
         }
-      }
 
+        q.setQuoteDate(new Date());
+        shippingQuoteService.save(q);
+        option.setShippingQuoteOptionId(q.getId());
 
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage(), e);
-      throw new ServiceException(e);
+      }
     }
 
-    return shippingQuote;
-
   }
 
   @Override
   public List<String> getSupportedCountries(MerchantStore store) throws ServiceException {
 
-    List<String> supportedCountries = new ArrayList<String>();
-    MerchantConfiguration configuration = merchantConfigurationService
-        .getMerchantConfiguration(SUPPORTED_COUNTRIES, store);
-
-    if (configuration != null) {
-
-      String countries = configuration.getValue();
-      if (!StringUtils.isBlank(countries)) {
-
-        Object objRegions = JSONValue.parse(countries);
-        JSONArray arrayRegions = (JSONArray) objRegions;
-        @SuppressWarnings("rawtypes")
-        Iterator i = arrayRegions.iterator();
-        while (i.hasNext()) {
-          supportedCountries.add((String) i.next());
-        }
-      }
-
-    }
-
-    return supportedCountries;
+    return new ArrayList<String>(
+        merchantConfigurationSnapshotService.getSnapshot(store).getSupportedCountries());
   }
 
   @Override
@@ -784,24 +789,7 @@ public class ShippingServiceImpl implements ShippingService {
 
     } else {
 
-      MerchantConfiguration configuration = merchantConfigurationService
-          .getMerchantConfiguration(SUPPORTED_COUNTRIES, store);
-
-      if (configuration != null) {
-
-        String countries = configuration.getValue();
-        if (!StringUtils.isBlank(countries)) {
-
-          Object objRegions = JSONValue.parse(countries);
-          JSONArray arrayRegions = (JSONArray) objRegions;
-          @SuppressWarnings("rawtypes")
-          Iterator i = arrayRegions.iterator();
-          while (i.hasNext()) {
-            supportedCountries.add((String) i.next());
-          }
-        }
-
-      }
+      supportedCountries = getSupportedCountries(store);
 
     }
 
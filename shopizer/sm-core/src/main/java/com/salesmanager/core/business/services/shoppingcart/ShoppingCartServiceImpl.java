@@ -27,8 +27,10 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.inject.Inject;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service("shoppingCartService")
@@ -216,6 +218,11 @@ public class ShoppingCartServiceImpl extends SalesManagerEntityServiceImpl<Long,
     }
   }
 
+  /**
+   * Refreshes prices and products of the cart items. Products of all items are loaded at once and
+   * the cart is only written back when the refresh removed something from it, reading a cart is
+   * otherwise free of side effects.
+   */
   @Transactional(noRollbackFor = {org.springframework.dao.EmptyResultDataAccessException.class})
   private ShoppingCart getPopulatedShoppingCart(final ShoppingCart shoppingCart) throws Exception {
 
@@ -231,34 +238,32 @@ public class ShoppingCartServiceImpl extends SalesManagerEntityServiceImpl<Long,
 
         }
 
-        // Set<ShoppingCartItem> shoppingCartItems = new
-        // HashSet<ShoppingCartItem>();
+        Set<Long> productIds = new HashSet<Long>();
+        for (ShoppingCartItem item : items) {
+          productIds.add(item.getProductId());
+        }
+
+        Map<Long, Product> products = new HashMap<Long, Product>();
+        for (Product product : productService.getByIds(productIds)) {
+          products.put(product.getId(), product);
+        }
+
+        boolean dirty = false;
         for (ShoppingCartItem item : items) {
           LOGGER.debug("Populate item " + item.getId());
-          getPopulatedItem(item);
+          if (getPopulatedItem(item, products.get(item.getProductId()))) {
+            dirty = true;
+          }
           LOGGER.debug("Obsolete item ? " + item.isObsolete());
           if (item.isObsolete()) {
             cartIsObsolete = true;
           }
         }
 
-        // shoppingCart.setLineItems(shoppingCartItems);
-        boolean refreshCart = false;
-        Set<ShoppingCartItem> refreshedItems = new HashSet<ShoppingCartItem>();
-        for (ShoppingCartItem item : items) {
-/*					if (!item.isObsolete()) {
-						refreshedItems.add(item);
-					} else {
-						refreshCart = true;
-					}*/
-          refreshedItems.add(item);
+        if (dirty) {
+          update(shoppingCart);
         }
 
-        //if (refreshCart) {
-        shoppingCart.setLineItems(refreshedItems);
-        update(shoppingCart);
-        //}
-
         if (cartIsObsolete) {
           shoppingCart.setObsolete(true);
         }
@@ -308,17 +313,15 @@ public class ShoppingCartServiceImpl extends SalesManagerEntityServiceImpl<Long,
 
   }
 
-  @Transactional
-  private void getPopulatedItem(final ShoppingCartItem item) throws Exception {
-
-    Product product = null;
-
-    Long productId = item.getProductId();
-    product = productService.getById(productId);
+  /**
+   * Populates an item from its product, returns true when persistent state of the cart was changed
+   */
+  private boolean getPopulatedItem(final ShoppingCartItem item, final Product product)
+      throws Exception {
 
     if (product == null) {
       item.setObsolete(true);
-      return;
+      return false;
     }
 
     item.setProduct(product);
@@ -355,10 +358,13 @@ public class ShoppingCartServiceImpl extends SalesManagerEntityServiceImpl<Long,
     }
 
     //cleanup orphean item
+    boolean dirty = false;
     if (CollectionUtils.isNotEmpty(removeAttributesList)) {
       for (ShoppingCartAttributeItem attr : removeAttributesList) {
+        cartAttributes.remove(attr);
         shoppingCartAttributeItemRepository.delete(attr);
       }
+      dirty = true;
     }
 
     //cleanup detached attributes
@@ -375,6 +381,8 @@ public class ShoppingCartServiceImpl extends SalesManagerEntityServiceImpl<Long,
         .multiply(new BigDecimal(item.getQuantity().intValue()));
     item.setSubTotal(subTotal);
 
+    return dirty;
+
   }
 
   @Override
@@ -23,6 +23,9 @@ public class MerchantConfigurationServiceImpl extends
 
   private MerchantConfigurationRepository merchantConfigurationRepository;
 
+  @Inject
+  private MerchantConfigurationSnapshotService merchantConfigurationSnapshotService;
+
   @Inject
   public MerchantConfigurationServiceImpl(
       MerchantConfigurationRepository merchantConfigurationRepository) {
@@ -57,6 +60,7 @@ public class MerchantConfigurationServiceImpl extends
       super.create(entity);
 
     }
+    merchantConfigurationSnapshotService.invalidate(entity.getMerchantStore().getId());
   }
 
 
@@ -66,6 +70,7 @@ public class MerchantConfigurationServiceImpl extends
         .findOne(merchantConfiguration.getId());
     if (config != null) {
       super.delete(config);
+      merchantConfigurationSnapshotService.invalidate(config.getMerchantStore().getId());
     }
   }
 
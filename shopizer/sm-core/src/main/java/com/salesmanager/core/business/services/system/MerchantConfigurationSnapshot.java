@@ -0,0 +1,118 @@
+package com.salesmanager.core.business.services.system;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.system.IntegrationConfiguration;
+import com.salesmanager.core.model.tax.TaxConfiguration;
+
+/**
+ * Decrypted and parsed integration configurations of a merchant store. A snapshot
+ * is built once for a given configuration version and is never modified afterward,
+ * callers get copies they are free to change
+ */
+public final class MerchantConfigurationSnapshot {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final long version;
+  private final ShippingConfiguration shippingConfiguration;
+  private final Map<String, IntegrationConfiguration> shippingModules;
+  private final Map<String, IntegrationConfiguration> paymentModules;
+  private final List<String> supportedCountries;
+  private final TaxConfiguration taxConfiguration;
+
+  public MerchantConfigurationSnapshot(long version, ShippingConfiguration shippingConfiguration,
+      Map<String, IntegrationConfiguration> shippingModules,
+      Map<String, IntegrationConfiguration> paymentModules, List<String> supportedCountries,
+      TaxConfiguration taxConfiguration) {
+    this.version = version;
+    this.shippingConfiguration = shippingConfiguration;
+    this.shippingModules = Collections.unmodifiableMap(shippingModules);
+    this.paymentModules = Collections.unmodifiableMap(paymentModules);
+    this.supportedCountries = Collections.unmodifiableList(supportedCountries);
+    this.taxConfiguration = taxConfiguration;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Copy, null when the store has no shipping configuration
+   */
+  public ShippingConfiguration getShippingConfiguration() {
+    return shippingConfiguration == null ? null
+        : copy(shippingConfiguration.toJSONString(), ShippingConfiguration.class);
+  }
+
+  /**
+   * Copies by module code
+   */
+  public Map<String, IntegrationConfiguration> getShippingModules() {
+    return copy(shippingModules);
+  }
+
+  /**
+   * Copies by module code
+   */
+  public Map<String, IntegrationConfiguration> getPaymentModules() {
+    return copy(paymentModules);
+  }
+
+  public List<String> getSupportedCountries() {
+    return supportedCountries;
+  }
+
+  /**
+   * Copy, null when the store has no tax configuration
+   */
+  public TaxConfiguration getTaxConfiguration() {
+    return taxConfiguration == null ? null
+        : copy(taxConfiguration.toJSONString(), TaxConfiguration.class);
+  }
+
+  //same json as the one saved in the merchant configuration
+  private static <T> T copy(String json, Class<T> type) {
+    try {
+      return MAPPER.readValue(json, type);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot copy " + type.getSimpleName(), e);
+    }
+  }
+
+  private static Map<String, IntegrationConfiguration> copy(
+      Map<String, IntegrationConfiguration> modules) {
+    Map<String, IntegrationConfiguration> copies =
+        new HashMap<String, IntegrationConfiguration>();
+    for (Map.Entry<String, IntegrationConfiguration> entry : modules.entrySet()) {
+      IntegrationConfiguration module = entry.getValue();
+      IntegrationConfiguration copy = new IntegrationConfiguration();
+      copy.setModuleCode(module.getModuleCode());
+      copy.setActive(module.isActive());
+      copy.setDefaultSelected(module.isDefaultSelected());
+      copy.setEnvironment(module.getEnvironment());
+      if (module.getIntegrationKeys() != null) {
+        copy.setIntegrationKeys(new HashMap<String, String>(module.getIntegrationKeys()));
+      }
+      if (module.getIntegrationOptions() != null) {
+        Map<String, List<String>> options = new HashMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> option : module.getIntegrationOptions()
+            .entrySet()) {
+          options.put(option.getKey(),
+              option.getValue() == null ? null : new ArrayList<String>(option.getValue()));
+        }
+        copy.setIntegrationOptions(options);
+      }
+      copies.put(entry.getKey(), copy);
+    }
+    return copies;
+  }
+
+}
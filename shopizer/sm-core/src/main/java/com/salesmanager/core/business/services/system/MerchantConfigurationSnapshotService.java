@@ -0,0 +1,22 @@
+package com.salesmanager.core.business.services.system;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Keeps a per store snapshot of the configurations used when quoting shipping and
+ * listing payment methods. Snapshots are rebuilt when the configuration version
+ * of a store is bumped by MerchantConfigurationService
+ */
+public interface MerchantConfigurationSnapshotService {
+
+  MerchantConfigurationSnapshot getSnapshot(MerchantStore store) throws ServiceException;
+
+  /**
+   * Current configuration version of a store
+   */
+  long getVersion(MerchantStore store);
+
+  void invalidate(Integer storeId);
+
+}
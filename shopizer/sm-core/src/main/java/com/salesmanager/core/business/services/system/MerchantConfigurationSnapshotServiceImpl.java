@@ -0,0 +1,153 @@
+package com.salesmanager.core.business.services.system;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesmanager.core.business.constants.ShippingConstants;
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.repositories.system.MerchantConfigurationRepository;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.business.services.reference.loader.ConfigurationModulesLoader;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.system.IntegrationConfiguration;
+import com.salesmanager.core.model.system.MerchantConfiguration;
+import com.salesmanager.core.model.tax.TaxConfiguration;
+import com.salesmanager.core.modules.utils.Encryption;
+
+@Service("merchantConfigurationSnapshotService")
+public class MerchantConfigurationSnapshotServiceImpl implements
+    MerchantConfigurationSnapshotService {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(MerchantConfigurationSnapshotServiceImpl.class);
+
+  public final static String SHIPPING_MODULES = "SHIPPING";
+  public final static String PAYMENT_MODULES = "PAYMENT";
+  public final static String SUPPORTED_COUNTRIES = "SUPPORTED_CNTR";
+  public final static String TAX_CONFIGURATION = "TAX_CONFIG";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Inject
+  private MerchantConfigurationRepository merchantConfigurationRepository;
+
+  @Inject
+  private Encryption encryption;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  private final ConcurrentMap<Integer, MerchantConfigurationSnapshot> snapshots =
+      new ConcurrentHashMap<Integer, MerchantConfigurationSnapshot>();
+
+  @Override
+  public MerchantConfigurationSnapshot getSnapshot(MerchantStore store) throws ServiceException {
+
+    long version = getVersion(store);
+    MerchantConfigurationSnapshot snapshot = snapshots.get(store.getId());
+    if (snapshot != null && snapshot.getVersion() == version) {
+      return snapshot;
+    }
+
+    snapshot = load(store.getId(), version);
+
+    //do not replace a snapshot built for a more recent version
+    MerchantConfigurationSnapshot current = snapshots.get(store.getId());
+    if (current == null || current.getVersion() <= version) {
+      snapshots.put(store.getId(), snapshot);
+    }
+    return snapshot;
+  }
+
+  @Override
+  public long getVersion(MerchantStore store) {
+    return storeVersionService.getVersion(StoreVersionService.CONFIGURATIONS, store.getId());
+  }
+
+  @Override
+  public void invalidate(Integer storeId) {
+    storeVersionService.invalidate(StoreVersionService.CONFIGURATIONS, storeId);
+    storeVersionService.invalidate(storeId);
+  }
+
+  private MerchantConfigurationSnapshot load(Integer storeId, long version)
+      throws ServiceException {
+
+    ShippingConfiguration shippingConfiguration = null;
+    Map<String, IntegrationConfiguration> shippingModules =
+        new HashMap<String, IntegrationConfiguration>();
+    Map<String, IntegrationConfiguration> paymentModules =
+        new HashMap<String, IntegrationConfiguration>();
+    List<String> supportedCountries = new ArrayList<String>();
+    TaxConfiguration taxConfiguration = null;
+
+    List<MerchantConfiguration> configurations = merchantConfigurationRepository
+        .findByMerchantStore(storeId);
+
+    for (MerchantConfiguration configuration : configurations) {
+
+      String key = configuration.getKey();
+      String value = configuration.getValue();
+      if (StringUtils.isBlank(value)) {
+        continue;
+      }
+
+      if (ShippingConstants.SHIPPING_CONFIGURATION.equals(key)) {
+        try {
+          shippingConfiguration = MAPPER.readValue(value, ShippingConfiguration.class);
+        } catch (Exception e) {
+          throw new ServiceException("Cannot parse json string " + value);
+        }
+      } else if (SHIPPING_MODULES.equals(key)) {
+        shippingModules = decryptModules(value);
+      } else if (PAYMENT_MODULES.equals(key)) {
+        paymentModules = decryptModules(value);
+      } else if (TAX_CONFIGURATION.equals(key)) {
+        try {
+          taxConfiguration = MAPPER.readValue(value, TaxConfiguration.class);
+        } catch (Exception e) {
+          throw new ServiceException("Cannot parse json string " + value);
+        }
+      } else if (SUPPORTED_COUNTRIES.equals(key)) {
+        JSONArray arrayRegions = (JSONArray) JSONValue.parse(value);
+        @SuppressWarnings("rawtypes")
+        Iterator i = arrayRegions.iterator();
+        while (i.hasNext()) {
+          supportedCountries.add((String) i.next());
+        }
+      }
+    }
+
+    LOGGER.debug("Loaded configuration snapshot version " + version + " for store " + storeId);
+
+    return new MerchantConfigurationSnapshot(version, shippingConfiguration, shippingModules,
+        paymentModules, supportedCountries, taxConfiguration);
+  }
+
+  private Map<String, IntegrationConfiguration> decryptModules(String value)
+      throws ServiceException {
+    try {
+      String decrypted = encryption.decrypt(value);
+      return ConfigurationModulesLoader.loadIntegrationConfigurations(decrypted);
+    } catch (Exception e) {
+      throw new ServiceException(e);
+    }
+  }
+
+}
@@ -0,0 +1,38 @@
+package com.salesmanager.core.business.services.system;
+
+import java.util.Date;
+import java.util.List;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.common.generic.SalesManagerEntityService;
+import com.salesmanager.core.model.system.RevokedToken;
+
+/**
+ * Logged out authentication tokens and changed users shared by all instances
+ */
+public interface RevokedTokenService extends SalesManagerEntityService<Long, RevokedToken> {
+
+  /**
+   * Records a token as revoked until its expiration
+   */
+  RevokedToken revoke(String realm, String tokenDigest, String username, Date expiration)
+      throws ServiceException;
+
+  /**
+   * Records a user as changed, the tokens verified for it are verified again. The username
+   * {@link RevokedToken#ALL} stands for all users.
+   */
+  RevokedToken invalidate(String realm, String username, Date expiration)
+      throws ServiceException;
+
+  /**
+   * Tokens and users not expired revoked since a date
+   */
+  List<RevokedToken> getRevokedSince(Date since) throws ServiceException;
+
+  /**
+   * Removes the tokens expired, returns the number removed
+   */
+  int deleteExpired() throws ServiceException;
+
+}
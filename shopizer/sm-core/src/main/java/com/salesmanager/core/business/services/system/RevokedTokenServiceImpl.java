@@ -0,0 +1,60 @@
+package com.salesmanager.core.business.services.system;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.repositories.system.RevokedTokenRepository;
+import com.salesmanager.core.business.services.common.generic.SalesManagerEntityServiceImpl;
+import com.salesmanager.core.model.system.RevokedToken;
+
+@Service("revokedTokenService")
+public class RevokedTokenServiceImpl extends SalesManagerEntityServiceImpl<Long, RevokedToken>
+    implements RevokedTokenService {
+
+  private RevokedTokenRepository revokedTokenRepository;
+
+  @Inject
+  public RevokedTokenServiceImpl(RevokedTokenRepository revokedTokenRepository) {
+    super(revokedTokenRepository);
+    this.revokedTokenRepository = revokedTokenRepository;
+  }
+
+  @Override
+  @Transactional
+  public RevokedToken revoke(String realm, String tokenDigest, String username, Date expiration)
+      throws ServiceException {
+    RevokedToken token = new RevokedToken();
+    token.setRealm(realm);
+    token.setTokenDigest(tokenDigest);
+    token.setUsername(username);
+    token.setRevocationDate(new Date());
+    token.setExpirationDate(expiration);
+    save(token);
+    return token;
+  }
+
+  @Override
+  @Transactional
+  public RevokedToken invalidate(String realm, String username, Date expiration)
+      throws ServiceException {
+    return revoke(realm, RevokedToken.ALL, username, expiration);
+  }
+
+  @Override
+  public List<RevokedToken> getRevokedSince(Date since) throws ServiceException {
+    return revokedTokenRepository.findRevokedSince(since, new Date());
+  }
+
+  @Override
+  @Transactional
+  public int deleteExpired() throws ServiceException {
+    return revokedTokenRepository.deleteExpired(new Date());
+  }
+
+}
@@ -18,6 +18,9 @@ public class TaxClassServiceImpl extends SalesManagerEntityServiceImpl<Long, Tax
 
   private TaxClassRepository taxClassRepository;
 
+  @Inject
+  private TaxRateIndexService taxRateIndexService;
+
   @Inject
   public TaxClassServiceImpl(TaxClassRepository taxClassRepository) {
     super(taxClassRepository);
@@ -40,11 +43,23 @@ public class TaxClassServiceImpl extends SalesManagerEntityServiceImpl<Long, Tax
     return taxClassRepository.findByStoreAndCode(store.getId(), code);
   }
 
+  @Override
+  public void save(TaxClass taxClass) throws ServiceException {
+    super.save(taxClass);
+    if (taxClass.getMerchantStore() != null) {
+      taxRateIndexService.invalidate(taxClass.getMerchantStore().getId());
+    }
+  }
+
   @Override
   public void delete(TaxClass taxClass) throws ServiceException {
 
     TaxClass t = this.getById(taxClass.getId());
+    Integer storeId = t.getMerchantStore() == null ? null : t.getMerchantStore().getId();
     super.delete(t);
+    if (storeId != null) {
+      taxRateIndexService.invalidate(storeId);
+    }
 
   }
 
@@ -0,0 +1,230 @@
+package com.salesmanager.core.business.services.tax;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.zone.Zone;
+import com.salesmanager.core.model.tax.taxrate.TaxRate;
+import com.salesmanager.core.model.tax.taxrate.TaxRateDescription;
+
+/**
+ * Tax rates of a merchant store by country, zone or state province and tax class. Each entry is
+ * the chain of rates to apply in priority order. An index is built once for a given version of
+ * the store tax rates and is never modified afterward
+ */
+public final class TaxRateIndex {
+
+  private static final Rate[] NO_RATES = new Rate[0];
+
+  private static final Comparator<TaxRate> PRIORITY = new Comparator<TaxRate>() {
+    @Override
+    public int compare(TaxRate r1, TaxRate r2) {
+      int p1 = r1.getTaxPriority() == null ? 0 : r1.getTaxPriority();
+      int p2 = r2.getTaxPriority() == null ? 0 : r2.getTaxPriority();
+      if (p1 != p2) {
+        return p1 < p2 ? -1 : 1;
+      }
+      return r1.getId().compareTo(r2.getId());
+    }
+  };
+
+  private final long version;
+  private final Long defaultTaxClassId;
+
+  //country:zone:taxClass, rates of the zone and rates of the whole country
+  private final Map<String, Rate[]> zoneRates;
+  //country:taxClass, rates without a zone
+  private final Map<String, Rate[]> countryRates;
+  //country:stateProvince:taxClass
+  private final Map<String, Rate[]> stateProvinceRates;
+
+  public TaxRateIndex(long version, Long defaultTaxClassId, Collection<TaxRate> taxRates) {
+
+    this.version = version;
+    this.defaultTaxClassId = defaultTaxClassId;
+
+    Map<String, List<TaxRate>> byZone = new HashMap<String, List<TaxRate>>();
+    Map<String, List<TaxRate>> byCountry = new HashMap<String, List<TaxRate>>();
+    Map<String, List<TaxRate>> byStateProvince = new HashMap<String, List<TaxRate>>();
+
+    for (TaxRate taxRate : taxRates) {
+      if (taxRate.getCountry() == null || taxRate.getTaxClass() == null) {
+        continue;
+      }
+      Integer countryId = taxRate.getCountry().getId();
+      Long taxClassId = taxRate.getTaxClass().getId();
+      if (taxRate.getZone() == null) {
+        add(byCountry, countryKey(countryId, taxClassId), taxRate);
+      } else {
+        add(byZone, zoneKey(countryId, taxRate.getZone().getId(), taxClassId), taxRate);
+      }
+      if (!StringUtils.isBlank(taxRate.getStateProvince())) {
+        add(byStateProvince,
+            stateProvinceKey(countryId, taxRate.getStateProvince(), taxClassId), taxRate);
+      }
+    }
+
+    //a zone also gets the rates of its whole country
+    Map<String, Rate[]> zones = new HashMap<String, Rate[]>();
+    for (Map.Entry<String, List<TaxRate>> entry : byZone.entrySet()) {
+      List<TaxRate> rates = entry.getValue();
+      TaxRate first = rates.get(0);
+      List<TaxRate> countryWide = byCountry
+          .get(countryKey(first.getCountry().getId(), first.getTaxClass().getId()));
+      if (countryWide != null) {
+        rates.addAll(countryWide);
+      }
+      zones.put(entry.getKey(), chain(rates));
+    }
+
+    this.zoneRates = zones;
+    this.countryRates = chains(byCountry);
+    this.stateProvinceRates = chains(byStateProvince);
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Tax class of the items having none and of shipping, may be null
+   */
+  public Long getDefaultTaxClassId() {
+    return defaultTaxClassId;
+  }
+
+  /**
+   * Rates to apply in priority order, by state province when there is no zone
+   */
+  public Rate[] getRates(Country country, Zone zone, String stateProvince, Long taxClassId) {
+
+    if (country == null || taxClassId == null) {
+      return NO_RATES;
+    }
+
+    Rate[] rates = null;
+    if (!StringUtils.isBlank(stateProvince) && zone == null) {
+      rates = stateProvinceRates.get(stateProvinceKey(country.getId(), stateProvince, taxClassId));
+    } else if (zone != null) {
+      rates = zoneRates.get(zoneKey(country.getId(), zone.getId(), taxClassId));
+      if (rates == null) {
+        rates = countryRates.get(countryKey(country.getId(), taxClassId));
+      }
+    }
+    return rates == null ? NO_RATES : rates;
+  }
+
+  private static void add(Map<String, List<TaxRate>> rates, String key, TaxRate taxRate) {
+    List<TaxRate> list = rates.get(key);
+    if (list == null) {
+      list = new ArrayList<TaxRate>();
+      rates.put(key, list);
+    }
+    list.add(taxRate);
+  }
+
+  private static Map<String, Rate[]> chains(Map<String, List<TaxRate>> rates) {
+    Map<String, Rate[]> chains = new HashMap<String, Rate[]>();
+    for (Map.Entry<String, List<TaxRate>> entry : rates.entrySet()) {
+      chains.put(entry.getKey(), chain(entry.getValue()));
+    }
+    return chains;
+  }
+
+  private static Rate[] chain(List<TaxRate> taxRates) {
+    TaxRate[] sorted = taxRates.toArray(new TaxRate[taxRates.size()]);
+    Arrays.sort(sorted, PRIORITY);
+    Rate[] rates = new Rate[sorted.length];
+    for (int i = 0; i < sorted.length; i++) {
+      rates[i] = new Rate(sorted[i]);
+    }
+    return rates;
+  }
+
+  private static String countryKey(Integer countryId, Long taxClassId) {
+    return countryId + ":" + taxClassId;
+  }
+
+  private static String zoneKey(Integer countryId, Long zoneId, Long taxClassId) {
+    return countryId + ":" + zoneId + ":" + taxClassId;
+  }
+
+  private static String stateProvinceKey(Integer countryId, String stateProvince,
+      Long taxClassId) {
+    return countryId + ":" + stateProvince + "::" + taxClassId;
+  }
+
+  /**
+   * A rate of a chain. The TaxRate is shared and must not be modified
+   */
+  public static final class Rate {
+
+    private final TaxRate taxRate;
+    private final BigDecimal percentage;
+    private final boolean piggyback;
+    private final Map<Integer, String> labels;
+
+    private Rate(TaxRate taxRate) {
+      this.taxRate = taxRate;
+      this.percentage = taxRate.getTaxRate() == null ? BigDecimal.ZERO : taxRate.getTaxRate();
+      this.piggyback = taxRate.isPiggyback();
+      Map<Integer, String> names = new LinkedHashMap<Integer, String>();
+      if (taxRate.getDescriptions() != null) {
+        for (TaxRateDescription description : taxRate.getDescriptions()) {
+          if (description.getLanguage() != null
+              && !names.containsKey(description.getLanguage().getId())) {
+            names.put(description.getLanguage().getId(), description.getName());
+          }
+        }
+      }
+      this.labels = Collections.unmodifiableMap(names);
+    }
+
+    public TaxRate getTaxRate() {
+      return taxRate;
+    }
+
+    public String getCode() {
+      return taxRate.getCode();
+    }
+
+    /**
+     * 5 for 5%
+     */
+    public BigDecimal getPercentage() {
+      return percentage;
+    }
+
+    public boolean isPiggyback() {
+      return piggyback;
+    }
+
+    /**
+     * Name of the rate in a language, null when the rate is not described in that language
+     */
+    public String getLabel(Integer languageId) {
+      return labels.get(languageId);
+    }
+
+    /**
+     * Whether the rate is described in a language, rates are only applied in the languages they
+     * are described in
+     */
+    public boolean isDescribed(Integer languageId) {
+      return labels.containsKey(languageId);
+    }
+
+  }
+
+}
@@ -0,0 +1,16 @@
+package com.salesmanager.core.business.services.tax;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.merchant.MerchantStore;
+
+/**
+ * Keeps a per store index of the tax rates used when calculating taxes. Indexes are
+ * rebuilt when tax rates or tax classes of a store are saved or deleted
+ */
+public interface TaxRateIndexService {
+
+  TaxRateIndex getIndex(MerchantStore store) throws ServiceException;
+
+  void invalidate(Integer storeId);
+
+}
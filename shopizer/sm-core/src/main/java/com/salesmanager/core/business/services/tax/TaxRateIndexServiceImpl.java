@@ -0,0 +1,86 @@
+package com.salesmanager.core.business.services.tax;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.repositories.tax.TaxClassRepository;
+import com.salesmanager.core.business.repositories.tax.TaxRateRepository;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.tax.taxclass.TaxClass;
+import com.salesmanager.core.model.tax.taxrate.TaxRate;
+
+@Service("taxRateIndexService")
+public class TaxRateIndexServiceImpl implements TaxRateIndexService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TaxRateIndexServiceImpl.class);
+
+  @Inject
+  private TaxRateRepository taxRateRepository;
+
+  @Inject
+  private TaxClassRepository taxClassRepository;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  private final ConcurrentMap<Integer, TaxRateIndex> indexes =
+      new ConcurrentHashMap<Integer, TaxRateIndex>();
+
+  @Override
+  public TaxRateIndex getIndex(MerchantStore store) throws ServiceException {
+
+    long version = storeVersionService.getVersion(StoreVersionService.TAX_RATES, store.getId());
+    TaxRateIndex index = indexes.get(store.getId());
+    if (index != null && index.getVersion() == version) {
+      return index;
+    }
+
+    index = load(store.getId(), version);
+
+    //do not replace an index built for a more recent version
+    TaxRateIndex current = indexes.get(store.getId());
+    if (current == null || current.getVersion() <= version) {
+      indexes.put(store.getId(), index);
+    }
+    return index;
+  }
+
+  @Override
+  public void invalidate(Integer storeId) {
+    storeVersionService.invalidate(StoreVersionService.TAX_RATES, storeId);
+  }
+
+  private TaxRateIndex load(Integer storeId, long version) throws ServiceException {
+
+    TaxClass defaultTaxClass = taxClassRepository
+        .findByStoreAndCode(storeId, TaxClass.DEFAULT_TAX_CLASS);
+    if (defaultTaxClass == null) {
+      defaultTaxClass = taxClassRepository.findByCode(TaxClass.DEFAULT_TAX_CLASS);
+    }
+
+    //fetching descriptions returns a row per description
+    Map<Long, TaxRate> taxRates = new LinkedHashMap<Long, TaxRate>();
+    List<TaxRate> rows = taxRateRepository.findByStore(storeId);
+    for (TaxRate taxRate : rows) {
+      taxRates.put(taxRate.getId(), taxRate);
+    }
+
+    LOGGER.debug("Loaded " + taxRates.size() + " tax rates version " + version + " for store "
+        + storeId);
+
+    return new TaxRateIndex(version,
+        defaultTaxClass == null ? null : defaultTaxClass.getId(), taxRates.values());
+  }
+
+}
@@ -22,6 +22,9 @@ public class TaxRateServiceImpl extends SalesManagerEntityServiceImpl<Long, TaxR
 
   private TaxRateRepository taxRateRepository;
 
+  @Inject
+  private TaxRateIndexService taxRateIndexService;
+
   @Inject
   public TaxRateServiceImpl(TaxRateRepository taxRateRepository) {
     super(taxRateRepository);
@@ -65,12 +68,20 @@ public class TaxRateServiceImpl extends SalesManagerEntityServiceImpl<Long, TaxR
             country.getId(), language.getId());
   }
 
+  @Override
+  public void save(TaxRate taxRate) throws ServiceException {
+    super.save(taxRate);
+    taxRateIndexService.invalidate(taxRate.getMerchantStore().getId());
+  }
+
   @Override
   public void delete(TaxRate taxRate) throws ServiceException {
 
     //TaxRate t = this.getById(taxRate.getId());
     //super.delete(t);
+    Integer storeId = taxRate.getMerchantStore().getId();
     taxRateRepository.delete(taxRate);
+    taxRateIndexService.invalidate(storeId);
 
   }
 
@@ -17,6 +17,7 @@ import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.services.system.MerchantConfigurationService;
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshotService;
 import com.salesmanager.core.model.common.Billing;
 import com.salesmanager.core.model.common.Delivery;
 import com.salesmanager.core.model.customer.Customer;
@@ -39,16 +40,15 @@ public class TaxServiceImpl
     implements TaxService {
 
   private final static String TAX_CONFIGURATION = "TAX_CONFIG";
-  private final static String DEFAULT_TAX_CLASS = "DEFAULT";
 
   @Inject
   private MerchantConfigurationService merchantConfigurationService;
 
   @Inject
-  private TaxRateService taxRateService;
+  private TaxRateIndexService taxRateIndexService;
 
   @Inject
-  private TaxClassService taxClassService;
+  private MerchantConfigurationSnapshotService merchantConfigurationSnapshotService;
 
   @Override
   public TaxConfiguration getTaxConfiguration(MerchantStore store) throws ServiceException {
@@ -106,7 +106,8 @@ public class TaxServiceImpl
     }
 
     //determine tax calculation basis
-    TaxConfiguration taxConfiguration = this.getTaxConfiguration(store);
+    TaxConfiguration taxConfiguration = merchantConfigurationSnapshotService.getSnapshot(store)
+        .getTaxConfiguration();
     if (taxConfiguration == null) {
       taxConfiguration = new TaxConfiguration();
       taxConfiguration.setTaxBasisCalculation(TaxBasisCalculation.SHIPPINGADDRESS);
@@ -170,7 +171,8 @@ public class TaxServiceImpl
       return null;
     }
 
-    Map<Long, TaxClass> taxClasses = new HashMap<Long, TaxClass>();
+    TaxRateIndex taxRateIndex = taxRateIndexService.getIndex(store);
+    Long defaultTaxClassId = taxRateIndex.getDefaultTaxClassId();
 
     //put items in a map by tax class id
     Map<Long, BigDecimal> taxClassAmountMap = new HashMap<Long, BigDecimal>();
@@ -180,90 +182,70 @@ public class TaxServiceImpl
       TaxClass taxClass = item.getProduct().getTaxClass();
       int quantity = item.getQuantity();
       itemPrice = itemPrice.multiply(new BigDecimal(quantity));
-      if (taxClass == null) {
-        taxClass = taxClassService.getByCode(DEFAULT_TAX_CLASS);
+      Long taxClassId = taxClass == null ? defaultTaxClassId : taxClass.getId();
+      if (taxClassId == null) {
+        continue;
       }
-      BigDecimal subTotal = taxClassAmountMap.get(taxClass.getId());
+      BigDecimal subTotal = taxClassAmountMap.get(taxClassId);
       if (subTotal == null) {
-        subTotal = new BigDecimal(0);
-        subTotal.setScale(2, RoundingMode.HALF_UP);
+        subTotal = BigDecimal.ZERO;
       }
 
-      subTotal = subTotal.add(itemPrice);
-      taxClassAmountMap.put(taxClass.getId(), subTotal);
-      taxClasses.put(taxClass.getId(), taxClass);
+      taxClassAmountMap.put(taxClassId, subTotal.add(itemPrice));
 
     }
 
-    //tax on shipping ?
-    //ShippingConfiguration shippingConfiguration = shippingService.getShippingConfiguration(store);
-
     /** always calculate tax on shipping **/
-    //if(shippingConfiguration!=null) {
-    //if(shippingConfiguration.isTaxOnShipping()){
     //use default tax class for shipping
-    TaxClass defaultTaxClass = taxClassService.getByCode(TaxClass.DEFAULT_TAX_CLASS);
-    //taxClasses.put(defaultTaxClass.getId(), defaultTaxClass);
-    BigDecimal amnt = taxClassAmountMap.get(defaultTaxClass.getId());
-    if (amnt == null) {
-      amnt = new BigDecimal(0);
-      amnt.setScale(2, RoundingMode.HALF_UP);
-    }
-    ShippingSummary shippingSummary = orderSummary.getShippingSummary();
-    if (shippingSummary != null && shippingSummary.getShipping() != null
-        && shippingSummary.getShipping().doubleValue() > 0) {
-      amnt = amnt.add(shippingSummary.getShipping());
-      if (shippingSummary.getHandling() != null
-          && shippingSummary.getHandling().doubleValue() > 0) {
-        amnt = amnt.add(shippingSummary.getHandling());
+    if (defaultTaxClassId != null) {
+      BigDecimal amnt = taxClassAmountMap.get(defaultTaxClassId);
+      if (amnt == null) {
+        amnt = BigDecimal.ZERO;
       }
+      ShippingSummary shippingSummary = orderSummary.getShippingSummary();
+      if (shippingSummary != null && shippingSummary.getShipping() != null
+          && shippingSummary.getShipping().signum() > 0) {
+        amnt = amnt.add(shippingSummary.getShipping());
+        if (shippingSummary.getHandling() != null
+            && shippingSummary.getHandling().signum() > 0) {
+          amnt = amnt.add(shippingSummary.getHandling());
+        }
+      }
+      taxClassAmountMap.put(defaultTaxClassId, amnt);
     }
-    taxClassAmountMap.put(defaultTaxClass.getId(), amnt);
-    //}
-    //}
 
     List<TaxItem> taxItems = new ArrayList<TaxItem>();
+    Integer languageId = language.getId();
 
     //iterate through the tax class and get appropriate rates
-    for (Long taxClassId : taxClassAmountMap.keySet()) {
+    for (Map.Entry<Long, BigDecimal> taxClassAmount : taxClassAmountMap.entrySet()) {
 
-      //get taxRate by tax class
-      List<TaxRate> taxRates = null;
-      if (!StringUtils.isBlank(stateProvince) && zone == null) {
-        taxRates = taxRateService.listByCountryStateProvinceAndTaxClass(country, stateProvince,
-            taxClasses.get(taxClassId), store, language);
-      } else {
-        taxRates = taxRateService
-            .listByCountryZoneAndTaxClass(country, zone, taxClasses.get(taxClassId), store,
-                language);
-      }
+      TaxRateIndex.Rate[] taxRates = taxRateIndex
+          .getRates(country, zone, stateProvince, taxClassAmount.getKey());
 
-      if (taxRates == null || taxRates.size() == 0) {
-        continue;
-      }
-      BigDecimal taxedItemValue = null;
-      BigDecimal totalTaxedItemValue = new BigDecimal(0);
-      totalTaxedItemValue.setScale(2, RoundingMode.HALF_UP);
-      BigDecimal beforeTaxeAmount = taxClassAmountMap.get(taxClassId);
-      for (TaxRate taxRate : taxRates) {
+      BigDecimal totalTaxedItemValue = BigDecimal.ZERO;
+      BigDecimal beforeTaxeAmount = taxClassAmount.getValue();
+      for (TaxRateIndex.Rate taxRate : taxRates) {
 
-        double taxRateDouble = taxRate.getTaxRate().doubleValue();//5% ... 8% ...
+        if (!taxRate.isDescribed(languageId)) {
+          continue;
+        }
 
         if (taxRate.isPiggyback()) {//(compound)
-          if (totalTaxedItemValue.doubleValue() > 0) {
+          if (totalTaxedItemValue.signum() > 0) {
             beforeTaxeAmount = totalTaxedItemValue;
           }
         } //else just use nominal taxing (combine)
 
-        double value = (beforeTaxeAmount.doubleValue() * taxRateDouble) / 100;
-        double roundedValue = new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
-        taxedItemValue = new BigDecimal(roundedValue).setScale(2, RoundingMode.HALF_UP);
+        //5% ... 8% ...
+        BigDecimal taxedItemValue = beforeTaxeAmount.multiply(taxRate.getPercentage())
+            .movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
         totalTaxedItemValue = beforeTaxeAmount.add(taxedItemValue);
 
         TaxItem taxItem = new TaxItem();
         taxItem.setItemPrice(taxedItemValue);
-        taxItem.setLabel(taxRate.getDescriptions().get(0).getName());
-        taxItem.setTaxRate(taxRate);
+        taxItem.setLabel(taxRate.getLabel(languageId));
+        taxItem.setTaxRate(taxRate.getTaxRate());
         taxItems.add(taxItem);
 
       }
@@ -275,14 +257,13 @@ public class TaxServiceImpl
     for (TaxItem taxItem : taxItems) {
 
       TaxRate taxRate = taxItem.getTaxRate();
-      if (!taxItemsMap.containsKey(taxRate.getCode())) {
+      TaxItem item = taxItemsMap.get(taxRate.getCode());
+      if (item == null) {
         taxItemsMap.put(taxRate.getCode(), taxItem);
+      } else {
+        item.setItemPrice(item.getItemPrice().add(taxItem.getItemPrice()));
       }
 
-      TaxItem item = taxItemsMap.get(taxRate.getCode());
-      BigDecimal amount = item.getItemPrice();
-      amount = amount.add(taxItem.getItemPrice());
-
     }
 
     if (taxItemsMap.size() == 0) {
@@ -0,0 +1,153 @@
+package com.salesmanager.core.business.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Number formats of amounts by locale, currency and style. A format is built once and each thread
+ * formats with its own copy, NumberFormat is not thread safe. Amounts are formatted from the
+ * BigDecimal, without going through a double, and rounded half up
+ */
+public class MoneyFormatRegistry {
+
+  public enum Style {
+    /** currency symbol of the locale, $1,345.99 */
+    NATIONAL,
+    /** currency format of the default locale of the server */
+    INTERNATIONAL,
+    /** amount without currency, a fixed number of fraction digits */
+    AMOUNT
+  }
+
+  private final int fractionDigits;
+
+  private final ConcurrentMap<Key, NumberFormat> prototypes =
+      new ConcurrentHashMap<Key, NumberFormat>();
+
+  private final ConcurrentMap<String, Locale> locales = new ConcurrentHashMap<String, Locale>();
+
+  private final ThreadLocal<Map<Key, NumberFormat>> formats =
+      new ThreadLocal<Map<Key, NumberFormat>>() {
+        @Override
+        protected Map<Key, NumberFormat> initialValue() {
+          return new HashMap<Key, NumberFormat>();
+        }
+      };
+
+  /**
+   * @param fractionDigits of AMOUNT formats
+   */
+  public MoneyFormatRegistry(int fractionDigits) {
+    this.fractionDigits = fractionDigits;
+  }
+
+  public String format(Style style, Locale locale, Currency currency, BigDecimal amount) {
+    return getFormat(style, locale, currency).format(amount);
+  }
+
+  /**
+   * Format owned by the calling thread, must not be modified nor shared
+   */
+  public NumberFormat getFormat(Style style, Locale locale, Currency currency) {
+    if (style == Style.INTERNATIONAL) {
+      locale = Locale.getDefault(Locale.Category.FORMAT);
+    }
+    Key key = new Key(style, locale, currency);
+    Map<Key, NumberFormat> threadFormats = formats.get();
+    NumberFormat format = threadFormats.get(key);
+    if (format == null) {
+      NumberFormat prototype = prototypes.get(key);
+      if (prototype == null) {
+        prototype = create(style, locale, currency);
+        NumberFormat existing = prototypes.putIfAbsent(key, prototype);
+        if (existing != null) {
+          prototype = existing;
+        }
+      }
+      //the prototype is never used to format, only copied
+      synchronized (prototype) {
+        format = (NumberFormat) prototype.clone();
+      }
+      threadFormats.put(key, format);
+    }
+    return format;
+  }
+
+  /**
+   * Locale of a language and a country, shared
+   */
+  public Locale getLocale(String language, String country) {
+    String key = language + '_' + country;
+    Locale locale = locales.get(key);
+    if (locale == null) {
+      locale = new Locale(language, country);
+      Locale existing = locales.putIfAbsent(key, locale);
+      if (existing != null) {
+        locale = existing;
+      }
+    }
+    return locale;
+  }
+
+  private NumberFormat create(Style style, Locale locale, Currency currency) {
+    NumberFormat format;
+    if (style == Style.AMOUNT) {
+      format = NumberFormat.getInstance(locale);
+      format.setMaximumFractionDigits(fractionDigits);
+      format.setMinimumFractionDigits(fractionDigits);
+    } else {
+      format = NumberFormat.getCurrencyInstance(locale);
+    }
+    if (currency != null) {
+      format.setCurrency(currency);
+    }
+    //NumberFormat rounds half even by default
+    format.setRoundingMode(RoundingMode.HALF_UP);
+    return format;
+  }
+
+  private static final class Key {
+
+    private final Style style;
+    private final Locale locale;
+    private final Currency currency;
+    private final int hash;
+
+    Key(Style style, Locale locale, Currency currency) {
+      this.style = style;
+      this.locale = locale;
+      this.currency = currency;
+      int h = style.hashCode();
+      h = 31 * h + locale.hashCode();
+      h = 31 * h + (currency == null ? 0 : currency.hashCode());
+      this.hash = h;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return style == other.style && locale.equals(other.locale)
+          && (currency == null ? other.currency == null : currency.equals(other.currency));
+    }
+
+  }
+
+}
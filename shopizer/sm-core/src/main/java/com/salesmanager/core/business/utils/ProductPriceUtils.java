@@ -1,7 +1,6 @@
 package com.salesmanager.core.business.utils;
 
 import java.math.BigDecimal;
-import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Currency;
 import java.util.Date;
@@ -20,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.salesmanager.core.business.constants.Constants;
+import com.salesmanager.core.business.utils.MoneyFormatRegistry.Style;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.attribute.ProductAttribute;
 import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
@@ -41,6 +41,10 @@ public class ProductPriceUtils {
   private final static char DECIMALCOUNT = '2';
   private final static char DECIMALPOINT = '.';
   private final static char THOUSANDPOINT = ',';
+  private final static int FRACTION_DIGITS = DECIMALCOUNT - '0';
+
+  //formats built once per locale and currency, one copy per thread
+  private final MoneyFormatRegistry formats = new MoneyFormatRegistry(FRACTION_DIGITS);
 
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ProductPriceUtils.class);
@@ -165,16 +169,7 @@ public class ProductPriceUtils {
       return "";
     }
 
-    NumberFormat nf = null;
-
-    nf = NumberFormat.getInstance(Constants.DEFAULT_LOCALE);
-
-    nf.setMaximumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-    nf.setMinimumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-
-    return nf.format(amount);
+    return formats.format(Style.AMOUNT, Constants.DEFAULT_LOCALE, null, amount);
   }
 
 
@@ -196,21 +191,17 @@ public class ProductPriceUtils {
     try {
 
       currency = store.getCurrency().getCurrency();
-      locale = new Locale(store.getDefaultLanguage().getCode(), store.getCountry().getIsoCode());
+      locale = formats.getLocale(store.getDefaultLanguage().getCode(),
+          store.getCountry().getIsoCode());
     } catch (Exception e) {
       LOGGER.error("Cannot create currency or locale instance for store " + store.getCode());
     }
 
-    NumberFormat currencyInstance = null;
-
     if (store.isCurrencyFormatNational()) {
-      currencyInstance = NumberFormat.getCurrencyInstance(locale);//national
+      return formats.format(Style.NATIONAL, locale, currency, amount);
     } else {
-      currencyInstance = NumberFormat.getCurrencyInstance();//international
+      return formats.format(Style.INTERNATIONAL, locale, currency, amount);
     }
-    currencyInstance.setCurrency(currency);
-
-    return currencyInstance.format(amount.doubleValue());
 
 
   }
@@ -223,13 +214,7 @@ public class ProductPriceUtils {
       return "";
     }
 
-    Currency curr = currency.getCurrency();
-
-    NumberFormat currencyInstance = null;
-
-    currencyInstance = NumberFormat.getCurrencyInstance(locale);
-    currencyInstance.setCurrency(curr);
-    return currencyInstance.format(amount.doubleValue());
+    return formats.format(Style.NATIONAL, locale, currency.getCurrency(), amount);
 
 
   }
@@ -244,17 +229,8 @@ public class ProductPriceUtils {
       return "";
     }
 
-    NumberFormat nf = null;
-
     Currency currency = store.getCurrency().getCurrency();
-    nf = NumberFormat.getInstance(Constants.DEFAULT_LOCALE);
-    nf.setMaximumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-    nf.setMinimumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-    nf.setCurrency(currency);
-
-    return nf.format(amount);
+    return formats.format(Style.AMOUNT, Constants.DEFAULT_LOCALE, currency, amount);
   }
 
   /**
@@ -270,19 +246,8 @@ public class ProductPriceUtils {
 
     Validate.notNull(currency.getCurrency(), "Currency must be populated with java.util.Currency");
 
-    NumberFormat nf = null;
-
-    Currency curr = currency.getCurrency();
-    nf = NumberFormat.getInstance(Constants.DEFAULT_LOCALE);
-    nf.setMaximumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-    nf.setMinimumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-    nf.setCurrency(curr);
-
-    String stringNumber = nf.format(amount);
-
-    return stringNumber;
+    return formats.format(Style.AMOUNT, Constants.DEFAULT_LOCALE, currency.getCurrency(),
+        amount);
   }
 
   /**
@@ -291,18 +256,8 @@ public class ProductPriceUtils {
   public String getFormatedAmountWithCurrency(MerchantStore store, BigDecimal amount, Locale locale)
       throws Exception {
 
-    NumberFormat nf = null;
-
     Currency currency = store.getCurrency().getCurrency();
-
-    nf = NumberFormat.getInstance(locale);
-    nf.setCurrency(currency);
-    nf.setMaximumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-    nf.setMinimumFractionDigits(Integer.parseInt(Character
-        .toString(DECIMALCOUNT)));
-
-    return nf.format(amount);
+    return formats.format(Style.AMOUNT, locale, currency, amount);
 
   }
 
@@ -0,0 +1,151 @@
+package com.salesmanager.test.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.salesmanager.core.business.services.catalog.category.CategoryFacet;
+import com.salesmanager.core.business.services.catalog.category.CategoryFacetIndex;
+import com.salesmanager.core.business.services.catalog.category.CategoryTree;
+import com.salesmanager.core.model.catalog.category.Category;
+
+/**
+ * Test
+ *
+ * - Counts, price ranges and manufacturers rolled up to the ancestors
+ * - Facets of a product's categories follow product changes
+ * - Products become available at their date available
+ * - Products of hidden sub categories are not rolled up
+ */
+public class CategoryFacetIndexTest {
+
+  private static final long DAY = 24L * 60 * 60 * 1000;
+
+  private Date now;
+  private List<Category> categories;
+  private CategoryFacetIndex index;
+
+  @Before
+  public void setUp() {
+
+    now = new Date();
+
+    //1 -> 2 -> 3, 4
+    Category c1 = category(1L, null);
+    Category c2 = category(2L, c1);
+    Category c3 = category(3L, c2);
+    Category c4 = category(4L, null);
+    categories = Arrays.asList(c1, c2, c3, c4);
+
+    List<CategoryFacetIndex.Entry> entries = new ArrayList<CategoryFacetIndex.Entry>();
+    entries.add(entry(10L, true, null, 100L, "20.00", 1L));
+    entries.add(entry(11L, true, null, 101L, "5.00", 2L, 3L));
+    entries.add(entry(12L, true, null, null, "50.00", 3L));
+    entries.add(entry(13L, false, null, 102L, "1.00", 3L));
+    entries.add(entry(14L, true, new Date(now.getTime() + DAY), 103L, "2.00", 3L));
+    index = new CategoryFacetIndex(0, tree(1L), entries);
+  }
+
+  @Test
+  public void rollup() {
+    Map<Long, CategoryFacet> facets =
+        index.getFacets(tree(1L), Arrays.asList(1L, 2L, 3L, 4L), now);
+
+    CategoryFacet root = facets.get(1L);
+    Assert.assertEquals(3, root.getProductCount());
+    Assert.assertEquals(new BigDecimal("5.00"), root.getMinPrice());
+    Assert.assertEquals(new BigDecimal("50.00"), root.getMaxPrice());
+    Assert.assertEquals(new HashSet<Long>(Arrays.asList(100L, 101L)),
+        root.getManufacturerIds());
+
+    //product 11 is in both 2 and 3
+    Assert.assertEquals(2, facets.get(2L).getProductCount());
+    Assert.assertEquals(2, facets.get(3L).getProductCount());
+    Assert.assertEquals(0, facets.get(4L).getProductCount());
+    Assert.assertNull(facets.get(4L).getMinPrice());
+  }
+
+  @Test
+  public void productChanges() {
+    index.getFacets(tree(1L), Arrays.asList(1L, 2L, 3L, 4L), now);
+
+    index.put(entry(12L, true, null, 104L, "70.00", 4L));
+    Map<Long, CategoryFacet> facets =
+        index.getFacets(tree(1L), Arrays.asList(1L, 3L, 4L), now);
+    Assert.assertEquals(2, facets.get(1L).getProductCount());
+    Assert.assertEquals(new BigDecimal("20.00"), facets.get(1L).getMaxPrice());
+    Assert.assertEquals(1, facets.get(3L).getProductCount());
+    Assert.assertEquals(1, facets.get(4L).getProductCount());
+    Assert.assertTrue(facets.get(4L).getManufacturerIds().contains(104L));
+
+    index.remove(11L);
+    Assert.assertEquals(1,
+        index.getFacets(tree(1L), Arrays.asList(1L), now).get(1L).getProductCount());
+  }
+
+  @Test
+  public void dateAvailable() {
+    Assert.assertEquals(3,
+        index.getFacets(tree(1L), Arrays.asList(1L), now).get(1L).getProductCount());
+
+    CategoryFacet later =
+        index.getFacets(tree(1L), Arrays.asList(1L), new Date(now.getTime() + 2 * DAY)).get(1L);
+    Assert.assertEquals(4, later.getProductCount());
+    Assert.assertEquals(new BigDecimal("2.00"), later.getMinPrice());
+  }
+
+  @Test
+  public void treeChanges() {
+    Assert.assertEquals(3,
+        index.getFacets(tree(1L), Arrays.asList(1L), now).get(1L).getProductCount());
+
+    //3 moved under 4
+    Category c3 = categories.get(2);
+    c3.setParent(categories.get(3));
+    Map<Long, CategoryFacet> facets = index.getFacets(tree(2L), Arrays.asList(1L, 4L), now);
+    Assert.assertEquals(2, facets.get(1L).getProductCount());
+    Assert.assertEquals(2, facets.get(4L).getProductCount());
+  }
+
+  @Test
+  public void hiddenCategories() {
+    categories.get(2).setVisible(false);
+    Map<Long, CategoryFacet> facets = index.getFacets(tree(2L), Arrays.asList(1L, 2L), now);
+
+    //product 11 is still in 2, product 12 only in 3
+    Assert.assertEquals(2, facets.get(1L).getProductCount());
+    Assert.assertEquals(new BigDecimal("20.00"), facets.get(1L).getMaxPrice());
+    Assert.assertEquals(1, facets.get(2L).getProductCount());
+  }
+
+  private CategoryTree tree(long version) {
+    return new CategoryTree(version, categories);
+  }
+
+  private Category category(Long id, Category parent) {
+    Category category = new Category();
+    category.setId(id);
+    category.setCode("c" + id);
+    category.setParent(parent);
+    category.setSortOrder(0);
+    category.setVisible(true);
+    category.setDepth(parent == null ? 0 : parent.getDepth() + 1);
+    category.setLineage(parent == null ? "/" : parent.getLineage() + parent.getId() + "/");
+    return category;
+  }
+
+  private CategoryFacetIndex.Entry entry(Long productId, boolean available, Date dateAvailable,
+      Long manufacturerId, String price, Long... categoryIds) {
+    return new CategoryFacetIndex.Entry(productId, available, dateAvailable, manufacturerId,
+        new BigDecimal(price), new HashSet<Long>(Arrays.asList(categoryIds)));
+  }
+
+}
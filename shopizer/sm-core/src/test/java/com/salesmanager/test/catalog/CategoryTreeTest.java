@@ -0,0 +1,116 @@
+package com.salesmanager.test.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.salesmanager.core.business.services.catalog.category.CategoryTree;
+import com.salesmanager.core.model.catalog.category.Category;
+import com.salesmanager.core.model.catalog.category.CategoryDescription;
+import com.salesmanager.core.model.reference.language.Language;
+
+/**
+ * Test
+ *
+ * - Descendants in pre-order from the interval numbering
+ * - Same categories and order as the lineage queries
+ * - Categories by depth filtered by language
+ */
+public class CategoryTreeTest {
+
+  private Language english;
+  private Language french;
+  private CategoryTree tree;
+
+  @Before
+  public void setUp() {
+
+    english = new Language("en");
+    english.setId(1);
+    french = new Language("fr");
+    french.setId(2);
+
+    //1 -> (3 -> 4, 2), 5
+    Category c1 = category(1L, null, 1, true);
+    Category c2 = category(2L, c1, 2, true);
+    Category c3 = category(3L, c1, 1, false);
+    Category c4 = category(4L, c3, 1, true);
+    Category c5 = category(5L, null, 2, true);
+    c4.setFeatured(true);
+    c2.getDescriptions().add(description(c2, french));
+
+    tree = new CategoryTree(3L, Arrays.asList(c5, c4, c3, c2, c1));
+  }
+
+  @Test
+  public void descendants() {
+    Assert.assertEquals(3L, tree.getVersion());
+    Assert.assertEquals(5, tree.size());
+    Assert.assertEquals(Arrays.asList(3L, 4L, 2L), tree.getDescendantIds(1L, false));
+    //visibility is not inherited
+    Assert.assertEquals(Arrays.asList(4L, 2L), tree.getDescendantIds(1L, true));
+    Assert.assertTrue(tree.getDescendantIds(5L, false).isEmpty());
+    Assert.assertTrue(tree.getDescendantIds(99L, false).isEmpty());
+    Assert.assertEquals(2, tree.getDepth(4L));
+    Assert.assertEquals(Long.valueOf(3L), tree.getParent(4L).getId());
+    Assert.assertEquals(Arrays.asList(3L, 2L), ids(tree.getChildren(1L)));
+    Assert.assertSame(tree.get(1L), tree.get(3L).getParent());
+  }
+
+  @Test
+  public void lineage() {
+    //lineage then sort order
+    Assert.assertEquals(Arrays.asList(3L, 2L, 4L), ids(tree.listByLineage("/1/")));
+    Assert.assertEquals(Arrays.asList(4L), ids(tree.listByLineage("/1/3/")));
+    Assert.assertEquals(Arrays.asList(1L, 5L, 3L, 2L, 4L), ids(tree.listByLineage("/")));
+    Assert.assertTrue(tree.listByLineage("/5/").isEmpty());
+  }
+
+  @Test
+  public void depth() {
+    Assert.assertEquals(Arrays.asList(3L, 2L, 4L), ids(tree.listByDepth(1, null, false)));
+    Assert.assertEquals(Arrays.asList(4L), ids(tree.listByDepth(0, null, true)));
+
+    List<Category> french = tree.listByDepth(0, this.french.getId(), false);
+    Assert.assertEquals(Arrays.asList(2L), ids(french));
+    Assert.assertEquals(1, french.get(0).getDescriptions().size());
+    Assert.assertEquals("fr", french.get(0).getDescriptions().get(0).getLanguage().getCode());
+    //full descriptions are kept in the default copies
+    Assert.assertEquals(2, tree.get(2L).getDescriptions().size());
+  }
+
+  private Category category(Long id, Category parent, int sortOrder, boolean visible) {
+    Category category = new Category();
+    category.setId(id);
+    category.setCode("c" + id);
+    category.setParent(parent);
+    category.setSortOrder(sortOrder);
+    category.setVisible(visible);
+    category.setDepth(parent == null ? 0 : parent.getDepth() + 1);
+    category.setLineage(parent == null ? "/"
+        : parent.getLineage() + parent.getId() + "/");
+    List<CategoryDescription> descriptions = new ArrayList<CategoryDescription>();
+    descriptions.add(description(category, english));
+    category.setDescriptions(descriptions);
+    return category;
+  }
+
+  private CategoryDescription description(Category category, Language language) {
+    CategoryDescription description = new CategoryDescription(category.getCode(), language);
+    description.setCategory(category);
+    return description;
+  }
+
+  private List<Long> ids(List<Category> categories) {
+    List<Long> ids = new ArrayList<Long>();
+    for (Category category : categories) {
+      ids.add(category.getId());
+    }
+    return ids;
+  }
+
+}
@@ -0,0 +1,144 @@
+package com.salesmanager.test.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
+import com.salesmanager.core.model.catalog.product.description.ProductDescription;
+import com.salesmanager.core.model.catalog.product.price.ProductPrice;
+import com.salesmanager.core.model.catalog.product.type.ProductType;
+import com.salesmanager.core.model.generic.SalesManagerEntity;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+
+/**
+ * Test
+ *
+ * - Products loaded by batch have the same details as products loaded one by one
+ * - Several availabilities and descriptions do not duplicate products
+ * - Products without availability are loaded, ids not found are left out
+ */
+public class ProductBatchLoadTest extends
+    com.salesmanager.test.common.AbstractSalesManagerCoreTestCase {
+
+  @Test
+  public void batchLoad() throws Exception {
+
+    Language en = languageService.getByCode(ENGLISH_LANGUAGE_CODE);
+    Language fr = languageService.getByCode(FRENCH_LANGUAGE_CODE);
+
+    Product translated = createProduct("BATCH-TRANSLATED", new String[] {"*"}, en, fr);
+    Product regions = createProduct("BATCH-REGIONS", new String[] {"*", "CA"}, en);
+    Product unavailable = createProduct("BATCH-UNAVAILABLE", new String[] {"*"}, en);
+    productAvailabilityService.delete(unavailable.getAvailabilities().iterator().next());
+
+    List<Product> products = productService.getByIds(Arrays.asList(translated.getId(),
+        regions.getId(), unavailable.getId(), Long.MAX_VALUE));
+
+    Assert.assertEquals(3, products.size());
+    Map<Long, Product> byId = new HashMap<Long, Product>();
+    for (Product product : products) {
+      byId.put(product.getId(), product);
+    }
+
+    for (Product product : new Product[] {translated, regions}) {
+      Product single = productService.getById(product.getId());
+      Product batch = byId.get(product.getId());
+      Assert.assertNotNull(batch);
+      Assert.assertEquals(single.getSku(), batch.getSku());
+      Assert.assertEquals(single.getMerchantStore().getId(), batch.getMerchantStore().getId());
+      Assert.assertEquals(single.getType().getId(), batch.getType().getId());
+      Assert.assertEquals(descriptionIds(single), descriptionIds(batch));
+      Assert.assertEquals(ids(single.getAvailabilities()), ids(batch.getAvailabilities()));
+      Assert.assertEquals(ids(single.getCategories()), ids(batch.getCategories()));
+      Assert.assertEquals(priceIds(single), priceIds(batch));
+    }
+
+    Assert.assertEquals(2, byId.get(translated.getId()).getDescriptions().size());
+    Assert.assertEquals(2, byId.get(regions.getId()).getAvailabilities().size());
+    Assert.assertEquals(2, priceIds(byId.get(regions.getId())).size());
+
+    //loaded by batch only, one by one requires an availability
+    Assert.assertTrue(byId.get(unavailable.getId()).getAvailabilities().isEmpty());
+    Assert.assertNull(productService.getById(unavailable.getId()));
+
+    Assert.assertTrue(productService.getByIds(new ArrayList<Long>()).isEmpty());
+    Assert.assertTrue(productService.getByIds(Arrays.asList(Long.MAX_VALUE)).isEmpty());
+  }
+
+  private static Set<Object> ids(Collection<? extends SalesManagerEntity<?, ?>> entities) {
+    Set<Object> ids = new TreeSet<Object>();
+    for (SalesManagerEntity<?, ?> entity : entities) {
+      ids.add(entity.getId());
+    }
+    return ids;
+  }
+
+  private static Set<Object> descriptionIds(Product product) {
+    Set<Object> ids = new TreeSet<Object>();
+    for (ProductDescription description : product.getDescriptions()) {
+      ids.add(description.getId());
+    }
+    return ids;
+  }
+
+  private static Set<Object> priceIds(Product product) {
+    Set<Object> ids = new TreeSet<Object>();
+    for (ProductAvailability availability : product.getAvailabilities()) {
+      ids.addAll(ids(availability.getPrices()));
+    }
+    return ids;
+  }
+
+  private Product createProduct(String sku, String[] regions, Language... languages)
+      throws ServiceException {
+
+    MerchantStore store = merchantService.getByCode(MerchantStore.DEFAULT_STORE);
+    ProductType generalType = productTypeService.getProductType(ProductType.GENERAL_TYPE);
+
+    Product product = new Product();
+    product.setSku(sku);
+    product.setType(generalType);
+    product.setMerchantStore(store);
+
+    for (Language language : languages) {
+      ProductDescription description = new ProductDescription();
+      description.setName(sku + " " + language.getCode());
+      description.setLanguage(language);
+      description.setProduct(product);
+      product.getDescriptions().add(description);
+    }
+
+    for (String region : regions) {
+      ProductAvailability availability = new ProductAvailability();
+      availability.setProductDateAvailable(new Date());
+      availability.setProductQuantity(10);
+      availability.setRegion(region);
+      availability.setProduct(product);
+
+      ProductPrice price = new ProductPrice();
+      price.setDefaultPrice(true);
+      price.setProductPriceAmount(new BigDecimal(10));
+      price.setProductAvailability(availability);
+      availability.getPrices().add(price);
+      product.getAvailabilities().add(availability);
+    }
+
+    productService.create(product);
+    return product;
+  }
+
+}
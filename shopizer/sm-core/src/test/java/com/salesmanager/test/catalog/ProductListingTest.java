@@ -0,0 +1,178 @@
+package com.salesmanager.test.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.ProductCriteria;
+import com.salesmanager.core.model.catalog.product.ProductList;
+import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
+import com.salesmanager.core.model.catalog.product.description.ProductDescription;
+import com.salesmanager.core.model.catalog.product.price.ProductPrice;
+import com.salesmanager.core.model.catalog.product.type.ProductType;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+
+/**
+ * Test
+ *
+ * - Pages listed by id then loaded have the products, order and total count of the single
+ * listing query used before
+ * - Products with several availabilities or descriptions appear once
+ * - Products without a description in the language are left out of pages and count
+ */
+public class ProductListingTest extends
+    com.salesmanager.test.common.AbstractSalesManagerCoreTestCase {
+
+  private static final String SKU = "LISTING-";
+  private static final int PAGE = 3;
+
+  @PersistenceContext(unitName = "shopizerContainer")
+  private EntityManager em;
+
+  @Test
+  public void pages() throws Exception {
+
+    MerchantStore store = merchantService.getByCode(MerchantStore.DEFAULT_STORE);
+    Language en = languageService.getByCode(ENGLISH_LANGUAGE_CODE);
+    Language fr = languageService.getByCode(FRENCH_LANGUAGE_CODE);
+
+    //sort orders out of the id order
+    int[] sortOrders = {5, 2, 8, 1, 7, 3, 6, 4};
+    for (int i = 0; i < sortOrders.length; i++) {
+      String[] regions = i % 2 == 0 ? new String[] {"*", "CA"} : new String[] {"*"};
+      Language[] languages = i % 3 == 0 ? new Language[] {en, fr} : new Language[] {en};
+      createProduct(SKU + i, sortOrders[i], regions, languages);
+    }
+    //not listed in english
+    createProduct(SKU + "FR", 0, new String[] {"*", "CA"}, fr);
+
+    List<Long> previous = previousListing(store, en, 0, -1);
+    Assert.assertEquals(sortOrders.length, previous.size());
+
+    for (int start = 0; start < sortOrders.length; start += PAGE) {
+
+      ProductCriteria criteria = new ProductCriteria();
+      criteria.setCode(SKU);
+      criteria.setStartIndex(start);
+      criteria.setMaxCount(PAGE);
+
+      ProductList page = productService.listByStore(store, en, criteria);
+
+      Assert.assertEquals(previous.size(), page.getTotalCount());
+      Assert.assertEquals(previousListing(store, en, start, PAGE), ids(page.getProducts()));
+      Assert.assertEquals(
+          previous.subList(start, Math.min(start + PAGE, previous.size())),
+          ids(page.getProducts()));
+
+      for (Product product : page.getProducts()) {
+        Assert.assertFalse(product.getAvailabilities().isEmpty());
+        Assert.assertFalse(product.getDescriptions().isEmpty());
+      }
+    }
+
+    ProductCriteria all = new ProductCriteria();
+    all.setCode(SKU);
+    Assert.assertEquals(previous, ids(productService.listByStore(store, en, all).getProducts()));
+  }
+
+  /**
+   * Product ids of a page as listed by the query fetching the products with their details
+   */
+  private List<Long> previousListing(MerchantStore store, Language language, int start,
+      int max) {
+
+    StringBuilder qs = new StringBuilder();
+    qs.append("select distinct p from Product as p ");
+    qs.append("join fetch p.merchantStore merch ");
+    qs.append("join fetch p.availabilities pa ");
+    qs.append("left join fetch pa.prices pap ");
+    qs.append("join fetch p.descriptions pd ");
+    qs.append("left join fetch p.categories categs ");
+    qs.append("left join fetch categs.descriptions cd ");
+    qs.append("left join fetch p.images images ");
+    qs.append("left join fetch p.manufacturer manuf ");
+    qs.append("left join fetch manuf.descriptions manufd ");
+    qs.append("left join fetch p.type type ");
+    qs.append("left join fetch p.taxClass tx ");
+    qs.append("left join fetch p.owner owner ");
+    qs.append("left join fetch p.attributes pattr ");
+    qs.append("left join fetch pattr.productOption po ");
+    qs.append("left join fetch po.descriptions pod ");
+    qs.append("left join fetch pattr.productOptionValue pov ");
+    qs.append("left join fetch pov.descriptions povd ");
+    qs.append("left join fetch p.relationships pr ");
+    qs.append("where merch.id=:mId and pd.language.id=:lang and lower(p.sku) like :sku ");
+    qs.append("order by p.sortOrder asc");
+
+    Query q = em.createQuery(qs.toString());
+    q.setParameter("mId", store.getId());
+    q.setParameter("lang", language.getId());
+    q.setParameter("sku", "%" + SKU.toLowerCase() + "%");
+    if (max > 0) {
+      q.setFirstResult(start);
+      q.setMaxResults(max);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Product> products = q.getResultList();
+    return ids(products);
+  }
+
+  private static List<Long> ids(List<Product> products) {
+    List<Long> ids = new ArrayList<Long>();
+    for (Product product : products) {
+      ids.add(product.getId());
+    }
+    return ids;
+  }
+
+  private void createProduct(String sku, int sortOrder, String[] regions,
+      Language... languages) throws ServiceException {
+
+    MerchantStore store = merchantService.getByCode(MerchantStore.DEFAULT_STORE);
+    ProductType generalType = productTypeService.getProductType(ProductType.GENERAL_TYPE);
+
+    Product product = new Product();
+    product.setSku(sku);
+    product.setSortOrder(sortOrder);
+    product.setType(generalType);
+    product.setMerchantStore(store);
+
+    for (Language language : languages) {
+      ProductDescription description = new ProductDescription();
+      description.setName(sku + " " + language.getCode());
+      description.setLanguage(language);
+      description.setProduct(product);
+      product.getDescriptions().add(description);
+    }
+
+    for (String region : regions) {
+      ProductAvailability availability = new ProductAvailability();
+      availability.setProductDateAvailable(new Date());
+      availability.setProductQuantity(10);
+      availability.setRegion(region);
+      availability.setProduct(product);
+
+      ProductPrice price = new ProductPrice();
+      price.setDefaultPrice(true);
+      price.setProductPriceAmount(new BigDecimal(10));
+      price.setProductAvailability(availability);
+      availability.getPrices().add(price);
+      product.getAvailabilities().add(availability);
+    }
+
+    productService.create(product);
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.salesmanager.test.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.salesmanager.core.business.services.catalog.product.relationship.ProductRelationshipGraph;
+import com.salesmanager.core.business.services.catalog.product.relationship.ProductRelationshipGraph.Link;
+
+/**
+ * Test
+ *
+ * - Related products by relationship code in creation order
+ * - Groups from relationships without a product
+ * - Duplicate relationships and unknown products or groups
+ */
+public class ProductRelationshipGraphTest {
+
+  private ProductRelationshipGraph graph;
+
+  @Before
+  public void setUp() {
+    List<Link> links = Arrays.asList(
+        new Link("RELATED_ITEM", 1L, 3L),
+        new Link("RELATED_ITEM", 1L, 2L),
+        new Link("BUNDLED_ITEM", 1L, 4L),
+        new Link("FEATURED_ITEM", null, 2L),
+        new Link("RELATED_ITEM", 2L, 1L),
+        new Link("SUMMER", null, 4L),
+        new Link("FEATURED_ITEM", null, 1L),
+        new Link("RELATED_ITEM", 1L, 3L));
+    graph = new ProductRelationshipGraph(5L, links);
+  }
+
+  @Test
+  public void related() {
+    Assert.assertEquals(5L, graph.getVersion());
+    Assert.assertEquals(Arrays.asList(3L, 2L), graph.getRelatedIds("RELATED_ITEM", 1L));
+    Assert.assertEquals(Arrays.asList(1L), graph.getRelatedIds("RELATED_ITEM", 2L));
+    Assert.assertEquals(Arrays.asList(4L), graph.getRelatedIds("BUNDLED_ITEM", 1L));
+  }
+
+  @Test
+  public void groups() {
+    Assert.assertEquals(Arrays.asList(2L, 1L), graph.getGroupIds("FEATURED_ITEM"));
+    Assert.assertEquals(Arrays.asList(4L), graph.getGroupIds("SUMMER"));
+    //a group is not a relationship of a product
+    Assert.assertTrue(graph.getRelatedIds("FEATURED_ITEM", 2L).isEmpty());
+  }
+
+  @Test
+  public void duplicatesAndUnknown() {
+    //duplicate 1 -> 3 counted once
+    Assert.assertEquals(7, graph.size());
+    Assert.assertTrue(graph.getRelatedIds("RELATED_ITEM", 99L).isEmpty());
+    Assert.assertTrue(graph.getRelatedIds("UNKNOWN", 1L).isEmpty());
+    Assert.assertTrue(graph.getGroupIds("WINTER").isEmpty());
+  }
+
+}
@@ -164,7 +164,10 @@ public class AbstractSalesManagerCoreTestCase {
 
   private void populate() throws ServiceException {
 
-    initializationDatabase.populate("TEST");
+    //the schema is created once by context, reference data is loaded by the first test
+    if (initializationDatabase.isEmpty()) {
+      initializationDatabase.populate("TEST");
+    }
 
 
   }
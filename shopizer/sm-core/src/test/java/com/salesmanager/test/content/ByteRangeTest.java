@@ -0,0 +1,77 @@
+package com.salesmanager.test.content;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.DigestInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.modules.cms.common.ByteRange;
+import com.salesmanager.core.business.modules.cms.common.BytesImageContent;
+import com.salesmanager.core.business.modules.cms.common.ContentDigest;
+
+/**
+ * Test
+ *
+ * - Range headers of a single range, suffix and open ranges
+ * - Whole content and unsatisfiable ranges
+ * - Entity tags computed at upload and from the stored bytes are the same
+ */
+public class ByteRangeTest {
+
+  @Test
+  public void ranges() {
+    ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+    Assert.assertEquals(0, range.getStart());
+    Assert.assertEquals(99, range.getEnd());
+    Assert.assertEquals(100, range.getLength());
+    Assert.assertEquals("bytes 0-99/1000", range.toContentRange(1000));
+
+    //last 100 bytes
+    range = ByteRange.parse("bytes=-100", 1000);
+    Assert.assertEquals(900, range.getStart());
+    Assert.assertEquals(999, range.getEnd());
+
+    range = ByteRange.parse("bytes=500-", 1000);
+    Assert.assertEquals(500, range.getLength());
+
+    //end past the content
+    range = ByteRange.parse("bytes=900-5000", 1000);
+    Assert.assertEquals(999, range.getEnd());
+  }
+
+  @Test
+  public void wholeContent() {
+    Assert.assertNull(ByteRange.parse(null, 1000));
+    Assert.assertNull(ByteRange.parse("bytes=0-999", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=0-10,20-30", 1000));
+    Assert.assertNull(ByteRange.parse("items=0-10", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=a-b", 1000));
+
+    Assert.assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", 1000));
+    Assert.assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 1000));
+  }
+
+  @Test
+  public void etags() throws Exception {
+    byte[] bytes = "product image".getBytes("UTF-8");
+
+    DigestInputStream inputStream = ContentDigest.digesting(new ByteArrayInputStream(bytes));
+    IOUtils.toByteArray(inputStream);
+    String etag = ContentDigest.etag(inputStream);
+    Assert.assertEquals(etag, ContentDigest.etag(bytes));
+    Assert.assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    Assert.assertEquals(66, etag.length());
+
+    BytesImageContent content = new BytesImageContent("image.jpg", "image/jpeg", bytes, null);
+    Assert.assertEquals(etag, content.getEtag());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    content.transferTo(8, 5, out);
+    Assert.assertEquals("image", out.toString("UTF-8"));
+
+    Assert.assertTrue(ContentDigest.weakEtag(10, 20).startsWith("W/\""));
+  }
+
+}
@@ -0,0 +1,126 @@
+package com.salesmanager.test.content;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.BytesImageContent;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
+import com.salesmanager.core.business.modules.cms.product.ProductImageContentGet;
+import com.salesmanager.core.business.modules.cms.product.ProductImagePut;
+import com.salesmanager.core.business.modules.cms.product.ProductImageProcessor;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.catalog.product.file.ProductImageSize;
+import com.salesmanager.core.model.catalog.product.image.ProductImage;
+import com.salesmanager.core.model.content.FileContentType;
+import com.salesmanager.core.model.content.ImageContentFile;
+
+/**
+ * Test
+ *
+ * - Small image and variants narrower than the original are generated
+ * - Variant names and nearest variant of a requested width
+ * - Subsampling keeps the decoded image as wide as the widest target
+ */
+public class ProductImageProcessorTest {
+
+  //store/sku/SIZE/name -> bytes
+  private Map<String, byte[]> images;
+  private ProductImageProcessor processor;
+
+  @Before
+  public void setUp() {
+    images = new HashMap<String, byte[]>();
+
+    Properties properties = new Properties();
+    properties.setProperty("PRODUCT_IMAGE_WIDTH_SIZE", "200");
+    properties.setProperty("PRODUCT_IMAGE_HEIGHT_SIZE", "200");
+    properties.setProperty("images.variants.widths", "640, 320,1600");
+    CoreConfiguration configuration = new CoreConfiguration();
+    configuration.setProperties(properties);
+
+    ProductImagePut put = new ProductImagePut() {
+      @Override
+      public void addProductImage(ProductImage productImage, ImageContentFile contentImage)
+          throws ServiceException {
+        String size = contentImage.getFileContentType() == FileContentType.PRODUCTLG
+            ? ProductImageSize.LARGE.name() : ProductImageSize.SMALL.name();
+        try {
+          images.put(key(productImage.getProduct().getMerchantStore().getCode(),
+              productImage.getProduct().getSku(), size, contentImage.getFileName()),
+              IOUtils.toByteArray(contentImage.getFile()));
+        } catch (Exception e) {
+          throw new ServiceException(e);
+        }
+      }
+    };
+    ProductImageContentGet get = new ProductImageContentGet() {
+      @Override
+      public ImageContent getProductImageContent(String merchantStoreCode, String productCode,
+          String imageName, ProductImageSize size) throws ServiceException {
+        byte[] bytes = images.get(key(merchantStoreCode, productCode, size.name(), imageName));
+        return bytes == null ? null : new BytesImageContent(imageName, "image/png", bytes, null);
+      }
+    };
+    processor = new ProductImageProcessor(put, get, configuration);
+  }
+
+  @Test
+  public void sizes() throws Exception {
+    BufferedImage original = new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ImageIO.write(original, "png", bytes);
+    images.put(key("DEFAULT", "TB12345", "LARGE", "product1.png"), bytes.toByteArray());
+
+    processor.process("DEFAULT", "TB12345", "product1.png");
+
+    BufferedImage small = read("SMALL", "product1.png");
+    Assert.assertEquals(200, small.getWidth());
+    Assert.assertEquals(100, small.getHeight());
+
+    Assert.assertEquals(320, read("SMALL", "product1-320w.png").getWidth());
+    BufferedImage variant = read("SMALL", "product1-640w.png");
+    Assert.assertEquals(640, variant.getWidth());
+    Assert.assertEquals(320, variant.getHeight());
+    //not wider than the original
+    Assert.assertNull(images.get(key("DEFAULT", "TB12345", "SMALL", "product1-1600w.png")));
+    Assert.assertEquals(1, processor.getProcessed());
+  }
+
+  @Test
+  public void variants() {
+    Assert.assertArrayEquals(new int[] {320, 640, 1600}, processor.getWidths());
+    Assert.assertEquals(320, processor.getNearestWidth(100));
+    Assert.assertEquals(640, processor.getNearestWidth(640));
+    Assert.assertEquals(1600, processor.getNearestWidth(641));
+    Assert.assertEquals(-1, processor.getNearestWidth(2000));
+    Assert.assertEquals("product1-640w.jpg", processor.getVariantName("product1.jpg", 640));
+    Assert.assertEquals("product-640w", processor.getVariantName("product", 640));
+
+    Assert.assertEquals(1, ProductImageProcessor.subsampling(1000, 0));
+    Assert.assertEquals(1, ProductImageProcessor.subsampling(1000, 700));
+    Assert.assertEquals(3, ProductImageProcessor.subsampling(4000, 1024));
+  }
+
+  private BufferedImage read(String size, String name) throws Exception {
+    byte[] bytes = images.get(key("DEFAULT", "TB12345", size, name));
+    Assert.assertNotNull(name, bytes);
+    return ImageIO.read(new ByteArrayInputStream(bytes));
+  }
+
+  private static String key(String store, String sku, String size, String name) {
+    return store + "/" + sku + "/" + size + "/" + name;
+  }
+
+}
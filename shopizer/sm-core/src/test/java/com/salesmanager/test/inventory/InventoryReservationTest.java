@@ -0,0 +1,163 @@
+package com.salesmanager.test.inventory;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.catalog.product.availability.ProductInventoryService;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
+import com.salesmanager.core.model.catalog.product.description.ProductDescription;
+import com.salesmanager.core.model.catalog.product.price.ProductPrice;
+import com.salesmanager.core.model.catalog.product.type.ProductType;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+
+
+/**
+ * Test
+ *
+ * - Many threads decrementing the same sku never oversell nor lose an update
+ * - A reservation holds the inventory until it is released
+ */
+public class InventoryReservationTest extends
+    com.salesmanager.test.common.AbstractSalesManagerCoreTestCase {
+
+  private static final int STOCK = 50;
+  private static final int THREADS = 16;
+  private static final int ATTEMPTS_PER_THREAD = 10;
+
+  @Inject
+  private ProductInventoryService productInventoryService;
+
+  @Test
+  public void concurrentDecrementOfOneSku() throws Exception {
+
+    final Product product = createProduct("INV-CONCURRENT", STOCK);
+    final Map<Long, Integer> one = Collections.singletonMap(product.getId(), 1);
+
+    final AtomicInteger sold = new AtomicInteger();
+    final AtomicInteger refused = new AtomicInteger();
+    final AtomicInteger errors = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    for (int t = 0; t < THREADS; t++) {
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+            try {
+              productInventoryService.decrement(one);
+              sold.incrementAndGet();
+            } catch (ServiceException e) {
+              if (e.getExceptionType() == ServiceException.EXCEPTION_INVENTORY_MISMATCH) {
+                refused.incrementAndGet();
+              } else {
+                errors.incrementAndGet();
+              }
+            } catch (RuntimeException e) {
+              errors.incrementAndGet();
+            }
+          }
+        }
+      });
+    }
+
+    start.countDown();
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+    Assert.assertEquals(0, errors.get());
+    Assert.assertEquals(STOCK, sold.get());
+    Assert.assertEquals(THREADS * ATTEMPTS_PER_THREAD - STOCK, refused.get());
+    Assert.assertEquals(0, quantity(product));
+
+  }
+
+  @Test
+  public void reserveAndRelease() throws Exception {
+
+    Product product = createProduct("INV-RESERVE", 10);
+    Map<Long, Integer> quantities = Collections.singletonMap(product.getId(), 4);
+
+    productInventoryService.reserve("INV-CART", quantities);
+    Assert.assertEquals(6, quantity(product));
+
+    //reserving the same quantities again only extends the reservation
+    productInventoryService.reserve("INV-CART", quantities);
+    Assert.assertEquals(6, quantity(product));
+
+    //other quantities replace the previous reservation
+    productInventoryService.reserve("INV-CART", Collections.singletonMap(product.getId(), 3));
+    Assert.assertEquals(7, quantity(product));
+    productInventoryService.reserve("INV-CART", quantities);
+    Assert.assertEquals(6, quantity(product));
+
+    productInventoryService.release("INV-CART");
+    Assert.assertEquals(10, quantity(product));
+
+    //confirming more than reserved takes the difference
+    productInventoryService.reserve("INV-CART", quantities);
+    productInventoryService.confirm("INV-CART", Collections.singletonMap(product.getId(), 5));
+    Assert.assertEquals(5, quantity(product));
+
+  }
+
+  private int quantity(Product product) {
+    Product p = productService.getById(product.getId());
+    return p.getAvailabilities().iterator().next().getProductQuantity();
+  }
+
+  private Product createProduct(String sku, int quantity) throws ServiceException {
+
+    MerchantStore store = merchantService.getByCode(MerchantStore.DEFAULT_STORE);
+    Language en = languageService.getByCode(ENGLISH_LANGUAGE_CODE);
+    ProductType generalType = productTypeService.getProductType(ProductType.GENERAL_TYPE);
+
+    Product product = new Product();
+    product.setSku(sku);
+    product.setType(generalType);
+    product.setMerchantStore(store);
+
+    ProductDescription description = new ProductDescription();
+    description.setName(sku);
+    description.setLanguage(en);
+    description.setProduct(product);
+    product.getDescriptions().add(description);
+
+    ProductAvailability availability = new ProductAvailability();
+    availability.setProductDateAvailable(new Date());
+    availability.setProductQuantity(quantity);
+    availability.setRegion("*");
+    availability.setProduct(product);
+
+    ProductPrice price = new ProductPrice();
+    price.setDefaultPrice(true);
+    price.setProductPriceAmount(new BigDecimal(10));
+    price.setProductAvailability(availability);
+    availability.getPrices().add(price);
+    product.getAvailabilities().add(availability);
+
+    productService.create(product);
+    return product;
+  }
+
+}
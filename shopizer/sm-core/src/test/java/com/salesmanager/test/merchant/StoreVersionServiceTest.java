@@ -0,0 +1,53 @@
+package com.salesmanager.test.merchant;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.business.services.merchant.StoreVersionServiceImpl;
+
+/**
+ * Test
+ *
+ * - Invalidation only moves the version of its namespace and store
+ * - Versions move on by themselves once the max age elapsed
+ */
+public class StoreVersionServiceTest {
+
+  @Test
+  public void namespaces() {
+
+    StoreVersionServiceImpl service = new StoreVersionServiceImpl();
+    service.setMaxAge(0);
+
+    long store = service.getVersion(1);
+    long relationships = service.getVersion(StoreVersionService.RELATIONSHIPS, 1);
+    long otherStore = service.getVersion(StoreVersionService.RELATIONSHIPS, 2);
+
+    service.invalidate(StoreVersionService.RELATIONSHIPS, 1);
+
+    Assert.assertTrue(service.getVersion(StoreVersionService.RELATIONSHIPS, 1) > relationships);
+    Assert.assertEquals(store, service.getVersion(1));
+    Assert.assertEquals(store, service.getVersion(StoreVersionService.STORE, 1));
+    Assert.assertEquals(otherStore, service.getVersion(StoreVersionService.RELATIONSHIPS, 2));
+
+    service.invalidate(1);
+    Assert.assertTrue(service.getVersion(1) > store);
+  }
+
+  @Test
+  public void maxAge() throws Exception {
+
+    StoreVersionServiceImpl service = new StoreVersionServiceImpl();
+    service.setMaxAge(1);
+
+    long version = service.getVersion(StoreVersionService.CATEGORIES, 1);
+    Thread.sleep(1100);
+    long aged = service.getVersion(StoreVersionService.CATEGORIES, 1);
+    Assert.assertTrue(aged > version);
+
+    service.invalidate(StoreVersionService.CATEGORIES, 1);
+    Assert.assertTrue(service.getVersion(StoreVersionService.CATEGORIES, 1) > aged);
+  }
+
+}
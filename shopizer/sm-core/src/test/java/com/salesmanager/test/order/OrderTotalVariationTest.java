@@ -0,0 +1,193 @@
+package com.salesmanager.test.order;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.order.ordertotal.OrderTotalServiceImpl;
+import com.salesmanager.core.business.services.reference.language.LanguageService;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.description.ProductDescription;
+import com.salesmanager.core.model.customer.Customer;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.order.OrderSummary;
+import com.salesmanager.core.model.order.OrderTotal;
+import com.salesmanager.core.model.order.OrderTotalVariation;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.shoppingcart.ShoppingCartItem;
+import com.salesmanager.core.modules.order.total.OrderTotalPostProcessorModule;
+import com.salesmanager.core.modules.order.total.ProductIndependentOrderTotalPostProcessorModule;
+
+/**
+ * Test
+ *
+ * - Products of the items are loaded once for all the modules
+ * - Products are not loaded when no module needs them
+ * - Products are not loaded when there is no module
+ */
+public class OrderTotalVariationTest {
+
+  private List<String> calls;
+  private OrderTotalServiceImpl orderTotalService;
+  private OrderSummary summary;
+
+  @Before
+  public void setUp() {
+
+    calls = new ArrayList<String>();
+
+    ProductService productService = (ProductService) Proxy.newProxyInstance(
+        ProductService.class.getClassLoader(), new Class<?>[] {ProductService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("toString".equals(method.getName())) {
+              return "ProductService";
+            }
+            calls.add(method.getName());
+            if ("getByIdsForLocale".equals(method.getName())) {
+              List<Product> products = new ArrayList<Product>();
+              for (Object id : (Collection<?>) args[0]) {
+                products.add(product((Long) id));
+              }
+              return products;
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    LanguageService languageService = (LanguageService) Proxy.newProxyInstance(
+        LanguageService.class.getClassLoader(), new Class<?>[] {LanguageService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("toLocale".equals(method.getName())) {
+              return Locale.CANADA;
+            }
+            if ("toString".equals(method.getName())) {
+              return "LanguageService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    orderTotalService = new OrderTotalServiceImpl();
+    ReflectionTestUtils.setField(orderTotalService, "productService", productService);
+    ReflectionTestUtils.setField(orderTotalService, "languageService", languageService);
+
+    summary = new OrderSummary();
+    summary.setProducts(Arrays.asList(item(1L), item(2L), item(1L)));
+  }
+
+  @Test
+  public void productsAreLoadedOnce() throws Exception {
+
+    ReflectionTestUtils.setField(orderTotalService, "orderTotalPostProcessors",
+        Arrays.<OrderTotalPostProcessorModule>asList(new ProductModule(), new ProductModule()));
+
+    OrderTotalVariation variation = orderTotalService
+        .findOrderTotalVariation(summary, new Customer(), new MerchantStore(), new Language("en"));
+
+    Assert.assertEquals(Arrays.asList("getByIdsForLocale"), calls);
+    Assert.assertEquals(6, variation.getVariations().size());
+    Assert.assertEquals("product 2", variation.getVariations().get(1).getText());
+  }
+
+  @Test
+  public void productsAreNotLoadedWhenNotNeeded() throws Exception {
+
+    ReflectionTestUtils.setField(orderTotalService, "orderTotalPostProcessors",
+        Arrays.<OrderTotalPostProcessorModule>asList(new ProductIndependentModule()));
+
+    OrderTotalVariation variation = orderTotalService
+        .findOrderTotalVariation(summary, new Customer(), new MerchantStore(), new Language("en"));
+
+    Assert.assertTrue(calls.isEmpty());
+    Assert.assertEquals(3, variation.getVariations().size());
+  }
+
+  @Test
+  public void productsAreNotLoadedWithoutModules() throws Exception {
+
+    ReflectionTestUtils.setField(orderTotalService, "orderTotalPostProcessors",
+        new ArrayList<OrderTotalPostProcessorModule>());
+
+    OrderTotalVariation variation = orderTotalService
+        .findOrderTotalVariation(summary, new Customer(), new MerchantStore(), new Language("en"));
+
+    Assert.assertTrue(calls.isEmpty());
+    Assert.assertNull(variation.getVariations());
+  }
+
+  private static ShoppingCartItem item(Long productId) {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(productId);
+    item.setQuantity(1);
+    return item;
+  }
+
+  private static Product product(Long id) {
+    Product product = new Product();
+    product.setId(id);
+    ProductDescription description = new ProductDescription();
+    description.setName("product " + id);
+    product.getDescriptions().add(description);
+    return product;
+  }
+
+  private static class ProductModule implements OrderTotalPostProcessorModule {
+
+    @Override
+    public OrderTotal caculateProductPiceVariation(OrderSummary summary,
+        ShoppingCartItem shoppingCartItem, Product product, Customer customer,
+        MerchantStore store) {
+      Assert.assertEquals(shoppingCartItem.getProductId(), product.getId());
+      OrderTotal orderTotal = new OrderTotal();
+      orderTotal.setValue(BigDecimal.ONE);
+      return orderTotal;
+    }
+
+    @Override
+    public String getName() {
+      return null;
+    }
+
+    @Override
+    public void setName(String name) {
+    }
+
+    @Override
+    public String getCode() {
+      return null;
+    }
+
+    @Override
+    public void setCode(String code) {
+    }
+  }
+
+  private static class ProductIndependentModule extends ProductModule
+      implements ProductIndependentOrderTotalPostProcessorModule {
+
+    @Override
+    public OrderTotal caculateProductPiceVariation(OrderSummary summary,
+        ShoppingCartItem shoppingCartItem, Product product, Customer customer,
+        MerchantStore store) {
+      Assert.assertNull(product);
+      return new OrderTotal();
+    }
+  }
+
+}
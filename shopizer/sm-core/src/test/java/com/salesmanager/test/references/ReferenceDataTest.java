@@ -0,0 +1,122 @@
+package com.salesmanager.test.references;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.salesmanager.core.business.services.reference.registry.ReferenceData;
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.currency.Currency;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.reference.zone.Zone;
+
+/**
+ * Test
+ *
+ * - Countries and zones indexed by code and id for each language
+ * - Zones of a country
+ * - Unknown language and read only collections
+ */
+public class ReferenceDataTest {
+
+  private Language english;
+  private Language french;
+  private ReferenceData referenceData;
+
+  @Before
+  public void setUp() {
+
+    english = new Language("en");
+    english.setId(1);
+    french = new Language("fr");
+    french.setId(2);
+
+    Currency cad = new Currency();
+    cad.setCurrency(java.util.Currency.getInstance("CAD"));
+
+    Map<String, List<Country>> countries = new HashMap<String, List<Country>>();
+    Map<String, List<Zone>> zones = new HashMap<String, List<Zone>>();
+    for (Language language : Arrays.asList(english, french)) {
+      Country ca = country(1, "CA", "Canada");
+      Country us = country(2, "US", "en".equals(language.getCode()) ? "United States"
+          : "Etats-Unis");
+      countries.put(language.getCode(), Arrays.asList(ca, us));
+      zones.put(language.getCode(), Arrays.asList(zone(1L, "QC", ca), zone(2L, "ON", ca),
+          zone(3L, "NY", us)));
+    }
+
+    referenceData =
+        new ReferenceData(Arrays.asList(english, french), Arrays.asList(cad), countries, zones);
+  }
+
+  @Test
+  public void indexes() {
+    Assert.assertEquals(Arrays.asList("en", "fr"),
+        new ArrayList<String>(referenceData.getLanguagesMap().keySet()));
+    Assert.assertSame(french, referenceData.getLanguage(2));
+    Assert.assertEquals("CAD", referenceData.getCurrenciesMap().get("CAD").getCode());
+
+    Assert.assertEquals(2, referenceData.getCountries(english).size());
+    Assert.assertEquals("United States", referenceData.getCountriesMap(english).get("US")
+        .getName());
+    Assert.assertEquals("Etats-Unis", referenceData.getCountry(2, french).getName());
+    //each language has its own instances
+    Assert.assertNotSame(referenceData.getCountry(2, english), referenceData.getCountry(2, french));
+
+    Assert.assertEquals("QC", referenceData.getZone(1L, french).getCode());
+    Assert.assertEquals(3, referenceData.getZones(english).size());
+  }
+
+  @Test
+  public void zonesOfCountry() {
+    List<Zone> canada = referenceData.getZones("CA", english);
+    Assert.assertEquals(2, canada.size());
+    Assert.assertEquals("QC", canada.get(0).getCode());
+    Assert.assertEquals("ON", canada.get(1).getCode());
+    Assert.assertEquals(1, referenceData.getZones("US", french).size());
+    Assert.assertTrue(referenceData.getZones("FR", english).isEmpty());
+  }
+
+  @Test
+  public void unknownLanguageAndReadOnly() {
+    Language spanish = new Language("es");
+    Assert.assertTrue(referenceData.getCountries(spanish).isEmpty());
+    Assert.assertTrue(referenceData.getZones(spanish).isEmpty());
+    Assert.assertNull(referenceData.getCountry(1, spanish));
+
+    try {
+      referenceData.getLanguages().add(new Language("de"));
+      Assert.fail("Languages can be changed");
+    } catch (UnsupportedOperationException e) {
+      //expected
+    }
+    try {
+      referenceData.getZones("CA", english).clear();
+      Assert.fail("Zones can be changed");
+    } catch (UnsupportedOperationException e) {
+      //expected
+    }
+  }
+
+  private Country country(Integer id, String isoCode, String name) {
+    Country country = new Country(isoCode);
+    country.setId(id);
+    country.setName(name);
+    return country;
+  }
+
+  private Zone zone(Long id, String code, Country country) {
+    Zone zone = new Zone();
+    zone.setId(id);
+    zone.setCode(code);
+    zone.setCountry(country);
+    return zone;
+  }
+
+}
@@ -0,0 +1,80 @@
+package com.salesmanager.test.rules;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.salesmanager.core.business.modules.integration.shipping.impl.ShippingInputParameters;
+import com.salesmanager.core.business.modules.rules.CompiledDecisionTable;
+import com.salesmanager.core.business.modules.rules.DecisionTableEvaluator;
+import com.salesmanager.core.business.modules.rules.DroolsDecisionTableEvaluator;
+
+/**
+ * Evaluation of the shipping custom rules, a KieSession per evaluation against the compiled table
+ *
+ * mvn test-compile exec:java -Dexec.mainClass=com.salesmanager.test.rules.DecisionTableBenchmark
+ * -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionTableBenchmark {
+
+  private static final String RULES = "rules/shipping-custom-rules.xls";
+
+  private DecisionTableEvaluator drools;
+  private DecisionTableEvaluator compiled;
+
+  @Setup
+  public void setUp() {
+    drools = DroolsDecisionTableEvaluator.fromClasspath(RULES);
+    compiled = CompiledDecisionTable.fromClasspath(RULES, ShippingInputParameters.class);
+  }
+
+  @Benchmark
+  public String drools() {
+    ShippingInputParameters inputParameters = inputParameters();
+    drools.evaluate(inputParameters);
+    return inputParameters.getPriceQuote();
+  }
+
+  @Benchmark
+  public String compiled() {
+    ShippingInputParameters inputParameters = inputParameters();
+    compiled.evaluate(inputParameters);
+    return inputParameters.getPriceQuote();
+  }
+
+  private static ShippingInputParameters inputParameters() {
+    ShippingInputParameters inputParameters = new ShippingInputParameters();
+    inputParameters.setWeight(12);
+    inputParameters.setCountry("CA");
+    inputParameters.setProvince("QC");
+    inputParameters.setDistance(45);
+    inputParameters.setPrice(850);
+    inputParameters.setModuleName("customQuotesRules");
+    return inputParameters;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(DecisionTableBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
@@ -0,0 +1,208 @@
+package com.salesmanager.test.rules;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+
+import com.salesmanager.core.business.modules.integration.shipping.impl.ShippingInputParameters;
+import com.salesmanager.core.business.modules.order.total.OrderTotalInputParameters;
+import com.salesmanager.core.business.modules.rules.CompiledDecisionTable;
+import com.salesmanager.core.business.modules.rules.DecisionTableEvaluator;
+import com.salesmanager.core.business.modules.rules.DroolsDecisionTableEvaluator;
+
+/**
+ * Test
+ *
+ * - The compiled decision tables give the same results as Drools on the spreadsheets of the rules
+ * directory, on both sides of every bound
+ * - Overlapping rules are applied in the order of the table
+ */
+public class DecisionTableEquivalenceTest {
+
+  private static final long[] WEIGHTS = {-1, 0, 1, 74, 75, 76, 77, 500, 999, 1000};
+  private static final long[] SIZES = {-1, 0, 72, 73, 500, 999, 1000};
+  private static final long[] DISTANCES = {-1, 0, 29, 30, 31, 59, 60, 61};
+  private static final int[] PRICES =
+      {-1, 0, 1, 700, 701, 702, 998, 999, 1000, 1001, 10000000, 10000001};
+  private static final String[] COUNTRIES = {"CA", "US", null};
+  private static final String[] PROVINCES = {"QC", "ON", "*", null};
+
+  private static DecisionTableEvaluator droolsDecision;
+  private static DecisionTableEvaluator compiledDecision;
+  private static DecisionTableEvaluator droolsCustom;
+  private static DecisionTableEvaluator compiledCustom;
+  private static DecisionTableEvaluator droolsManufacturer;
+  private static DecisionTableEvaluator compiledManufacturer;
+
+  @BeforeClass
+  public static void compile() {
+    droolsDecision = DroolsDecisionTableEvaluator
+        .fromClasspath("rules/shipping-decision-rules.xls");
+    compiledDecision = CompiledDecisionTable
+        .fromClasspath("rules/shipping-decision-rules.xls", ShippingInputParameters.class);
+    droolsCustom = DroolsDecisionTableEvaluator
+        .fromClasspath("rules/shipping-custom-rules.xls");
+    compiledCustom = CompiledDecisionTable
+        .fromClasspath("rules/shipping-custom-rules.xls", ShippingInputParameters.class);
+    droolsManufacturer = DroolsDecisionTableEvaluator
+        .fromClasspath("rules/manufacturer-shipping-ordertotal-rules.xls");
+    compiledManufacturer = CompiledDecisionTable.fromClasspath(
+        "rules/manufacturer-shipping-ordertotal-rules.xls", OrderTotalInputParameters.class);
+  }
+
+  @Test
+  public void shippingDecisionRules() {
+    int matched = 0;
+    for (long weight : WEIGHTS) {
+      for (long size : SIZES) {
+        for (String country : COUNTRIES) {
+          for (String province : PROVINCES) {
+            ShippingInputParameters drools = shipping(weight, size, 0, 0, country, province);
+            ShippingInputParameters compiled = shipping(weight, size, 0, 0, country, province);
+            droolsDecision.evaluate(drools);
+            compiledDecision.evaluate(compiled);
+            Assert.assertEquals(drools.toString(), drools.getModuleName(),
+                compiled.getModuleName());
+            if (drools.getModuleName() != null) {
+              matched++;
+            }
+          }
+        }
+      }
+    }
+    Assert.assertTrue(matched > 0);
+  }
+
+  @Test
+  public void shippingCustomRules() {
+    int matched = 0;
+    for (long distance : DISTANCES) {
+      for (int price : PRICES) {
+        for (String country : COUNTRIES) {
+          for (String province : PROVINCES) {
+            ShippingInputParameters drools = shipping(10, 10, distance, price, country, province);
+            ShippingInputParameters compiled =
+                shipping(10, 10, distance, price, country, province);
+            droolsCustom.evaluate(drools);
+            compiledCustom.evaluate(compiled);
+            Assert.assertEquals(drools.toString(), drools.getPriceQuote(),
+                compiled.getPriceQuote());
+            if (drools.getPriceQuote() != null) {
+              matched++;
+            }
+          }
+        }
+      }
+    }
+    Assert.assertTrue(matched > 0);
+  }
+
+  @Test
+  public void manufacturerBasedPricingRules() {
+    String[] manufacturers = {"bamwood", "BAMWOOD", "other", null};
+    String[] shippingMethods = {"storePickUp", "ups", null};
+    for (String manufacturer : manufacturers) {
+      for (String shippingMethod : shippingMethods) {
+        OrderTotalInputParameters drools = orderTotal(manufacturer, shippingMethod);
+        OrderTotalInputParameters compiled = orderTotal(manufacturer, shippingMethod);
+        droolsManufacturer.evaluate(drools);
+        compiledManufacturer.evaluate(compiled);
+        Assert.assertEquals(drools.getDiscount(), compiled.getDiscount());
+        Assert.assertEquals(drools.getTotalCode(), compiled.getTotalCode());
+      }
+    }
+    OrderTotalInputParameters compiled = orderTotal("bamwood", "storePickUp");
+    compiledManufacturer.evaluate(compiled);
+    Assert.assertEquals(Double.valueOf(0.15), compiled.getDiscount());
+    Assert.assertEquals("B.A.M. Wood", compiled.getTotalCode());
+  }
+
+  @Test
+  public void overlappingRulesAreAppliedInTableOrder() {
+    String drl = "package com.shopizer.test.rule;\n"
+        + "import com.salesmanager.core.business.modules.integration.shipping.impl.*;\n"
+        + "rule \"first\"\n"
+        + "\twhen\n"
+        + "\t\tp:ShippingInputParameters(weight > 10, country == \"CA\")\n"
+        + "\tthen\n"
+        + "\t\tp.setPriceQuote(\"10\");\n"
+        + "\t\tp.setModuleName(\"first\");\n"
+        + "end\n"
+        + "rule \"second\"\n"
+        + "\twhen\n"
+        + "\t\tp:ShippingInputParameters(weight >= 20, weight < 30, province != \"QC\")\n"
+        + "\tthen\n"
+        + "\t\tp.setPriceQuote(\"20\");\n"
+        + "end\n";
+
+    DecisionTableEvaluator drools = drools(drl);
+    DecisionTableEvaluator compiled =
+        CompiledDecisionTable.fromDrl(drl, ShippingInputParameters.class);
+
+    for (long weight : new long[] {10, 11, 19, 20, 29, 30}) {
+      for (String country : COUNTRIES) {
+        for (String province : PROVINCES) {
+          ShippingInputParameters d = shipping(weight, 0, 0, 0, country, province);
+          ShippingInputParameters c = shipping(weight, 0, 0, 0, country, province);
+          drools.evaluate(d);
+          compiled.evaluate(c);
+          Assert.assertEquals(d.toString(), d.getPriceQuote(), c.getPriceQuote());
+          Assert.assertEquals(d.toString(), d.getModuleName(), c.getModuleName());
+        }
+      }
+    }
+
+    ShippingInputParameters both = shipping(25, 0, 0, 0, "CA", "ON");
+    compiled.evaluate(both);
+    Assert.assertEquals("20", both.getPriceQuote());
+    Assert.assertEquals("first", both.getModuleName());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void unsupportedConstructsAreRejected() {
+    String drl = "rule \"in\"\n"
+        + "\twhen\n"
+        + "\t\tp:ShippingInputParameters(country in (\"CA\", \"US\"))\n"
+        + "\tthen\n"
+        + "\t\tp.setPriceQuote(\"10\");\n"
+        + "end\n";
+    CompiledDecisionTable.fromDrl(drl, ShippingInputParameters.class);
+  }
+
+  private static ShippingInputParameters shipping(long weight, long size, long distance,
+      int price, String country, String province) {
+    ShippingInputParameters inputParameters = new ShippingInputParameters();
+    inputParameters.setWeight(weight);
+    inputParameters.setSize(size);
+    inputParameters.setDistance(distance);
+    inputParameters.setPrice(price);
+    inputParameters.setCountry(country);
+    inputParameters.setProvince(province);
+    return inputParameters;
+  }
+
+  private static OrderTotalInputParameters orderTotal(String manufacturer,
+      String shippingMethod) {
+    OrderTotalInputParameters inputParameters = new OrderTotalInputParameters();
+    inputParameters.setItemManufacturerCode(manufacturer);
+    inputParameters.setShippingMethod(shippingMethod);
+    return inputParameters;
+  }
+
+  private static DecisionTableEvaluator drools(String drl) {
+    KieServices kieServices = KieServices.Factory.get();
+    KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+    kieFileSystem.write("src/main/resources/com/shopizer/test/rule/test.drl", drl);
+    KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
+    kieBuilder.buildAll();
+    Assert.assertFalse(kieBuilder.getResults().toString(),
+        kieBuilder.getResults().hasMessages(Message.Level.ERROR));
+    return new DroolsDecisionTableEvaluator(
+        kieServices.newKieContainer(kieBuilder.getKieModule().getReleaseId()));
+  }
+
+}
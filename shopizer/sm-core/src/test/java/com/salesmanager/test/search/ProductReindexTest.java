@@ -0,0 +1,245 @@
+package com.salesmanager.test.search;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.search.ProductIndexWriter;
+import com.salesmanager.core.business.services.search.ProductReindexServiceImpl;
+import com.salesmanager.core.business.services.search.ProductReindexStatus;
+import com.salesmanager.core.business.services.system.MerchantConfigurationService;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.search.IndexProduct;
+import com.salesmanager.core.model.system.MerchantConfiguration;
+
+/**
+ * Test
+ *
+ * - The catalog is read by chunks of ids and published once complete
+ * - A failed reindex resumes after the last saved product id
+ * - A product whose documents cannot be built is skipped, the reindex completes
+ */
+public class ProductReindexTest {
+
+  private static final int PRODUCTS = 95;
+
+  private List<Collection<?>> loaded;
+  private MerchantConfiguration[] checkpoint;
+  private RecordingWriter writer;
+  private ProductReindexServiceImpl reindexService;
+  private MerchantStore store;
+
+  @Before
+  public void setUp() {
+
+    loaded = new ArrayList<Collection<?>>();
+    checkpoint = new MerchantConfiguration[1];
+
+    ProductService productService = (ProductService) Proxy.newProxyInstance(
+        ProductService.class.getClassLoader(), new Class<?>[] {ProductService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("countByStore".equals(method.getName())) {
+              return (long) PRODUCTS;
+            }
+            if ("listIdsByStore".equals(method.getName())) {
+              List<Long> ids = new ArrayList<Long>();
+              for (long id = (Long) args[1] + 1; id <= PRODUCTS && ids.size() < (Integer) args[2];
+                  id++) {
+                ids.add(id);
+              }
+              return ids;
+            }
+            if ("getByIds".equals(method.getName())) {
+              loaded.add((Collection<?>) args[0]);
+              List<Product> products = new ArrayList<Product>();
+              for (Object id : (Collection<?>) args[0]) {
+                Product product = new Product();
+                product.setId((Long) id);
+                products.add(product);
+              }
+              return products;
+            }
+            if ("toString".equals(method.getName())) {
+              return "ProductService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    MerchantConfigurationService merchantConfigurationService =
+        (MerchantConfigurationService) Proxy.newProxyInstance(
+            MerchantConfigurationService.class.getClassLoader(),
+            new Class<?>[] {MerchantConfigurationService.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getMerchantConfiguration".equals(method.getName())) {
+                  return checkpoint[0];
+                }
+                if ("saveOrUpdate".equals(method.getName())) {
+                  checkpoint[0] = (MerchantConfiguration) args[0];
+                  return null;
+                }
+                if ("delete".equals(method.getName())) {
+                  checkpoint[0] = null;
+                  return null;
+                }
+                if ("toString".equals(method.getName())) {
+                  return "MerchantConfigurationService";
+                }
+                throw new UnsupportedOperationException(method.getName());
+              }
+            });
+
+    CoreConfiguration configuration = new CoreConfiguration();
+    configuration.getProperties().setProperty("search.reindex.chunk", "10");
+    configuration.getProperties().setProperty("search.reindex.threads", "2");
+
+    writer = new RecordingWriter();
+    reindexService = new ProductReindexServiceImpl();
+    ReflectionTestUtils.setField(reindexService, "productService", productService);
+    ReflectionTestUtils.setField(reindexService, "productIndexWriter", writer);
+    ReflectionTestUtils.setField(reindexService, "merchantConfigurationService",
+        merchantConfigurationService);
+    ReflectionTestUtils.setField(reindexService, "configuration", configuration);
+    reindexService.init();
+
+    store = new MerchantStore();
+    store.setId(1);
+    store.setCode("DEFAULT");
+    List<Language> languages = new ArrayList<Language>();
+    languages.add(new Language("en"));
+    languages.add(new Language("fr"));
+    store.setLanguages(languages);
+  }
+
+  @After
+  public void tearDown() {
+    reindexService.destroy();
+  }
+
+  @Test
+  public void catalogIsIndexedByChunks() throws Exception {
+
+    ProductReindexStatus status = await(reindexService.start(store));
+
+    Assert.assertEquals(ProductReindexStatus.COMPLETED, status.getState());
+    Assert.assertEquals(PRODUCTS, status.getIndexed());
+    Assert.assertEquals(PRODUCTS, status.getLastId());
+    Assert.assertEquals(10, loaded.size());
+    Assert.assertEquals(5, loaded.get(9).size());
+    Assert.assertEquals(PRODUCTS, writer.documents.size());
+    Assert.assertEquals(2, writer.published.size());
+    Assert.assertNull(checkpoint[0]);
+  }
+
+  @Test
+  public void failedReindexIsResumed() throws Exception {
+
+    writer.failAfter = 25;
+    ProductReindexStatus failed = await(reindexService.start(store));
+
+    Assert.assertEquals(ProductReindexStatus.FAILED, failed.getState());
+    Assert.assertEquals(2, writer.abandoned.size());
+    Assert.assertTrue(writer.published.isEmpty());
+    //saved when the rebuild started
+    Assert.assertEquals(failed.getVersion() + ":0:0", checkpoint[0].getValue());
+
+    writer.failAfter = -1;
+    writer.created = false;
+    loaded.clear();
+    ProductReindexStatus resumed = await(reindexService.start(store));
+
+    Assert.assertTrue(resumed.isResumed());
+    Assert.assertEquals(failed.getVersion(), resumed.getVersion());
+    Assert.assertEquals(ProductReindexStatus.COMPLETED, resumed.getState());
+    Assert.assertEquals(10, loaded.size());
+    Assert.assertNull(checkpoint[0]);
+  }
+
+  @Test
+  public void productThatCannotBeIndexedIsSkipped() throws Exception {
+
+    writer.poison = 42L;
+    ProductReindexStatus status = await(reindexService.start(store));
+
+    Assert.assertEquals(ProductReindexStatus.COMPLETED, status.getState());
+    Assert.assertEquals(PRODUCTS, status.getLastId());
+    Assert.assertEquals(PRODUCTS - 1, writer.documents.size());
+    Assert.assertEquals(1, status.getRejected());
+    Assert.assertEquals(1, status.getSkipped().size());
+    Assert.assertEquals(Long.valueOf(42L), status.getSkipped().get(0));
+    Assert.assertEquals(2, writer.published.size());
+  }
+
+  private ProductReindexStatus await(ProductReindexStatus status) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (status.isRunning() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertFalse(status.isRunning());
+    return status;
+  }
+
+  private static class RecordingWriter extends ProductIndexWriter {
+
+    private int failAfter = -1;
+    private Long poison;
+    private boolean created = true;
+    private List<IndexProduct> documents = new ArrayList<IndexProduct>();
+    private List<String> published = new ArrayList<String>();
+    private List<String> abandoned = new ArrayList<String>();
+
+    @Override
+    public List<IndexProduct> getDocuments(Product product) {
+      if (product.getId().equals(poison)) {
+        throw new NullPointerException("price");
+      }
+      IndexProduct document = new IndexProduct();
+      document.setId(String.valueOf(product.getId()));
+      List<IndexProduct> documents = new ArrayList<IndexProduct>();
+      documents.add(document);
+      return documents;
+    }
+
+    @Override
+    public boolean startRebuild(String languageCode, String storeCode, String version) {
+      return created;
+    }
+
+    @Override
+    public int rebuild(List<IndexProduct> documents) throws ServiceException {
+      if (failAfter >= 0 && this.documents.size() >= failAfter) {
+        throw new ServiceException("Cannot reach the search engine");
+      }
+      this.documents.addAll(documents);
+      return 0;
+    }
+
+    @Override
+    public void publish(String languageCode, String storeCode) {
+      published.add(languageCode);
+    }
+
+    @Override
+    public void abandon(String languageCode, String storeCode) {
+      abandoned.add(languageCode);
+    }
+  }
+
+}
@@ -0,0 +1,217 @@
+package com.salesmanager.test.search;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.repositories.search.ProductIndexChangeRepository;
+import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.search.ProductIndexWriter;
+import com.salesmanager.core.business.services.search.SearchIndexQueueImpl;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.search.IndexProduct;
+import com.salesmanager.core.model.search.ProductIndexChange;
+
+/**
+ * Test
+ *
+ * - Several changes of a product are shipped once, the last change wins
+ * - Changes stay queued when the search engine cannot be reached
+ * - A product that cannot be indexed is rejected, the other changes of the batch are shipped
+ */
+public class SearchIndexQueueTest {
+
+  private List<ProductIndexChange> table;
+  private List<Collection<?>> loaded;
+  private RecordingWriter writer;
+  private SearchIndexQueueImpl queue;
+
+  @Before
+  public void setUp() {
+
+    table = new ArrayList<ProductIndexChange>();
+    loaded = new ArrayList<Collection<?>>();
+
+    ProductIndexChangeRepository repository = (ProductIndexChangeRepository) Proxy
+        .newProxyInstance(ProductIndexChangeRepository.class.getClassLoader(),
+            new Class<?>[] {ProductIndexChangeRepository.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("findPending".equals(method.getName())) {
+                  int size = ((Pageable) args[0]).getPageSize();
+                  return new ArrayList<ProductIndexChange>(
+                      table.subList(0, Math.min(size, table.size())));
+                }
+                if ("deleteByIds".equals(method.getName())) {
+                  Collection<?> ids = (Collection<?>) args[0];
+                  int count = 0;
+                  for (Iterator<ProductIndexChange> i = table.iterator(); i.hasNext();) {
+                    if (ids.contains(i.next().getId())) {
+                      i.remove();
+                      count++;
+                    }
+                  }
+                  return count;
+                }
+                if ("count".equals(method.getName())) {
+                  return (long) table.size();
+                }
+                if ("findOldestDate".equals(method.getName())) {
+                  return table.isEmpty() ? null : table.get(0).getDateCreated();
+                }
+                if ("toString".equals(method.getName())) {
+                  return "ProductIndexChangeRepository";
+                }
+                throw new UnsupportedOperationException(method.getName());
+              }
+            });
+
+    ProductService productService = (ProductService) Proxy.newProxyInstance(
+        ProductService.class.getClassLoader(), new Class<?>[] {ProductService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getByIds".equals(method.getName())) {
+              loaded.add((Collection<?>) args[0]);
+              List<Product> products = new ArrayList<Product>();
+              for (Object id : (Collection<?>) args[0]) {
+                Product product = new Product();
+                product.setId((Long) id);
+                products.add(product);
+              }
+              return products;
+            }
+            if ("toString".equals(method.getName())) {
+              return "ProductService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    writer = new RecordingWriter();
+    queue = new SearchIndexQueueImpl();
+    ReflectionTestUtils.setField(queue, "productIndexChangeRepository", repository);
+    ReflectionTestUtils.setField(queue, "productService", productService);
+    ReflectionTestUtils.setField(queue, "productIndexWriter", writer);
+  }
+
+  @Test
+  public void changesAreCoalesced() throws Exception {
+
+    change(1L, ProductIndexChange.INDEX);
+    change(2L, ProductIndexChange.INDEX);
+    change(1L, ProductIndexChange.INDEX);
+    change(3L, ProductIndexChange.INDEX);
+    change(2L, ProductIndexChange.DELETE);
+    change(1L, ProductIndexChange.INDEX);
+
+    Assert.assertEquals(6, queue.drain());
+
+    Assert.assertEquals(1, loaded.size());
+    Assert.assertEquals(2, loaded.get(0).size());
+    Assert.assertTrue(loaded.get(0).contains(1L));
+    Assert.assertTrue(loaded.get(0).contains(3L));
+    Assert.assertEquals(1, writer.deletions.size());
+    Assert.assertEquals(Long.valueOf(2L), writer.deletions.get(0).getProductId());
+    Assert.assertTrue(table.isEmpty());
+    Assert.assertEquals(3, queue.getStatus().getShipped());
+    Assert.assertEquals(0, queue.drain());
+  }
+
+  @Test
+  public void changesAreKeptWhenShippingFails() throws Exception {
+
+    change(1L, ProductIndexChange.INDEX);
+    change(2L, ProductIndexChange.DELETE);
+
+    writer.fail = true;
+    Assert.assertEquals(0, queue.drain());
+    Assert.assertEquals(2, table.size());
+    Assert.assertEquals(2, queue.getStatus().getPending());
+    Assert.assertEquals(1, queue.getStatus().getFailures());
+
+    writer.fail = false;
+    Assert.assertEquals(2, queue.drain());
+    Assert.assertTrue(table.isEmpty());
+    Assert.assertEquals(2, queue.getStatus().getShipped());
+  }
+
+  @Test
+  public void productThatCannotBeIndexedIsRejected() throws Exception {
+
+    change(1L, ProductIndexChange.INDEX);
+    change(2L, ProductIndexChange.INDEX);
+    change(3L, ProductIndexChange.INDEX);
+
+    //no price
+    writer.poison = 2L;
+    Assert.assertEquals(3, queue.drain());
+
+    Assert.assertTrue(table.isEmpty());
+    Assert.assertEquals(2, writer.documents.size());
+    Assert.assertEquals("1", writer.documents.get(0).getId());
+    Assert.assertEquals("3", writer.documents.get(1).getId());
+    Assert.assertEquals(1, queue.getStatus().getRejected());
+    Assert.assertEquals(0, queue.getStatus().getFailures());
+
+    //the next changes are not held back
+    writer.poison = null;
+    change(4L, ProductIndexChange.INDEX);
+    Assert.assertEquals(1, queue.drain());
+    Assert.assertTrue(table.isEmpty());
+  }
+
+  private void change(Long productId, String operation) {
+    ProductIndexChange change = new ProductIndexChange();
+    change.setId(Long.valueOf(table.size() + 1 + productId * 100));
+    change.setProductId(productId);
+    change.setStoreCode("DEFAULT");
+    change.setLanguages("en");
+    change.setOperation(operation);
+    change.setDateCreated(new Date());
+    table.add(change);
+  }
+
+  private static class RecordingWriter extends ProductIndexWriter {
+
+    private boolean fail;
+    private Long poison;
+    private List<IndexProduct> documents = new ArrayList<IndexProduct>();
+    private List<ProductIndexChange> deletions = new ArrayList<ProductIndexChange>();
+
+    @Override
+    public List<IndexProduct> getDocuments(Product product) throws ServiceException {
+      if (product.getId().equals(poison)) {
+        throw new NullPointerException("price");
+      }
+      IndexProduct document = new IndexProduct();
+      document.setId(String.valueOf(product.getId()));
+      return Collections.singletonList(document);
+    }
+
+    @Override
+    protected int ship(List<IndexProduct> documents, Collection<ProductIndexChange> deletions,
+        boolean rebuild) throws ServiceException {
+      if (fail) {
+        throw new ServiceException("Cannot reach the search engine");
+      }
+      this.documents.addAll(documents);
+      this.deletions.addAll(deletions);
+      return 0;
+    }
+  }
+
+}
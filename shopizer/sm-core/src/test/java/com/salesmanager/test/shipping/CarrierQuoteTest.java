@@ -0,0 +1,355 @@
+package com.salesmanager.test.shipping;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.modules.integration.shipping.impl.ShippingHttpClientFactoryBean;
+import com.salesmanager.core.business.modules.integration.shipping.impl.UPSShippingQuote;
+import com.salesmanager.core.business.modules.integration.shipping.impl.USPSShippingQuote;
+import com.salesmanager.core.business.services.reference.country.CountryService;
+import com.salesmanager.core.business.services.shipping.ShippingQuoteOrchestrator;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.common.Delivery;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.shipping.PackageDetails;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.shipping.ShippingOption;
+import com.salesmanager.core.model.shipping.ShippingOrigin;
+import com.salesmanager.core.model.shipping.ShippingQuote;
+import com.salesmanager.core.model.system.IntegrationConfiguration;
+import com.salesmanager.core.model.system.IntegrationModule;
+import com.salesmanager.core.model.system.ModuleConfig;
+import com.salesmanager.core.modules.integration.shipping.model.ShippingQuoteModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test
+ *
+ * - UPS and USPS quotes against a local stub of the carrier api
+ * - A slow carrier is cut at its deadline while the other quotes are returned
+ * - Carriers writing into the quote work on their own copy
+ */
+public class CarrierQuoteTest {
+
+  private static final String UPS_RESPONSE = "<?xml version=\"1.0\"?>"
+      + "<RatingServiceSelectionResponse><Response><ResponseStatusCode>1</ResponseStatusCode>"
+      + "</Response>"
+      + "<RatedShipment><Service><Code>03</Code></Service>"
+      + "<TotalCharges><MonetaryValue>12.50</MonetaryValue></TotalCharges></RatedShipment>"
+      + "<RatedShipment><Service><Code>01</Code></Service>"
+      + "<TotalCharges><MonetaryValue>40.00</MonetaryValue></TotalCharges></RatedShipment>"
+      + "</RatingServiceSelectionResponse>";
+
+  private static final String USPS_RESPONSE = "<?xml version=\"1.0\"?>"
+      + "<RateV3Response><Package ID=\"1\">"
+      + "<Postage CLASSID=\"1\"><MailService>Priority Mail</MailService><Rate>9.80</Rate></Postage>"
+      + "</Package></RateV3Response>";
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private volatile long uspsDelay = 0;
+  private ShippingHttpClientFactoryBean httpClientFactory;
+  private CloseableHttpClient httpClient;
+
+  @Before
+  public void startStub() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/ups", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        respond(exchange, UPS_RESPONSE);
+      }
+    });
+    server.createContext("/usps", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          Thread.sleep(uspsDelay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        respond(exchange, USPS_RESPONSE);
+      }
+    });
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.start();
+
+    httpClientFactory = new ShippingHttpClientFactoryBean();
+    httpClient = httpClientFactory.getObject();
+  }
+
+  @After
+  public void stopStub() throws Exception {
+    httpClientFactory.destroy();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  public void upsQuote() throws Exception {
+
+    List<ShippingOption> options = ups().getShippingQuotes(new ShippingQuote(), packages(),
+        new BigDecimal("100"), delivery(), new ShippingOrigin(), store(),
+        configuration("ups"), module("ups", "/ups"), new ShippingConfiguration(), Locale.ENGLISH);
+
+    Assert.assertEquals(2, options.size());
+    Assert.assertEquals("03", options.get(0).getOptionCode());
+    Assert.assertEquals("Ground", options.get(0).getOptionName());
+    Assert.assertEquals(0, new BigDecimal("12.50").compareTo(options.get(0).getOptionPrice()));
+  }
+
+  @Test
+  public void uspsQuote() throws Exception {
+
+    List<ShippingOption> options = usps().getShippingQuotes(new ShippingQuote(), packages(),
+        new BigDecimal("100"), delivery(), new ShippingOrigin(), store(),
+        configuration("usps"), module("usps", "/usps"), new ShippingConfiguration(),
+        Locale.ENGLISH);
+
+    Assert.assertEquals(1, options.size());
+    Assert.assertEquals("Priority Mail", options.get(0).getOptionCode());
+    Assert.assertEquals("9.80", options.get(0).getOptionPriceText());
+  }
+
+  @Test
+  public void slowCarrierIsCutAtItsDeadline() throws Exception {
+
+    uspsDelay = 2000;
+
+    CoreConfiguration coreConfiguration = new CoreConfiguration();
+    Properties properties = new Properties();
+    properties.setProperty("shipping.quote.timeout", "1500");
+    properties.setProperty("shipping.quote.timeout.usps", "300");
+    coreConfiguration.setProperties(properties);
+
+    ShippingQuoteOrchestrator orchestrator = new ShippingQuoteOrchestrator();
+    ReflectionTestUtils.setField(orchestrator, "coreConfiguration", coreConfiguration);
+    orchestrator.init();
+
+    try {
+      List<ShippingQuoteOrchestrator.Carrier> carriers =
+          new ArrayList<ShippingQuoteOrchestrator.Carrier>();
+      carriers.add(new ShippingQuoteOrchestrator.Carrier("usps", usps(), configuration("usps"),
+          module("usps", "/usps")));
+      carriers.add(new ShippingQuoteOrchestrator.Carrier("ups", ups(), configuration("ups"),
+          module("ups", "/ups")));
+
+      long start = System.currentTimeMillis();
+      List<ShippingQuoteOrchestrator.CarrierQuote> quotes = orchestrator.getShippingQuotes(
+          carriers, new ShippingQuote(), packages(), new BigDecimal("100"), delivery(),
+          new ShippingOrigin(), store(), new ShippingConfiguration(), Locale.ENGLISH);
+      long elapsed = System.currentTimeMillis() - start;
+
+      Assert.assertTrue("waited " + elapsed + "ms", elapsed < 1500);
+
+      ShippingQuoteOrchestrator.CarrierQuote usps = quotes.get(0);
+      Assert.assertTrue(usps.isFailed());
+      Assert.assertTrue(usps.isTimedOut());
+
+      ShippingQuoteOrchestrator.CarrierQuote ups = quotes.get(1);
+      Assert.assertFalse(ups.isFailed());
+      Assert.assertEquals(2, ups.getOptions().size());
+      Assert.assertEquals("ups", ups.getOptions().get(0).getShippingModuleCode());
+    } finally {
+      orchestrator.destroy();
+    }
+  }
+
+  @Test
+  public void carriersQuoteOnTheirOwnCopy() throws Exception {
+
+    ShippingQuoteOrchestrator orchestrator = new ShippingQuoteOrchestrator();
+    ReflectionTestUtils.setField(orchestrator, "coreConfiguration", new CoreConfiguration());
+    orchestrator.init();
+
+    try {
+      List<ShippingQuoteOrchestrator.Carrier> carriers =
+          new ArrayList<ShippingQuoteOrchestrator.Carrier>();
+      carriers.add(new ShippingQuoteOrchestrator.Carrier("pickup", writingCarrier("pickup"),
+          configuration("pickup"), module("pickup", "/pickup")));
+      carriers.add(new ShippingQuoteOrchestrator.Carrier("custom", writingCarrier("custom"),
+          configuration("custom"), module("custom", "/custom")));
+
+      ShippingQuote shippingQuote = new ShippingQuote();
+      shippingQuote.getQuoteInformations().put("distance", 12D);
+      List<ShippingQuoteOrchestrator.CarrierQuote> quotes = orchestrator.getShippingQuotes(
+          carriers, shippingQuote, packages(), new BigDecimal("100"), delivery(),
+          new ShippingOrigin(), store(), new ShippingConfiguration(), Locale.ENGLISH);
+
+      for (ShippingQuoteOrchestrator.CarrierQuote quote : quotes) {
+        Assert.assertFalse(quote.isFailed());
+        Assert.assertEquals(1, quote.getOptions().size());
+        Assert.assertEquals(quote.getCode(), quote.getOptions().get(0).getOptionCode());
+      }
+      Assert.assertNull(shippingQuote.getShippingOptions());
+      Assert.assertNull(shippingQuote.getSelectedShippingOption());
+      Assert.assertEquals(2, shippingQuote.getWarnings().size());
+    } finally {
+      orchestrator.destroy();
+    }
+  }
+
+  /**
+   * Adds its option to the options of the quote as the custom rules and store pickup modules do
+   */
+  private ShippingQuoteModule writingCarrier(final String code) {
+    return (ShippingQuoteModule) Proxy.newProxyInstance(
+        ShippingQuoteModule.class.getClassLoader(), new Class<?>[] {ShippingQuoteModule.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+            if (!"getShippingQuotes".equals(method.getName())) {
+              throw new UnsupportedOperationException(method.getName());
+            }
+            ShippingQuote quote = (ShippingQuote) args[0];
+            Assert.assertEquals(12D, quote.getQuoteInformations().get("distance"));
+            List<ShippingOption> options = quote.getShippingOptions();
+            if (options == null) {
+              options = new ArrayList<ShippingOption>();
+              quote.setShippingOptions(options);
+            }
+            //leaves time to the other carrier
+            Thread.sleep(100);
+            ShippingOption option = new ShippingOption();
+            option.setOptionCode(code);
+            options.add(option);
+            if (quote.getSelectedShippingOption() == null) {
+              quote.setSelectedShippingOption(option);
+            }
+            quote.getWarnings().add("quoted by " + code);
+            return options;
+          }
+        });
+  }
+
+  private UPSShippingQuote ups() {
+    UPSShippingQuote ups = new UPSShippingQuote();
+    ups.setHttpClient(httpClient);
+    return ups;
+  }
+
+  private USPSShippingQuote usps() {
+    USPSShippingQuote usps = new USPSShippingQuote();
+    usps.setHttpClient(httpClient);
+    CountryService countryService = (CountryService) Proxy.newProxyInstance(
+        CountryService.class.getClassLoader(), new Class<?>[] {CountryService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getCountriesMap".equals(method.getName())) {
+              return Collections.emptyMap();
+            }
+            if ("toString".equals(method.getName())) {
+              return "CountryService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    ReflectionTestUtils.setField(usps, "countryService", countryService);
+    return usps;
+  }
+
+  private IntegrationConfiguration configuration(String code) {
+    IntegrationConfiguration configuration = new IntegrationConfiguration();
+    configuration.setModuleCode(code);
+    configuration.setActive(true);
+    configuration.setEnvironment("TEST");
+    Map<String, String> keys = new HashMap<String, String>();
+    keys.put("accessKey", "key");
+    keys.put("userId", "user");
+    keys.put("password", "password");
+    keys.put("account", "account");
+    configuration.setIntegrationKeys(keys);
+    Map<String, List<String>> options = new HashMap<String, List<String>>();
+    options.put("packages", Collections.singletonList("02"));
+    configuration.setIntegrationOptions(options);
+    return configuration;
+  }
+
+  private IntegrationModule module(String code, String uri) {
+    ModuleConfig config = new ModuleConfig();
+    config.setEnv("TEST");
+    config.setScheme("http");
+    config.setHost("127.0.0.1");
+    config.setPort(String.valueOf(server.getAddress().getPort()));
+    config.setUri(uri);
+    Map<String, ModuleConfig> configs = new HashMap<String, ModuleConfig>();
+    configs.put("TEST", config);
+
+    IntegrationModule module = new IntegrationModule();
+    module.setCode(code);
+    module.setModuleConfigs(configs);
+    module.setRegionsSet(new HashSet<String>(Collections.singletonList("US")));
+    Map<String, String> details = new HashMap<String, String>();
+    details.put("03", "Ground");
+    details.put("01", "Next Day Air");
+    module.setDetails(details);
+    return module;
+  }
+
+  private MerchantStore store() {
+    Country us = new Country("US");
+    MerchantStore store = new MerchantStore();
+    store.setCode("DEFAULT");
+    store.setCountry(us);
+    store.setStorecity("Boston");
+    store.setStorepostalcode("02110");
+    store.setWeightunitcode("LB");
+    store.setSeizeunitcode("IN");
+    return store;
+  }
+
+  private Delivery delivery() {
+    Delivery delivery = new Delivery();
+    delivery.setCountry(new Country("US"));
+    delivery.setCity("New York");
+    delivery.setPostalCode("10001");
+    return delivery;
+  }
+
+  private List<PackageDetails> packages() {
+    PackageDetails details = new PackageDetails();
+    details.setShippingWeight(3);
+    details.setShippingHeight(10);
+    details.setShippingLength(10);
+    details.setShippingWidth(10);
+    return Collections.singletonList(details);
+  }
+
+  private static void respond(HttpExchange exchange, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/xml");
+    exchange.sendResponseHeaders(200, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(bytes);
+    out.close();
+  }
+
+}
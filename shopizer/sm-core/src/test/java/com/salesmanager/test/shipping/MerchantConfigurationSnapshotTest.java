@@ -0,0 +1,93 @@
+package com.salesmanager.test.shipping;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshot;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.shipping.ShippingType;
+import com.salesmanager.core.model.system.IntegrationConfiguration;
+
+/**
+ * Test
+ *
+ * - Shipping configuration handed out is a copy of the snapshot one
+ * - Module configurations, their keys and options are copies
+ */
+public class MerchantConfigurationSnapshotTest {
+
+  @Test
+  public void shippingConfigurationCopy() {
+
+    ShippingConfiguration shippingConfiguration = new ShippingConfiguration();
+    shippingConfiguration.setShippingType(ShippingType.INTERNATIONAL);
+    shippingConfiguration.setFreeShippingEnabled(true);
+    shippingConfiguration.setOrderTotalFreeShipping(new BigDecimal("100.00"));
+    shippingConfiguration.setHandlingFees(new BigDecimal("2.50"));
+
+    MerchantConfigurationSnapshot snapshot = snapshot(shippingConfiguration,
+        Collections.<String, IntegrationConfiguration>emptyMap());
+
+    ShippingConfiguration copy = snapshot.getShippingConfiguration();
+    Assert.assertNotSame(copy, snapshot.getShippingConfiguration());
+    Assert.assertEquals(ShippingType.INTERNATIONAL, copy.getShippingType());
+    Assert.assertTrue(copy.isFreeShippingEnabled());
+    Assert.assertEquals(0, new BigDecimal("2.50").compareTo(copy.getHandlingFees()));
+
+    copy.setHandlingFees(new BigDecimal("99"));
+    copy.setHandlingFeesText("99");
+    copy.setFreeShippingEnabled(false);
+
+    ShippingConfiguration other = snapshot.getShippingConfiguration();
+    Assert.assertEquals(0, new BigDecimal("2.50").compareTo(other.getHandlingFees()));
+    Assert.assertNull(other.getHandlingFeesText());
+    Assert.assertTrue(other.isFreeShippingEnabled());
+  }
+
+  @Test
+  public void modulesCopy() {
+
+    IntegrationConfiguration ups = new IntegrationConfiguration();
+    ups.setModuleCode("ups");
+    ups.setActive(true);
+    ups.getIntegrationKeys().put("accessKey", "key");
+    List<String> packages = new ArrayList<String>();
+    packages.add("02");
+    ups.getIntegrationOptions().put("packages", packages);
+    Map<String, IntegrationConfiguration> modules = new HashMap<String, IntegrationConfiguration>();
+    modules.put("ups", ups);
+
+    MerchantConfigurationSnapshot snapshot = snapshot(null, modules);
+    Assert.assertNull(snapshot.getShippingConfiguration());
+
+    Map<String, IntegrationConfiguration> copies = snapshot.getShippingModules();
+    IntegrationConfiguration copy = copies.get("ups");
+    Assert.assertNotSame(ups, copy);
+    Assert.assertTrue(copy.isActive());
+
+    copy.setActive(false);
+    copy.getIntegrationKeys().put("accessKey", "changed");
+    copy.getIntegrationOptions().get("packages").add("03");
+    copies.remove("ups");
+
+    IntegrationConfiguration other = snapshot.getShippingModules().get("ups");
+    Assert.assertTrue(other.isActive());
+    Assert.assertEquals("key", other.getIntegrationKeys().get("accessKey"));
+    Assert.assertEquals(1, other.getIntegrationOptions().get("packages").size());
+  }
+
+  private MerchantConfigurationSnapshot snapshot(ShippingConfiguration shippingConfiguration,
+      Map<String, IntegrationConfiguration> shippingModules) {
+    return new MerchantConfigurationSnapshot(1, shippingConfiguration, shippingModules,
+        Collections.<String, IntegrationConfiguration>emptyMap(),
+        Collections.<String>emptyList(), null);
+  }
+
+}
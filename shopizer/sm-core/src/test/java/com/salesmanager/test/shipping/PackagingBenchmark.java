@@ -0,0 +1,186 @@
+package com.salesmanager.test.shipping;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.modules.integration.shipping.impl.DefaultPackagingImpl;
+import com.salesmanager.core.business.services.shipping.ShippingService;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.shipping.PackageDetails;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.shipping.ShippingProduct;
+
+/**
+ * Box packing of an order, per unit packing as it was done before against the packer
+ *
+ * mvn test-compile exec:java -Dexec.mainClass=com.salesmanager.test.shipping.PackagingBenchmark
+ * -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackagingBenchmark {
+
+  @Param({"10", "500", "5000"})
+  private int units;
+
+  private List<ShippingProduct> products;
+  private MerchantStore store;
+  private ShippingConfiguration configuration;
+  private DefaultPackagingImpl packaging;
+
+  @Setup
+  public void setUp() {
+
+    store = new MerchantStore();
+    store.setCode("DEFAULT");
+
+    configuration = new ShippingConfiguration();
+    configuration.setBoxWidth(40);
+    configuration.setBoxLength(40);
+    configuration.setBoxHeight(40);
+    configuration.setBoxWeight(1);
+    configuration.setMaxWeight(30);
+
+    //a few skus sharing the units
+    products = new ArrayList<ShippingProduct>();
+    int skus = 5;
+    for (int i = 0; i < skus; i++) {
+      Product product = new Product();
+      product.setSku("SKU" + i);
+      product.setProductWidth(new BigDecimal(4 + i));
+      product.setProductLength(new BigDecimal(6));
+      product.setProductHeight(new BigDecimal(3 + i));
+      product.setProductWeight(new BigDecimal("0.5").add(new BigDecimal(i)));
+      ShippingProduct shippingProduct = new ShippingProduct(product);
+      shippingProduct.setQuantity(units / skus + (i < units % skus ? 1 : 0));
+      products.add(shippingProduct);
+    }
+
+    final ShippingConfiguration config = configuration;
+    ShippingService shippingService = (ShippingService) Proxy.newProxyInstance(
+        ShippingService.class.getClassLoader(), new Class<?>[] {ShippingService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getShippingConfiguration".equals(method.getName())) {
+              return config;
+            }
+            if ("toString".equals(method.getName())) {
+              return "ShippingService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    packaging = new DefaultPackagingImpl();
+    ReflectionTestUtils.setField(packaging, "shippingService", shippingService);
+  }
+
+  @Benchmark
+  public List<PackageDetails> packer() throws Exception {
+    return packaging.getBoxPackagesDetails(products, store);
+  }
+
+  @Benchmark
+  public List<PackageDetails> perUnit() {
+    return perUnitPackages(products, store, configuration);
+  }
+
+  /**
+   * Packing previously done by DefaultPackagingImpl, one Product per unit and a first fit scan of
+   * the boxes for each of them
+   */
+  private static List<PackageDetails> perUnitPackages(List<ShippingProduct> products,
+      MerchantStore store, ShippingConfiguration configuration) {
+
+    double width = configuration.getBoxWidth();
+    double length = configuration.getBoxLength();
+    double height = configuration.getBoxHeight();
+    double weight = configuration.getBoxWeight();
+    double maxweight = configuration.getMaxWeight();
+    double maxVolume = width * length * height;
+
+    List<Product> individualProducts = new ArrayList<Product>();
+    for (ShippingProduct shippingProduct : products) {
+      Product product = shippingProduct.getProduct();
+      for (int i = 1; i <= shippingProduct.getQuantity(); i++) {
+        Product temp = new Product();
+        temp.setProductHeight(product.getProductHeight());
+        temp.setProductLength(product.getProductLength());
+        temp.setProductWidth(product.getProductWidth());
+        temp.setProductWeight(product.getProductWeight());
+        temp.setAttributes(product.getAttributes());
+        temp.setDescriptions(product.getDescriptions());
+        individualProducts.add(temp);
+      }
+    }
+
+    List<double[]> boxesList = new ArrayList<double[]>();//volume left, weight left, weight
+    boxesList.add(new double[] {maxVolume, maxweight, 0});
+
+    for (Product p : individualProducts) {
+      double productWeight = p.getProductWeight().doubleValue();
+      double productVolume = p.getProductWidth().doubleValue()
+          * p.getProductHeight().doubleValue() * p.getProductLength().doubleValue();
+      boolean productAssigned = false;
+      for (double[] pbox : boxesList) {
+        if ((pbox[0] * .75) >= productVolume && pbox[1] >= productWeight) {
+          pbox[0] -= productVolume;
+          pbox[1] -= productWeight;
+          pbox[2] += productWeight;
+          productAssigned = true;
+          break;
+        }
+      }
+      if (!productAssigned) {
+        boxesList.add(new double[] {maxVolume - productVolume, maxweight - productWeight,
+            productWeight});
+      }
+    }
+
+    List<PackageDetails> boxes = new ArrayList<PackageDetails>();
+    for (double[] pb : boxesList) {
+      PackageDetails details = new PackageDetails();
+      details.setShippingHeight(height);
+      details.setShippingLength(length);
+      details.setShippingWeight(weight + pb[2]);
+      details.setShippingWidth(width);
+      details.setItemName(store.getCode());
+      boxes.add(details);
+    }
+    return boxes;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PackagingBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
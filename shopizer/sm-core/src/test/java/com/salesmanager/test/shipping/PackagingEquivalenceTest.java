@@ -0,0 +1,288 @@
+package com.salesmanager.test.shipping;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.integration.shipping.impl.BoxPacker;
+import com.salesmanager.core.business.modules.integration.shipping.impl.DefaultPackagingImpl;
+import com.salesmanager.core.business.services.shipping.ShippingService;
+import com.salesmanager.core.business.services.system.MerchantLogService;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.shipping.PackageDetails;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.shipping.ShippingProduct;
+
+/**
+ * Test
+ *
+ * - The packer puts the same units of each sku in the same boxes as the per unit packing done
+ * before it, for orders filling one or several boxes by volume or by weight
+ * - Box weights are the box weight and the weight of its own content
+ * - Items larger than 75% of the box get a box each, without the empty first box opened before
+ * - Items heavier or larger than the box are refused
+ */
+public class PackagingEquivalenceTest {
+
+  private static final double WIDTH = 40;
+  private static final double LENGTH = 40;
+  private static final double HEIGHT = 40;
+  private static final double BOX_WEIGHT = 1;
+  private static final double MAX_WEIGHT = 30;
+
+  private MerchantStore store;
+  private DefaultPackagingImpl packaging;
+  private List<Object> logs;
+
+  @Before
+  public void setUp() {
+
+    store = new MerchantStore();
+    store.setCode("DEFAULT");
+
+    final ShippingConfiguration configuration = new ShippingConfiguration();
+    configuration.setBoxWidth((int) WIDTH);
+    configuration.setBoxLength((int) LENGTH);
+    configuration.setBoxHeight((int) HEIGHT);
+    configuration.setBoxWeight(BOX_WEIGHT);
+    configuration.setMaxWeight(MAX_WEIGHT);
+
+    ShippingService shippingService = (ShippingService) Proxy.newProxyInstance(
+        ShippingService.class.getClassLoader(), new Class<?>[] {ShippingService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getShippingConfiguration".equals(method.getName())) {
+              return configuration;
+            }
+            if ("toString".equals(method.getName())) {
+              return "ShippingService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    logs = new ArrayList<Object>();
+    MerchantLogService merchantLogService = (MerchantLogService) Proxy.newProxyInstance(
+        MerchantLogService.class.getClassLoader(), new Class<?>[] {MerchantLogService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("save".equals(method.getName())) {
+              logs.add(args[0]);
+              return null;
+            }
+            if ("toString".equals(method.getName())) {
+              return "MerchantLogService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    packaging = new DefaultPackagingImpl();
+    ReflectionTestUtils.setField(packaging, "shippingService", shippingService);
+    ReflectionTestUtils.setField(packaging, "merchantLogService", merchantLogService);
+  }
+
+  @Test
+  public void singleBox() throws Exception {
+    assertSamePacking(new double[][] {{4, 6, 3, .5, 3}, {5, 6, 4, 1.5, 2}}, 1);
+  }
+
+  @Test
+  public void severalBoxesByVolume() throws Exception {
+    //light items of 8000, 7 fit in 75% of what is left of a box
+    assertSamePacking(new double[][] {{20, 20, 20, .25, 15}}, 3);
+  }
+
+  @Test
+  public void severalBoxesByWeight() throws Exception {
+    //4 units of 7.5 fill the maximum weight
+    assertSamePacking(new double[][] {{2, 2, 2, 7.5, 9}}, 3);
+  }
+
+  @Test
+  public void laterSkusFillEarlierBoxes() throws Exception {
+    //each box is left with room for small items after the large ones
+    assertSamePacking(new double[][] {{30, 30, 30, 2, 3}, {5, 5, 5, .5, 40},
+        {2, 2, 2, 20, 3}}, -1);
+  }
+
+  @Test
+  public void benchmarkOrders() throws Exception {
+    for (int units : new int[] {10, 500, 5000}) {
+      int skus = 5;
+      double[][] items = new double[skus][];
+      for (int i = 0; i < skus; i++) {
+        int quantity = units / skus + (i < units % skus ? 1 : 0);
+        items[i] = new double[] {4 + i, 6, 3 + i, .5 + i, quantity};
+      }
+      assertSamePacking(items, -1);
+    }
+  }
+
+  @Test
+  public void randomOrders() throws Exception {
+    //halves and quarters keep the volumes and weights exact in both packings
+    Random random = new Random(42);
+    for (int o = 0; o < 300; o++) {
+      double[][] items = new double[1 + random.nextInt(4)][];
+      for (int i = 0; i < items.length; i++) {
+        items[i] = new double[] {1 + random.nextInt(39) / 2d, 1 + random.nextInt(39) / 2d,
+            1 + random.nextInt(39) / 2d, (1 + random.nextInt(40)) / 4d, 1 + random.nextInt(50)};
+      }
+      assertSamePacking(items, -1);
+    }
+  }
+
+  @Test
+  public void itemsLargerThanTheFillRatio() throws Exception {
+
+    double[][] items = {{38, 38, 38, 2, 2}};
+    List<double[]> before = perUnit(items);
+    List<PackageDetails> boxes = packaging.getBoxPackagesDetails(products(items), store);
+
+    //the first box was opened before packing and could not take the item
+    Assert.assertEquals(3, before.size());
+    Assert.assertEquals(0, before.get(0)[2], 0);
+    Assert.assertEquals(2, boxes.size());
+    for (PackageDetails box : boxes) {
+      Assert.assertEquals(BOX_WEIGHT + 2, box.getShippingWeight(), 0);
+    }
+  }
+
+  @Test
+  public void overweightItem() {
+    assertRefused(new double[][] {{4, 4, 4, 1, 2}, {4, 4, 4, MAX_WEIGHT + .5, 1}});
+  }
+
+  @Test
+  public void itemLargerThanTheBox() {
+    assertRefused(new double[][] {{4, 4, 4, 1, 2}, {WIDTH + 1, 4, 4, 1, 1}});
+  }
+
+  /**
+   * Items are width, length, height, weight and quantity, boxes -1 when not checked
+   */
+  private void assertSamePacking(double[][] items, int boxes) throws ServiceException {
+
+    List<double[]> before = perUnit(items);
+
+    int skus = items.length;
+    double[] width = new double[skus];
+    double[] length = new double[skus];
+    double[] height = new double[skus];
+    double[] weight = new double[skus];
+    int[] quantity = new int[skus];
+    for (int s = 0; s < skus; s++) {
+      width[s] = items[s][0];
+      length[s] = items[s][1];
+      height[s] = items[s][2];
+      weight[s] = items[s][3];
+      quantity[s] = (int) items[s][4];
+    }
+    BoxPacker.Packing packing = new BoxPacker(WIDTH, LENGTH, HEIGHT, MAX_WEIGHT)
+        .pack(width, length, height, weight, quantity);
+
+    Assert.assertEquals(before.size(), packing.size());
+    if (boxes >= 0) {
+      Assert.assertEquals(boxes, packing.size());
+    }
+    for (int b = 0; b < packing.size(); b++) {
+      double[] box = before.get(b);
+      Assert.assertEquals(box[2], packing.getContentWeight(b), 1e-9);
+      for (int s = 0; s < skus; s++) {
+        Assert.assertEquals("box " + b + " sku " + s, (int) box[3 + s], packing.getUnits(b, s));
+      }
+    }
+
+    List<PackageDetails> details = packaging.getBoxPackagesDetails(products(items), store);
+    Assert.assertEquals(before.size(), details.size());
+    for (int b = 0; b < details.size(); b++) {
+      PackageDetails box = details.get(b);
+      Assert.assertEquals(BOX_WEIGHT + before.get(b)[2], box.getShippingWeight(), 1e-9);
+      Assert.assertEquals(WIDTH, box.getShippingWidth(), 0);
+      Assert.assertEquals(LENGTH, box.getShippingLength(), 0);
+      Assert.assertEquals(HEIGHT, box.getShippingHeight(), 0);
+    }
+  }
+
+  private void assertRefused(double[][] items) {
+    try {
+      packaging.getBoxPackagesDetails(products(items), store);
+      Assert.fail("Packing was expected to be refused");
+    } catch (ServiceException e) {
+      Assert.assertEquals(1, logs.size());
+    }
+  }
+
+  private List<ShippingProduct> products(double[][] items) {
+    List<ShippingProduct> products = new ArrayList<ShippingProduct>();
+    for (int s = 0; s < items.length; s++) {
+      Product product = new Product();
+      product.setSku("SKU" + s);
+      product.setProductWidth(new BigDecimal(items[s][0]));
+      product.setProductLength(new BigDecimal(items[s][1]));
+      product.setProductHeight(new BigDecimal(items[s][2]));
+      product.setProductWeight(new BigDecimal(items[s][3]));
+      ShippingProduct shippingProduct = new ShippingProduct(product);
+      shippingProduct.setQuantity((int) items[s][4]);
+      products.add(shippingProduct);
+    }
+    return products;
+  }
+
+  /**
+   * Packing previously done by DefaultPackagingImpl, a first box opened upfront then a first fit
+   * scan of the boxes for each unit. Boxes are volume left, weight left, content weight then the
+   * units of each sku.
+   */
+  private static List<double[]> perUnit(double[][] items) {
+
+    double maxVolume = WIDTH * LENGTH * HEIGHT;
+    List<double[]> boxesList = new ArrayList<double[]>();
+    boxesList.add(box(maxVolume, items.length));
+
+    for (int s = 0; s < items.length; s++) {
+      double productVolume = items[s][0] * items[s][1] * items[s][2];
+      double productWeight = items[s][3];
+      for (int i = 0; i < items[s][4]; i++) {
+        double[] assigned = null;
+        for (double[] pbox : boxesList) {
+          if ((pbox[0] * .75) >= productVolume && pbox[1] >= productWeight) {
+            assigned = pbox;
+            break;
+          }
+        }
+        if (assigned == null) {
+          assigned = box(maxVolume, items.length);
+          boxesList.add(assigned);
+        }
+        assigned[0] -= productVolume;
+        assigned[1] -= productWeight;
+        assigned[2] += productWeight;
+        assigned[3 + s]++;
+      }
+    }
+    return boxesList;
+  }
+
+  private static double[] box(double maxVolume, int skus) {
+    double[] box = new double[3 + skus];
+    box[0] = maxVolume;
+    box[1] = MAX_WEIGHT;
+    return box;
+  }
+
+}
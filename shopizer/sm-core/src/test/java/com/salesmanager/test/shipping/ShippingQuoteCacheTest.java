@@ -0,0 +1,131 @@
+package com.salesmanager.test.shipping;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.services.shipping.ShippingQuoteCache;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.common.Delivery;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.shipping.ShippingOption;
+import com.salesmanager.core.model.shipping.ShippingProduct;
+import com.salesmanager.core.model.shipping.ShippingQuote;
+
+/**
+ * Test
+ *
+ * - Cache key of a cart and destination
+ * - Cached quotes are copies
+ */
+public class ShippingQuoteCacheTest {
+
+  private ShippingQuoteCache cache;
+  private MerchantStore store;
+  private Language language;
+
+  @Before
+  public void setUp() {
+    cache = new ShippingQuoteCache();
+    ReflectionTestUtils.setField(cache, "cache", new ConcurrentMapCache("test"));
+
+    store = new MerchantStore();
+    store.setId(1);
+    language = new Language("en");
+  }
+
+  @Test
+  public void keyDoesNotDependOnLineOrder() {
+
+    List<ShippingProduct> products = new ArrayList<ShippingProduct>();
+    products.add(product("A", 1, "2.0"));
+    products.add(product("B", 3, "1"));
+    String key = cache.getKey(store, 0, language, delivery("10001"), products,
+        new BigDecimal("50"));
+
+    Collections.reverse(products);
+    //same weight written differently
+    products.set(0, product("B", 3, "1.00"));
+    Assert.assertEquals(key, cache.getKey(store, 0, language, delivery("10001"), products,
+        new BigDecimal("50.00")));
+  }
+
+  @Test
+  public void keyChangesWithCartDestinationAndVersion() {
+
+    List<ShippingProduct> products = Collections.singletonList(product("A", 1, "2"));
+    String key = cache.getKey(store, 0, language, delivery("10001"), products,
+        new BigDecimal("50"));
+
+    Assert.assertNotEquals(key, cache.getKey(store, 0, language, delivery("10001"),
+        Collections.singletonList(product("A", 2, "2")), new BigDecimal("50")));
+    Assert.assertNotEquals(key, cache.getKey(store, 0, language, delivery("10002"), products,
+        new BigDecimal("50")));
+    Assert.assertNotEquals(key, cache.getKey(store, 1, language, delivery("10001"), products,
+        new BigDecimal("50")));
+    Assert.assertNotEquals(key, cache.getKey(store, 0, language, delivery("10001"), products,
+        new BigDecimal("60")));
+  }
+
+  @Test
+  public void cachedQuotesAreCopies() {
+
+    ShippingOption option = new ShippingOption();
+    option.setOptionCode("03");
+    option.setOptionPrice(new BigDecimal("12.50"));
+    option.setShippingModuleCode("ups");
+
+    ShippingQuote quote = new ShippingQuote();
+    quote.setShippingModuleCode("ups");
+    quote.setShippingOptions(Collections.singletonList(option));
+    quote.setSelectedShippingOption(option);
+
+    Assert.assertNull(cache.get("k"));
+    cache.put("k", quote);
+
+    //ids set by the caller after caching are not shared
+    option.setShippingQuoteOptionId(10L);
+
+    ShippingQuote cached = cache.get("k");
+    Assert.assertNotSame(quote, cached);
+    Assert.assertEquals("ups", cached.getShippingModuleCode());
+    Assert.assertEquals(1, cached.getShippingOptions().size());
+    Assert.assertNull(cached.getShippingOptions().get(0).getShippingQuoteOptionId());
+    Assert.assertSame(cached.getShippingOptions().get(0), cached.getSelectedShippingOption());
+
+    cached.getShippingOptions().get(0).setShippingQuoteOptionId(20L);
+    Assert.assertNull(cache.get("k").getShippingOptions().get(0).getShippingQuoteOptionId());
+
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+  }
+
+  private ShippingProduct product(String sku, int quantity, String weight) {
+    Product product = new Product();
+    product.setSku(sku);
+    product.setProductWeight(new BigDecimal(weight));
+    product.setProductWidth(new BigDecimal("4"));
+    product.setProductLength(new BigDecimal("6"));
+    product.setProductHeight(new BigDecimal("3"));
+    ShippingProduct shippingProduct = new ShippingProduct(product);
+    shippingProduct.setQuantity(quantity);
+    return shippingProduct;
+  }
+
+  private Delivery delivery(String postalCode) {
+    Delivery delivery = new Delivery();
+    delivery.setCountry(new Country("US"));
+    delivery.setPostalCode(postalCode);
+    return delivery;
+  }
+
+}
@@ -0,0 +1,198 @@
+package com.salesmanager.test.tax;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshot;
+import com.salesmanager.core.business.services.system.MerchantConfigurationSnapshotService;
+import com.salesmanager.core.business.services.tax.TaxRateIndex;
+import com.salesmanager.core.business.services.tax.TaxRateIndexService;
+import com.salesmanager.core.business.services.tax.TaxServiceImpl;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.common.Billing;
+import com.salesmanager.core.model.customer.Customer;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.order.OrderSummary;
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.reference.zone.Zone;
+import com.salesmanager.core.model.shipping.ShippingConfiguration;
+import com.salesmanager.core.model.shipping.ShippingSummary;
+import com.salesmanager.core.model.shoppingcart.ShoppingCartItem;
+import com.salesmanager.core.model.system.IntegrationConfiguration;
+import com.salesmanager.core.model.tax.TaxItem;
+import com.salesmanager.core.model.tax.taxclass.TaxClass;
+import com.salesmanager.core.model.tax.taxrate.TaxRate;
+import com.salesmanager.core.model.tax.taxrate.TaxRateDescription;
+
+/**
+ * Test
+ *
+ * - Rate chains by country, zone or state province and tax class
+ * - Compound taxes calculated from the index
+ */
+public class TaxRateIndexTest {
+
+  private Country canada;
+  private Zone quebec;
+  private Zone ontario;
+  private TaxClass defaultClass;
+  private TaxClass booksClass;
+  private Language english;
+  private MerchantStore store;
+  private TaxRateIndex index;
+
+  @Before
+  public void setUp() {
+
+    canada = new Country("CA");
+    canada.setId(1);
+    quebec = new Zone(canada, "Quebec", "QC");
+    quebec.setId(10L);
+    ontario = new Zone(canada, "Ontario", "ON");
+    ontario.setId(11L);
+    defaultClass = new TaxClass(TaxClass.DEFAULT_TAX_CLASS);
+    defaultClass.setId(100L);
+    booksClass = new TaxClass("BOOKS");
+    booksClass.setId(101L);
+    english = new Language("en");
+    english.setId(1);
+
+    store = new MerchantStore();
+    store.setId(1);
+    store.setCountry(canada);
+    store.setZone(quebec);
+
+    List<TaxRate> rates = new ArrayList<TaxRate>();
+    //quebec sales tax is applied on the price including gst
+    rates.add(rate(1L, "QST", "9.975", 2, true, quebec, defaultClass));
+    rates.add(rate(2L, "GST", "5", 1, false, null, defaultClass));
+    rates.add(rate(3L, "GSTB", "5", 1, false, null, booksClass));
+
+    index = new TaxRateIndex(0, defaultClass.getId(), rates);
+  }
+
+  @Test
+  public void ratesByZoneAndTaxClass() {
+
+    TaxRateIndex.Rate[] rates = index.getRates(canada, quebec, null, defaultClass.getId());
+    Assert.assertEquals(2, rates.length);
+    Assert.assertEquals("GST", rates[0].getCode());
+    Assert.assertEquals("QST", rates[1].getCode());
+
+    //zone without rates of its own gets the country rates
+    rates = index.getRates(canada, ontario, null, defaultClass.getId());
+    Assert.assertEquals(1, rates.length);
+    Assert.assertEquals("GST", rates[0].getCode());
+
+    rates = index.getRates(canada, quebec, null, booksClass.getId());
+    Assert.assertEquals(1, rates.length);
+    Assert.assertEquals("GSTB", rates[0].getCode());
+
+    Assert.assertEquals(0, index.getRates(canada, null, "Nowhere", defaultClass.getId()).length);
+  }
+
+  @Test
+  public void compoundTaxes() throws Exception {
+
+    Customer customer = new Customer();
+    Billing billing = new Billing();
+    billing.setCountry(canada);
+    billing.setZone(quebec);
+    customer.setBilling(billing);
+
+    OrderSummary orderSummary = new OrderSummary();
+    orderSummary.setProducts(Arrays.asList(item("90.05", 1, null), item("10.05", 2, booksClass)));
+    ShippingSummary shippingSummary = new ShippingSummary();
+    shippingSummary.setShipping(new BigDecimal("10"));
+    orderSummary.setShippingSummary(shippingSummary);
+
+    List<TaxItem> taxItems = taxService().calculateTax(orderSummary, customer, store, english);
+
+    //default class 90.05 + 10 shipping, books 20.10
+    Assert.assertEquals(3, taxItems.size());
+    Assert.assertEquals("GST", taxItems.get(0).getTaxRate().getCode());
+    Assert.assertEquals(new BigDecimal("5.00"), taxItems.get(0).getItemPrice());
+    Assert.assertEquals("GST en", taxItems.get(0).getLabel());
+    //1.005 rounded half up
+    Assert.assertEquals("GSTB", taxItems.get(1).getTaxRate().getCode());
+    Assert.assertEquals(new BigDecimal("1.01"), taxItems.get(1).getItemPrice());
+    //9.975% of 105.05
+    Assert.assertEquals("QST", taxItems.get(2).getTaxRate().getCode());
+    Assert.assertEquals(new BigDecimal("10.48"), taxItems.get(2).getItemPrice());
+  }
+
+  private TaxServiceImpl taxService() {
+
+    TaxServiceImpl taxService = new TaxServiceImpl();
+    ReflectionTestUtils.setField(taxService, "taxRateIndexService", new TaxRateIndexService() {
+      @Override
+      public TaxRateIndex getIndex(MerchantStore store) {
+        return index;
+      }
+
+      @Override
+      public void invalidate(Integer storeId) {
+      }
+    });
+    ReflectionTestUtils.setField(taxService, "merchantConfigurationSnapshotService",
+        new MerchantConfigurationSnapshotService() {
+          @Override
+          public MerchantConfigurationSnapshot getSnapshot(MerchantStore store)
+              throws ServiceException {
+            return new MerchantConfigurationSnapshot(0, new ShippingConfiguration(),
+                Collections.<String, IntegrationConfiguration>emptyMap(),
+                Collections.<String, IntegrationConfiguration>emptyMap(),
+                Collections.<String>emptyList(), null);
+          }
+
+          @Override
+          public long getVersion(MerchantStore store) {
+            return 0;
+          }
+
+          @Override
+          public void invalidate(Integer storeId) {
+          }
+        });
+    return taxService;
+  }
+
+  private ShoppingCartItem item(String price, int quantity, TaxClass taxClass) {
+    Product product = new Product();
+    product.setTaxClass(taxClass);
+    ShoppingCartItem item = new ShoppingCartItem(product);
+    item.setItemPrice(new BigDecimal(price));
+    item.setQuantity(quantity);
+    return item;
+  }
+
+  private TaxRate rate(Long id, String code, String percentage, int priority, boolean piggyback,
+      Zone zone, TaxClass taxClass) {
+    TaxRate taxRate = new TaxRate();
+    taxRate.setId(id);
+    taxRate.setCode(code);
+    taxRate.setTaxRate(new BigDecimal(percentage));
+    taxRate.setTaxPriority(priority);
+    taxRate.setPiggyback(piggyback);
+    taxRate.setCountry(canada);
+    taxRate.setZone(zone);
+    taxRate.setTaxClass(taxClass);
+    taxRate.setMerchantStore(store);
+    TaxRateDescription description = new TaxRateDescription();
+    description.setLanguage(english);
+    description.setName(code + " en");
+    taxRate.setDescriptions(Collections.singletonList(description));
+    return taxRate;
+  }
+
+}
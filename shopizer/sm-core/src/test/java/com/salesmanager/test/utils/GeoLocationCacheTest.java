@@ -0,0 +1,68 @@
+package com.salesmanager.test.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.modules.utils.GeoLocationCache;
+import com.salesmanager.core.business.modules.utils.GeoLocationImpl;
+import com.salesmanager.core.model.common.Address;
+
+/**
+ * Test
+ *
+ * - IPv4 addresses as numbers, other addresses are not cached
+ * - Least recently used addresses are replaced once the cache is full
+ */
+public class GeoLocationCacheTest {
+
+  @Test
+  public void ipv4() {
+    Assert.assertEquals(0L, GeoLocationImpl.toLong("0.0.0.0"));
+    Assert.assertEquals(0xFFFFFFFFL, GeoLocationImpl.toLong("255.255.255.255"));
+    Assert.assertEquals((96L << 24) | (21L << 16) | (132L << 8),
+        GeoLocationImpl.toLong("96.21.132.0"));
+    Assert.assertEquals(-1L, GeoLocationImpl.toLong("256.1.1.1"));
+    Assert.assertEquals(-1L, GeoLocationImpl.toLong("1.1.1"));
+    Assert.assertEquals(-1L, GeoLocationImpl.toLong("1.1.1.1.1"));
+    Assert.assertEquals(-1L, GeoLocationImpl.toLong("1..1.1"));
+    Assert.assertEquals(-1L, GeoLocationImpl.toLong("::1"));
+    Assert.assertEquals(-1L, GeoLocationImpl.toLong(null));
+  }
+
+  @Test
+  public void leastRecentlyUsed() {
+    GeoLocationCache cache = new GeoLocationCache(3);
+    cache.put(1L, address("CA"));
+    cache.put(2L, address("US"));
+    cache.put(3L, address("FR"));
+    Assert.assertEquals("CA", cache.get(1L).getCountry());
+
+    //2 is the least recently used
+    cache.put(4L, address("DE"));
+    Assert.assertEquals(3, cache.size());
+    Assert.assertNull(cache.get(2L));
+    Assert.assertEquals("CA", cache.get(1L).getCountry());
+    Assert.assertEquals("FR", cache.get(3L).getCountry());
+    Assert.assertEquals("DE", cache.get(4L).getCountry());
+
+    cache.put(4L, address("IT"));
+    Assert.assertEquals("IT", cache.get(4L).getCountry());
+    Assert.assertEquals(3, cache.size());
+
+    //many more keys than entries
+    for (long key = 100; key < 10000; key++) {
+      cache.put(key, address(String.valueOf(key)));
+      Assert.assertEquals(String.valueOf(key), cache.get(key).getCountry());
+    }
+    Assert.assertEquals(3, cache.size());
+    Assert.assertNotNull(cache.get(9997L));
+    Assert.assertNull(cache.get(9996L));
+  }
+
+  private Address address(String country) {
+    Address address = new Address();
+    address.setCountry(country);
+    return address;
+  }
+
+}
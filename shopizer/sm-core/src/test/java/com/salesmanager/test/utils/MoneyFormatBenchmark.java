@@ -0,0 +1,99 @@
+package com.salesmanager.test.utils;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.salesmanager.core.business.utils.ProductPriceUtils;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.country.Country;
+import com.salesmanager.core.model.reference.currency.Currency;
+import com.salesmanager.core.model.reference.language.Language;
+
+/**
+ * Amounts of a listing page, 48 products with a price, a discounted price and 4 attribute prices,
+ * a NumberFormat built for each amount as it was done before against ProductPriceUtils
+ *
+ * mvn test-compile exec:java -Dexec.mainClass=com.salesmanager.test.utils.MoneyFormatBenchmark
+ * -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class MoneyFormatBenchmark {
+
+  private static final int AMOUNTS = 48 * 6;
+
+  private BigDecimal[] amounts;
+  private MerchantStore store;
+  private ProductPriceUtils priceUtils;
+
+  @Setup
+  public void setUp() {
+    amounts = new BigDecimal[AMOUNTS];
+    for (int i = 0; i < AMOUNTS; i++) {
+      amounts[i] = new BigDecimal(1999 + i * 137).movePointLeft(2);
+    }
+
+    Currency currency = new Currency();
+    currency.setCurrency(java.util.Currency.getInstance("USD"));
+    Language language = new Language();
+    language.setCode("en");
+    Country country = new Country();
+    country.setIsoCode("US");
+
+    store = new MerchantStore();
+    store.setCode("DEFAULT");
+    store.setCurrency(currency);
+    store.setDefaultLanguage(language);
+    store.setCountry(country);
+    store.setCurrencyFormatNational(true);
+
+    priceUtils = new ProductPriceUtils();
+  }
+
+  @Benchmark
+  public void registry(Blackhole blackhole) throws Exception {
+    for (BigDecimal amount : amounts) {
+      blackhole.consume(priceUtils.getStoreFormatedAmountWithCurrency(store, amount));
+    }
+  }
+
+  @Benchmark
+  public void formatPerAmount(Blackhole blackhole) {
+    for (BigDecimal amount : amounts) {
+      java.util.Locale locale = new java.util.Locale(store.getDefaultLanguage().getCode(),
+          store.getCountry().getIsoCode());
+      NumberFormat currencyInstance = NumberFormat.getCurrencyInstance(locale);
+      currencyInstance.setCurrency(store.getCurrency().getCurrency());
+      blackhole.consume(currencyInstance.format(amount.doubleValue()));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(MoneyFormatBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
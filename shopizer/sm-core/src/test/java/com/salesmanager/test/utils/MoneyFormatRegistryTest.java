@@ -0,0 +1,108 @@
+package com.salesmanager.test.utils;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.salesmanager.core.business.utils.MoneyFormatRegistry;
+import com.salesmanager.core.business.utils.MoneyFormatRegistry.Style;
+
+/**
+ * Test
+ *
+ * - Same output as a NumberFormat built for each amount
+ * - Amounts formatted from the BigDecimal, not from a double
+ * - Amounts rounded half up
+ * - Formats used from several threads
+ */
+public class MoneyFormatRegistryTest {
+
+  private final MoneyFormatRegistry registry = new MoneyFormatRegistry(2);
+
+  @Test
+  public void sameAsNumberFormat() {
+    Currency usd = Currency.getInstance("USD");
+    Currency eur = Currency.getInstance("EUR");
+    BigDecimal amount = new BigDecimal("1345.99");
+
+    NumberFormat national = NumberFormat.getCurrencyInstance(Locale.CANADA_FRENCH);
+    national.setCurrency(eur);
+    Assert.assertEquals(national.format(amount.doubleValue()),
+        registry.format(Style.NATIONAL, Locale.CANADA_FRENCH, eur, amount));
+
+    NumberFormat international = NumberFormat.getCurrencyInstance();
+    international.setCurrency(usd);
+    Assert.assertEquals(international.format(amount.doubleValue()),
+        registry.format(Style.INTERNATIONAL, Locale.FRANCE, usd, amount));
+
+    Assert.assertEquals("1,345.90",
+        registry.format(Style.AMOUNT, Locale.US, usd, new BigDecimal("1345.9")));
+    Assert.assertEquals("1.345,90",
+        registry.format(Style.AMOUNT, Locale.GERMANY, null, new BigDecimal("1345.9")));
+
+    Assert.assertSame(registry.getLocale("fr", "CA"), registry.getLocale("fr", "CA"));
+  }
+
+  @Test
+  public void exactAmounts() {
+    //not representable as a double
+    BigDecimal amount = new BigDecimal("12345678901234567.89");
+    Assert.assertEquals("12,345,678,901,234,567.89",
+        registry.format(Style.AMOUNT, Locale.US, null, amount));
+    Assert.assertEquals("$12,345,678,901,234,567.89",
+        registry.format(Style.NATIONAL, Locale.US, Currency.getInstance("USD"), amount));
+  }
+
+  @Test
+  public void halfUp() {
+    //half even would give 2.34, 1.12 and $0.12
+    Assert.assertEquals("2.35",
+        registry.format(Style.AMOUNT, Locale.US, null, new BigDecimal("2.345")));
+    Assert.assertEquals("1.13",
+        registry.format(Style.AMOUNT, Locale.US, null, new BigDecimal("1.125")));
+    Assert.assertEquals("$0.13", registry.format(Style.NATIONAL, Locale.US,
+        Currency.getInstance("USD"), new BigDecimal("0.125")));
+    Assert.assertEquals("-2.35",
+        registry.format(Style.AMOUNT, Locale.US, null, new BigDecimal("-2.345")));
+  }
+
+  @Test
+  public void threads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t;
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            for (int i = 0; i < 2000; i++) {
+              BigDecimal amount = new BigDecimal(offset * 100000 + i).movePointLeft(2);
+              String expected = String.format(Locale.US, "%,.2f", amount);
+              if (!expected.equals(registry.format(Style.AMOUNT, Locale.US, null, amount))) {
+                return false;
+              }
+            }
+            return true;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        Assert.assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -1,5 +1,6 @@
 package com.salesmanager.shop.admin.controller.configurations;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,12 +22,22 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.salesmanager.core.business.modules.utils.GeoLocationImpl;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.business.services.reference.registry.ReferenceData;
+import com.salesmanager.core.business.services.reference.registry.ReferenceDataRegistry;
+import com.salesmanager.core.business.services.shipping.ShippingQuoteCache;
 import com.salesmanager.core.business.utils.CacheUtils;
 import com.salesmanager.core.business.utils.ajax.AjaxResponse;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.shop.admin.controller.ControllerConstants;
 import com.salesmanager.shop.admin.model.web.Menu;
 import com.salesmanager.shop.constants.Constants;
+import com.salesmanager.shop.utils.SessionSizeMetrics;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.StatisticsGateway;
 
 
 @Controller
@@ -37,6 +48,21 @@ public class CacheController {
   @Inject
   private CacheUtils cache;
 
+  @Inject
+  private ShippingQuoteCache shippingQuoteCache;
+
+  @Inject
+  private GeoLocationImpl geoLocation;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  @Inject
+  private SessionSizeMetrics sessionSizeMetrics;
+
+  @Inject
+  private ReferenceDataRegistry referenceDataRegistry;
+
 
   @PreAuthorize("hasRole('AUTH')")
   @RequestMapping(value = "/admin/cache/cacheManagement.html", method = RequestMethod.GET)
@@ -77,6 +103,8 @@ public class CacheController {
       } else {
         cache.removeAllFromCache(store);
       }
+      //page chrome
+      storeVersionService.invalidate(store.getId());
 
       resp.setStatus(AjaxResponse.RESPONSE_OPERATION_COMPLETED);
 
@@ -92,6 +120,144 @@ public class CacheController {
   }
 
 
+  @PreAuthorize("hasRole('AUTH')")
+  @RequestMapping(value = "/admin/cache/referenceData.html", method = RequestMethod.POST)
+  public @ResponseBody
+  ResponseEntity<String> reloadReferenceData(HttpServletRequest request,
+      HttpServletResponse response) {
+
+    AjaxResponse resp = new AjaxResponse();
+
+    try {
+
+      //countries, zones, languages and currencies changed in the database
+      referenceDataRegistry.reload();
+
+      ReferenceData referenceData = referenceDataRegistry.getReferenceData();
+      resp.addEntry("languages", String.valueOf(referenceData.getLanguages().size()));
+      resp.addEntry("currencies", String.valueOf(referenceData.getCurrencies().size()));
+      resp.setStatus(AjaxResponse.RESPONSE_OPERATION_COMPLETED);
+
+    } catch (Exception e) {
+      LOGGER.error("Error while reloading reference data", e);
+      resp.setStatus(AjaxResponse.RESPONSE_STATUS_FAIURE);
+    }
+
+    String returnString = resp.toJSONString();
+    final HttpHeaders httpHeaders = new HttpHeaders();
+    httpHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
+    return new ResponseEntity<String>(returnString, httpHeaders, HttpStatus.OK);
+  }
+
+
+  @PreAuthorize("hasRole('AUTH')")
+  @RequestMapping(value = "/admin/cache/shippingQuotes.html", method = RequestMethod.GET)
+  public @ResponseBody
+  ResponseEntity<String> shippingQuoteStatistics(HttpServletRequest request,
+      HttpServletResponse response) {
+
+    AjaxResponse resp = new AjaxResponse();
+    resp.addEntry("hits", String.valueOf(shippingQuoteCache.getHits()));
+    resp.addEntry("misses", String.valueOf(shippingQuoteCache.getMisses()));
+    resp.addEntry("size", String.valueOf(shippingQuoteCache.getSize()));
+    resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
+
+    String returnString = resp.toJSONString();
+    final HttpHeaders httpHeaders = new HttpHeaders();
+    httpHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
+    return new ResponseEntity<String>(returnString, httpHeaders, HttpStatus.OK);
+  }
+
+
+  @PreAuthorize("hasRole('AUTH')")
+  @RequestMapping(value = "/admin/cache/geoLocation.html", method = RequestMethod.GET)
+  public @ResponseBody
+  ResponseEntity<String> geoLocationStatistics(HttpServletRequest request,
+      HttpServletResponse response) {
+
+    AjaxResponse resp = new AjaxResponse();
+    resp.addEntry("hits", String.valueOf(geoLocation.getHits()));
+    resp.addEntry("misses", String.valueOf(geoLocation.getMisses()));
+    resp.addEntry("size", String.valueOf(geoLocation.getSize()));
+    resp.addEntry("averageLookupMicros", String.valueOf(geoLocation.getAverageLookupMicros()));
+    resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
+
+    String returnString = resp.toJSONString();
+    final HttpHeaders httpHeaders = new HttpHeaders();
+    httpHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
+    return new ResponseEntity<String>(returnString, httpHeaders, HttpStatus.OK);
+  }
+
+
+  @PreAuthorize("hasRole('AUTH')")
+  @RequestMapping(value = "/admin/cache/entities.html", method = RequestMethod.GET)
+  public @ResponseBody
+  ResponseEntity<String> entityCacheStatistics(HttpServletRequest request,
+      HttpServletResponse response) {
+
+    AjaxResponse resp = new AjaxResponse();
+    //regions of the second level cache, in the singleton cache manager of hibernate
+    CacheManager regions = CacheManager.getInstance();
+    String[] names = regions.getCacheNames();
+    Arrays.sort(names);
+    for (String name : names) {
+      Ehcache region = regions.getEhcache(name);
+      StatisticsGateway statistics = region.getStatistics();
+      Map<String, String> entry = new HashMap<String, String>();
+      entry.put("region", name);
+      entry.put("hits", String.valueOf(statistics.cacheHitCount()));
+      entry.put("misses", String.valueOf(statistics.cacheMissCount()));
+      entry.put("puts", String.valueOf(statistics.cachePutCount()));
+      entry.put("size", String.valueOf(region.getSize()));
+      resp.addDataEntry(entry);
+    }
+    resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
+
+    String returnString = resp.toJSONString();
+    final HttpHeaders httpHeaders = new HttpHeaders();
+    httpHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
+    return new ResponseEntity<String>(returnString, httpHeaders, HttpStatus.OK);
+  }
+
+
+  @PreAuthorize("hasRole('AUTH')")
+  @RequestMapping(value = "/admin/cache/sessions.html", method = RequestMethod.GET)
+  public @ResponseBody
+  ResponseEntity<String> sessionStatistics(HttpServletRequest request,
+      HttpServletResponse response) {
+
+    SessionSizeMetrics.Snapshot snapshot = sessionSizeMetrics.measure();
+
+    AjaxResponse resp = new AjaxResponse();
+    resp.addEntry("sessions", String.valueOf(snapshot.getSessions()));
+    resp.addEntry("averageBytes", String.valueOf(snapshot.getAverageBytes()));
+    resp.addEntry("maxBytes", String.valueOf(snapshot.getMaxBytes()));
+    for (Map.Entry<String, Long> attribute : snapshot.getAttributeBytes().entrySet()) {
+      Map<String, String> entry = new HashMap<String, String>();
+      entry.put("attribute", attribute.getKey());
+      entry.put("bytes", String.valueOf(attribute.getValue()));
+      Long notSerializable = snapshot.getNotSerializable().get(attribute.getKey());
+      entry.put("notSerializable", String.valueOf(notSerializable == null ? 0 : notSerializable));
+      resp.addDataEntry(entry);
+    }
+    for (Map.Entry<String, Long> attribute : snapshot.getNotSerializable().entrySet()) {
+      if (!snapshot.getAttributeBytes().containsKey(attribute.getKey())) {
+        Map<String, String> entry = new HashMap<String, String>();
+        entry.put("attribute", attribute.getKey());
+        entry.put("bytes", "0");
+        entry.put("notSerializable", String.valueOf(attribute.getValue()));
+        resp.addDataEntry(entry);
+      }
+    }
+    resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
+
+    String returnString = resp.toJSONString();
+    final HttpHeaders httpHeaders = new HttpHeaders();
+    httpHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
+    return new ResponseEntity<String>(returnString, httpHeaders, HttpStatus.OK);
+  }
+
+
   private void setMenu(Model model, HttpServletRequest request) throws Exception {
 
     //display menu
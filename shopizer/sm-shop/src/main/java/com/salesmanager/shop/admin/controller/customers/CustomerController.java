@@ -34,9 +34,11 @@ import com.salesmanager.shop.constants.Constants;
 import com.salesmanager.shop.constants.EmailConstants;
 import com.salesmanager.shop.populator.customer.ReadableCustomerOptionPopulator;
 import com.salesmanager.shop.store.controller.customer.facade.CustomerFacade;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.utils.EmailUtils;
 import com.salesmanager.shop.utils.LabelUtils;
 import com.salesmanager.shop.utils.LocaleUtils;
+import com.salesmanager.shop.utils.SessionStateUtils;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -82,6 +84,12 @@ public class CustomerController {
   @Inject
   private CustomerService customerService;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
+  @Inject
+  private SessionStateUtils sessionState;
+
   @Inject
   private CustomerOptionService customerOptionService;
 
@@ -409,6 +417,8 @@ public class CustomerController {
     newCustomer.setBilling(customer.getBilling());
 
     customerService.saveOrUpdate(newCustomer);
+    principalCache.invalidate(JWTPrincipalCache.CUSTOMER, newCustomer.getNick());
+    sessionState.evictCustomer(newCustomer.getId());
 
     model.addAttribute("customer", newCustomer);
     model.addAttribute("countries", countries);
@@ -744,10 +754,13 @@ public class CustomerController {
 
       String encodedPassword = passwordEncoder.encode(password);
 
+      String nick = customer.getNick();
       customer.setPassword(encodedPassword);
       customer.setNick(userName);
 
       customerService.saveOrUpdate(customer);
+      principalCache.invalidate(JWTPrincipalCache.CUSTOMER, nick);
+      sessionState.evictCustomer(customer.getId());
 
       //send email
 			
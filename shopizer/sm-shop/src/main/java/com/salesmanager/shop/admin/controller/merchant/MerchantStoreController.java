@@ -179,7 +179,7 @@ public class MerchantStoreController {
     setMenu(model, request);
     Language language = (Language) request.getAttribute("LANGUAGE");
     List<Language> languages = languageService.getLanguages();
-    List<Currency> currencies = currencyService.list();
+    List<Currency> currencies = currencyService.getCurrencies();
     Date dt = store.getInBusinessSince();
     if (dt != null) {
       store.setDateBusinessSince(DateUtil.formatDate(dt));
@@ -241,7 +241,7 @@ public class MerchantStoreController {
       }
     }
 
-    List<Currency> currencies = currencyService.list();
+    List<Currency> currencies = currencyService.getCurrencies();
 
     Language language = (Language) request.getAttribute("LANGUAGE");
     List<Language> languages = languageService.getLanguages();
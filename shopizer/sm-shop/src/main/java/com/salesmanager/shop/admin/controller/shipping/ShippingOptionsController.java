@@ -136,6 +136,11 @@ public class ShippingOptionsController {
     }
     shippingConfiguration.setShipOptionPriceType(configuration.getShipOptionPriceType());
 
+    if (result.hasErrors()) {
+      model.addAttribute("configuration", configuration);
+      return ControllerConstants.Tiles.Shipping.shippingOptions;
+    }
+
     shippingService.saveShippingConfiguration(shippingConfiguration, store);
 
     model.addAttribute("configuration", configuration);
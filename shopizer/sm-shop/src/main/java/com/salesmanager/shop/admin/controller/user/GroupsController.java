@@ -39,6 +39,7 @@ import com.salesmanager.core.model.user.GroupType;
 import com.salesmanager.shop.admin.model.permission.GroupDetails;
 import com.salesmanager.shop.admin.model.web.Menu;
 import com.salesmanager.shop.constants.Constants;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.utils.LabelUtils;
 
 @Controller
@@ -62,6 +63,9 @@ public class GroupsController {
   @Inject
   LabelUtils messages;
 
+  @Inject
+  JWTPrincipalCache principalCache;
+
 
   @PreAuthorize("hasRole('STORE_ADMIN')")
   @RequestMapping(value = "/admin/groups/editGroup.html", method = RequestMethod.GET)
@@ -137,6 +141,8 @@ public class GroupsController {
       }
 
       groupService.delete(group);
+      //permissions of the members changed
+      principalCache.invalidateAll();
 
       resp.setStatus(AjaxResponse.RESPONSE_OPERATION_COMPLETED);
 
@@ -21,6 +21,7 @@ import com.salesmanager.shop.admin.model.web.Menu;
 import com.salesmanager.shop.admin.security.SecurityQuestion;
 import com.salesmanager.shop.constants.Constants;
 import com.salesmanager.shop.constants.EmailConstants;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.utils.*;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -59,6 +60,9 @@ public class UserController {
   @Inject
   private UserService userService;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
   @Inject
   private GroupService groupService;
 
@@ -233,6 +237,7 @@ public class UserController {
     String pass = passwordEncoder.encode(password.getNewPassword());
     dbUser.setAdminPassword(pass);
     userService.update(dbUser);
+    principalCache.invalidate(JWTPrincipalCache.ADMIN, dbUser.getAdminName());
 
     model.addAttribute("success", "success");
     return ControllerConstants.Tiles.User.password;
@@ -600,6 +605,8 @@ public class UserController {
     } else {
       //save or update user
       userService.saveOrUpdate(user);
+      //groups or profile changed
+      principalCache.invalidate(JWTPrincipalCache.ADMIN, user.getAdminName());
     }
 
     model.addAttribute("success", "success");
@@ -662,6 +669,7 @@ public class UserController {
       }
 
       userService.delete(user);
+      principalCache.invalidate(JWTPrincipalCache.ADMIN, user.getAdminName());
 
       resp.setStatus(AjaxResponse.RESPONSE_OPERATION_COMPLETED);
 
@@ -784,6 +792,7 @@ public class UserController {
 
           dbUser.setAdminPassword(pass);
           userService.update(dbUser);
+          principalCache.invalidate(JWTPrincipalCache.ADMIN, dbUser.getAdminName());
 
           //send email
 
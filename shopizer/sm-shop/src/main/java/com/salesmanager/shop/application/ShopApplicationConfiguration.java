@@ -8,6 +8,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -17,6 +19,7 @@ import org.springframework.context.annotation.ImportResource;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.social.connect.UsersConnectionRepository;
@@ -31,6 +34,7 @@ import org.springframework.web.servlet.view.tiles3.TilesViewResolver;
 
 import com.salesmanager.core.business.configuration.CoreApplicationConfiguration;
 import com.salesmanager.core.constants.SchemaConstant;
+import com.salesmanager.shop.filter.StatelessApiFilter;
 
 @Configuration
 @ComponentScan({"com.salesmanager.shop", "com.salesmanager.core.business"})
@@ -73,6 +77,19 @@ public class ShopApplicationConfiguration extends WebMvcConfigurerAdapter {
     return tilesConfigurer;
   }
 
+  /**
+   * REST api v1 without http sessions, before the security filters
+   */
+  @Bean
+  @ConditionalOnProperty(name = "api.v1.stateless", havingValue = "true", matchIfMissing = true)
+  public FilterRegistrationBean<StatelessApiFilter> statelessApiFilter() {
+    FilterRegistrationBean<StatelessApiFilter> registration =
+        new FilterRegistrationBean<StatelessApiFilter>(new StatelessApiFilter());
+    registration.addUrlPatterns("/api/v1/*");
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
   /**
    * Configure ViewResolvers to deliver preferred views.
    */
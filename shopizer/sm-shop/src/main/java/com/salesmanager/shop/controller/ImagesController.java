@@ -1,11 +1,14 @@
 package com.salesmanager.shop.controller;
 
+import java.io.File;
 import java.io.IOException;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
@@ -14,8 +17,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.modules.cms.common.ByteRange;
+import com.salesmanager.core.business.modules.cms.common.ImageContent;
 import com.salesmanager.core.business.services.catalog.product.image.ProductImageService;
 import com.salesmanager.core.business.services.content.ContentService;
+import com.salesmanager.core.business.utils.CoreConfiguration;
 import com.salesmanager.core.model.catalog.product.file.ProductImageSize;
 import com.salesmanager.core.model.content.FileContentType;
 import com.salesmanager.core.model.content.OutputContentFile;
@@ -30,6 +36,13 @@ public class ImagesController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ImagesController.class);
 
+  private static final String DEFAULT_MAX_AGE = "86400";
+
+  //tomcat writes the file with sendfile once the servlet returns
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
   @Inject
   private ContentService contentService;
@@ -37,6 +50,9 @@ public class ImagesController {
   @Inject
   private ProductImageService productImageService;
 
+  @Inject
+  private CoreConfiguration configuration;
+
   /**
    * Logo, content image
    *
@@ -83,40 +99,23 @@ public class ImagesController {
    * @Deprecated
    */
   @RequestMapping("/static/{storeCode}/{imageType}/{productCode}/{imageName}.{extension}")
-  public @ResponseBody
-  byte[] printImage(@PathVariable final String storeCode, @PathVariable final String productCode,
-      @PathVariable final String imageType, @PathVariable final String imageName,
-      @PathVariable final String extension) throws IOException {
+  public void printImage(@PathVariable final String storeCode,
+      @PathVariable final String productCode, @PathVariable final String imageType,
+      @PathVariable final String imageName, @PathVariable final String extension,
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
 
     // product image
     // example small product image -> /static/DEFAULT/products/TB12345/product1.jpg
 
     // example large product image -> /static/DEFAULT/products/TB12345/product1.jpg
 
-    /**
-     * List of possible imageType
-     *
-     */
-
     ProductImageSize size = ProductImageSize.SMALL;
 
     if (imageType.equals(FileContentType.PRODUCTLG.name())) {
       size = ProductImageSize.LARGE;
     }
 
-    OutputContentFile image = null;
-    try {
-      image = productImageService.getProductImage(storeCode, productCode,
-          new StringBuilder().append(imageName).append(".").append(extension).toString(), size);
-    } catch (ServiceException e) {
-      LOGGER.error("Cannot retrieve image " + imageName, e);
-    }
-    if (image != null) {
-      return image.getFile().toByteArray();
-    } else {
-      //empty image placeholder
-      return null;
-    }
+    writeProductImage(storeCode, productCode, imageName, extension, size, request, response);
 
   }
 
@@ -124,40 +123,23 @@ public class ImagesController {
    * Exclusive method for dealing with product images
    */
   @RequestMapping("/static/products/{storeCode}/{productCode}/{imageSize}/{imageName}.{extension}")
-  public @ResponseBody
-  byte[] printImage(@PathVariable final String storeCode, @PathVariable final String productCode,
-      @PathVariable final String imageSize, @PathVariable final String imageName,
-      @PathVariable final String extension, HttpServletRequest request) throws IOException {
+  public void printImage(@PathVariable final String storeCode,
+      @PathVariable final String productCode, @PathVariable final String imageSize,
+      @PathVariable final String imageName, @PathVariable final String extension,
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
 
     // product image small
     // example small product image -> /static/products/DEFAULT/TB12345/SMALL/product1.jpg
 
     // example large product image -> /static/products/DEFAULT/TB12345/LARGE/product1.jpg
 
-    /**
-     * List of possible imageType
-     *
-     */
-
     ProductImageSize size = ProductImageSize.SMALL;
 
     if (FileContentType.PRODUCTLG.name().equals(imageSize)) {
       size = ProductImageSize.LARGE;
     }
 
-    OutputContentFile image = null;
-    try {
-      image = productImageService.getProductImage(storeCode, productCode,
-          new StringBuilder().append(imageName).append(".").append(extension).toString(), size);
-    } catch (ServiceException e) {
-      LOGGER.error("Cannot retrieve image " + imageName, e);
-    }
-    if (image != null) {
-      return image.getFile().toByteArray();
-    } else {
-      //empty image placeholder
-      return null;
-    }
+    writeProductImage(storeCode, productCode, imageName, extension, size, request, response);
 
   }
 
@@ -165,10 +147,10 @@ public class ImagesController {
    * Exclusive method for dealing with product images
    */
   @RequestMapping("/static/products/{storeCode}/{productCode}/{imageName}.{extension}")
-  public @ResponseBody
-  byte[] printImage(@PathVariable final String storeCode, @PathVariable final String productCode,
-      @PathVariable final String imageName, @PathVariable final String extension,
-      HttpServletRequest request) throws IOException {
+  public void printImage(@PathVariable final String storeCode,
+      @PathVariable final String productCode, @PathVariable final String imageName,
+      @PathVariable final String extension, HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
 
     // product image
     // example small product image -> /static/products/DEFAULT/TB12345/product1.jpg?size=small
@@ -177,11 +159,6 @@ public class ImagesController {
     // or
     //example large product image -> /static/products/DEFAULT/TB12345/product1.jpg?size=large
 
-    /**
-     * List of possible imageType
-     *
-     */
-
     ProductImageSize size = ProductImageSize.LARGE;
 
     if (StringUtils.isNotBlank(request.getParameter("size"))) {
@@ -191,20 +168,119 @@ public class ImagesController {
       }
     }
 
-    OutputContentFile image = null;
+    writeProductImage(storeCode, productCode, imageName, extension, size, request, response);
+
+  }
+
+  /**
+   * Writes a product image without copying it in memory, answers conditional requests with 304
+   * and Range requests with 206. A w parameter selects the nearest responsive variant
+   */
+  private void writeProductImage(String storeCode, String productCode, String imageName,
+      String extension, ProductImageSize size, HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
+
+    String fileName =
+        new StringBuilder().append(imageName).append(".").append(extension).toString();
+    int width = NumberUtils.toInt(request.getParameter("w"), 0);
+
+    ImageContent image = null;
     try {
-      image = productImageService.getProductImage(storeCode, productCode,
-          new StringBuilder().append(imageName).append(".").append(extension).toString(), size);
+      if (width > 0) {
+        //responsive variant, ?w=640
+        image = productImageService.getProductImageContent(storeCode, productCode, fileName,
+            width);
+      } else {
+        image = productImageService.getProductImageContent(storeCode, productCode, fileName,
+            size);
+      }
     } catch (ServiceException e) {
       LOGGER.error("Cannot retrieve image " + imageName, e);
     }
-    if (image != null) {
-      return image.getFile().toByteArray();
-    } else {
-      //empty image placeholder
-      return null;
+    if (image == null) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    String etag = image.getEtag();
+    response.setHeader("Cache-Control", "public, max-age=" + maxAge());
+    response.setHeader("Accept-Ranges", "bytes");
+    if (etag != null) {
+      response.setHeader("ETag", etag);
     }
+    if (image.getMimeType() != null) {
+      response.setContentType(image.getMimeType());
+    }
+
+    if (etag != null && matches(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    long length = image.getLength();
+    ByteRange range = null;
+    String ifRange = request.getHeader("If-Range");
+    //a range of a changed image would be mixed with the old one, the whole image is sent
+    if (ifRange == null
+        || (etag != null && !etag.startsWith("W/") && ifRange.trim().equals(etag))) {
+      range = ByteRange.parse(request.getHeader("Range"), length);
+    }
+
+    if (range == ByteRange.UNSATISFIABLE) {
+      response.setHeader("Content-Range", "bytes */" + length);
+      response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+      return;
+    }
+
+    long start = 0;
+    long count = length;
+    if (range != null) {
+      start = range.getStart();
+      count = range.getLength();
+      response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+      response.setHeader("Content-Range", range.toContentRange(length));
+    }
+    response.setHeader("Content-Length", String.valueOf(count));
+
+    if ("HEAD".equals(request.getMethod())) {
+      return;
+    }
+
+    File file = image.getFile();
+    if (file != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+      request.setAttribute(SENDFILE_START, Long.valueOf(start));
+      //exclusive
+      request.setAttribute(SENDFILE_END, Long.valueOf(start + count));
+      return;
+    }
+
+    image.transferTo(start, count, response.getOutputStream());
+
+  }
+
+  //If-None-Match of a list of tags or *, compared weakly
+  private boolean matches(String header, String etag) {
+    if (StringUtils.isBlank(header)) {
+      return false;
+    }
+    String opaque = opaque(etag);
+    for (String tag : header.split(",")) {
+      tag = tag.trim();
+      if ("*".equals(tag) || opaque(tag).equals(opaque)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String opaque(String etag) {
+    return etag.startsWith("W/") ? etag.substring(2) : etag;
+  }
 
+  private String maxAge() {
+    String maxAge = configuration.getProperty("images.cache.maxAge");
+    return StringUtils.isBlank(maxAge) ? DEFAULT_MAX_AGE : maxAge.trim();
   }
 
 }
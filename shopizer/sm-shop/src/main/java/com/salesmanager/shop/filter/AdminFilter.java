@@ -13,6 +13,7 @@ import com.salesmanager.core.model.user.User;
 import com.salesmanager.shop.admin.model.web.Menu;
 import com.salesmanager.shop.constants.Constants;
 import com.salesmanager.shop.utils.LanguageUtils;
+import com.salesmanager.shop.utils.SessionStateUtils;
 
 
 import org.slf4j.Logger;
@@ -51,6 +52,9 @@ public class AdminFilter extends HandlerInterceptorAdapter {
   @Inject
   private LanguageUtils languageUtils;
 
+  @Inject
+  private SessionStateUtils sessionState;
+
   public boolean preHandle(
       HttpServletRequest request,
       HttpServletResponse response,
@@ -123,7 +127,7 @@ public class AdminFilter extends HandlerInterceptorAdapter {
         language = store.getDefaultLanguage();
       }
 
-      request.getSession().setAttribute("LANGUAGE", language);
+      sessionState.setLanguage(request, language);
 
     }
 
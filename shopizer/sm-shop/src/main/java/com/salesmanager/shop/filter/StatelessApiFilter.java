@@ -0,0 +1,201 @@
+package com.salesmanager.shop.filter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * REST api v1 without http sessions. Store and language of an api call come from the path, the
+ * parameters and the headers only. Code still asking for a session gets one living for the request,
+ * the servlet container never creates a session nor sends a session cookie, so any instance behind
+ * the gateway can answer any call.
+ */
+public class StatelessApiFilter extends OncePerRequestFilter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StatelessApiFilter.class);
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    chain.doFilter(new StatelessRequest(request), response);
+  }
+
+  private static class StatelessRequest extends HttpServletRequestWrapper {
+
+    private RequestSession session;
+
+    StatelessRequest(HttpServletRequest request) {
+      super(request);
+    }
+
+    @Override
+    public HttpSession getSession() {
+      return getSession(true);
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+      if (session == null && create) {
+        LOGGER.debug("Session requested by " + getRequestURI() + ", kept for the request only");
+        session = new RequestSession(getServletContext());
+      }
+      return session;
+    }
+
+    @Override
+    public String changeSessionId() {
+      if (session == null) {
+        throw new IllegalStateException("No session");
+      }
+      return session.getId();
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+      return null;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+      return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+      return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+      return false;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public boolean isRequestedSessionIdFromUrl() {
+      return false;
+    }
+
+  }
+
+  /**
+   * Attributes of a session for the time of a request
+   */
+  @SuppressWarnings("deprecation")
+  private static class RequestSession implements HttpSession {
+
+    private final ServletContext servletContext;
+    private final long creationTime = System.currentTimeMillis();
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+    private int maxInactiveInterval;
+
+    RequestSession(ServletContext servletContext) {
+      this.servletContext = servletContext;
+    }
+
+    @Override
+    public long getCreationTime() {
+      return creationTime;
+    }
+
+    @Override
+    public String getId() {
+      return "stateless";
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+      return creationTime;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+      return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+      this.maxInactiveInterval = interval;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+      return maxInactiveInterval;
+    }
+
+    @Override
+    public javax.servlet.http.HttpSessionContext getSessionContext() {
+      return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+      return attributes.get(name);
+    }
+
+    @Override
+    public Object getValue(String name) {
+      return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+      return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public String[] getValueNames() {
+      return attributes.keySet().toArray(new String[attributes.size()]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+      if (value == null) {
+        attributes.remove(name);
+      } else {
+        attributes.put(name, value);
+      }
+    }
+
+    @Override
+    public void putValue(String name, Object value) {
+      setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+      attributes.remove(name);
+    }
+
+    @Override
+    public void removeValue(String name) {
+      removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+      attributes.clear();
+    }
+
+    @Override
+    public boolean isNew() {
+      return true;
+    }
+
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.salesmanager.shop.filter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.salesmanager.core.model.content.ContentDescription;
+import com.salesmanager.shop.model.catalog.category.ReadableCategory;
+import com.salesmanager.shop.model.shop.PageInformation;
+
+/**
+ * What the header and the footer of each page of a store display in a language: CMS boxes and
+ * sections by code, CMS page names, top categories, default metatags and the SHOP configurations.
+ * Built once for a version of the store and shared by all the requests, never modified
+ */
+public class StoreChrome {
+
+  private final long version;
+  private final Map<String, ContentDescription> contentObjects;
+  private final List<ContentDescription> contentPages;
+  private final List<ReadableCategory> topCategories;
+  private final PageInformation pageInformation;
+  private final Map<String, Object> configurations;
+
+  public StoreChrome(long version, Map<String, ContentDescription> contentObjects,
+      List<ContentDescription> contentPages, List<ReadableCategory> topCategories,
+      PageInformation pageInformation, Map<String, Object> configurations) {
+    this.version = version;
+    this.contentObjects = unmodifiable(contentObjects);
+    this.contentPages = contentPages == null ? null : Collections.unmodifiableList(contentPages);
+    this.topCategories =
+        topCategories == null ? null : Collections.unmodifiableList(topCategories);
+    this.pageInformation = pageInformation;
+    this.configurations = unmodifiable(configurations);
+  }
+
+  private static <V> Map<String, V> unmodifiable(Map<String, V> map) {
+    return map == null || map.isEmpty() ? null : Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * Version of the store it was built from
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Visible boxes and sections by code, null when there are none
+   */
+  public Map<String, ContentDescription> getContentObjects() {
+    return contentObjects;
+  }
+
+  public List<ContentDescription> getContentPages() {
+    return contentPages;
+  }
+
+  public List<ReadableCategory> getTopCategories() {
+    return topCategories;
+  }
+
+  /**
+   * Title, description and keywords of the landing page, or the store name
+   */
+  public PageInformation getPageInformation() {
+    return pageInformation;
+  }
+
+  /**
+   * SHOP configurations, null when there are none
+   */
+  public Map<String, Object> getConfigurations() {
+    return configurations;
+  }
+
+}
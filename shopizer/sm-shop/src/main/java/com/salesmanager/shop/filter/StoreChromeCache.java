@@ -0,0 +1,242 @@
+package com.salesmanager.shop.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesmanager.core.business.services.content.ContentService;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.business.services.system.MerchantConfigurationService;
+import com.salesmanager.core.business.utils.CoreConfiguration;
+import com.salesmanager.core.model.content.Content;
+import com.salesmanager.core.model.content.ContentDescription;
+import com.salesmanager.core.model.content.ContentType;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.core.model.system.MerchantConfig;
+import com.salesmanager.core.model.system.MerchantConfiguration;
+import com.salesmanager.core.model.system.MerchantConfigurationType;
+import com.salesmanager.shop.constants.Constants;
+import com.salesmanager.shop.model.catalog.category.ReadableCategory;
+import com.salesmanager.shop.model.shop.PageInformation;
+import com.salesmanager.shop.store.controller.category.facade.CategoryFacade;
+
+/**
+ * {@link StoreChrome} of each store and language. A chrome older than the store version is still
+ * served while a new one is built in the background, a request waits only for the first chrome of
+ * a store and language. Stores not using the cache get a new chrome on each request
+ */
+@Component
+public class StoreChromeCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StoreChromeCache.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Inject
+  private ContentService contentService;
+
+  @Inject
+  private CategoryFacade categoryFacade;
+
+  @Inject
+  private MerchantConfigurationService merchantConfigurationService;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  @Inject
+  private CoreConfiguration coreConfiguration;
+
+  //store id - language id - chrome
+  private final ConcurrentMap<Integer, ConcurrentMap<Integer, StoreChrome>> chromes =
+      new ConcurrentHashMap<Integer, ConcurrentMap<Integer, StoreChrome>>();
+
+  //store id-language id being rebuilt
+  private final Set<String> rebuilding =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "store-chrome");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+
+  @PreDestroy
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  public StoreChrome getChrome(MerchantStore store, Language language) throws Exception {
+
+    long version = storeVersionService.getVersion(store.getId());
+
+    if (!store.isUseCache()) {
+      return build(store, language, version);
+    }
+
+    ConcurrentMap<Integer, StoreChrome> byLanguage = chromes.get(store.getId());
+    if (byLanguage == null) {
+      ConcurrentMap<Integer, StoreChrome> newByLanguage =
+          new ConcurrentHashMap<Integer, StoreChrome>();
+      byLanguage = chromes.putIfAbsent(store.getId(), newByLanguage);
+      if (byLanguage == null) {
+        byLanguage = newByLanguage;
+      }
+    }
+
+    StoreChrome chrome = byLanguage.get(language.getId());
+    if (chrome == null) {
+      chrome = build(store, language, version);
+      put(byLanguage, language.getId(), chrome);
+    } else if (chrome.getVersion() != version) {
+      rebuild(byLanguage, store, language);
+    }
+    return chrome;
+
+  }
+
+  private void rebuild(final ConcurrentMap<Integer, StoreChrome> byLanguage,
+      final MerchantStore store, final Language language) {
+
+    final String key = new StringBuilder().append(store.getId()).append("-")
+        .append(language.getId()).toString();
+    if (!rebuilding.add(key)) {
+      return;
+    }
+
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          long version = storeVersionService.getVersion(store.getId());
+          put(byLanguage, language.getId(), build(store, language, version));
+        } catch (Exception e) {
+          LOGGER.error("Cannot build the page chrome of store " + store.getCode()
+              + " in " + language.getCode(), e);
+        } finally {
+          rebuilding.remove(key);
+        }
+      }
+    });
+  }
+
+  private void put(ConcurrentMap<Integer, StoreChrome> byLanguage, Integer languageId,
+      StoreChrome chrome) {
+    //do not replace a chrome built for a more recent version
+    StoreChrome current = byLanguage.get(languageId);
+    if (current == null || current.getVersion() <= chrome.getVersion()) {
+      byLanguage.put(languageId, chrome);
+    }
+  }
+
+  private StoreChrome build(MerchantStore store, Language language, long version)
+      throws Exception {
+
+    Map<String, ContentDescription> contentObjects = getContentObjects(store, language);
+
+    PageInformation pageInformation = new PageInformation();
+    pageInformation.setPageTitle(store.getStorename());
+    pageInformation.setPageDescription(store.getStorename());
+    pageInformation.setPageKeywords(store.getStorename());
+
+    ContentDescription landingPage = contentObjects.get(Constants.CONTENT_LANDING_PAGE);
+    if (landingPage != null) {
+      pageInformation.setPageTitle(landingPage.getName());
+      pageInformation.setPageDescription(landingPage.getMetatagDescription());
+      pageInformation.setPageKeywords(landingPage.getMetatagKeywords());
+    }
+
+    List<ContentDescription> contentPages = getContentPages(store, language);
+
+    List<ReadableCategory> topCategories =
+        categoryFacade.getCategoryHierarchy(store, 0, language, null);//null filter
+
+    return new StoreChrome(version, contentObjects, contentPages, topCategories,
+        pageInformation, getConfigurations(store));
+  }
+
+  private Map<String, ContentDescription> getContentObjects(MerchantStore store,
+      Language language) throws Exception {
+
+    //boxes and sections
+    List<ContentType> contentTypes = new ArrayList<ContentType>();
+    contentTypes.add(ContentType.BOX);
+    contentTypes.add(ContentType.SECTION);
+
+    Map<String, ContentDescription> contents = new HashMap<String, ContentDescription>();
+    for (Content content : contentService.listByType(contentTypes, store, language)) {
+      if (content.isVisible()) {
+        contents.put(content.getCode(), content.getDescription());
+      }
+    }
+    return contents;
+  }
+
+  private List<ContentDescription> getContentPages(MerchantStore store, Language language)
+      throws Exception {
+
+    List<ContentType> contentTypes = new ArrayList<ContentType>();
+    contentTypes.add(ContentType.PAGE);
+
+    List<ContentDescription> contentPages =
+        contentService.listNameByType(contentTypes, store, language);
+    return CollectionUtils.isEmpty(contentPages) ? null : contentPages;
+  }
+
+  private Map<String, Object> getConfigurations(MerchantStore store) {
+
+    Map<String, Object> configs = new HashMap<String, Object>();
+    try {
+
+      List<MerchantConfiguration> merchantConfiguration = merchantConfigurationService
+          .listByType(MerchantConfigurationType.CONFIG, store);
+
+      if (CollectionUtils.isEmpty(merchantConfiguration)) {
+        return configs;
+      }
+
+      for (MerchantConfiguration configuration : merchantConfiguration) {
+        configs.put(configuration.getKey(), configuration.getValue());
+      }
+
+      configs.put(Constants.SHOP_SCHEME, coreConfiguration.getProperty(Constants.SHOP_SCHEME));
+      configs
+          .put(Constants.FACEBOOK_APP_ID, coreConfiguration.getProperty(Constants.FACEBOOK_APP_ID));
+
+      //get MerchantConfig
+      MerchantConfig merchantConfig = merchantConfigurationService.getMerchantConfig(store);
+      if (merchantConfig != null) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> props = MAPPER.convertValue(merchantConfig, Map.class);
+        configs.putAll(props);
+      }
+    } catch (Exception e) {
+      LOGGER.error("Exception while getting configurations", e);
+    }
+
+    return configs;
+
+  }
+
+}
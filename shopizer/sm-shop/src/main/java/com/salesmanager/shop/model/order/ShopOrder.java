@@ -22,6 +22,7 @@ public class ShopOrder extends PersistableOrder implements Serializable {
    */
   private static final long serialVersionUID = 1L;
   private List<ShoppingCartItem> shoppingCartItems;//overrides parent API list of shoppingcartitem
+  private String cartCode;//cart ordered, its checkout inventory reservation is taken with the order
 
   private OrderTotalSummary orderTotalSummary;//The order total displayed to the end user. That object will be used when committing the order
 
@@ -46,6 +47,14 @@ public class ShopOrder extends PersistableOrder implements Serializable {
     return shoppingCartItems;
   }
 
+  public String getCartCode() {
+    return cartCode;
+  }
+
+  public void setCartCode(String cartCode) {
+    this.cartCode = cartCode;
+  }
+
   public void setOrderTotalSummary(OrderTotalSummary orderTotalSummary) {
     this.orderTotalSummary = orderTotalSummary;
   }
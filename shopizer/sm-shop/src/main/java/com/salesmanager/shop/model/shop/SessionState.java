@@ -0,0 +1,41 @@
+package com.salesmanager.shop.model.shop;
+
+import java.io.Serializable;
+
+/**
+ * What the http session of a shopper keeps between requests: codes and ids only. The store, the
+ * customer and the language are resolved again on each request by SessionStateUtils
+ */
+public class SessionState implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private String storeCode;
+  private Long customerId;
+  private String languageCode;
+
+  public String getStoreCode() {
+    return storeCode;
+  }
+
+  public void setStoreCode(String storeCode) {
+    this.storeCode = storeCode;
+  }
+
+  public Long getCustomerId() {
+    return customerId;
+  }
+
+  public void setCustomerId(Long customerId) {
+    this.customerId = customerId;
+  }
+
+  public String getLanguageCode() {
+    return languageCode;
+  }
+
+  public void setLanguageCode(String languageCode) {
+    this.languageCode = languageCode;
+  }
+
+}
@@ -4,6 +4,7 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
@@ -13,6 +14,10 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.salesmanager.core.business.services.merchant.MerchantStoreService;
+import com.salesmanager.core.business.services.search.ProductReindexService;
+import com.salesmanager.core.business.services.search.ProductReindexStatus;
+import com.salesmanager.core.business.services.search.SearchIndexQueue;
+import com.salesmanager.core.business.services.search.SearchIndexQueueStatus;
 import com.salesmanager.core.business.utils.ajax.AjaxResponse;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.shop.store.controller.search.facade.SearchFacade;
@@ -36,6 +41,12 @@ public class SearchRESTController {
   @Inject
   private SearchFacade searchFacade;
 
+  @Inject
+  private SearchIndexQueue searchIndexQueue;
+
+  @Inject
+  private ProductReindexService productReindexService;
+
   @RequestMapping(value = "/private/{store}/search/index", method = RequestMethod.GET)
   @ResponseBody
   public AjaxResponse indexProducts(@PathVariable String store, HttpServletRequest request,
@@ -55,6 +66,7 @@ public class SearchRESTController {
 
       LOGGER.debug("Index all data : " + store);
       searchFacade.indexAllData(merchantStore);
+      addReindexStatus(resp, productReindexService.getStatus(merchantStore));
       response.setStatus(200);
       resp.setStatus(200);
 
@@ -69,4 +81,85 @@ public class SearchRESTController {
 
   }
 
+  /**
+   * Progress of the last full index of a store
+   */
+  @RequestMapping(value = "/private/{store}/search/index/status", method = RequestMethod.GET)
+  @ResponseBody
+  public AjaxResponse indexStatus(@PathVariable String store, HttpServletRequest request,
+      HttpServletResponse response) throws Exception {
+
+    AjaxResponse resp = new AjaxResponse();
+
+    try {
+
+      MerchantStore merchantStore = merchantStoreService.getByCode(store);
+      if (merchantStore == null) {
+        LOGGER.error("Merchant store is null for code " + store);
+        resp.setStatus(500);
+        resp.setErrorString("Merchant store is null for code " + store);
+        return resp;
+      }
+
+      addReindexStatus(resp, productReindexService.getStatus(merchantStore));
+      resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
+
+    } catch (Exception e) {
+      LOGGER.error("Cannot get index status of " + store, e);
+      resp.setStatus(AjaxResponse.RESPONSE_STATUS_FAIURE);
+      resp.setErrorMessage(e);
+    }
+
+    return resp;
+
+  }
+
+  /**
+   * Product changes waiting for the search engine
+   */
+  @RequestMapping(value = "/private/search/queue", method = RequestMethod.GET)
+  @ResponseBody
+  public AjaxResponse indexQueue(HttpServletRequest request, HttpServletResponse response)
+      throws Exception {
+
+    AjaxResponse resp = new AjaxResponse();
+
+    try {
+
+      SearchIndexQueueStatus status = searchIndexQueue.getStatus();
+      resp.addEntry("pending", String.valueOf(status.getPending()));
+      resp.addEntry("lag", String.valueOf(status.getLagMillis()));
+      resp.addEntry("shipped", String.valueOf(status.getShipped()));
+      resp.addEntry("rejected", String.valueOf(status.getRejected()));
+      resp.addEntry("failures", String.valueOf(status.getFailures()));
+      resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
+
+    } catch (Exception e) {
+      LOGGER.error("Cannot get search index queue status", e);
+      resp.setStatus(AjaxResponse.RESPONSE_STATUS_FAIURE);
+      resp.setErrorMessage(e);
+    }
+
+    return resp;
+
+  }
+
+  private void addReindexStatus(AjaxResponse resp, ProductReindexStatus status) {
+    if (status == null) {
+      return;
+    }
+    resp.addEntry("state", status.getState());
+    resp.addEntry("version", status.getVersion());
+    resp.addEntry("total", String.valueOf(status.getTotal()));
+    resp.addEntry("indexed", String.valueOf(status.getIndexed()));
+    resp.addEntry("rejected", String.valueOf(status.getRejected()));
+    resp.addEntry("lastId", String.valueOf(status.getLastId()));
+    resp.addEntry("skipped", StringUtils.join(status.getSkipped(), ','));
+    resp.addEntry("resumed", String.valueOf(status.isResumed()));
+    resp.addEntry("throughput", String.valueOf((long) status.getThroughput()));
+    if (status.getMessage() != null) {
+      resp.addEntry("message", status.getMessage());
+    }
+  }
+
 }
@@ -26,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.model.customer.Customer;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.reference.language.Language;
@@ -34,10 +35,12 @@ import com.salesmanager.shop.store.controller.customer.facade.CustomerFacade;
 import com.salesmanager.shop.store.controller.store.facade.StoreFacade;
 import com.salesmanager.shop.store.security.AuthenticationRequest;
 import com.salesmanager.shop.store.security.AuthenticationResponse;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.store.security.JWTTokenUtil;
 import com.salesmanager.shop.store.security.user.JWTUser;
 import com.salesmanager.shop.utils.LanguageUtils;
 
+import io.jsonwebtoken.Claims;
 import io.swagger.annotations.ApiOperation;
 
 @Controller
@@ -55,6 +58,9 @@ public class AuthenticateCustomerApi {
   @Inject
   private JWTTokenUtil jwtTokenUtil;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
   @Inject
   private UserDetailsService jwtCustomerDetailsService;
 
@@ -187,6 +193,31 @@ public class AuthenticateCustomerApi {
     }
   }
 
+  @RequestMapping(value = "/auth/customer/logout", method = RequestMethod.POST)
+  @ApiOperation(httpMethod = "POST", value = "Logs out the token of a customer", notes = "The token is refused until its expiration", response = ResponseEntity.class)
+  public ResponseEntity<?> logout(HttpServletRequest request) {
+    String token = request.getHeader(tokenHeader);
+    if (token != null && token.startsWith("Bearer ")) {
+      token = token.substring(7);
+    }
+    Claims claims = null;
+    try {
+      claims = jwtTokenUtil.getAllClaimsFromToken(token);
+    } catch (Exception e) {
+      //expired or invalid, nothing to log out
+      LOGGER.debug("Logout of an invalid token " + e.getMessage());
+      return ResponseEntity.ok(Void.class);
+    }
+    try {
+      principalCache.revoke(JWTPrincipalCache.CUSTOMER, token, claims.getSubject(),
+          claims.getExpiration());
+    } catch (ServiceException e) {
+      LOGGER.error("Cannot log out token of " + claims.getSubject(), e);
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+    return ResponseEntity.ok(Void.class);
+  }
+
   @RequestMapping(value = "/customer/password/reset", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
   @ApiOperation(httpMethod = "POST", value = "Sends a request to reset password", notes = "Password reset request is {\"username\":\"test@email.com\"}", response = ResponseEntity.class)
   public ResponseEntity<?> resetPassword(
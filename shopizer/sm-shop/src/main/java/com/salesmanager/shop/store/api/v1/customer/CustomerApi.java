@@ -34,6 +34,7 @@ import com.salesmanager.shop.populator.customer.ReadableCustomerList;
 import com.salesmanager.shop.populator.customer.ReadableCustomerPopulator;
 import com.salesmanager.shop.store.controller.customer.facade.CustomerFacade;
 import com.salesmanager.shop.store.controller.store.facade.StoreFacade;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.utils.LanguageUtils;
 
 import io.swagger.annotations.ApiOperation;
@@ -51,6 +52,9 @@ public class CustomerApi {
   @Inject
   private CustomerService customerService;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
   @Inject
   private StoreFacade storeFacade;
 
@@ -128,6 +132,7 @@ public class CustomerApi {
       Customer customer = customerService.getById(id);
       if (customer != null) {
         customerService.delete(customer);
+        principalCache.invalidate(JWTPrincipalCache.CUSTOMER, customer.getNick());
       } else {
         response.sendError(404, "No Customer found for ID : " + id);
       }
@@ -149,7 +149,7 @@ public class ReferencesApi {
 
     try {
 
-      List<Currency> currency = currencyService.list();
+      List<Currency> currency = currencyService.getCurrencies();
 
       if (CollectionUtils.isEmpty(currency)) {
         response.sendError(404, "No languages found");
@@ -1,6 +1,7 @@
 package com.salesmanager.shop.store.api.v1.user;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import org.apache.http.auth.AuthenticationException;
@@ -20,11 +21,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
+import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.shop.store.security.AuthenticationRequest;
 import com.salesmanager.shop.store.security.AuthenticationResponse;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.store.security.JWTTokenUtil;
 import com.salesmanager.shop.store.security.user.JWTUser;
 
+import io.jsonwebtoken.Claims;
+
 /**
  * Authenticates a User (Administration purpose)
  *
@@ -48,6 +53,9 @@ public class AuthenticateUserApi {
   @Inject
   private JWTTokenUtil jwtTokenUtil;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
 
   /**
    * Authenticate a user using username & password
@@ -92,6 +100,33 @@ public class AuthenticateUserApi {
 
   }
 
+  /**
+   * Logout, the token of the user is refused until its expiration
+   */
+  @RequestMapping(value = "/private/logout", method = RequestMethod.POST)
+  public ResponseEntity<?> logout(HttpServletRequest request) {
+    String token = request.getHeader(tokenHeader);
+    if (token != null && token.startsWith("Bearer ")) {
+      token = token.substring(7);
+    }
+    Claims claims = null;
+    try {
+      claims = jwtTokenUtil.getAllClaimsFromToken(token);
+    } catch (Exception e) {
+      //expired or invalid, nothing to log out
+      LOGGER.debug("Logout of an invalid token " + e.getMessage());
+      return ResponseEntity.ok(Void.class);
+    }
+    try {
+      principalCache.revoke(JWTPrincipalCache.ADMIN, token, claims.getSubject(),
+          claims.getExpiration());
+    } catch (ServiceException e) {
+      LOGGER.error("Cannot log out token of " + claims.getSubject(), e);
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+    return ResponseEntity.ok(Void.class);
+  }
+
 /*    @RequestMapping(value = "/auth/refresh", method = RequestMethod.GET)
     public ResponseEntity<?> refreshAndGetAuthenticationToken(HttpServletRequest request) {
         String token = request.getHeader(tokenHeader);
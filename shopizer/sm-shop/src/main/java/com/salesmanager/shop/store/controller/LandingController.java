@@ -21,7 +21,6 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.business.services.catalog.product.relationship.ProductRelationshipService;
 import com.salesmanager.core.business.services.content.ContentService;
-import com.salesmanager.core.business.services.merchant.MerchantStoreService;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.relationship.ProductRelationship;
 import com.salesmanager.core.model.catalog.product.relationship.ProductRelationshipType;
@@ -39,6 +38,7 @@ import com.salesmanager.shop.populator.catalog.ReadableProductPopulator;
 import com.salesmanager.shop.utils.DateUtil;
 import com.salesmanager.shop.utils.ImageFilePath;
 import com.salesmanager.shop.utils.LabelUtils;
+import com.salesmanager.shop.utils.SessionStateUtils;
 
 
 @Controller
@@ -62,7 +62,7 @@ public class LandingController {
   private PricingService pricingService;
 
   @Inject
-  private MerchantStoreService merchantService;
+  private SessionStateUtils sessionState;
 
   @Inject
   @Qualifier("img")
@@ -91,7 +91,7 @@ public class LandingController {
     item.setUrl(Constants.HOME_URL);
 
     Breadcrumb breadCrumb = new Breadcrumb();
-    breadCrumb.setLanguage(language);
+    breadCrumb.setLanguageCode(language.getCode());
 
     List<BreadcrumbItem> items = new ArrayList<BreadcrumbItem>();
     items.add(item);
@@ -156,11 +156,10 @@ public class LandingController {
     try {
 
       request.getSession().invalidate();
-      request.getSession().removeAttribute(Constants.MERCHANT_STORE);
 
-      MerchantStore merchantStore = merchantService.getByCode(store);
+      MerchantStore merchantStore = sessionState.getStore(store);
       if (merchantStore != null) {
-        request.getSession().setAttribute(Constants.MERCHANT_STORE, merchantStore);
+        sessionState.setStore(request, merchantStore);
       } else {
         LOGGER.error("MerchantStore does not exist for store code " + store);
       }
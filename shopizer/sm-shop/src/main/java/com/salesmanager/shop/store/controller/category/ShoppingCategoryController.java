@@ -1,6 +1,9 @@
 package com.salesmanager.shop.store.controller.category;
 
+import com.salesmanager.core.business.services.catalog.category.CategoryFacet;
+import com.salesmanager.core.business.services.catalog.category.CategoryFacetService;
 import com.salesmanager.core.business.services.catalog.category.CategoryService;
+import com.salesmanager.core.business.services.catalog.category.CategoryTreeService;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.business.services.catalog.product.ProductService;
 import com.salesmanager.core.business.services.catalog.product.manufacturer.ManufacturerService;
@@ -30,7 +33,6 @@ import com.salesmanager.shop.utils.ImageFilePath;
 import com.salesmanager.shop.utils.LabelUtils;
 import com.salesmanager.shop.utils.PageBuilderUtils;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -60,6 +62,12 @@ public class ShoppingCategoryController {
   @Inject
   private CategoryService categoryService;
 
+  @Inject
+  private CategoryTreeService categoryTreeService;
+
+  @Inject
+  private CategoryFacetService categoryFacetService;
+
   @Inject
   private LanguageService languageService;
 
@@ -152,23 +160,10 @@ public class ShoppingCategoryController {
     pageInformation.setPageTitle(categoryProxy.getDescription().getTitle());
     pageInformation.setPageUrl(categoryProxy.getDescription().getFriendlyUrl());
 
-    //** retrieves category id drill down**//
-    String lineage = new StringBuilder().append(category.getLineage()).append(category.getId())
-        .append(Constants.CATEGORY_LINEAGE_DELIMITER).toString();
-
     request.setAttribute(Constants.REQUEST_PAGE_INFORMATION, pageInformation);
 
-    //TODO add to caching
-    List<Category> subCategs = categoryService.listByLineage(store, lineage);
-    List<Long> subIds = new ArrayList<Long>();
-    if (subCategs != null && subCategs.size() > 0) {
-      for (Category c : subCategs) {
-        if (c.isVisible()) {
-          subIds.add(c.getId());
-        }
-      }
-    }
-    subIds.add(category.getId());
+    //** product counts, prices and manufacturers of the category and its sub categories **//
+    CategoryFacet facet = categoryFacetService.getFacet(store, category.getId());
 
     StringBuilder subCategoriesCacheKey = new StringBuilder();
     subCategoriesCacheKey
@@ -185,7 +180,6 @@ public class ShoppingCategoryController {
         .append(subCategoriesCacheKey.toString())
         .append(Constants.MISSED_CACHE_KEY);
 
-    List<BigDecimal> prices = new ArrayList<BigDecimal>();
     List<ReadableCategory> subCategories = null;
     Map<Long, Long> countProductsByCategories = null;
 
@@ -198,7 +192,7 @@ public class ShoppingCategoryController {
         //Boolean missedContent = (Boolean)cache.getFromCache(subCategoriesMissed.toString());
 
         //if(missedContent==null) {
-        countProductsByCategories = getProductsByCategory(store, category, lineage, subIds);
+        countProductsByCategories = getProductsByCategory(store, category);
         subCategories = getSubCategories(store, category, countProductsByCategories, language,
             locale);
 
@@ -210,7 +204,7 @@ public class ShoppingCategoryController {
         //}
       }
     } else {
-      countProductsByCategories = getProductsByCategory(store, category, lineage, subIds);
+      countProductsByCategories = getProductsByCategory(store, category);
       subCategories = getSubCategories(store, category, countProductsByCategories, language,
           locale);
     }
@@ -224,10 +218,12 @@ public class ShoppingCategoryController {
     }
 
     //** List of manufacturers **//
-    List<ReadableManufacturer> manufacturerList = getManufacturersByProductAndCategory(store,
-        category, subIds, language);
+    List<ReadableManufacturer> manufacturerList = getManufacturers(store,
+        facet.getManufacturerIds(), language);
 
     model.addAttribute("manufacturers", manufacturerList);
+    model.addAttribute("minPrice", facet.getMinPrice());
+    model.addAttribute("maxPrice", facet.getMaxPrice());
     model.addAttribute("parent", parentProxy);
     model.addAttribute("category", categoryProxy);
     model.addAttribute("subCategories", subCategories);
@@ -243,102 +239,36 @@ public class ShoppingCategoryController {
     return template.toString();
   }
 
-  @SuppressWarnings("unchecked")
-  private List<ReadableManufacturer> getManufacturersByProductAndCategory(MerchantStore store,
-      Category category, List<Long> subCategoryIds, Language language) throws Exception {
-
-    List<ReadableManufacturer> manufacturerList = null;
-    /** List of manufacturers **/
-    if (subCategoryIds != null && subCategoryIds.size() > 0) {
-
-      StringBuilder manufacturersKey = new StringBuilder();
-      manufacturersKey
-          .append(store.getId())
-          .append("_")
-          .append(Constants.MANUFACTURERS_BY_PRODUCTS_CACHE_KEY)
-          .append("-")
-          .append(language.getCode());
-
-      StringBuilder manufacturersKeyMissed = new StringBuilder();
-      manufacturersKeyMissed
-          .append(manufacturersKey.toString())
-          .append(Constants.MISSED_CACHE_KEY);
-
-      if (store.isUseCache()) {
-
-        //get from the cache
-
-        manufacturerList = (List<ReadableManufacturer>) cache
-            .getFromCache(manufacturersKey.toString());
-
-        if (manufacturerList == null) {
-          //get from missed cache
-          //Boolean missedContent = (Boolean)cache.getFromCache(manufacturersKeyMissed.toString());
-          //if(missedContent==null) {
-          manufacturerList = this.getManufacturers(store, subCategoryIds, language);
-          if (manufacturerList.isEmpty()) {
-            cache.putInCache(new Boolean(true), manufacturersKeyMissed.toString());
-          } else {
-            //cache.putInCache(manufacturerList, manufacturersKey.toString());
-          }
-          //}
-        }
-      } else {
-        manufacturerList = this.getManufacturers(store, subCategoryIds, language);
-      }
-    }
-    return manufacturerList;
-  }
-
-  private List<ReadableManufacturer> getManufacturers(MerchantStore store, List<Long> ids,
-      Language language) throws Exception {
+  private List<ReadableManufacturer> getManufacturers(MerchantStore store,
+      Set<Long> manufacturerIds, Language language) throws Exception {
     List<ReadableManufacturer> manufacturerList = new ArrayList<ReadableManufacturer>();
+    if (manufacturerIds.isEmpty()) {
+      return manufacturerList;
+    }
     List<com.salesmanager.core.model.catalog.product.manufacturer.Manufacturer> manufacturers = manufacturerService
-        .listByProductsByCategoriesId(store, ids, language);
-    if (!manufacturers.isEmpty()) {
-
-      for (com.salesmanager.core.model.catalog.product.manufacturer.Manufacturer manufacturer : manufacturers) {
+        .listByStore(store, language);
+    for (com.salesmanager.core.model.catalog.product.manufacturer.Manufacturer manufacturer : manufacturers) {
+      if (manufacturerIds.contains(manufacturer.getId())) {
         ReadableManufacturer manuf = new ReadableManufacturerPopulator()
             .populate(manufacturer, new ReadableManufacturer(), store, language);
         manufacturerList.add(manuf);
-
       }
     }
     return manufacturerList;
   }
 
-  private Map<Long, Long> getProductsByCategory(MerchantStore store, Category category,
-      String lineage, List<Long> subIds) throws Exception {
+  private Map<Long, Long> getProductsByCategory(MerchantStore store, Category category)
+      throws Exception {
 
-    if (subIds.isEmpty()) {
-      return null;
+    List<Long> childIds = new ArrayList<Long>();
+    for (Category child : categoryTreeService.getTree(store).getChildren(category.getId())) {
+      childIds.add(child.getId());
     }
 
-    List<Object[]> countProductsByCategories = categoryService
-        .countProductsByCategories(store, subIds);
+    //counts roll up the products of the sub categories
     Map<Long, Long> countByCategories = new HashMap<Long, Long>();
-
-    for (Object[] counts : countProductsByCategories) {
-      Category c = (Category) counts[0];
-      if (c.getParent() != null) {
-        if (c.getParent().getId() == category.getId()) {
-          countByCategories.put(c.getId(), (Long) counts[1]);
-        } else {
-          //get lineage
-          String lin = c.getLineage();
-          String[] categoryPath = lin.split(Constants.CATEGORY_LINEAGE_DELIMITER);
-          for (int i = 0; i < categoryPath.length; i++) {
-            String sId = categoryPath[i];
-            if (!StringUtils.isBlank(sId)) {
-              Long count = countByCategories.get(Long.parseLong(sId));
-              if (count != null) {
-                count = count + (Long) counts[1];
-                countByCategories.put(Long.parseLong(sId), count);
-              }
-            }
-          }
-        }
-      }
+    for (CategoryFacet childFacet : categoryFacetService.getFacets(store, childIds).values()) {
+      countByCategories.put(childFacet.getCategoryId(), (long) childFacet.getProductCount());
     }
 
     return countByCategories;
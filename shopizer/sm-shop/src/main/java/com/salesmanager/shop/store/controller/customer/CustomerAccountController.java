@@ -27,10 +27,12 @@ import com.salesmanager.shop.store.controller.AbstractController;
 import com.salesmanager.shop.store.controller.ControllerConstants;
 import com.salesmanager.shop.store.controller.customer.facade.CustomerFacade;
 import com.salesmanager.shop.store.controller.order.facade.OrderFacade;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.utils.EmailTemplatesUtils;
 import com.salesmanager.shop.utils.LabelUtils;
 import com.salesmanager.shop.utils.LanguageUtils;
 import com.salesmanager.shop.utils.LocaleUtils;
+import com.salesmanager.shop.utils.SessionStateUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,6 +73,9 @@ public class CustomerAccountController extends AbstractController {
   @Inject
   private CustomerService customerService;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
   @Inject
   private CustomerOptionService customerOptionService;
 
@@ -115,6 +120,9 @@ public class CustomerAccountController extends AbstractController {
   @Inject
   private LabelUtils messages;
 
+  @Inject
+  private SessionStateUtils sessionState;
+
 
   /**
    * Dedicated customer logon page
@@ -123,7 +131,7 @@ public class CustomerAccountController extends AbstractController {
   public String displayLogon(Model model, HttpServletRequest request, HttpServletResponse response)
       throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     //dispatch to dedicated customer logon
 
@@ -142,7 +150,7 @@ public class CustomerAccountController extends AbstractController {
   ReadableCustomer customerInformation(@RequestParam String userName, Model model,
       HttpServletRequest request, HttpServletResponse response) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     Customer customer = null;
@@ -186,7 +194,7 @@ public class CustomerAccountController extends AbstractController {
   public String displayCustomerAccount(Model model, HttpServletRequest request,
       HttpServletResponse response) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     /** template **/
     StringBuilder template = new StringBuilder().append(ControllerConstants.Tiles.Customer.customer)
@@ -201,7 +209,7 @@ public class CustomerAccountController extends AbstractController {
   public String displayCustomerChangePassword(Model model, HttpServletRequest request,
       HttpServletResponse response) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     CustomerPassword customerPassword = new CustomerPassword();
     model.addAttribute("password", customerPassword);
@@ -221,7 +229,7 @@ public class CustomerAccountController extends AbstractController {
       BindingResult bindingResult, Model model, HttpServletRequest request,
       HttpServletResponse response, Locale locale) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     /** template **/
     StringBuilder template = new StringBuilder()
@@ -265,6 +273,7 @@ public class CustomerAccountController extends AbstractController {
     customer.setPassword(encodedPassword);
 
     customerService.saveOrUpdate(customer);
+    principalCache.invalidate(JWTPrincipalCache.CUSTOMER, customer.getNick());
 
     emailTemplatesUtils.changePasswordNotificationEmail(customer, store,
         LocaleUtils.getLocale(customer.getDefaultLanguage()), request.getContextPath());
@@ -403,7 +412,7 @@ public class CustomerAccountController extends AbstractController {
 
     //refresh customer
     Customer c = customerService.getById(customer.getId());
-    super.setSessionAttribute(Constants.CUSTOMER, c, request);
+    sessionState.setCustomer(request, c);
 
     resp.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
     String returnString = resp.toJSONString();
@@ -417,8 +426,8 @@ public class CustomerAccountController extends AbstractController {
   public String displayCustomerBillingAddress(Model model, HttpServletRequest request,
       HttpServletResponse response) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
-    Language language = getSessionAttribute(Constants.LANGUAGE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
+    Language language = (Language) request.getAttribute(Constants.LANGUAGE);
 
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     Customer customer = null;
@@ -451,7 +460,7 @@ public class CustomerAccountController extends AbstractController {
   public String editAddress(final Model model, final HttpServletRequest request,
       @RequestParam(value = "billingAddress", required = false) Boolean billingAddress)
       throws Exception {
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     Customer customer = null;
@@ -483,7 +492,7 @@ public class CustomerAccountController extends AbstractController {
       @RequestParam(value = "billingAddress", required = false) Boolean billingAddress)
       throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     Customer customer = null;
@@ -510,11 +519,11 @@ public class CustomerAccountController extends AbstractController {
       return template.toString();
     }
 
-    Language language = getSessionAttribute(Constants.LANGUAGE, request);
+    Language language = (Language) request.getAttribute(Constants.LANGUAGE);
     customerFacade.updateAddress(customer.getId(), store, address, language);
 
     Customer c = customerService.getById(customer.getId());
-    super.setSessionAttribute(Constants.CUSTOMER, c, request);
+    sessionState.setCustomer(request, c);
 
     model.addAttribute("success", "success");
 
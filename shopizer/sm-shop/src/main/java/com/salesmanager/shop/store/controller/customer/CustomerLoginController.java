@@ -16,6 +16,7 @@ import com.salesmanager.shop.populator.shoppingCart.ShoppingCartDataPopulator;
 import com.salesmanager.shop.store.controller.AbstractController;
 import com.salesmanager.shop.store.controller.customer.facade.CustomerFacade;
 import com.salesmanager.shop.utils.ImageFilePath;
+import com.salesmanager.shop.utils.SessionStateUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +61,9 @@ public class CustomerLoginController extends AbstractController {
   @Qualifier("img")
   private ImageFilePath imageUtils;
 
+  @Inject
+  private SessionStateUtils sessionState;
+
 
   private static final Logger LOG = LoggerFactory.getLogger(CustomerLoginController.class);
 
@@ -91,7 +95,7 @@ public class CustomerLoginController extends AbstractController {
 
       customerFacade.authenticate(customerModel, userName, password);
       //set customer in the http session
-      super.setSessionAttribute(Constants.CUSTOMER, customerModel, request);
+      sessionState.setCustomer(request, customerModel);
       jsonObject.setStatus(AjaxResponse.RESPONSE_STATUS_SUCCESS);
       jsonObject.addEntry(Constants.RESPONSE_KEY_USERNAME, customerModel.getNick());
 
@@ -65,8 +65,8 @@ public class CustomerOrdersController extends AbstractController {
       HttpServletResponse response) throws Exception {
 
     LOGGER.info("Fetching orders for current customer");
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
-    Language language = getSessionAttribute(Constants.LANGUAGE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
+    Language language = (Language) request.getAttribute(Constants.LANGUAGE);
 
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     Customer customer = null;
@@ -105,7 +105,7 @@ public class CustomerOrdersController extends AbstractController {
   public String orderDetails(final Model model, final HttpServletRequest request,
       @RequestParam(value = "orderId", required = true) final String orderId) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
 
     Language language = (Language) request.getAttribute(Constants.LANGUAGE);
 
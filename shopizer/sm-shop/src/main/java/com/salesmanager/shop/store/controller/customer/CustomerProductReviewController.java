@@ -81,7 +81,7 @@ public class CustomerProductReviewController extends AbstractController {
   public String displayProductReview(@RequestParam Long productId, Model model,
       HttpServletRequest request, HttpServletResponse response) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
     Language language = super.getLanguage(request);
 
     //get product
@@ -143,7 +143,7 @@ public class CustomerProductReviewController extends AbstractController {
       BindingResult bindingResult, Model model, HttpServletRequest request,
       HttpServletResponse response, Locale locale) throws Exception {
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
     Language language = getLanguage(request);
 
     Customer customer = customerFacade.getCustomerByUserName(request.getRemoteUser(), store);
@@ -29,6 +29,7 @@ import com.salesmanager.shop.utils.CaptchaRequestUtils;
 import com.salesmanager.shop.utils.EmailTemplatesUtils;
 import com.salesmanager.shop.utils.ImageFilePath;
 import com.salesmanager.shop.utils.LabelUtils;
+import com.salesmanager.shop.utils.SessionStateUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -116,6 +117,9 @@ public class CustomerRegistrationController extends AbstractController {
   @Inject
   private PricingService pricingService;
 
+  @Inject
+  private SessionStateUtils sessionState;
+
 
   @RequestMapping(value = "/registration.html", method = RequestMethod.GET)
   public String displayRegistration(final Model model, final HttpServletRequest request,
@@ -253,7 +257,7 @@ public class CustomerRegistrationController extends AbstractController {
       Customer c = customerFacade.getCustomerByUserName(customer.getUserName(), merchantStore);
       //authenticate
       customerFacade.authenticate(c, userName, password);
-      super.setSessionAttribute(Constants.CUSTOMER, c, request);
+      sessionState.setCustomer(request, c);
 
       StringBuilder cookieValue = new StringBuilder();
       cookieValue.append(merchantStore.getCode()).append("_").append(c.getNick());
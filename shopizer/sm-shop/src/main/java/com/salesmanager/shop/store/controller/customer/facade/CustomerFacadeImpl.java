@@ -80,6 +80,7 @@ import com.salesmanager.shop.populator.customer.PersistableCustomerReviewPopulat
 import com.salesmanager.shop.populator.customer.PersistableCustomerShippingAddressPopulator;
 import com.salesmanager.shop.populator.customer.ReadableCustomerPopulator;
 import com.salesmanager.shop.populator.customer.ReadableCustomerReviewPopulator;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.utils.EmailTemplatesUtils;
 import com.salesmanager.shop.utils.EmailUtils;
 import com.salesmanager.shop.utils.ImageFilePath;
@@ -109,6 +110,9 @@ public class CustomerFacadeImpl implements CustomerFacade {
   @Inject
   private CustomerService customerService;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
   @Inject
   private OptinService optinService;
 
@@ -663,6 +667,7 @@ public class CustomerFacadeImpl implements CustomerFacade {
     }
 
     Customer cust = customerService.getById(customer.getId());
+    String nick = cust.getNick();
 
     CustomerPopulator populator = new CustomerPopulator();
     populator.setCountryService(countryService);
@@ -691,6 +696,9 @@ public class CustomerFacadeImpl implements CustomerFacade {
     customerService.save(cust);
     customer.setId(cust.getId());
 
+    principalCache.invalidate(JWTPrincipalCache.CUSTOMER, nick);
+    principalCache.invalidate(JWTPrincipalCache.CUSTOMER, cust.getNick());
+
 
   }
 
@@ -785,6 +793,7 @@ public class CustomerFacadeImpl implements CustomerFacade {
 
     customer.setPassword(encodedPassword);
     customerService.saveOrUpdate(customer);
+    principalCache.invalidate(JWTPrincipalCache.CUSTOMER, customer.getNick());
 
     Locale locale = languageService.toLocale(language, store);
 
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.catalog.product.availability.ProductInventoryService;
 import com.salesmanager.core.business.services.customer.CustomerService;
 import com.salesmanager.core.business.services.order.OrderService;
 import com.salesmanager.core.business.services.order.orderproduct.OrderProductDownloadService;
@@ -51,6 +52,7 @@ import com.salesmanager.shop.store.controller.order.facade.OrderFacade;
 import com.salesmanager.shop.store.controller.shoppingCart.facade.ShoppingCartFacade;
 import com.salesmanager.shop.utils.EmailTemplatesUtils;
 import com.salesmanager.shop.utils.LabelUtils;
+import com.salesmanager.shop.utils.SessionStateUtils;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang.Validate;
@@ -104,6 +106,9 @@ public class ShoppingOrderController extends AbstractController {
   @Inject
   private OrderService orderService;
 
+  @Inject
+  private ProductInventoryService productInventoryService;
+
   @Inject
   private CountryService countryService;
 
@@ -137,6 +142,9 @@ public class ShoppingOrderController extends AbstractController {
   @Inject
   private OrderProductDownloadService orderProdctDownloadService;
 
+  @Inject
+  private SessionStateUtils sessionState;
+
   @SuppressWarnings("unused")
   @RequestMapping("/checkout.html")
   public String displayCheckout(@CookieValue("cart") String cookie, Model model,
@@ -144,7 +152,7 @@ public class ShoppingOrderController extends AbstractController {
 
     Language language = (Language) request.getAttribute("LANGUAGE");
     MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
-    Customer customer = (Customer) request.getSession().getAttribute(Constants.CUSTOMER);
+    Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
 
     /**
      * Shopping cart
@@ -205,6 +213,21 @@ public class ShoppingOrderController extends AbstractController {
 
     super.setSessionAttribute(Constants.SHOPPING_CART, cart.getShoppingCartCode(), request);
 
+    //hold the inventory while the customer is in checkout, an unchanged cart only extends it
+    Map<Long, Integer> reservedQuantities = new HashMap<Long, Integer>();
+    for (ShoppingCartItem item : availables) {
+      Integer qty = reservedQuantities.get(item.getProductId());
+      reservedQuantities.put(item.getProductId(), (qty == null ? 0 : qty) + item.getQuantity());
+    }
+    String inventoryError = null;
+    try {
+      productInventoryService.reserve(cart.getShoppingCartCode(), reservedQuantities);
+    } catch (ServiceException e) {
+      LOGGER.warn("Cannot reserve inventory for cart " + cart.getShoppingCartCode() + " "
+          + e.getMessage());
+      inventoryError = messages.getMessage("message.inventory.unavailable", locale);
+    }
+
     if (shoppingCartCode == null && cart == null) {//error
       return "redirect:/shop/cart/shoppingCart.html";
     }
@@ -364,6 +387,11 @@ public class ShoppingOrderController extends AbstractController {
           "No payments configured"));
     }
 
+    //last so that shipping and payment messages do not hide it
+    if (inventoryError != null) {
+      model.addAttribute("errorMessages", inventoryError);
+    }
+
     if (!CollectionUtils.isEmpty(paymentMethods)) {//select default payment method
       PaymentMethod defaultPaymentSelected = null;
       for (PaymentMethod paymentMethod : paymentMethods) {
@@ -514,6 +542,9 @@ public class ShoppingOrderController extends AbstractController {
       throw new ServiceException(e);
     }
 
+    //the inventory reserved in checkout goes to the order
+    order.setCartCode(super.getSessionAttribute(Constants.SHOPPING_CART, request));
+
     Order modelOrder = null;
     Transaction initialTransaction = (Transaction) super
         .getSessionAttribute(Constants.INIT_TRANSACTION_KEY, request);
@@ -566,7 +597,7 @@ public class ShoppingOrderController extends AbstractController {
         } else {
           //authenticate
           customerFacade.authenticate(modelCustomer, userName, password);
-          super.setSessionAttribute(Constants.CUSTOMER, modelCustomer, request);
+          sessionState.setCustomer(request, modelCustomer);
         }
         //send new user registration template
         if (order.getCustomer().getId() == null || order.getCustomer().getId().longValue() == 0) {
@@ -879,6 +910,9 @@ public class ShoppingOrderController extends AbstractController {
           String messageLabel = messages.getMessage(se.getMessageCode(), locale, defaultMessage);
           model.addAttribute("errorMessages", messageLabel);
         }
+      } else if (se.getExceptionType() == ServiceException.EXCEPTION_INVENTORY_MISMATCH) {
+        model.addAttribute("errorMessages",
+            messages.getMessage("message.inventory.unavailable", locale));
       } else if (se.getExceptionType() == ServiceException.EXCEPTION_PAYMENT_DECLINED) {
         String paymentDeclinedMessage = messages.getMessage("message.payment.declined", locale);
         if (!StringUtils.isBlank(se.getMessageCode())) {
@@ -63,7 +63,7 @@ public class ShoppingOrderDownloadController extends AbstractController {
     }
 
     //order belongs to customer
-    Customer customer = (Customer) super.getSessionAttribute(Constants.CUSTOMER, request);
+    Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
     if (customer == null) {
       response.sendError(404, "Image not found");
       return null;
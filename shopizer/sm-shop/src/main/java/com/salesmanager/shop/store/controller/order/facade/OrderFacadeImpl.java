@@ -26,7 +26,6 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 
-import com.salesmanager.core.business.constants.Constants;
 import com.salesmanager.core.business.exception.ConversionException;
 import com.salesmanager.core.business.exception.ServiceException;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
@@ -50,7 +49,6 @@ import com.salesmanager.core.business.services.user.GroupService;
 import com.salesmanager.core.business.utils.CoreConfiguration;
 import com.salesmanager.core.business.utils.CreditCardUtils;
 import com.salesmanager.core.model.catalog.product.Product;
-import com.salesmanager.core.model.catalog.product.availability.ProductAvailability;
 import com.salesmanager.core.model.common.Billing;
 import com.salesmanager.core.model.common.Delivery;
 import com.salesmanager.core.model.customer.Customer;
@@ -376,15 +374,7 @@ public class OrderFacadeImpl implements OrderFacade {
         if (product == null) {
           throw new ServiceException(ServiceException.EXCEPTION_INVENTORY_MISMATCH);
         }
-
-        for (ProductAvailability availability : product.getAvailabilities()) {
-          if (availability.getRegion().equals(Constants.ALL_REGIONS)) {
-            int qty = availability.getProductQuantity();
-            if (qty < item.getQuantity()) {
-              throw new ServiceException(ServiceException.EXCEPTION_INVENTORY_MISMATCH);
-            }
-          }
-        }
+        //quantities are taken with the order, units reserved in checkout are not available here
 
         OrderProduct orderProduct = new OrderProduct();
         orderProduct = orderProductPopulator.populate(item, orderProduct, store, language);
@@ -530,12 +520,12 @@ public class OrderFacadeImpl implements OrderFacade {
 
       if (transaction != null) {
         orderService
-            .processOrder(modelOrder, customer, order.getShoppingCartItems(), summary, payment,
-                store);
+            .processOrder(modelOrder, customer, order.getCartCode(), order.getShoppingCartItems(),
+                summary, payment, null, store);
       } else {
         orderService
-            .processOrder(modelOrder, customer, order.getShoppingCartItems(), summary, payment,
-                transaction, store);
+            .processOrder(modelOrder, customer, order.getCartCode(), order.getShoppingCartItems(),
+                summary, payment, transaction, store);
       }
 
       return modelOrder;
@@ -1274,7 +1264,8 @@ public class OrderFacadeImpl implements OrderFacade {
       paymentPopulator.populate(order.getPayment(), paymentModel, store, language);
 
       modelOrder = orderService
-          .processOrder(modelOrder, customer, items, orderTotalSummary, paymentModel, store);
+          .processOrder(modelOrder, customer, cart.getShoppingCartCode(), items, orderTotalSummary,
+              paymentModel, null, store);
 
       //delete cart
       try {
@@ -0,0 +1,173 @@
+package com.salesmanager.shop.store.controller.product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.salesmanager.core.business.services.catalog.product.PricingService;
+import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.catalog.product.relationship.ProductRelationshipService;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.model.catalog.product.Product;
+import com.salesmanager.core.model.catalog.product.relationship.ProductRelationshipType;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.shop.model.catalog.product.ReadableProduct;
+import com.salesmanager.shop.populator.catalog.ReadableProductPopulator;
+import com.salesmanager.shop.utils.ImageFilePath;
+
+/**
+ * Related items of a product and products of a group as {@link ReadableProduct}. Product ids come
+ * from the relationship graph of the store, products are kept by store, language and locale for
+ * product.relationship.cache.ttl seconds or until the store version changes. Products not
+ * available are kept as such. Stores not using the cache populate the products on each request
+ */
+@Component
+public class ProductRelationshipCache {
+
+  @Inject
+  private ProductRelationshipService productRelationshipService;
+
+  @Inject
+  private ProductService productService;
+
+  @Inject
+  private PricingService pricingService;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  @Inject
+  @Qualifier("img")
+  private ImageFilePath imageUtils;
+
+  private final int maxProducts;
+  private final long productTtl;
+
+  //store id-language-locale-product id -> product, access order
+  private final LinkedHashMap<String, CachedProduct> products;
+
+  public ProductRelationshipCache(
+      @Value("${product.relationship.cache.size:10000}") int maxProducts,
+      @Value("${product.relationship.cache.ttl:300}") long productTtlSeconds) {
+    this.maxProducts = maxProducts;
+    this.productTtl = productTtlSeconds * 1000;
+    this.products = new LinkedHashMap<String, CachedProduct>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedProduct> eldest) {
+        return size() > ProductRelationshipCache.this.maxProducts;
+      }
+    };
+  }
+
+  /**
+   * Available related items of a product, empty when there is none
+   */
+  public List<ReadableProduct> getRelatedItems(MerchantStore store, Product product,
+      Language language, Locale locale) throws Exception {
+    List<Long> ids = productRelationshipService.getGraph(store)
+        .getRelatedIds(ProductRelationshipType.RELATED_ITEM.name(), product.getId());
+    return getProducts(store, ids, language, locale);
+  }
+
+  /**
+   * Available products of a group such as FEATURED_ITEM, empty when there is none
+   */
+  public List<ReadableProduct> getGroup(MerchantStore store, String group, Language language,
+      Locale locale) throws Exception {
+    List<Long> ids = productRelationshipService.getGraph(store).getGroupIds(group);
+    return getProducts(store, ids, language, locale);
+  }
+
+  private List<ReadableProduct> getProducts(MerchantStore store, List<Long> ids,
+      Language language, Locale locale) throws Exception {
+
+    List<ReadableProduct> readableProducts = new ArrayList<ReadableProduct>();
+    if (ids.isEmpty()) {
+      return readableProducts;
+    }
+
+    boolean useCache = store.isUseCache() && maxProducts > 0;
+    long version = storeVersionService.getVersion(store.getId());
+    long now = System.currentTimeMillis();
+    String prefix = new StringBuilder().append(store.getId()).append("-")
+        .append(language.getCode()).append("-").append(locale).append("-").toString();
+
+    Map<Long, ReadableProduct> found = new HashMap<Long, ReadableProduct>();
+    List<Long> missing = new ArrayList<Long>();
+    if (useCache) {
+      synchronized (products) {
+        for (Long id : ids) {
+          CachedProduct cached = products.get(prefix + id);
+          if (cached != null && cached.version == version && cached.expires > now) {
+            if (cached.product != null) {
+              found.put(id, cached.product);
+            }
+          } else {
+            missing.add(id);
+          }
+        }
+      }
+    } else {
+      missing.addAll(ids);
+    }
+
+    if (!missing.isEmpty()) {
+
+      ReadableProductPopulator populator = new ReadableProductPopulator();
+      populator.setPricingService(pricingService);
+      populator.setimageUtils(imageUtils);
+
+      //one query for the products not kept, unavailable products are not returned
+      Map<Long, ReadableProduct> loaded = new HashMap<Long, ReadableProduct>();
+      for (Product product : productService.getByIdsForLocale(missing, language, locale)) {
+        loaded.put(product.getId(),
+            populator.populate(product, new ReadableProduct(), store, language));
+      }
+      found.putAll(loaded);
+
+      if (useCache) {
+        synchronized (products) {
+          for (Long id : missing) {
+            products.put(prefix + id, new CachedProduct(version, loaded.get(id),
+                now + productTtl));
+          }
+        }
+      }
+    }
+
+    for (Long id : ids) {
+      ReadableProduct product = found.get(id);
+      if (product != null) {
+        readableProducts.add(product);
+      }
+    }
+    return readableProducts;
+  }
+
+  private static class CachedProduct {
+
+    private final long version;
+    //null when not available
+    private final ReadableProduct product;
+    private final long expires;
+
+    CachedProduct(long version, ReadableProduct product, long expires) {
+      this.version = version;
+      this.product = product;
+      this.expires = expires;
+    }
+  }
+
+}
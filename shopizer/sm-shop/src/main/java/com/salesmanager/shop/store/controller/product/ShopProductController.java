@@ -4,17 +4,13 @@ import com.salesmanager.core.business.services.catalog.category.CategoryService;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.business.services.catalog.product.ProductService;
 import com.salesmanager.core.business.services.catalog.product.attribute.ProductAttributeService;
-import com.salesmanager.core.business.services.catalog.product.relationship.ProductRelationshipService;
 import com.salesmanager.core.business.services.catalog.product.review.ProductReviewService;
-import com.salesmanager.core.business.utils.CacheUtils;
 import com.salesmanager.core.model.catalog.product.Product;
 import com.salesmanager.core.model.catalog.product.attribute.ProductAttribute;
 import com.salesmanager.core.model.catalog.product.attribute.ProductOptionDescription;
 import com.salesmanager.core.model.catalog.product.attribute.ProductOptionValue;
 import com.salesmanager.core.model.catalog.product.attribute.ProductOptionValueDescription;
 import com.salesmanager.core.model.catalog.product.price.FinalPrice;
-import com.salesmanager.core.model.catalog.product.relationship.ProductRelationship;
-import com.salesmanager.core.model.catalog.product.relationship.ProductRelationshipType;
 import com.salesmanager.core.model.catalog.product.review.ProductReview;
 import com.salesmanager.core.model.merchant.MerchantStore;
 import com.salesmanager.core.model.reference.language.Language;
@@ -65,7 +61,7 @@ public class ShopProductController {
   private ProductAttributeService productAttributeService;
 
   @Inject
-  private ProductRelationshipService productRelationshipService;
+  private ProductRelationshipCache productRelationshipCache;
 
   @Inject
   private PricingService pricingService;
@@ -76,9 +72,6 @@ public class ShopProductController {
   @Inject
   private LabelUtils messages;
 
-  @Inject
-  private CacheUtils cache;
-
   @Inject
   private CategoryService categoryService;
 
@@ -113,7 +106,6 @@ public class ShopProductController {
   }
 
 
-  @SuppressWarnings("unchecked")
   public String display(final String reference, final String friendlyUrl, Model model,
       HttpServletRequest request, HttpServletResponse response, Locale locale) throws Exception {
 
@@ -147,49 +139,10 @@ public class ShopProductController {
     request.getSession().setAttribute(Constants.BREADCRUMB, breadCrumb);
     request.setAttribute(Constants.BREADCRUMB, breadCrumb);
 
-    StringBuilder relatedItemsCacheKey = new StringBuilder();
-    relatedItemsCacheKey
-        .append(store.getId())
-        .append("_")
-        .append(Constants.RELATEDITEMS_CACHE_KEY)
-        .append("-")
-        .append(language.getCode());
-
-    StringBuilder relatedItemsMissed = new StringBuilder();
-    relatedItemsMissed
-        .append(relatedItemsCacheKey.toString())
-        .append(Constants.MISSED_CACHE_KEY);
-
-    Map<Long, List<ReadableProduct>> relatedItemsMap = null;
-    List<ReadableProduct> relatedItems = null;
-
-    if (store.isUseCache()) {
-
-      //get from the cache
-      relatedItemsMap = (Map<Long, List<ReadableProduct>>) cache
-          .getFromCache(relatedItemsCacheKey.toString());
-      if (relatedItemsMap == null) {
-        //get from missed cache
-        //Boolean missedContent = (Boolean)cache.getFromCache(relatedItemsMissed.toString());
-
-        //if(missedContent==null) {
-        relatedItems = relatedItems(store, product, language);
-        if (relatedItems != null) {
-          relatedItemsMap = new HashMap<Long, List<ReadableProduct>>();
-          relatedItemsMap.put(product.getId(), relatedItems);
-          cache.putInCache(relatedItemsMap, relatedItemsCacheKey.toString());
-        } else {
-          //cache.putInCache(new Boolean(true), relatedItemsMissed.toString());
-        }
-        //}
-      } else {
-        relatedItems = relatedItemsMap.get(product.getId());
-      }
-    } else {
-      relatedItems = relatedItems(store, product, language);
-    }
-
-    model.addAttribute("relatedProducts", relatedItems);
+    //keeps rendering nothing when there is no related item
+    List<ReadableProduct> relatedItems =
+        productRelationshipCache.getRelatedItems(store, product, language, locale);
+    model.addAttribute("relatedProducts", relatedItems.isEmpty() ? null : relatedItems);
     Set<ProductAttribute> attributes = product.getAttributes();
 
     //split read only and options
@@ -383,28 +336,5 @@ public class ShopProductController {
 
   }
 
-  private List<ReadableProduct> relatedItems(MerchantStore store, Product product,
-      Language language) throws Exception {
-
-    ReadableProductPopulator populator = new ReadableProductPopulator();
-    populator.setPricingService(pricingService);
-    populator.setimageUtils(imageUtils);
-
-    List<ProductRelationship> relatedItems = productRelationshipService
-        .getByType(store, product, ProductRelationshipType.RELATED_ITEM);
-    if (relatedItems != null && relatedItems.size() > 0) {
-      List<ReadableProduct> items = new ArrayList<ReadableProduct>();
-      for (ProductRelationship relationship : relatedItems) {
-        Product relatedProduct = relationship.getRelatedProduct();
-        ReadableProduct proxyProduct = populator
-            .populate(relatedProduct, new ReadableProduct(), store, language);
-        items.add(proxyProduct);
-      }
-      return items;
-    }
-
-    return null;
-  }
-
 
 }
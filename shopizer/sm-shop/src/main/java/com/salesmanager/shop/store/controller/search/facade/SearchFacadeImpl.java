@@ -9,12 +9,12 @@ import javax.inject.Inject;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import com.salesmanager.core.business.services.catalog.category.CategoryService;
 import com.salesmanager.core.business.services.catalog.product.PricingService;
 import com.salesmanager.core.business.services.catalog.product.ProductService;
+import com.salesmanager.core.business.services.search.ProductReindexService;
 import com.salesmanager.core.business.services.search.SearchService;
 import com.salesmanager.core.business.utils.CoreConfiguration;
 import com.salesmanager.core.model.catalog.category.Category;
@@ -48,6 +48,9 @@ public class SearchFacadeImpl implements SearchFacade {
   @Inject
   private ProductService productService;
 
+  @Inject
+  private ProductReindexService productReindexService;
+
   @Inject
   private CategoryService categoryService;
 
@@ -67,19 +70,12 @@ public class SearchFacadeImpl implements SearchFacade {
   private final static int AUTOCOMPLETE_ENTRIES_COUNT = 15;
 
   /**
-   * Index all products from the catalogue Better stop the system, remove ES indexex manually
-   * restart ES and run this query
+   * Index all products from the catalogue in new indices, searches keep using the current indices
+   * until the new ones are complete
    */
   @Override
-  @Async
   public void indexAllData(MerchantStore store) throws Exception {
-
-    List<Product> products = productService.listByStore(store);
-
-    for (Product product : products) {
-      searchService.index(store, product);
-    }
-
+    productReindexService.start(store);
   }
 
   @Override
@@ -46,7 +46,7 @@ public class MiniCartController extends AbstractController {
 
     try {
       MerchantStore merchantStore = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
-      Customer customer = getSessionAttribute(Constants.CUSTOMER, request);
+      Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
       ShoppingCartData cart = shoppingCartFacade
           .getShoppingCartData(customer, merchantStore, shoppingCartCode, language);
       if (cart != null) {
@@ -134,9 +134,9 @@ public class ShoppingCartController extends AbstractController {
     ShoppingCartData shoppingCart = null;
 
     //Look in the HttpSession to see if a customer is logged in
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
     Language language = (Language) request.getAttribute(Constants.LANGUAGE);
-    Customer customer = getSessionAttribute(Constants.CUSTOMER, request);
+    Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
 
     if (customer != null) {
       com.salesmanager.core.model.shoppingcart.ShoppingCart customerCart = shoppingCartService
@@ -217,7 +217,7 @@ public class ShoppingCartController extends AbstractController {
     request.setAttribute(Constants.REQUEST_PAGE_INFORMATION, pageInformation);
 
     MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
-    Customer customer = getSessionAttribute(Constants.CUSTOMER, request);
+    Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
 
     /** there must be a cart in the session **/
     String cartCode = (String) request.getSession().getAttribute(Constants.SHOPPING_CART);
@@ -277,7 +277,7 @@ public class ShoppingCartController extends AbstractController {
       throws Exception {
 
     MerchantStore merchantStore = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
-    Customer customer = getSessionAttribute(Constants.CUSTOMER, request);
+    Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
 
     Language language = (Language) request.getAttribute(Constants.LANGUAGE);
 
@@ -351,9 +351,9 @@ public class ShoppingCartController extends AbstractController {
 
     //store the shopping cart in the http session
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
     Language language = (Language) request.getAttribute(Constants.LANGUAGE);
-    Customer customer = getSessionAttribute(Constants.CUSTOMER, request);
+    Customer customer = (Customer) request.getAttribute(Constants.CUSTOMER);
 
     /** there must be a cart in the session **/
     String cartCode = (String) request.getSession().getAttribute(Constants.SHOPPING_CART);
@@ -392,7 +392,7 @@ public class ShoppingCartController extends AbstractController {
 
     AjaxResponse ajaxResponse = new AjaxResponse();
 
-    MerchantStore store = getSessionAttribute(Constants.MERCHANT_STORE, request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
     Language language = (Language) request.getAttribute(Constants.LANGUAGE);
 
     String cartCode = (String) request.getSession().getAttribute(Constants.SHOPPING_CART);
@@ -0,0 +1,346 @@
+package com.salesmanager.shop.store.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.salesmanager.core.business.exception.ServiceException;
+import com.salesmanager.core.business.services.system.RevokedTokenService;
+import com.salesmanager.core.model.system.RevokedToken;
+
+/**
+ * Principals of verified JWT tokens. A token is parsed, its signature checked and its user loaded
+ * with permissions once, following requests bearing the same token are authenticated from memory
+ * until the token expires or jwt.principal.cache.ttl seconds passed.
+ *
+ * Entries of a user are dropped when the user changes (password, groups, profile, deletion). The
+ * cache is bounded to jwt.principal.cache.size tokens, least recently used first out.
+ *
+ * Tokens logged out are saved as revoked tokens and kept apart from the cache, they are refused
+ * until their expiration. Changed users are saved along, as revoked tokens of digest ALL. Other
+ * instances read both every jwt.revocation.refresh milliseconds. Tokens are kept by their SHA-256
+ * digest.
+ */
+@Component
+public class JWTPrincipalCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JWTPrincipalCache.class);
+
+  public static final String CUSTOMER = "customer";
+  public static final String ADMIN = "admin";
+
+  //revocations of other instances saved during a refresh may carry an earlier date
+  private static final long CLOCK_SKEW = 60000;//ms
+  private static final long PURGE_INTERVAL = 3600000;//ms
+
+  @Inject
+  private RevokedTokenService revokedTokenService;
+
+  private final int maxSize;
+  private final long ttl;
+
+  //realm:digest -> principal, access order
+  private final LinkedHashMap<String, Entry> entries;
+  //realm:username -> realm:digest
+  private final Map<String, Set<String>> tokens = new HashMap<String, Set<String>>();
+
+  //realm:digest -> expiration, never evicted before the expiration
+  private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<String, Long>();
+  //ids of the changed users already applied -> expiration, each is applied once
+  private final ConcurrentMap<Long, Long> invalidations = new ConcurrentHashMap<Long, Long>();
+  //refresh thread only
+  private long lastRefresh = 0;
+  private long lastPurge = 0;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public JWTPrincipalCache(@Value("${jwt.principal.cache.size:10000}") int maxSize,
+      @Value("${jwt.principal.cache.ttl:300}") long ttlSeconds) {
+    this.maxSize = maxSize;
+    this.ttl = ttlSeconds * 1000;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > JWTPrincipalCache.this.maxSize) {
+          unindex(eldest.getKey(), eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * User of a token already verified, null when the token has to be verified again
+   */
+  public UserDetails get(String realm, String token) {
+    if (maxSize <= 0 || token == null) {
+      return null;
+    }
+    String key = key(realm, digest(token));
+    if (isRevoked(key)) {
+      misses.incrementAndGet();
+      return null;
+    }
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (entry.expires > System.currentTimeMillis()) {
+          hits.incrementAndGet();
+          return entry.user;
+        } else {
+          remove(key);
+        }
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * A token verified for a user, kept until the token expiration at most
+   */
+  public void put(String realm, String token, UserDetails user, Date expiration) {
+    if (maxSize <= 0 || token == null || user == null) {
+      return;
+    }
+    long expires = System.currentTimeMillis() + ttl;
+    if (expiration != null) {
+      expires = Math.min(expires, expiration.getTime());
+    }
+    String key = key(realm, digest(token));
+    synchronized (this) {
+      if (isRevoked(key)) {
+        return;
+      }
+      add(key, new Entry(key(realm, user.getUsername()), user, expires));
+    }
+  }
+
+  /**
+   * Logout, the token is refused by all instances until its expiration
+   */
+  public void revoke(String realm, String token, String username, Date expiration)
+      throws ServiceException {
+    if (token == null || expiration == null || expiration.getTime() < System.currentTimeMillis()) {
+      return;
+    }
+    String digest = digest(token);
+    addRevocation(key(realm, digest), expiration.getTime());
+    revokedTokenService.revoke(realm, digest, username, expiration);
+  }
+
+  /**
+   * True when the token has been logged out
+   */
+  public boolean isRevoked(String realm, String token) {
+    return token != null && isRevoked(key(realm, digest(token)));
+  }
+
+  /**
+   * Reads the tokens revoked by other instances and forgets the expired ones
+   */
+  @Scheduled(fixedDelayString = "${jwt.revocation.refresh:5000}")
+  public void refreshRevocations() {
+    long now = System.currentTimeMillis();
+    try {
+      //all revocations not expired on the first refresh
+      Date since = new Date(lastRefresh == 0 ? 0 : lastRefresh - CLOCK_SKEW);
+      for (RevokedToken token : revokedTokenService.getRevokedSince(since)) {
+        long expires = token.getExpirationDate().getTime();
+        if (!RevokedToken.ALL.equals(token.getTokenDigest())) {
+          addRevocation(key(token.getRealm(), token.getTokenDigest()), expires);
+        } else if (invalidations.putIfAbsent(token.getId(), expires) == null) {
+          if (RevokedToken.ALL.equals(token.getUsername())) {
+            evictAll();
+          } else {
+            evict(token.getRealm(), token.getUsername());
+          }
+        }
+      }
+      lastRefresh = now;
+
+      for (Iterator<Long> i = revoked.values().iterator(); i.hasNext(); ) {
+        if (i.next() <= now) {
+          i.remove();
+        }
+      }
+      for (Iterator<Long> i = invalidations.values().iterator(); i.hasNext(); ) {
+        if (i.next() <= now) {
+          i.remove();
+        }
+      }
+      if (now - lastPurge > PURGE_INTERVAL) {
+        lastPurge = now;
+        int count = revokedTokenService.deleteExpired();
+        LOGGER.debug("Removed " + count + " expired revoked tokens");
+      }
+    } catch (ServiceException e) {
+      LOGGER.error("Cannot read revoked tokens", e);
+    }
+  }
+
+  /**
+   * A user changed, its tokens are verified again against the database by all instances
+   */
+  public void invalidate(String realm, String username) {
+    if (username == null) {
+      return;
+    }
+    evict(realm, username);
+    share(realm, username);
+  }
+
+  /**
+   * Groups or permissions changed, all tokens are verified again by all instances
+   */
+  public void invalidateAll() {
+    evictAll();
+    share(RevokedToken.ALL, RevokedToken.ALL);
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Number of tokens logged out and not expired known to this instance
+   */
+  public int getRevokedCount() {
+    return revoked.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  private void share(String realm, String username) {
+    //principals cached by other instances are gone after the ttl, read until then
+    long expires = System.currentTimeMillis() + ttl + CLOCK_SKEW;
+    try {
+      RevokedToken invalidation =
+          revokedTokenService.invalidate(realm, username, new Date(expires));
+      invalidations.put(invalidation.getId(), expires);
+    } catch (ServiceException e) {
+      LOGGER.error("Cannot share the change of " + realm + " " + username, e);
+    }
+  }
+
+  private synchronized void evict(String realm, String username) {
+    Set<String> keys = tokens.remove(key(realm, username));
+    if (keys == null) {
+      return;
+    }
+    for (String key : keys) {
+      entries.remove(key);
+    }
+    LOGGER.debug("Invalidated cached tokens of " + realm + " " + username);
+  }
+
+  private synchronized void evictAll() {
+    entries.clear();
+    tokens.clear();
+  }
+
+  private synchronized void add(String key, Entry entry) {
+    Entry previous = entries.put(key, entry);
+    if (previous != null) {
+      unindex(key, previous);
+    }
+    Set<String> keys = tokens.get(entry.username);
+    if (keys == null) {
+      keys = new HashSet<String>();
+      tokens.put(entry.username, keys);
+    }
+    keys.add(key);
+  }
+
+  private boolean isRevoked(String key) {
+    Long expires = revoked.get(key);
+    return expires != null && expires > System.currentTimeMillis();
+  }
+
+  private void addRevocation(String key, long expires) {
+    revoked.put(key, expires);
+    synchronized (this) {
+      remove(key);
+    }
+  }
+
+  private void remove(String key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      unindex(key, entry);
+    }
+  }
+
+  private void unindex(String key, Entry entry) {
+    Set<String> keys = tokens.get(entry.username);
+    if (keys != null) {
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        tokens.remove(entry.username);
+      }
+    }
+  }
+
+  private static String key(String realm, String value) {
+    return realm + ':' + value;
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Entry {
+
+    //realm:username
+    private final String username;
+    private final UserDetails user;
+    private final long expires;
+
+    Entry(String username, UserDetails user, long expires) {
+      this.username = username;
+      this.user = user;
+      this.expires = expires;
+    }
+
+  }
+
+}
@@ -69,7 +69,10 @@ public class JWTTokenUtil implements Serializable {
     return claimsResolver.apply(claims);
   }
 
-  private Claims getAllClaimsFromToken(String token) {
+  /**
+   * Parses the token and checks its signature once
+   */
+  public Claims getAllClaimsFromToken(String token) {
     return Jwts.parser()
         .setSigningKey(secret)
         .parseClaimsJws(token)
@@ -162,6 +165,17 @@ public class JWTTokenUtil implements Serializable {
     );
   }
 
+  /**
+   * Same as validateToken on claims already parsed
+   */
+  public Boolean validateToken(Claims claims, UserDetails userDetails) {
+    JWTUser user = (JWTUser) userDetails;
+    return claims.getSubject().equals(user.getUsername())
+        && !claims.getExpiration().before(DateUtil.getDate())
+        && !isCreatedBeforeLastPasswordReset(claims.getIssuedAt(),
+        user.getLastPasswordResetDate());
+  }
+
   private Date calculateExpirationDate(Date createdDate) {
     return new Date(createdDate.getTime() + expiration * 1000);
   }
@@ -15,10 +15,12 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
 import com.salesmanager.shop.store.security.JWTTokenUtil;
 import com.salesmanager.shop.store.security.common.CustomAuthenticationException;
 import com.salesmanager.shop.store.security.common.CustomAuthenticationManager;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 
 @Component("jwtCustomCustomerAuthenticationManager")
@@ -30,6 +32,9 @@ public class JWTCustomerAuthenticationManager extends CustomAuthenticationManage
   @Inject
   private JWTTokenUtil jwtTokenUtil;
 
+  @Inject
+  private JWTPrincipalCache principalCache;
+
   @Inject
   private UserDetailsService jwtCustomerDetailsService;
 
@@ -39,41 +44,57 @@ public class JWTCustomerAuthenticationManager extends CustomAuthenticationManage
       throws AuthenticationException {
 
     final String requestHeader = request.getHeader(super.getTokenHeader());//token
-    String username = null;
     String authToken = null;
     if (requestHeader != null && requestHeader.startsWith("Bearer ")) {//Bearer
       authToken = requestHeader.substring(7);
+    } else {
+      throw new CustomAuthenticationException("No Bearer token found in the request");
+    }
+
+    UsernamePasswordAuthenticationToken authentication = null;
+
+    if (SecurityContextHolder.getContext().getAuthentication() != null) {
+      return authentication;
+    }
+
+    //token already verified
+    UserDetails userDetails = principalCache.get(JWTPrincipalCache.CUSTOMER, authToken);
+
+    if (userDetails == null) {
+
+      if (principalCache.isRevoked(JWTPrincipalCache.CUSTOMER, authToken)) {
+        logger.info("token has been logged out");
+        return authentication;
+      }
+
+      Claims claims = null;
       try {
-        username = jwtTokenUtil.getUsernameFromToken(authToken);
+        claims = jwtTokenUtil.getAllClaimsFromToken(authToken);
       } catch (IllegalArgumentException e) {
         logger.error("an error occured during getting username from token", e);
       } catch (ExpiredJwtException e) {
         logger.warn("the token is expired and not valid anymore", e);
       }
-    } else {
-      throw new CustomAuthenticationException("No Bearer token found in the request");
-    }
 
-    UsernamePasswordAuthenticationToken authentication = null;
+      if (claims == null || claims.getSubject() == null) {
+        return authentication;
+      }
 
-    logger.info("checking authentication for user " + username);
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-      // It is not compelling necessary to load the use details from the database. You could also store the information
-      // in the token and read it from it. It's up to you ;)
-      UserDetails userDetails = this.jwtCustomerDetailsService.loadUserByUsername(username);
-
-      // For simple validation it is completely sufficient to just check the token integrity. You don't have to call
-      // the database compellingly. Again it's up to you ;)
-      if (userDetails != null && jwtTokenUtil.validateToken(authToken, userDetails)) {
-        authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
-            userDetails.getAuthorities());
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        logger.info("authenticated user " + username + ", setting security context");
-        //SecurityContextHolder.getContext().setAuthentication(authentication);
+      logger.info("checking authentication for user " + claims.getSubject());
+      userDetails = this.jwtCustomerDetailsService.loadUserByUsername(claims.getSubject());
+
+      if (userDetails == null || !jwtTokenUtil.validateToken(claims, userDetails)) {
+        return authentication;
       }
+      principalCache.put(JWTPrincipalCache.CUSTOMER, authToken, userDetails,
+          claims.getExpiration());
     }
 
+    authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
+        userDetails.getAuthorities());
+    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+    logger.debug("authenticated user " + userDetails.getUsername() + ", setting security context");
+
     return authentication;
   }
 
@@ -44,7 +44,7 @@ public class BreadcrumbsUtils {
     home.setUrl(filePathUtils.buildStoreUri(store, contextPath) + Constants.SHOP_URI);
 
     Breadcrumb breadCrumb = new Breadcrumb();
-    breadCrumb.setLanguage(language);
+    breadCrumb.setLanguageCode(language.getCode());
 
     List<BreadcrumbItem> items = new ArrayList<BreadcrumbItem>();
     items.add(home);
@@ -93,7 +93,7 @@ public class BreadcrumbsUtils {
     home.setUrl(filePathUtils.buildStoreUri(store, contextPath) + Constants.SHOP_URI);
 
     Breadcrumb breadCrumb = new Breadcrumb();
-    breadCrumb.setLanguage(language);
+    breadCrumb.setLanguageCode(language.getCode());
 
     List<BreadcrumbItem> items = new ArrayList<BreadcrumbItem>();
     items.add(home);
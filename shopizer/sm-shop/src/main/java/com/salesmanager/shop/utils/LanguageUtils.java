@@ -25,9 +25,14 @@ public class LanguageUtils {
 
   protected final Log logger = LogFactory.getLog(getClass());
 
+  private static final String ACCEPT_LANGUAGE = "Accept-Language";
+
   @Inject
   LanguageService languageService;
 
+  @Inject
+  private SessionStateUtils sessionState;
+
   public Language getServiceLanguage(String lang) {
     Language l = null;
     if (!StringUtils.isBlank(lang)) {
@@ -52,9 +57,15 @@ public class LanguageUtils {
 
     Locale locale = null;
 
-    Language language = (Language) request.getSession().getAttribute(Constants.LANGUAGE);
-    MerchantStore store = (MerchantStore) request.getSession()
-        .getAttribute(Constants.MERCHANT_STORE);
+    Language language = sessionState.getLanguage(request);
+    MerchantStore store = (MerchantStore) request.getAttribute(Constants.MERCHANT_STORE);
+    if (store == null) {
+      try {
+        store = sessionState.getStore(request);
+      } catch (Exception e) {
+        logger.error("Cannot get the store of the session", e);
+      }
+    }
 
     if (language == null) {
       try {
@@ -68,12 +79,12 @@ public class LanguageUtils {
             if (locale != null) {
               LocaleContextHolder.setLocale(locale);
             }
-            request.getSession().setAttribute(Constants.LANGUAGE, language);
+            sessionState.setLanguage(request, language);
           }
 
           if (language == null) {
             language = languageService.toLanguage(locale);
-            request.getSession().setAttribute(Constants.LANGUAGE, language);
+            sessionState.setLanguage(request, language);
           }
 
         }
@@ -107,13 +118,15 @@ public class LanguageUtils {
       localeResolver.setLocale(request, response, locale);
     }
     response.setLocale(locale);
-    request.getSession().setAttribute(Constants.LANGUAGE, language);
+    sessionState.setLanguage(request, language);
 
     return language;
   }
 
   /**
-   * Should be used by rest web services
+   * Should be used by rest web services. The language comes from the lang parameter, then from the
+   * Accept-Language header, then from the store, never from the http session. A language the store
+   * does not support is ignored
    */
   public Language getRESTLanguage(HttpServletRequest request, MerchantStore store)
       throws Exception {
@@ -124,32 +137,40 @@ public class LanguageUtils {
     Language language = null;
 
     String lang = request.getParameter(Constants.LANG);
+    if (!StringUtils.isBlank(lang)) {
+      language = getStoreLanguage(store, lang);
+    }
 
-    if (StringUtils.isBlank(lang)) {
-      //try with HttpSession
-      language = (Language) request.getSession().getAttribute(Constants.LANGUAGE);
-      if (language == null) {
-        language = store.getDefaultLanguage();
+    if (language == null && !StringUtils.isBlank(request.getHeader(ACCEPT_LANGUAGE))) {
+      Locale locale = request.getLocale();
+      if (locale != null && !StringUtils.isBlank(locale.getLanguage())) {
+        language = getStoreLanguage(store, locale.getLanguage());
       }
+    }
 
-      if (language == null) {
-        language = languageService.defaultLanguage();
-      }
-    } else {
-      language = languageService.getByCode(lang);
-      if (language == null) {
-        language = (Language) request.getSession().getAttribute(Constants.LANGUAGE);
-        if (language == null) {
-          language = store.getDefaultLanguage();
-        }
+    if (language == null) {
+      language = store.getDefaultLanguage();
+    }
 
-        if (language == null) {
-          language = languageService.defaultLanguage();
-        }
-      }
+    if (language == null) {
+      language = languageService.defaultLanguage();
     }
 
     return language;
   }
 
+  /**
+   * Language of the store having a given code, null when the store does not support it
+   */
+  private Language getStoreLanguage(MerchantStore store, String code) {
+    if (store.getLanguages() != null) {
+      for (Language language : store.getLanguages()) {
+        if (language.getCode().equalsIgnoreCase(code)) {
+          return language;
+        }
+      }
+    }
+    return null;
+  }
+
 }
@@ -0,0 +1,145 @@
+package com.salesmanager.shop.utils;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Live http sessions of this instance and their size once serialized, what replicating or
+ * storing them outside of the instance would cost. Sizes are measured on demand only
+ */
+@Component
+public class SessionSizeMetrics implements HttpSessionListener {
+
+  private final ConcurrentMap<String, HttpSession> sessions =
+      new ConcurrentHashMap<String, HttpSession>();
+
+  @Override
+  public void sessionCreated(HttpSessionEvent se) {
+    sessions.put(se.getSession().getId(), se.getSession());
+  }
+
+  @Override
+  public void sessionDestroyed(HttpSessionEvent se) {
+    sessions.remove(se.getSession().getId());
+  }
+
+  /**
+   * Serializes the attributes of all the live sessions
+   */
+  public Snapshot measure() {
+    Snapshot snapshot = new Snapshot();
+    for (HttpSession session : sessions.values()) {
+      long size = 0;
+      try {
+        Enumeration<String> names = session.getAttributeNames();
+        while (names.hasMoreElements()) {
+          String name = names.nextElement();
+          long bytes = serializedSize(session.getAttribute(name));
+          if (bytes < 0) {
+            snapshot.notSerializable.put(name, count(snapshot.notSerializable.get(name)) + 1);
+            continue;
+          }
+          size += bytes;
+          snapshot.attributeBytes.put(name, count(snapshot.attributeBytes.get(name)) + bytes);
+        }
+      } catch (IllegalStateException e) {
+        //invalidated meanwhile
+        continue;
+      }
+      snapshot.sessions++;
+      snapshot.totalBytes += size;
+      snapshot.maxBytes = Math.max(snapshot.maxBytes, size);
+    }
+    return snapshot;
+  }
+
+  private static long count(Long value) {
+    return value == null ? 0 : value.longValue();
+  }
+
+  /**
+   * Bytes of the serialized object, -1 when it cannot be serialized
+   */
+  static long serializedSize(Object value) {
+    CountingOutputStream counter = new CountingOutputStream();
+    try {
+      ObjectOutputStream out = new ObjectOutputStream(counter);
+      out.writeObject(value);
+      out.close();
+      return counter.count;
+    } catch (IOException e) {
+      return -1;
+    } catch (RuntimeException e) {
+      //lazy associations of detached entities
+      return -1;
+    }
+  }
+
+  public static class Snapshot {
+
+    private int sessions;
+    private long totalBytes;
+    private long maxBytes;
+    private final Map<String, Long> attributeBytes = new TreeMap<String, Long>();
+    private final Map<String, Long> notSerializable = new TreeMap<String, Long>();
+
+    public int getSessions() {
+      return sessions;
+    }
+
+    public long getTotalBytes() {
+      return totalBytes;
+    }
+
+    public long getAverageBytes() {
+      return sessions == 0 ? 0 : totalBytes / sessions;
+    }
+
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+
+    /**
+     * Serialized bytes of each attribute, all sessions together
+     */
+    public Map<String, Long> getAttributeBytes() {
+      return Collections.unmodifiableMap(attributeBytes);
+    }
+
+    /**
+     * Sessions holding an attribute that cannot be serialized, by attribute
+     */
+    public Map<String, Long> getNotSerializable() {
+      return Collections.unmodifiableMap(notSerializable);
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+
+}
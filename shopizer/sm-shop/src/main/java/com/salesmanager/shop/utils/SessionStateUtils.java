@@ -0,0 +1,254 @@
+package com.salesmanager.shop.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.salesmanager.core.business.services.customer.CustomerService;
+import com.salesmanager.core.business.services.merchant.MerchantStoreService;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.business.services.reference.language.LanguageService;
+import com.salesmanager.core.model.customer.Customer;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.core.model.reference.language.Language;
+import com.salesmanager.shop.constants.Constants;
+import com.salesmanager.shop.model.shop.SessionState;
+
+/**
+ * Keeps the store code, the customer id and the language code of a shopper in the http session
+ * ({@link SessionState}) instead of the entities. Stores are kept in memory by code until the
+ * store version changes, customers by id for session.customer.cache.ttl seconds, languages come
+ * from the language list of LanguageService.
+ *
+ * Stores and customers are kept serialized, each call gets its own detached copy so that a request
+ * changing it does not change what other requests see
+ */
+@Component
+public class SessionStateUtils {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionStateUtils.class);
+
+  @Inject
+  private MerchantStoreService merchantStoreService;
+
+  @Inject
+  private StoreVersionService storeVersionService;
+
+  @Inject
+  private CustomerService customerService;
+
+  @Inject
+  private LanguageService languageService;
+
+  private final int maxCustomers;
+  private final long customerTtl;
+
+  private final ConcurrentMap<String, CachedStore> stores =
+      new ConcurrentHashMap<String, CachedStore>();
+
+  //customer id -> customer, access order
+  private final LinkedHashMap<Long, CachedCustomer> customers;
+
+  public SessionStateUtils(@Value("${session.customer.cache.size:5000}") int maxCustomers,
+      @Value("${session.customer.cache.ttl:60}") long customerTtlSeconds) {
+    this.maxCustomers = maxCustomers;
+    this.customerTtl = customerTtlSeconds * 1000;
+    this.customers = new LinkedHashMap<Long, CachedCustomer>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, CachedCustomer> eldest) {
+        return size() > SessionStateUtils.this.maxCustomers;
+      }
+    };
+  }
+
+  /**
+   * State of the session, null when there is no session or nothing was kept yet
+   */
+  public SessionState getState(HttpServletRequest request) {
+    HttpSession session = request.getSession(false);
+    if (session == null) {
+      return null;
+    }
+    return (SessionState) session.getAttribute(Constants.SESSION_STATE);
+  }
+
+  /**
+   * Store of the session, null when none was chosen or it does not exist anymore
+   */
+  public MerchantStore getStore(HttpServletRequest request) throws Exception {
+    SessionState state = getState(request);
+    if (state == null || StringUtils.isBlank(state.getStoreCode())) {
+      return null;
+    }
+    return getStore(state.getStoreCode());
+  }
+
+  public void setStore(HttpServletRequest request, MerchantStore store) {
+    SessionState state = state(request);
+    state.setStoreCode(store == null ? null : store.getCode());
+    save(request, state);
+  }
+
+  /**
+   * Store by code, loaded again once the store version changed
+   */
+  public MerchantStore getStore(String code) throws Exception {
+    CachedStore cached = stores.get(code);
+    Integer knownId = cached == null ? null : cached.id;
+    long version = knownId == null ? -1 : storeVersionService.getVersion(knownId);
+    if (cached != null && cached.version == version) {
+      return SerializationUtils.deserialize(cached.store);
+    }
+
+    //version read before the store, a change while loading loads it again
+    MerchantStore store = merchantStoreService.getByCode(code);
+    if (store == null) {
+      stores.remove(code);
+      return null;
+    }
+    if (!store.getId().equals(knownId)) {
+      version = storeVersionService.getVersion(store.getId());
+    }
+    stores.put(code, new CachedStore(version, store));
+    //the cache keeps its own copy, this one can be returned
+    return store;
+  }
+
+  /**
+   * Customer of the session, null when anonymous or the customer does not exist anymore
+   */
+  public Customer getCustomer(HttpServletRequest request) {
+    SessionState state = getState(request);
+    if (state == null || state.getCustomerId() == null) {
+      return null;
+    }
+    Long id = state.getCustomerId();
+    long now = System.currentTimeMillis();
+    synchronized (customers) {
+      CachedCustomer cached = customers.get(id);
+      if (cached != null && cached.expires > now) {
+        return SerializationUtils.deserialize(cached.customer);
+      }
+    }
+    Customer customer = customerService.getById(id);
+    if (customer == null) {
+      removeCustomer(request);
+      return null;
+    }
+    putCustomer(customer);
+    return customer;
+  }
+
+  /**
+   * Keeps the customer id in the session and the customer in memory, after a login or a change
+   */
+  public void setCustomer(HttpServletRequest request, Customer customer) {
+    SessionState state = state(request);
+    state.setCustomerId(customer.getId());
+    save(request, state);
+    putCustomer(customer);
+  }
+
+  public void removeCustomer(HttpServletRequest request) {
+    SessionState state = getState(request);
+    if (state != null && state.getCustomerId() != null) {
+      evictCustomer(state.getCustomerId());
+      state.setCustomerId(null);
+      save(request, state);
+    }
+  }
+
+  /**
+   * Drops a customer changed elsewhere, such as from the administration
+   */
+  public void evictCustomer(Long customerId) {
+    synchronized (customers) {
+      customers.remove(customerId);
+    }
+  }
+
+  /**
+   * Language of the session, null when none was chosen
+   */
+  public Language getLanguage(HttpServletRequest request) {
+    SessionState state = getState(request);
+    if (state == null || StringUtils.isBlank(state.getLanguageCode())) {
+      return null;
+    }
+    try {
+      return languageService.getLanguagesMap().get(state.getLanguageCode());
+    } catch (Exception e) {
+      LOGGER.error("Cannot get language " + state.getLanguageCode(), e);
+      return null;
+    }
+  }
+
+  public void setLanguage(HttpServletRequest request, Language language) {
+    SessionState state = state(request);
+    String code = language == null ? null : language.getCode();
+    if (!StringUtils.equals(code, state.getLanguageCode())) {
+      state.setLanguageCode(code);
+      save(request, state);
+    }
+  }
+
+  private void putCustomer(Customer customer) {
+    if (maxCustomers <= 0 || customer.getId() == null) {
+      return;
+    }
+    CachedCustomer cached =
+        new CachedCustomer(customer, System.currentTimeMillis() + customerTtl);
+    synchronized (customers) {
+      customers.put(customer.getId(), cached);
+    }
+  }
+
+  private SessionState state(HttpServletRequest request) {
+    SessionState state = (SessionState) request.getSession().getAttribute(Constants.SESSION_STATE);
+    return state == null ? new SessionState() : state;
+  }
+
+  private void save(HttpServletRequest request, SessionState state) {
+    //set again so that replicated sessions see the change
+    request.getSession().setAttribute(Constants.SESSION_STATE, state);
+  }
+
+  private static class CachedStore {
+
+    private final long version;
+    private final Integer id;
+    private final byte[] store;
+
+    CachedStore(long version, MerchantStore store) {
+      this.version = version;
+      this.id = store.getId();
+      this.store = SerializationUtils.serialize(store);
+    }
+  }
+
+  private static class CachedCustomer {
+
+    private final byte[] customer;
+    private final long expires;
+
+    CachedCustomer(Customer customer, long expires) {
+      this.customer = SerializationUtils.serialize(customer);
+      this.expires = expires;
+    }
+  }
+
+}
@@ -0,0 +1,142 @@
+package com.salesmanager.test.shop.security;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.services.system.RevokedTokenService;
+import com.salesmanager.core.model.system.RevokedToken;
+import com.salesmanager.shop.store.security.JWTPrincipalCache;
+
+/**
+ * Test
+ *
+ * - A user changed on an instance drops the tokens cached by the other instances
+ * - A change of groups drops all the tokens cached by the other instances
+ * - A logout on an instance is refused by the other instances
+ */
+public class JWTPrincipalCacheTest {
+
+  private static final Date EXPIRATION = new Date(System.currentTimeMillis() + 3600000);
+
+  private List<RevokedToken> table;
+  private JWTPrincipalCache first;
+  private JWTPrincipalCache second;
+  private UserDetails user;
+
+  @Before
+  public void setUp() {
+
+    table = new ArrayList<RevokedToken>();
+
+    RevokedTokenService service = (RevokedTokenService) Proxy.newProxyInstance(
+        RevokedTokenService.class.getClassLoader(), new Class<?>[] {RevokedTokenService.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("revoke".equals(method.getName())) {
+              return save((String) args[0], (String) args[1], (String) args[2], (Date) args[3]);
+            }
+            if ("invalidate".equals(method.getName())) {
+              return save((String) args[0], RevokedToken.ALL, (String) args[1], (Date) args[2]);
+            }
+            if ("getRevokedSince".equals(method.getName())) {
+              List<RevokedToken> tokens = new ArrayList<RevokedToken>();
+              for (RevokedToken token : table) {
+                if (!token.getRevocationDate().before((Date) args[0])) {
+                  tokens.add(token);
+                }
+              }
+              return tokens;
+            }
+            if ("deleteExpired".equals(method.getName())) {
+              return 0;
+            }
+            if ("toString".equals(method.getName())) {
+              return "RevokedTokenService";
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    first = new JWTPrincipalCache(100, 300);
+    second = new JWTPrincipalCache(100, 300);
+    ReflectionTestUtils.setField(first, "revokedTokenService", service);
+    ReflectionTestUtils.setField(second, "revokedTokenService", service);
+
+    user = new User("admin", "password", Collections.<GrantedAuthority>emptyList());
+  }
+
+  @Test
+  public void userChangedOnAnotherInstance() {
+
+    second.put(JWTPrincipalCache.ADMIN, "token", user, EXPIRATION);
+    second.put(JWTPrincipalCache.ADMIN, "other", new User("other", "password",
+        Collections.<GrantedAuthority>emptyList()), EXPIRATION);
+    second.refreshRevocations();
+    Assert.assertNotNull(second.get(JWTPrincipalCache.ADMIN, "token"));
+
+    first.invalidate(JWTPrincipalCache.ADMIN, "admin");
+    Assert.assertNotNull(second.get(JWTPrincipalCache.ADMIN, "token"));
+
+    second.refreshRevocations();
+    Assert.assertNull(second.get(JWTPrincipalCache.ADMIN, "token"));
+    Assert.assertNotNull(second.get(JWTPrincipalCache.ADMIN, "other"));
+
+    //applied once, the token verified again stays cached
+    second.put(JWTPrincipalCache.ADMIN, "token", user, EXPIRATION);
+    second.refreshRevocations();
+    Assert.assertNotNull(second.get(JWTPrincipalCache.ADMIN, "token"));
+  }
+
+  @Test
+  public void groupsChangedOnAnotherInstance() {
+
+    second.put(JWTPrincipalCache.ADMIN, "token", user, EXPIRATION);
+    second.put(JWTPrincipalCache.CUSTOMER, "customer", user, EXPIRATION);
+    second.refreshRevocations();
+
+    first.invalidateAll();
+    second.refreshRevocations();
+
+    Assert.assertEquals(0, second.getSize());
+  }
+
+  @Test
+  public void logoutOnAnotherInstance() throws Exception {
+
+    second.put(JWTPrincipalCache.ADMIN, "token", user, EXPIRATION);
+    second.refreshRevocations();
+
+    first.revoke(JWTPrincipalCache.ADMIN, "token", "admin", EXPIRATION);
+    second.refreshRevocations();
+
+    Assert.assertNull(second.get(JWTPrincipalCache.ADMIN, "token"));
+    Assert.assertTrue(second.isRevoked(JWTPrincipalCache.ADMIN, "token"));
+  }
+
+  private RevokedToken save(String realm, String digest, String username, Date expiration) {
+    RevokedToken token = new RevokedToken();
+    token.setId((long) table.size() + 1);
+    token.setRealm(realm);
+    token.setTokenDigest(digest);
+    token.setUsername(username);
+    token.setRevocationDate(new Date());
+    token.setExpirationDate(expiration);
+    table.add(token);
+    return token;
+  }
+
+}
@@ -0,0 +1,172 @@
+package com.salesmanager.test.shop.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.salesmanager.core.business.services.customer.CustomerService;
+import com.salesmanager.core.business.services.merchant.MerchantStoreService;
+import com.salesmanager.core.business.services.merchant.StoreVersionService;
+import com.salesmanager.core.model.common.Billing;
+import com.salesmanager.core.model.customer.Customer;
+import com.salesmanager.core.model.merchant.MerchantStore;
+import com.salesmanager.shop.utils.SessionStateUtils;
+
+/**
+ * Test
+ *
+ * - Each request gets its own copy of the cached store and customer
+ * - A change made by a request is not seen by the others
+ * - Stores are loaded again once the store version changed
+ */
+public class SessionStateUtilsTest {
+
+  private SessionStateUtils sessionState;
+  private AtomicInteger storeLoads;
+  private AtomicInteger customerLoads;
+  private AtomicLong version;
+  private MockHttpSession session;
+
+  @Before
+  public void setUp() {
+
+    storeLoads = new AtomicInteger();
+    customerLoads = new AtomicInteger();
+    version = new AtomicLong();
+    session = new MockHttpSession();
+
+    sessionState = new SessionStateUtils(100, 300);
+    ReflectionTestUtils.setField(sessionState, "merchantStoreService",
+        proxy(MerchantStoreService.class, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getByCode".equals(method.getName())) {
+              storeLoads.incrementAndGet();
+              MerchantStore store = new MerchantStore();
+              store.setId(1);
+              store.setCode((String) args[0]);
+              store.setStorename("Default store");
+              return store;
+            }
+            return unsupported(method);
+          }
+        }));
+    ReflectionTestUtils.setField(sessionState, "storeVersionService",
+        proxy(StoreVersionService.class, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getVersion".equals(method.getName())) {
+              return version.get();
+            }
+            return unsupported(method);
+          }
+        }));
+    ReflectionTestUtils.setField(sessionState, "customerService",
+        proxy(CustomerService.class, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getById".equals(method.getName())) {
+              customerLoads.incrementAndGet();
+              return customer((Long) args[0]);
+            }
+            return unsupported(method);
+          }
+        }));
+  }
+
+  @Test
+  public void storeCopies() throws Exception {
+
+    MerchantStore first = sessionState.getStore("DEFAULT");
+    first.setStorename("Changed by a request");
+
+    MerchantStore second = sessionState.getStore("DEFAULT");
+    MerchantStore third = sessionState.getStore("DEFAULT");
+
+    Assert.assertEquals(1, storeLoads.get());
+    Assert.assertNotSame(second, third);
+    Assert.assertEquals("Default store", second.getStorename());
+    Assert.assertEquals(Integer.valueOf(1), second.getId());
+
+    second.setStorename("Changed by another request");
+    Assert.assertEquals("Default store", sessionState.getStore("DEFAULT").getStorename());
+
+    version.incrementAndGet();
+    sessionState.getStore("DEFAULT");
+    Assert.assertEquals(2, storeLoads.get());
+  }
+
+  @Test
+  public void customerCopies() throws Exception {
+
+    MockHttpServletRequest login = request();
+    Customer customer = customer(5L);
+    sessionState.setCustomer(login, customer);
+    customer.getBilling().setFirstName("Changed after the login");
+
+    Customer first = sessionState.getCustomer(request());
+    Customer second = sessionState.getCustomer(request());
+
+    Assert.assertEquals(0, customerLoads.get());
+    Assert.assertNotSame(first, second);
+    Assert.assertNotSame(first.getBilling(), second.getBilling());
+    Assert.assertEquals("Joe", first.getBilling().getFirstName());
+
+    first.getBilling().setFirstName("Changed by a request");
+    Assert.assertEquals("Joe", sessionState.getCustomer(request()).getBilling().getFirstName());
+  }
+
+  @Test
+  public void loadedCustomerCopies() throws Exception {
+
+    sessionState.setCustomer(request(), customer(5L));
+    sessionState.evictCustomer(5L);
+
+    Customer loaded = sessionState.getCustomer(request());
+    loaded.setNick("changed");
+    Customer cached = sessionState.getCustomer(request());
+
+    Assert.assertEquals(1, customerLoads.get());
+    Assert.assertNotSame(loaded, cached);
+    Assert.assertEquals("joe", cached.getNick());
+  }
+
+  private MockHttpServletRequest request() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setSession(session);
+    return request;
+  }
+
+  private static Customer customer(Long id) {
+    Customer customer = new Customer();
+    customer.setId(id);
+    customer.setNick("joe");
+    Billing billing = new Billing();
+    billing.setFirstName("Joe");
+    billing.setLastName("Shopper");
+    customer.setBilling(billing);
+    return customer;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+  }
+
+  private static Object unsupported(Method method) {
+    if ("toString".equals(method.getName())) {
+      return method.getDeclaringClass().getSimpleName();
+    }
+    throw new UnsupportedOperationException(method.getName());
+  }
+
+}